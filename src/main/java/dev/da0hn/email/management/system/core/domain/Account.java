@@ -26,6 +26,7 @@ public class Account implements Serializable {
     private final AccountCredentials accountCredentials;
     private final EmailConnectionDetails emailConnectionDetails;
     private final Set<Rule> rules;
+    private final RuleMatchMode ruleMatchMode;
 
     private Account(
         final UUID id,
@@ -34,7 +35,8 @@ public class Account implements Serializable {
         final LocalDateTime updatedAt,
         final AccountCredentials accountCredentials,
         final EmailConnectionDetails emailConnectionDetails,
-        final Set<Rule> rules
+        final Set<Rule> rules,
+        final RuleMatchMode ruleMatchMode
     ) {
         this.id = id;
         this.name = name;
@@ -43,6 +45,7 @@ public class Account implements Serializable {
         this.accountCredentials = accountCredentials;
         this.emailConnectionDetails = emailConnectionDetails;
         this.rules = rules;
+        this.ruleMatchMode = ruleMatchMode;
     }
 
     public static AccountBuilder builder() {
@@ -68,6 +71,7 @@ public class Account implements Serializable {
                 .protocol(input.connectionDetails().protocol())
                 .build())
             .rules(new HashSet<>())
+            .ruleMatchMode(input.ruleMatchMode())
             .build();
     }
 
@@ -79,6 +83,7 @@ public class Account implements Serializable {
         private AccountCredentials accountCredentials;
         private EmailConnectionDetails emailConnectionDetails;
         private Set<Rule> rules;
+        private RuleMatchMode ruleMatchMode;
 
         private AccountBuilder() {
             // Private constructor to enforce builder usage
@@ -119,6 +124,11 @@ public class Account implements Serializable {
             return this;
         }
 
+        public AccountBuilder ruleMatchMode(RuleMatchMode ruleMatchMode) {
+            this.ruleMatchMode = ruleMatchMode;
+            return this;
+        }
+
         public Account build() {
             validateRequiredFields();
             return new Account(
@@ -128,7 +138,8 @@ public class Account implements Serializable {
                 updatedAt,
                 accountCredentials,
                 emailConnectionDetails,
-                rules != null ? rules : new HashSet<>()
+                rules != null ? rules : new HashSet<>(),
+                ruleMatchMode != null ? ruleMatchMode : RuleMatchMode.ALL_MATCHES
             );
         }
 
@@ -170,4 +181,8 @@ public class Account implements Serializable {
         return Collections.unmodifiableSet(this.rules);
     }
 
+    public RuleMatchMode ruleMatchMode() {
+        return this.ruleMatchMode;
+    }
+
 }
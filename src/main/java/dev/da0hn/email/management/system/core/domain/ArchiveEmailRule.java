@@ -24,6 +24,19 @@ public final class ArchiveEmailRule extends Rule {
         super(id, name, description, RuleAction.ARCHIVE, criteria, createdAt, updatedAt);
     }
 
+    protected ArchiveEmailRule(
+        final UUID id,
+        final String name,
+        final String description,
+        final Set<RuleCriteria> criteria,
+        final Set<RuleCriteriaGroup> groups,
+        final int priority,
+        final LocalDateTime createdAt,
+        final LocalDateTime updatedAt
+    ) {
+        super(id, name, description, RuleAction.ARCHIVE, criteria, groups, priority, createdAt, updatedAt);
+    }
+
     @Override
     public <T> T accept(final RuleVisitor<T> visitor) {
         return visitor.visit(this);
@@ -34,9 +47,30 @@ public final class ArchiveEmailRule extends Rule {
         final String name,
         final String description,
         final Set<RuleCriteria> criteria
+    ) {
+        return newRule(id, name, description, criteria, Set.of());
+    }
+
+    public static ArchiveEmailRule newRule(
+        final UUID id,
+        final String name,
+        final String description,
+        final Set<RuleCriteria> criteria,
+        final Set<RuleCriteriaGroup> groups
+    ) {
+        return newRule(id, name, description, criteria, groups, 0);
+    }
+
+    public static ArchiveEmailRule newRule(
+        final UUID id,
+        final String name,
+        final String description,
+        final Set<RuleCriteria> criteria,
+        final Set<RuleCriteriaGroup> groups,
+        final int priority
     ) {
         final var now = LocalDateTime.now();
-        return new ArchiveEmailRule(id, name, description, criteria, now, now);
+        return new ArchiveEmailRule(id, name, description, criteria, groups, priority, now, now);
     }
 
 }
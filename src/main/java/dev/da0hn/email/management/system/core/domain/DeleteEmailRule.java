@@ -24,6 +24,19 @@ public final class DeleteEmailRule extends Rule {
         super(id, name, description, RuleAction.DELETE, criteria, createdAt, updatedAt);
     }
 
+    protected DeleteEmailRule(
+        final UUID id,
+        final String name,
+        final String description,
+        final Set<RuleCriteria> criteria,
+        final Set<RuleCriteriaGroup> groups,
+        final int priority,
+        final LocalDateTime createdAt,
+        final LocalDateTime updatedAt
+    ) {
+        super(id, name, description, RuleAction.DELETE, criteria, groups, priority, createdAt, updatedAt);
+    }
+
     @Override
     public <T> T accept(final RuleVisitor<T> visitor) {
         return visitor.visit(this);
@@ -34,9 +47,30 @@ public final class DeleteEmailRule extends Rule {
         final String name,
         final String description,
         final Set<RuleCriteria> criteria
+    ) {
+        return newRule(id, name, description, criteria, Set.of());
+    }
+
+    public static DeleteEmailRule newRule(
+        final UUID id,
+        final String name,
+        final String description,
+        final Set<RuleCriteria> criteria,
+        final Set<RuleCriteriaGroup> groups
+    ) {
+        return newRule(id, name, description, criteria, groups, 0);
+    }
+
+    public static DeleteEmailRule newRule(
+        final UUID id,
+        final String name,
+        final String description,
+        final Set<RuleCriteria> criteria,
+        final Set<RuleCriteriaGroup> groups,
+        final int priority
     ) {
         final var now = LocalDateTime.now();
-        return new DeleteEmailRule(id, name, description, criteria, now, now);
+        return new DeleteEmailRule(id, name, description, criteria, groups, priority, now, now);
     }
 
 }
@@ -0,0 +1,67 @@
+package dev.da0hn.email.management.system.core.domain;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.UUID;
+
+/**
+ * Highest UID of an account's folder already evaluated by polling, valid only while the folder keeps the same
+ * {@code UIDVALIDITY}.
+ */
+public class MailboxCheckpoint implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 4127794563098371125L;
+
+    private final UUID accountId;
+
+    private final String folder;
+
+    private final long uidValidity;
+
+    private final long lastUid;
+
+    public MailboxCheckpoint(final UUID accountId, final String folder, final long uidValidity, final long lastUid) {
+        if (lastUid < 0) throw new IllegalArgumentException("Last UID must not be negative");
+        this.accountId = accountId;
+        this.folder = folder;
+        this.uidValidity = uidValidity;
+        this.lastUid = lastUid;
+    }
+
+    public UUID accountId() {
+        return this.accountId;
+    }
+
+    public String folder() {
+        return this.folder;
+    }
+
+    public long uidValidity() {
+        return this.uidValidity;
+    }
+
+    public long lastUid() {
+        return this.lastUid;
+    }
+
+    /**
+     * Whether the UIDs of this checkpoint still identify the same messages of a folder opened with {@code uidValidity}.
+     */
+    public boolean isValidFor(final long uidValidity) {
+        return this.uidValidity == uidValidity;
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+            .append("accountId", this.accountId)
+            .append("folder", this.folder)
+            .append("uidValidity", this.uidValidity)
+            .append("lastUid", this.lastUid)
+            .toString();
+    }
+
+}
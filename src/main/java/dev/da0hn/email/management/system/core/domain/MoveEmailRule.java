@@ -28,7 +28,22 @@ public final class MoveEmailRule extends Rule {
         final LocalDateTime createdAt,
         final LocalDateTime updatedAt
     ) {
-        super(id, name, description, RuleAction.MOVE, criteria, createdAt, updatedAt);
+        this(id, name, description, sourceFolder, targetFolder, criteria, Set.of(), 0, createdAt, updatedAt);
+    }
+
+    protected MoveEmailRule(
+        final UUID id,
+        final String name,
+        final String description,
+        final String sourceFolder,
+        final String targetFolder,
+        final Set<RuleCriteria> criteria,
+        final Set<RuleCriteriaGroup> groups,
+        final int priority,
+        final LocalDateTime createdAt,
+        final LocalDateTime updatedAt
+    ) {
+        super(id, name, description, RuleAction.MOVE, criteria, groups, priority, createdAt, updatedAt);
         this.sourceFolder = sourceFolder;
         this.targetFolder = targetFolder;
     }
@@ -61,9 +76,34 @@ public final class MoveEmailRule extends Rule {
         final String sourceFolder,
         final String targetFolder,
         final Set<RuleCriteria> criteria
+    ) {
+        return newRule(id, name, description, sourceFolder, targetFolder, criteria, Set.of());
+    }
+
+    public static MoveEmailRule newRule(
+        final UUID id,
+        final String name,
+        final String description,
+        final String sourceFolder,
+        final String targetFolder,
+        final Set<RuleCriteria> criteria,
+        final Set<RuleCriteriaGroup> groups
+    ) {
+        return newRule(id, name, description, sourceFolder, targetFolder, criteria, groups, 0);
+    }
+
+    public static MoveEmailRule newRule(
+        final UUID id,
+        final String name,
+        final String description,
+        final String sourceFolder,
+        final String targetFolder,
+        final Set<RuleCriteria> criteria,
+        final Set<RuleCriteriaGroup> groups,
+        final int priority
     ) {
         final var now = LocalDateTime.now();
-        return new MoveEmailRule(id, name, description, sourceFolder, targetFolder, criteria, now, now);
+        return new MoveEmailRule(id, name, description, sourceFolder, targetFolder, criteria, groups, priority, now, now);
     }
 
     public static MoveEmailRule updateRule(
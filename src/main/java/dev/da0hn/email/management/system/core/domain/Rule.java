@@ -29,6 +29,10 @@ public abstract sealed class Rule implements Serializable permits ArchiveEmailRu
 
     private final Set<RuleCriteria> criteria;
 
+    private final Set<RuleCriteriaGroup> groups;
+
+    private final int priority;
+
     private final LocalDateTime createdAt;
 
     private final LocalDateTime updatedAt;
@@ -41,12 +45,28 @@ public abstract sealed class Rule implements Serializable permits ArchiveEmailRu
         final Set<RuleCriteria> criteria,
         final LocalDateTime createdAt,
         final LocalDateTime updatedAt
+    ) {
+        this(id, name, description, action, criteria, Set.of(), 0, createdAt, updatedAt);
+    }
+
+    protected Rule(
+        final UUID id,
+        final String name,
+        final String description,
+        final RuleAction action,
+        final Set<RuleCriteria> criteria,
+        final Set<RuleCriteriaGroup> groups,
+        final int priority,
+        final LocalDateTime createdAt,
+        final LocalDateTime updatedAt
     ) {
         this.id = id;
         this.name = name;
         this.description = description;
         this.action = action;
         this.criteria = new HashSet<>(criteria);
+        this.groups = groups == null ? new HashSet<>() : new HashSet<>(groups);
+        this.priority = priority;
         this.createdAt = createdAt;
         this.updatedAt = updatedAt;
     }
@@ -71,10 +91,35 @@ public abstract sealed class Rule implements Serializable permits ArchiveEmailRu
         return this.action;
     }
 
+    /**
+     * Criteria that must all hold; the rule matches when these and every {@link #groups() group} hold.
+     */
     public Set<RuleCriteria> criteria() {
         return Collections.unmodifiableSet(this.criteria);
     }
 
+    public Set<RuleCriteriaGroup> groups() {
+        return this.groups == null ? Set.of() : Collections.unmodifiableSet(this.groups);
+    }
+
+    /**
+     * Number of criteria of the rule, including those nested in groups.
+     */
+    public int criteriaCount() {
+        int count = this.criteria().size();
+        for (final var group : this.groups()) {
+            count += group.criteriaCount();
+        }
+        return count;
+    }
+
+    /**
+     * Evaluation order of the rule within its account, lowest first; ties are ordered by name.
+     */
+    public int priority() {
+        return this.priority;
+    }
+
     public LocalDateTime createdAt() {
         return this.createdAt;
     }
@@ -90,6 +135,7 @@ public abstract sealed class Rule implements Serializable permits ArchiveEmailRu
             .append("name", this.name)
             .append("description", this.description)
             .append("action", this.action)
+            .append("priority", this.priority)
             .append("createdAt", this.createdAt)
             .append("updatedAt", this.updatedAt)
             .toString();
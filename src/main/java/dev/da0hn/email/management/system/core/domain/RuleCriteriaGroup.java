@@ -0,0 +1,92 @@
+package dev.da0hn.email.management.system.core.domain;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Boolean combination of criteria and nested groups, letting a single rule express conditions such as
+ * {@code FROM a OR FROM b} that would otherwise need one rule per alternative.
+ */
+public class RuleCriteriaGroup implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 3391254880217360127L;
+
+    private final UUID id;
+
+    private final RuleCriteriaGroupOperator operator;
+
+    private final Set<RuleCriteria> criteria;
+
+    private final Set<RuleCriteriaGroup> groups;
+
+    public RuleCriteriaGroup(
+        final UUID id,
+        final RuleCriteriaGroupOperator operator,
+        final Set<RuleCriteria> criteria,
+        final Set<RuleCriteriaGroup> groups
+    ) {
+        if (operator == null) throw new IllegalArgumentException("Group operator is required");
+        this.id = id;
+        this.operator = operator;
+        this.criteria = criteria == null ? new HashSet<>() : new HashSet<>(criteria);
+        this.groups = groups == null ? new HashSet<>() : new HashSet<>(groups);
+        if (this.criteria.isEmpty() && this.groups.isEmpty()) {
+            throw new IllegalArgumentException("Group must have at least one condition");
+        }
+    }
+
+    public UUID id() {
+        return this.id;
+    }
+
+    public RuleCriteriaGroupOperator operator() {
+        return this.operator;
+    }
+
+    public Set<RuleCriteria> criteria() {
+        return Collections.unmodifiableSet(this.criteria);
+    }
+
+    public Set<RuleCriteriaGroup> groups() {
+        return Collections.unmodifiableSet(this.groups);
+    }
+
+    /**
+     * Number of criteria in this group and all nested groups.
+     */
+    public int criteriaCount() {
+        int count = this.criteria.size();
+        for (final var group : this.groups) {
+            count += group.criteriaCount();
+        }
+        return count;
+    }
+
+    /**
+     * Nesting depth, {@code 1} for a group without nested groups.
+     */
+    public int depth() {
+        int depth = 0;
+        for (final var group : this.groups) {
+            depth = Math.max(depth, group.depth());
+        }
+        return depth + 1;
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+            .append("operator", this.operator)
+            .append("criteria", this.criteria)
+            .append("groups", this.groups)
+            .toString();
+    }
+
+}
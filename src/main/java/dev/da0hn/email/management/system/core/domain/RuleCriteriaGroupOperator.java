@@ -0,0 +1,21 @@
+package dev.da0hn.email.management.system.core.domain;
+
+/**
+ * How a {@link RuleCriteriaGroup} combines its conditions.
+ */
+public enum RuleCriteriaGroupOperator {
+
+    /**
+     * Every condition holds.
+     */
+    AND,
+    /**
+     * At least one condition holds.
+     */
+    OR,
+    /**
+     * None of the conditions holds.
+     */
+    NOT
+
+}
@@ -9,6 +9,7 @@ public enum RuleCriteriaOperator {
     GREATER_THAN,
     LESS_THAN,
     GREATER_THAN_OR_EQUALS,
-    LESS_THAN_OR_EQUALS
+    LESS_THAN_OR_EQUALS,
+    MATCHES
 
 }
@@ -4,5 +4,21 @@ public enum RuleCriteriaType {
     FROM,
     TO,
     SUBJECT,
-    RECEIVED_AT
+    RECEIVED_AT,
+    /**
+     * Message size in bytes ({@code RFC822.SIZE}), optionally with a {@code KB}, {@code MB} or {@code GB} unit.
+     */
+    SIZE,
+    /**
+     * {@code true} or {@code false}, from the message's {@code BODYSTRUCTURE}.
+     */
+    HAS_ATTACHMENT,
+    /**
+     * MIME type of any attachment, such as {@code application/pdf}, from the message's {@code BODYSTRUCTURE}.
+     */
+    ATTACHMENT_TYPE,
+    /**
+     * Decoded text of the message's text parts; only {@code CONTAINS} is supported.
+     */
+    BODY
 }
@@ -0,0 +1,15 @@
+package dev.da0hn.email.management.system.core.domain;
+
+/**
+ * How the rules of an account apply to a message.
+ */
+public enum RuleMatchMode {
+    /**
+     * Every matching rule applies.
+     */
+    ALL_MATCHES,
+    /**
+     * Only the matching rule with the lowest {@link Rule#priority() priority} applies.
+     */
+    FIRST_MATCH
+}
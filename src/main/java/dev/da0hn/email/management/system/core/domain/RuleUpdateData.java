@@ -2,10 +2,27 @@ package dev.da0hn.email.management.system.core.domain;
 
 import java.util.Set;
 
+/**
+ * New state of an updated rule; a {@code null} priority or folder keeps the rule's current value.
+ */
 public record RuleUpdateData(
     String name,
     String description,
     Set<RuleCriteria> criteria,
+    Set<RuleCriteriaGroup> groups,
+    Integer priority,
     String sourceFolder,
     String targetFolder
-) {}
+) {
+
+    public RuleUpdateData(
+        final String name,
+        final String description,
+        final Set<RuleCriteria> criteria,
+        final String sourceFolder,
+        final String targetFolder
+    ) {
+        this(name, description, criteria, Set.of(), null, sourceFolder, targetFolder);
+    }
+
+}
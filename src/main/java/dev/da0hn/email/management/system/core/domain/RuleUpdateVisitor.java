@@ -46,6 +46,8 @@ public final class RuleUpdateVisitor implements RuleVisitor<Rule> {
             this.data.sourceFolder() != null ? this.data.sourceFolder() : rule.sourceFolder(),
             this.data.targetFolder() != null ? this.data.targetFolder() : rule.targetFolder(),
             this.data.criteria(),
+            this.data.groups(),
+            this.data.priority() != null ? this.data.priority() : rule.priority(),
             rule.createdAt(),
             LocalDateTime.now()
         );
@@ -58,6 +60,8 @@ public final class RuleUpdateVisitor implements RuleVisitor<Rule> {
             this.data.name(),
             this.data.description(),
             this.data.criteria(),
+            this.data.groups(),
+            this.data.priority() != null ? this.data.priority() : rule.priority(),
             rule.createdAt(),
             LocalDateTime.now()
         );
@@ -70,6 +74,8 @@ public final class RuleUpdateVisitor implements RuleVisitor<Rule> {
             this.data.name(),
             this.data.description(),
             this.data.criteria(),
+            this.data.groups(),
+            this.data.priority() != null ? this.data.priority() : rule.priority(),
             rule.createdAt(),
             LocalDateTime.now()
         );
@@ -7,6 +7,7 @@ import dev.da0hn.email.management.system.core.ports.api.dto.NewAccountOutput;
 import dev.da0hn.email.management.system.core.ports.api.dto.NewRuleInput;
 import dev.da0hn.email.management.system.core.ports.api.dto.NewRuleOutput;
 import dev.da0hn.email.management.system.core.ports.api.dto.UpdateRuleInput;
+import dev.da0hn.email.management.system.core.ports.api.dto.UpdateRuleMatchModeInput;
 import dev.da0hn.email.management.system.core.ports.api.dto.UpdateRuleOutput;
 
 import java.util.List;
@@ -26,4 +27,6 @@ public interface AccountService {
 
     void deleteRule(UUID accountId, UUID ruleId);
 
+    DetailedAccountOutput updateRuleMatchMode(UUID accountId, UpdateRuleMatchModeInput input);
+
 }
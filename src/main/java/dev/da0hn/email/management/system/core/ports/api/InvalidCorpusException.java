@@ -0,0 +1,17 @@
+package dev.da0hn.email.management.system.core.ports.api;
+
+/**
+ * Thrown by {@link RuleSimulationService} when the uploaded corpus cannot be read: an unknown format, a truncated
+ * archive or an mbox line longer than any accepted message.
+ */
+public class InvalidCorpusException extends RuntimeException {
+
+    public InvalidCorpusException(final String message) {
+        super(message);
+    }
+
+    public InvalidCorpusException(final String message, final Throwable cause) {
+        super(message, cause);
+    }
+
+}
@@ -0,0 +1,12 @@
+package dev.da0hn.email.management.system.core.ports.api;
+
+/**
+ * Thrown by {@link AccountService} when a rule is saved with a {@code MATCHES} pattern the rule engine cannot compile.
+ */
+public class InvalidRuleException extends RuntimeException {
+
+    public InvalidRuleException(final String message, final Throwable cause) {
+        super(message, cause);
+    }
+
+}
@@ -0,0 +1,20 @@
+package dev.da0hn.email.management.system.core.ports.api;
+
+import dev.da0hn.email.management.system.core.ports.api.dto.RuleBackfillOutput;
+
+import java.util.UUID;
+
+/**
+ * Applies a rule retroactively to the messages already in the account's mailbox.
+ */
+public interface RuleBackfillService {
+
+    /**
+     * Starts the rule's backfill, resumes it from its last completed chunk when it failed, or returns the progress of
+     * the one already running.
+     */
+    RuleBackfillOutput start(UUID accountId, UUID ruleId);
+
+    RuleBackfillOutput findProgress(UUID accountId, UUID ruleId);
+
+}
@@ -0,0 +1,19 @@
+package dev.da0hn.email.management.system.core.ports.api;
+
+import dev.da0hn.email.management.system.core.ports.api.dto.RuleSimulationOutput;
+
+import java.io.InputStream;
+import java.util.UUID;
+
+/**
+ * Evaluates an account's rules against an offline corpus, without touching its mailbox.
+ */
+public interface RuleSimulationService {
+
+    /**
+     * Runs the account's compiled rule set over every message of {@code corpus}, an mbox or a zip of EML files, and
+     * reports what each rule would have matched. Throws {@link InvalidCorpusException} when the corpus cannot be read.
+     */
+    RuleSimulationOutput simulate(UUID accountId, InputStream corpus);
+
+}
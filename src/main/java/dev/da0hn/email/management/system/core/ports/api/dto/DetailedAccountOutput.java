@@ -2,6 +2,7 @@ package dev.da0hn.email.management.system.core.ports.api.dto;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
 import dev.da0hn.email.management.system.core.domain.Account;
+import dev.da0hn.email.management.system.core.domain.RuleMatchMode;
 
 import java.time.LocalDateTime;
 import java.util.Set;
@@ -22,7 +23,8 @@ public record DetailedAccountOutput(
     LocalDateTime createdAt,
     @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
     LocalDateTime updatedAt,
-    Set<DetailedRuleOutput> rules
+    Set<DetailedRuleOutput> rules,
+    RuleMatchMode ruleMatchMode
 ) {
     public static DetailedAccountOutput of(final Account account) {
         return new DetailedAccountOutput(
@@ -36,7 +38,8 @@ public record DetailedAccountOutput(
             account.updatedAt(),
             account.rules().stream()
                 .map(DetailedRuleOutput::of)
-                .collect(Collectors.toSet())
+                .collect(Collectors.toSet()),
+            account.ruleMatchMode()
         );
     }
 }
@@ -19,7 +19,9 @@ public record DetailedRuleOutput(
     RuleAction action,
     Set<RuleCriteriaOutput> criteria,
     String sourceFolder,
-    String targetFolder
+    String targetFolder,
+    Set<RuleCriteriaGroupOutput> groups,
+    int priority
 ) {
     public static DetailedRuleOutput of(final Rule rule) {
         final String sourceFolder;
@@ -42,7 +44,11 @@ public record DetailedRuleOutput(
                 .map(DetailedRuleOutput::toCriteriaOutput)
                 .collect(Collectors.toSet()),
             sourceFolder,
-            targetFolder
+            targetFolder,
+            rule.groups().stream()
+                .map(RuleCriteriaGroupOutput::of)
+                .collect(Collectors.toSet()),
+            rule.priority()
         );
     }
 
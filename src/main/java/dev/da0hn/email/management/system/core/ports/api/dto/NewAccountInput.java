@@ -1,5 +1,6 @@
 package dev.da0hn.email.management.system.core.ports.api.dto;
 
+import dev.da0hn.email.management.system.core.domain.RuleMatchMode;
 import dev.da0hn.email.management.system.core.domain.SensitiveData;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Email;
@@ -20,9 +21,15 @@ public record NewAccountInput(
 
     @NotNull(message = "Connection details are required")
     @Valid
-    ConnectionDetails connectionDetails
+    ConnectionDetails connectionDetails,
+
+    RuleMatchMode ruleMatchMode
 ) {
 
+    public NewAccountInput(final String name, final Credentials credentials, final ConnectionDetails connectionDetails) {
+        this(name, credentials, connectionDetails, null);
+    }
+
     public record Credentials(
         @NotBlank(message = "Email is required")
         @Email(message = "Invalid email format")
@@ -0,0 +1,19 @@
+package dev.da0hn.email.management.system.core.ports.api.dto;
+
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaGroupOperator;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.Set;
+
+public record NewRuleCriteriaGroupInput(
+    @NotNull(message = "Operador do grupo é obrigatório")
+    RuleCriteriaGroupOperator operator,
+    @Size(max = 10, message = "Máximo de 10 critérios permitidos")
+    @Valid
+    Set<NewRuleCriteriaInput> criteria,
+    @Size(max = 10, message = "Máximo de 10 grupos permitidos")
+    @Valid
+    Set<NewRuleCriteriaGroupInput> groups
+) {}
@@ -13,7 +13,9 @@ public record NewRuleOutput(
     String name,
     String description,
     RuleAction action,
-    Set<RuleCriteriaOutput> criteria
+    Set<RuleCriteriaOutput> criteria,
+    Set<RuleCriteriaGroupOutput> groups,
+    int priority
 ) {
     public static NewRuleOutput of(final Rule rule) {
         return new NewRuleOutput(
@@ -23,7 +25,11 @@ public record NewRuleOutput(
             rule.action(),
             rule.criteria().stream()
                 .map(NewRuleOutput::toCriteriaOutput)
-                .collect(Collectors.toSet())
+                .collect(Collectors.toSet()),
+            rule.groups().stream()
+                .map(RuleCriteriaGroupOutput::of)
+                .collect(Collectors.toSet()),
+            rule.priority()
         );
     }
 
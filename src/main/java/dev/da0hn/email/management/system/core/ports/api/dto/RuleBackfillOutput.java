@@ -0,0 +1,38 @@
+package dev.da0hn.email.management.system.core.ports.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * DTO containing the progress of a rule backfill.
+ * <p>{@code nextUid} is the first UID not scanned yet and {@code lastUid} the last UID that existed when the backfill
+ * started; messages received afterwards are handled by regular polling. {@code failedMessages} counts the scanned
+ * messages that could not be read and were skipped.</p>
+ */
+public record RuleBackfillOutput(
+    UUID accountId,
+    UUID ruleId,
+    Status status,
+    long nextUid,
+    long lastUid,
+    long scannedMessages,
+    long matchedMessages,
+    long failedMessages,
+    double progress,
+    String error,
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    LocalDateTime startedAt,
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    LocalDateTime updatedAt
+) {
+
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+}
@@ -0,0 +1,38 @@
+package dev.da0hn.email.management.system.core.ports.api.dto;
+
+import dev.da0hn.email.management.system.core.domain.RuleCriteria;
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaGroup;
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaGroupOperator;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+public record RuleCriteriaGroupOutput(
+    UUID id,
+    RuleCriteriaGroupOperator operator,
+    Set<RuleCriteriaOutput> criteria,
+    Set<RuleCriteriaGroupOutput> groups
+) {
+    public static RuleCriteriaGroupOutput of(final RuleCriteriaGroup group) {
+        return new RuleCriteriaGroupOutput(
+            group.id(),
+            group.operator(),
+            group.criteria().stream()
+                .map(RuleCriteriaGroupOutput::toCriteriaOutput)
+                .collect(Collectors.toSet()),
+            group.groups().stream()
+                .map(RuleCriteriaGroupOutput::of)
+                .collect(Collectors.toSet())
+        );
+    }
+
+    private static RuleCriteriaOutput toCriteriaOutput(final RuleCriteria criteria) {
+        return new RuleCriteriaOutput(
+            criteria.id(),
+            criteria.value(),
+            criteria.type(),
+            criteria.operator()
+        );
+    }
+}
@@ -0,0 +1,28 @@
+package dev.da0hn.email.management.system.core.ports.api.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * DTO containing the outcome of a rule simulation.
+ * <p>{@code messages} counts the messages evaluated; {@code failedMessages} those that could not be parsed or exceeded
+ * the size limit. {@code messagesPerSecond} is measured over the whole run, reading the corpus included. Rules are
+ * listed in evaluation order.</p>
+ */
+public record RuleSimulationOutput(
+    UUID accountId,
+    long messages,
+    long failedMessages,
+    long elapsedMillis,
+    double messagesPerSecond,
+    List<RuleHits> rules
+) {
+
+    /**
+     * @param exampleMessageIds {@code Message-ID} of a few matched messages, or {@code #n} for the {@code n}-th message
+     *                          of the corpus when it has none
+     */
+    public record RuleHits(UUID ruleId, String name, long hits, List<String> exampleMessageIds) {
+    }
+
+}
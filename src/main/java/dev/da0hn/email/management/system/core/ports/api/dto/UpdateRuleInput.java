@@ -5,8 +5,8 @@ import dev.da0hn.email.management.system.core.ports.api.validation.RuleValidatab
 import dev.da0hn.email.management.system.core.ports.api.validation.ValidRule;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
-import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
 import jakarta.validation.constraints.Size;
 
 import java.util.Set;
@@ -26,10 +26,28 @@ public record UpdateRuleInput(
     String description,
     @NotNull(message = "Ação da regra é obrigatória")
     RuleAction action,
-    @NotEmpty(message = "Pelo menos um critério é obrigatório")
     @Size(max = 10, message = "Máximo de 10 critérios permitidos")
     @Valid
     Set<NewRuleCriteriaInput> criteria,
     @Valid
-    MoveRuleInput moveRule
-) implements RuleValidatable {}
+    MoveRuleInput moveRule,
+    @Size(max = 10, message = "Máximo de 10 grupos permitidos")
+    @Valid
+    Set<NewRuleCriteriaGroupInput> groups,
+    @PositiveOrZero(message = "Prioridade da regra não pode ser negativa")
+    Integer priority
+) implements RuleValidatable {
+
+    public UpdateRuleInput(
+        final UUID ruleId,
+        final UUID accountId,
+        final String name,
+        final String description,
+        final RuleAction action,
+        final Set<NewRuleCriteriaInput> criteria,
+        final MoveRuleInput moveRule
+    ) {
+        this(ruleId, accountId, name, description, action, criteria, moveRule, Set.of(), null);
+    }
+
+}
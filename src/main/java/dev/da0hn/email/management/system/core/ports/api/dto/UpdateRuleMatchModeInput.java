@@ -0,0 +1,9 @@
+package dev.da0hn.email.management.system.core.ports.api.dto;
+
+import dev.da0hn.email.management.system.core.domain.RuleMatchMode;
+import jakarta.validation.constraints.NotNull;
+
+public record UpdateRuleMatchModeInput(
+    @NotNull(message = "Modo de aplicação das regras é obrigatório")
+    RuleMatchMode ruleMatchMode
+) {}
@@ -16,7 +16,9 @@ public record UpdateRuleOutput(
     RuleAction action,
     Set<RuleCriteriaOutput> criteria,
     LocalDateTime createdAt,
-    LocalDateTime updatedAt
+    LocalDateTime updatedAt,
+    Set<RuleCriteriaGroupOutput> groups,
+    int priority
 ) {
     public static UpdateRuleOutput of(final Rule rule) {
         return new UpdateRuleOutput(
@@ -28,7 +30,11 @@ public record UpdateRuleOutput(
                 .map(UpdateRuleOutput::toCriteriaOutput)
                 .collect(Collectors.toSet()),
             rule.createdAt(),
-            rule.updatedAt()
+            rule.updatedAt(),
+            rule.groups().stream()
+                .map(RuleCriteriaGroupOutput::of)
+                .collect(Collectors.toSet()),
+            rule.priority()
         );
     }
 
@@ -2,6 +2,10 @@ package dev.da0hn.email.management.system.core.ports.api.validation;
 
 import dev.da0hn.email.management.system.core.domain.RuleAction;
 import dev.da0hn.email.management.system.core.ports.api.dto.MoveRuleInput;
+import dev.da0hn.email.management.system.core.ports.api.dto.NewRuleCriteriaGroupInput;
+import dev.da0hn.email.management.system.core.ports.api.dto.NewRuleCriteriaInput;
+
+import java.util.Set;
 
 /**
  * Interface for DTOs that need rule validation.
@@ -10,4 +14,6 @@ import dev.da0hn.email.management.system.core.ports.api.dto.MoveRuleInput;
 public interface RuleValidatable {
     RuleAction action();
     MoveRuleInput moveRule();
+    Set<NewRuleCriteriaInput> criteria();
+    Set<NewRuleCriteriaGroupInput> groups();
 }
@@ -1,11 +1,16 @@
 package dev.da0hn.email.management.system.core.ports.api.validation;
 
 import dev.da0hn.email.management.system.core.domain.RuleAction;
+import dev.da0hn.email.management.system.core.ports.api.dto.NewRuleCriteriaGroupInput;
 import jakarta.validation.ConstraintValidator;
 import jakarta.validation.ConstraintValidatorContext;
 
+import java.util.Collection;
+
 public class RuleValidator implements ConstraintValidator<ValidRule, RuleValidatable> {
 
+    static final int MAX_GROUP_DEPTH = 5;
+
     @Override
     public void initialize(ValidRule constraintAnnotation) {
         // No initialization needed
@@ -33,6 +38,51 @@ public class RuleValidator implements ConstraintValidator<ValidRule, RuleValidat
             isValid = false;
         }
 
+        if (isEmpty(input.criteria()) && isEmpty(input.groups())) {
+            context.disableDefaultConstraintViolation();
+            context.buildConstraintViolationWithTemplate("Pelo menos um critério é obrigatório")
+                .addConstraintViolation();
+            isValid = false;
+        }
+
+        if (input.groups() != null) {
+            for (NewRuleCriteriaGroupInput group : input.groups()) {
+                if (group == null) continue;
+                if (hasEmptyGroup(group)) {
+                    context.disableDefaultConstraintViolation();
+                    context.buildConstraintViolationWithTemplate("Grupo de critérios deve ter pelo menos uma condição")
+                        .addConstraintViolation();
+                    isValid = false;
+                }
+                if (depth(group) > MAX_GROUP_DEPTH) {
+                    context.disableDefaultConstraintViolation();
+                    context.buildConstraintViolationWithTemplate("Grupos de critérios podem ter no máximo " + MAX_GROUP_DEPTH + " níveis")
+                        .addConstraintViolation();
+                    isValid = false;
+                }
+            }
+        }
+
         return isValid;
     }
+
+    private static boolean isEmpty(Collection<?> values) {
+        return values == null || values.isEmpty();
+    }
+
+    private static boolean hasEmptyGroup(NewRuleCriteriaGroupInput group) {
+        if (isEmpty(group.criteria()) && isEmpty(group.groups())) return true;
+        if (group.groups() == null) return false;
+        return group.groups().stream().anyMatch(child -> child != null && hasEmptyGroup(child));
+    }
+
+    private static int depth(NewRuleCriteriaGroupInput group) {
+        int depth = 0;
+        if (group.groups() != null) {
+            for (NewRuleCriteriaGroupInput child : group.groups()) {
+                if (child != null) depth = Math.max(depth, depth(child));
+            }
+        }
+        return depth + 1;
+    }
 }
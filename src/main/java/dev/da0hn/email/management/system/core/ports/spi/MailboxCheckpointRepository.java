@@ -0,0 +1,17 @@
+package dev.da0hn.email.management.system.core.ports.spi;
+
+import dev.da0hn.email.management.system.core.domain.MailboxCheckpoint;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+import java.util.UUID;
+
+public interface MailboxCheckpointRepository {
+
+    @Transactional
+    void save(MailboxCheckpoint checkpoint);
+
+    @Transactional(readOnly = true)
+    Optional<MailboxCheckpoint> findByAccountIdAndFolder(UUID accountId, String folder);
+
+}
@@ -7,23 +7,29 @@ import dev.da0hn.email.management.system.core.domain.MoveEmailRule;
 import dev.da0hn.email.management.system.core.domain.Rule;
 import dev.da0hn.email.management.system.core.domain.RuleAction;
 import dev.da0hn.email.management.system.core.domain.RuleCriteria;
-import dev.da0hn.email.management.system.core.domain.RuleUpdateVisitor;
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaGroup;
+import dev.da0hn.email.management.system.core.domain.RuleUpdateData;
 import dev.da0hn.email.management.system.core.ports.api.AccountService;
 import dev.da0hn.email.management.system.core.ports.api.dto.AccountOutput;
 import dev.da0hn.email.management.system.core.ports.api.dto.DetailedAccountOutput;
 import dev.da0hn.email.management.system.core.ports.api.dto.MoveRuleInput;
 import dev.da0hn.email.management.system.core.ports.api.dto.NewAccountInput;
 import dev.da0hn.email.management.system.core.ports.api.dto.NewAccountOutput;
+import dev.da0hn.email.management.system.core.ports.api.dto.NewRuleCriteriaGroupInput;
+import dev.da0hn.email.management.system.core.ports.api.dto.NewRuleCriteriaInput;
 import dev.da0hn.email.management.system.core.ports.api.dto.NewRuleInput;
 import dev.da0hn.email.management.system.core.ports.api.dto.NewRuleOutput;
 import dev.da0hn.email.management.system.core.ports.api.dto.UpdateRuleInput;
+import dev.da0hn.email.management.system.core.ports.api.dto.UpdateRuleMatchModeInput;
 import dev.da0hn.email.management.system.core.ports.api.dto.UpdateRuleOutput;
 import dev.da0hn.email.management.system.core.ports.spi.AccountRepository;
 import dev.da0hn.email.management.system.core.ports.spi.LoggerFacade;
+import dev.da0hn.email.management.system.core.service.engine.RulePatterns;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -36,6 +42,7 @@ public class AccountServiceImpl implements AccountService {
 
     private final AccountRepository accountRepository;
     private final PasswordEncryptionService passwordEncryptionService;
+    private final RuleMatcherCache ruleMatcherCache;
 
     @Override
     public NewAccountOutput createAccount(final NewAccountInput input) {
@@ -74,14 +81,9 @@ public class AccountServiceImpl implements AccountService {
         final var account = this.accountRepository.findById(input.accountId())
             .orElseThrow(() -> new EntityNotFoundException("Account not found"));
 
-        final var criteria = input.criteria().stream()
-            .map(criteriaInput -> new RuleCriteria(
-                UUID.randomUUID(),
-                criteriaInput.value(),
-                criteriaInput.type(),
-                criteriaInput.operator()
-            ))
-            .collect(Collectors.toSet());
+        final var criteria = toCriteria(input.criteria());
+        final var groups = toGroups(input.groups());
+        RulePatterns.validate(criteria, groups);
 
         final var rule = this.createNewRule(
             UUID.randomUUID(),
@@ -89,6 +91,8 @@ public class AccountServiceImpl implements AccountService {
             input.description(),
             input.action(),
             criteria,
+            groups,
+            input.priority() != null ? input.priority() : 0,
             input.moveRule()
         );
 
@@ -98,12 +102,14 @@ public class AccountServiceImpl implements AccountService {
             .id(account.id())
             .name(account.name())
             .createdAt(account.createdAt())
-            .updatedAt(account.updatedAt())
+            .updatedAt(LocalDateTime.now())
             .accountCredentials(account.accountCredentials())
             .emailConnectionDetails(account.emailConnectionDetails())
             .rules(updatedRules)
+            .ruleMatchMode(account.ruleMatchMode())
             .build();
         this.accountRepository.save(updatedAccount);
+        // The cached matcher is left in place: its stale version triggers a recompilation that reuses its filters.
 
         return NewRuleOutput.of(rule);
     }
@@ -114,32 +120,68 @@ public class AccountServiceImpl implements AccountService {
         final String description,
         final RuleAction action,
         final Set<RuleCriteria> criteria,
+        final Set<RuleCriteriaGroup> groups,
+        final int priority,
         final MoveRuleInput moveRule
     ) {
         return switch (action) {
-            case ARCHIVE -> ArchiveEmailRule.newRule(id, name, description, criteria);
-            case DELETE -> DeleteEmailRule.newRule(id, name, description, criteria);
-            case MOVE -> MoveEmailRule.newRule(id, name, description, moveRule.sourceFolder(), moveRule.targetFolder(), criteria);
+            case ARCHIVE -> ArchiveEmailRule.newRule(id, name, description, criteria, groups, priority);
+            case DELETE -> DeleteEmailRule.newRule(id, name, description, criteria, groups, priority);
+            case MOVE -> MoveEmailRule.newRule(
+                id,
+                name,
+                description,
+                moveRule.sourceFolder(),
+                moveRule.targetFolder(),
+                criteria,
+                groups,
+                priority
+            );
         };
     }
 
+    private static Set<RuleCriteria> toCriteria(final Set<NewRuleCriteriaInput> inputs) {
+        if (inputs == null) return Set.of();
+        return inputs.stream()
+            .map(criteriaInput -> new RuleCriteria(
+                UUID.randomUUID(),
+                criteriaInput.value(),
+                criteriaInput.type(),
+                criteriaInput.operator()
+            ))
+            .collect(Collectors.toSet());
+    }
+
+    private static Set<RuleCriteriaGroup> toGroups(final Set<NewRuleCriteriaGroupInput> inputs) {
+        if (inputs == null) return Set.of();
+        return inputs.stream()
+            .map(groupInput -> new RuleCriteriaGroup(
+                UUID.randomUUID(),
+                groupInput.operator(),
+                toCriteria(groupInput.criteria()),
+                toGroups(groupInput.groups())
+            ))
+            .collect(Collectors.toSet());
+    }
+
     private Rule updateRule(
         final Rule existingRule,
         final String name,
         final String description,
         final Set<RuleCriteria> criteria,
+        final Set<RuleCriteriaGroup> groups,
+        final Integer priority,
         final MoveRuleInput moveRule
     ) {
-        return moveRule != null
-            ? RuleUpdateVisitor.updateMove(
-                existingRule,
-                name,
-                description,
-                criteria,
-                moveRule.sourceFolder(),
-                moveRule.targetFolder()
-            )
-            : RuleUpdateVisitor.update(existingRule, name, description, criteria);
+        return existingRule.update(new RuleUpdateData(
+            name,
+            description,
+            criteria,
+            groups,
+            priority,
+            moveRule != null ? moveRule.sourceFolder() : null,
+            moveRule != null ? moveRule.targetFolder() : null
+        ));
     }
 
     @Override
@@ -172,20 +214,17 @@ public class AccountServiceImpl implements AccountService {
             .findFirst()
             .orElseThrow(() -> new EntityNotFoundException("Rule not found"));
 
-        final var criteria = input.criteria().stream()
-            .map(criteriaInput -> new RuleCriteria(
-                UUID.randomUUID(),
-                criteriaInput.value(),
-                criteriaInput.type(),
-                criteriaInput.operator()
-            ))
-            .collect(Collectors.toSet());
+        final var criteria = toCriteria(input.criteria());
+        final var groups = toGroups(input.groups());
+        RulePatterns.validate(criteria, groups);
 
         final var updatedRule = this.updateRule(
             existingRule,
             input.name(),
             input.description(),
             criteria,
+            groups,
+            input.priority(),
             input.moveRule()
         );
 
@@ -197,17 +236,49 @@ public class AccountServiceImpl implements AccountService {
             .id(account.id())
             .name(account.name())
             .createdAt(account.createdAt())
-            .updatedAt(account.updatedAt())
+            .updatedAt(LocalDateTime.now())
             .accountCredentials(account.accountCredentials())
             .emailConnectionDetails(account.emailConnectionDetails())
             .rules(updatedRules)
+            .ruleMatchMode(account.ruleMatchMode())
             .build();
 
         this.accountRepository.save(updatedAccount);
+        this.ruleMatcherCache.evict(account.id());
 
         return UpdateRuleOutput.of(updatedRule);
     }
 
+    @Override
+    public DetailedAccountOutput updateRuleMatchMode(final UUID accountId, final UpdateRuleMatchModeInput input) {
+        LoggerFacade.instance()
+            .where(this)
+            .method("updateRuleMatchMode")
+            .what("Updating account rule match mode")
+            .parameter("accountId", accountId)
+            .parameter("input", input)
+            .log();
+
+        final var account = this.accountRepository.findById(accountId)
+            .orElseThrow(() -> new EntityNotFoundException("Account not found"));
+
+        final var updatedAccount = Account.builder()
+            .id(account.id())
+            .name(account.name())
+            .createdAt(account.createdAt())
+            .updatedAt(LocalDateTime.now())
+            .accountCredentials(account.accountCredentials())
+            .emailConnectionDetails(account.emailConnectionDetails())
+            .rules(account.rules())
+            .ruleMatchMode(input.ruleMatchMode())
+            .build();
+
+        this.accountRepository.save(updatedAccount);
+        this.ruleMatcherCache.evict(account.id());
+
+        return DetailedAccountOutput.of(updatedAccount);
+    }
+
     @Override
     public DetailedAccountOutput findById(final UUID id) {
         LoggerFacade.instance()
@@ -247,13 +318,15 @@ public class AccountServiceImpl implements AccountService {
             .id(account.id())
             .name(account.name())
             .createdAt(account.createdAt())
-            .updatedAt(account.updatedAt())
+            .updatedAt(LocalDateTime.now())
             .accountCredentials(account.accountCredentials())
             .emailConnectionDetails(account.emailConnectionDetails())
             .rules(updatedRules)
+            .ruleMatchMode(account.ruleMatchMode())
             .build();
 
         this.accountRepository.save(updatedAccount);
+        this.ruleMatcherCache.evict(account.id());
     }
 
 }
@@ -1,40 +1,154 @@
 package dev.da0hn.email.management.system.core.service;
 
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 
+import dev.da0hn.email.management.system.core.domain.Account;
+import dev.da0hn.email.management.system.core.domain.MailboxCheckpoint;
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaType;
+import dev.da0hn.email.management.system.core.ports.spi.AccountRepository;
+import dev.da0hn.email.management.system.core.ports.spi.LoggerFacade;
+import dev.da0hn.email.management.system.core.ports.spi.MailboxCheckpointRepository;
+import dev.da0hn.email.management.system.core.service.engine.ImapFetchProfiles;
+import dev.da0hn.email.management.system.core.service.engine.MessageHeaders;
+import dev.da0hn.email.management.system.core.service.engine.RuleMatcher;
+import dev.da0hn.email.management.system.core.service.engine.SearchPlan;
+import jakarta.mail.Address;
+import jakarta.mail.FetchProfile;
 import jakarta.mail.Flags;
 import jakarta.mail.Folder;
+import jakarta.mail.Message;
 import jakarta.mail.MessagingException;
-import jakarta.mail.Session;
+import jakarta.mail.Multipart;
+import jakarta.mail.Part;
+import jakarta.mail.Store;
+import jakarta.mail.UIDFolder;
+import jakarta.mail.internet.ContentType;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeUtility;
+import jakarta.mail.internet.ParseException;
+import jakarta.mail.search.AndTerm;
 import jakarta.mail.search.FlagTerm;
+import jakarta.mail.search.SearchTerm;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.ApplicationArguments;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.JavaMailSenderImpl;
 import org.springframework.stereotype.Service;
 
 @Slf4j
 @Service
 public class EmailProcessor {
 
-    private final JavaMailSenderImpl javaMailSender;
+    static final String INBOX = "INBOX";
 
-    public EmailProcessor(final JavaMailSender javaMailSender) {
-        this.javaMailSender = (JavaMailSenderImpl) javaMailSender;
+    private static final SearchTerm NOT_DELETED = new FlagTerm(new Flags(Flags.Flag.DELETED), false);
+
+    private final AccountRepository accountRepository;
+
+    private final MailboxCheckpointRepository mailboxCheckpointRepository;
+
+    private final ImapConnectionPool connectionPool;
+
+    private final RuleEngine ruleEngine;
+
+    private final RuleMatcherCache ruleMatcherCache;
+
+    /**
+     * Candidates prefetched with one {@code FETCH}.
+     */
+    private final int fetchChunkSize;
+
+    public EmailProcessor(
+        final AccountRepository accountRepository,
+        final MailboxCheckpointRepository mailboxCheckpointRepository,
+        final ImapConnectionPool connectionPool,
+        final RuleEngine ruleEngine,
+        final RuleMatcherCache ruleMatcherCache,
+        @Value("${app.mail.fetch.chunk-size:256}") final int fetchChunkSize
+    ) {
+        if (fetchChunkSize <= 0) throw new IllegalArgumentException("Fetch chunk size must be positive");
+        this.accountRepository = accountRepository;
+        this.mailboxCheckpointRepository = mailboxCheckpointRepository;
+        this.connectionPool = connectionPool;
+        this.ruleEngine = ruleEngine;
+        this.ruleMatcherCache = ruleMatcherCache;
+        this.fetchChunkSize = fetchChunkSize;
     }
 
+    /**
+     * Processes every account in turn; an account whose run fails is logged and left for the next run, so it does not
+     * hold back the others.
+     */
     public void process() {
-        final Session session = this.javaMailSender.getSession();
-        try {
-            final var store = session.getStore("imaps");
-            store.connect(this.javaMailSender.getHost(), this.javaMailSender.getUsername(), this.javaMailSender.getPassword());
-            final var inboxFolder = store.getFolder("INBOX");
-            inboxFolder.open(Folder.READ_ONLY);
-            final var messages = inboxFolder.search(new FlagTerm(new Flags(Flags.Flag.DELETED), false));
+        for (final var account : this.accountRepository.findAll()) {
+            try {
+                this.process(account);
+            }
+            catch (final RuntimeException e) {
+                LoggerFacade.instance()
+                    .where(this)
+                    .method("process")
+                    .level(LoggerFacade.LogLevel.WARN)
+                    .what("Inbox processing failed, continuing with the next account")
+                    .parameter("accountId", account.id())
+                    .parameter("error", e.getMessage())
+                    .log();
+            }
+        }
+    }
+
+    /**
+     * Evaluates the account's rules against the inbox messages that arrived since the last run.
+     * The rules are pushed down to IMAP SEARCH first, so only candidate messages are downloaded, prefetched
+     * {@code app.mail.fetch.chunk-size} at a time, and matched locally one by one: single-message evaluation
+     * short-circuits each rule, consults the decision memo and runs the configured backend.
+     * <p>Each run only searches the UIDs above the account's {@link MailboxCheckpoint} and advances it once the
+     * candidates are evaluated. Without a checkpoint, or when the inbox {@code UIDVALIDITY} changed, the whole inbox is
+     * searched again; messages delivered during that resync may then be evaluated twice. Messages already behind the
+     * checkpoint are not re-evaluated when rules change, that is what rule backfills are for.</p>
+     * <p>A message whose fields cannot be read, such as a malformed address header, is logged and left unmatched, so it
+     * does not hold back the checkpoint.</p>
+     */
+    public void process(final Account account) {
+        final var compiled = this.ruleMatcherCache.compiledFor(account);
+        final var matcher = compiled.matcher();
+        final var plan = compiled.searchPlan();
+        if (plan.isEmpty()) {
+            log.debug("Account {} has no rule that can match, skipping", account.id());
+            return;
+        }
 
-            for (int i = 0; i < 10; i++) {
-                final var message = messages[i];
-                log.info("From: {}, Subject: {}", message.getFrom(), message.getSubject().getBytes(StandardCharsets.UTF_8));
+        try (final var lease = this.connectionPool.acquire(account, INBOX)) {
+            final var inboxFolder = lease.folder();
+            try {
+                final var uidFolder = (UIDFolder) inboxFolder;
+                final long uidValidity = uidFolder.getUIDValidity();
+                final long lastUid = lastUidOf(inboxFolder);
+                final var stored = this.mailboxCheckpointRepository.findByAccountIdAndFolder(account.id(), INBOX);
+                final var checkpoint = stored.filter(candidate -> candidate.isValidFor(uidValidity));
+                if (checkpoint.isPresent()) {
+                    final long fromUid = checkpoint.get().lastUid() + 1;
+                    if (fromUid > lastUid) return;
+                    final var scope = uidFolder.getMessagesByUID(fromUid, lastUid);
+                    if (scope.length > 0) this.evaluate(matcher, inboxFolder, search(inboxFolder, plan, scope));
+                }
+                else {
+                    if (stored.isPresent()) {
+                        log.info("Inbox UIDVALIDITY of account {} changed, resynchronizing", account.id());
+                    }
+                    this.evaluate(matcher, inboxFolder, search(inboxFolder, plan));
+                }
+                this.mailboxCheckpointRepository.save(new MailboxCheckpoint(account.id(), INBOX, uidValidity, lastUid));
+            }
+            catch (final MessagingException e) {
+                lease.invalidate();
+                throw e;
             }
         }
         catch (final MessagingException e) {
@@ -42,6 +156,155 @@ public class EmailProcessor {
         }
     }
 
+    private void evaluate(final RuleMatcher matcher, final Folder folder, final List<Message> messages) throws MessagingException {
+        final var types = matcher.criteriaTypes();
+        final var profile = this.ruleEngine.fetchProfile(matcher);
+        final var uidFolder = (UIDFolder) folder;
+        final var context = matcher.newContext();
+        this.prefetch(folder, messages, profile);
+        for (final var message : messages) {
+            try {
+                matcher.evaluate(headersOf(message, types), context);
+            }
+            catch (final MessagingException | RuntimeException e) {
+                log.warn("Could not read message {}, leaving it unmatched: {}", uidFolder.getUID(message), e.getMessage());
+                continue;
+            }
+            for (int i = context.nextMatch(0); i >= 0; i = context.nextMatch(i + 1)) {
+                log.info("Message {} matched rule {}", uidFolder.getUID(message), matcher.rules().get(i).name());
+            }
+        }
+    }
+
+    /**
+     * Loads the {@code profile} items of the messages with one {@code FETCH} per {@code app.mail.fetch.chunk-size}
+     * messages, so reading their fields afterwards costs no further round trip.
+     */
+    void prefetch(final Folder folder, final List<Message> messages, final FetchProfile profile) throws MessagingException {
+        for (int start = 0; start < messages.size(); start += this.fetchChunkSize) {
+            final var chunk = messages.subList(start, Math.min(messages.size(), start + this.fetchChunkSize));
+            folder.fetch(chunk.toArray(Message[]::new), profile);
+        }
+    }
+
+    /**
+     * Highest UID assigned in the open folder so far, or {@code 0} for a folder that never held a message.
+     * {@code UIDNEXT} is only reported when the folder is selected, so on a pooled folder reused across runs the UID of
+     * the last message, kept current by the {@code EXISTS} updates, is taken when it is higher.
+     */
+    static long lastUidOf(final Folder folder) throws MessagingException {
+        final var uidFolder = (UIDFolder) folder;
+        final long uidNext = uidFolder.getUIDNext();
+        final int count = folder.getMessageCount();
+        final long lastMessageUid = count > 0 ? uidFolder.getUID(folder.getMessage(count)) : 0;
+        return Math.max(uidNext > 0 ? uidNext - 1 : 0, lastMessageUid);
+    }
+
+    /**
+     * Opens an authenticated IMAP store for the account outside the connection pool; the caller closes it.
+     */
+    Store connect(final Account account) throws MessagingException {
+        return this.connectionPool.connect(account);
+    }
+
+    private static List<Message> search(final Folder folder, final SearchPlan plan) throws MessagingException {
+        return search(folder, plan, null);
+    }
+
+    /**
+     * Runs the plan's searches, restricted to {@code scope} when it is not {@code null}, and returns the distinct
+     * candidates in mailbox order.
+     */
+    static List<Message> search(final Folder folder, final SearchPlan plan, final Message[] scope) throws MessagingException {
+        if (plan.fullScan()) {
+            return Arrays.asList(scope == null ? folder.search(NOT_DELETED) : folder.search(NOT_DELETED, scope));
+        }
+        final Map<Integer, Message> candidates = new TreeMap<>();
+        for (final var term : plan.terms()) {
+            final var restricted = new AndTerm(NOT_DELETED, term);
+            for (final var message : scope == null ? folder.search(restricted) : folder.search(restricted, scope)) {
+                candidates.putIfAbsent(message.getMessageNumber(), message);
+            }
+        }
+        return List.copyOf(candidates.values());
+    }
+
+    /**
+     * Reads the message fields the engine evaluates, and only those: a field no criterion of {@code types} reads is
+     * left unknown. Headers are read with {@link Message#getHeader(String)}, which on IMAP serves the header lines
+     * prefetched by {@link ImapFetchProfiles} without loading the whole envelope. Header text is passed on undecoded:
+     * the engine decodes RFC 2047 encoded-words once, when a criterion first reads the field. The body is only
+     * attached for {@code BODY} criteria, which stream it on demand.
+     */
+    static MessageHeaders headersOf(final Message message, final Set<RuleCriteriaType> types) throws MessagingException {
+        final var from = types.contains(RuleCriteriaType.FROM) ? addressesOf(message, ImapFetchProfiles.FROM_HEADER) : null;
+        final var to = types.contains(RuleCriteriaType.TO) ? addressesOf(message, ImapFetchProfiles.TO_HEADER) : null;
+        final Date receivedDate = types.contains(RuleCriteriaType.RECEIVED_AT) ? message.getReceivedDate() : null;
+        final int size = types.contains(RuleCriteriaType.SIZE) ? message.getSize() : -1;
+        final boolean readsAttachments = types.contains(RuleCriteriaType.HAS_ATTACHMENT)
+            || types.contains(RuleCriteriaType.ATTACHMENT_TYPE);
+        return new MessageHeaders(
+            from != null && from.length > 0 ? from[0].toString() : null,
+            to != null ? Arrays.stream(to).map(Address::toString).toList() : List.of(),
+            types.contains(RuleCriteriaType.SUBJECT) ? subjectOf(message) : null,
+            receivedDate != null ? receivedDate.getTime() : MessageHeaders.UNKNOWN_RECEIVED_AT,
+            size >= 0 ? size : MessageHeaders.UNKNOWN_SIZE,
+            readsAttachments ? attachmentTypesOf(message) : null,
+            types.contains(RuleCriteriaType.BODY) ? new MimeMessageBody(message) : null
+        );
+    }
+
+    private static Address[] addressesOf(final Message message, final String header) throws MessagingException {
+        final var values = message.getHeader(header);
+        return values != null ? InternetAddress.parseHeader(String.join(",", values), false) : null;
+    }
+
+    private static String subjectOf(final Message message) throws MessagingException {
+        final var values = message.getHeader(ImapFetchProfiles.SUBJECT_HEADER);
+        return values != null ? MimeUtility.unfold(values[0]) : null;
+    }
+
+    /**
+     * Returns the MIME types of the part's attachments: leaf parts with an {@code attachment} disposition or a file
+     * name. An IMAP message builds its multiparts from {@code BODYSTRUCTURE}, so walking them downloads no content;
+     * only multipart content is ever requested.
+     */
+    static List<String> attachmentTypesOf(final Part part) throws MessagingException {
+        final var types = new ArrayList<String>();
+        collectAttachmentTypes(part, types);
+        return types;
+    }
+
+    private static void collectAttachmentTypes(final Part part, final List<String> types) throws MessagingException {
+        if (part.isMimeType("multipart/*")) {
+            final Multipart multipart;
+            try {
+                multipart = (Multipart) part.getContent();
+            }
+            catch (final IOException e) {
+                throw new MessagingException("Could not read message structure", e);
+            }
+            for (int i = 0; i < multipart.getCount(); i++) {
+                collectAttachmentTypes(multipart.getBodyPart(i), types);
+            }
+            return;
+        }
+        if (Part.ATTACHMENT.equalsIgnoreCase(part.getDisposition()) || part.getFileName() != null) {
+            types.add(baseTypeOf(part.getContentType()));
+        }
+    }
+
+    private static String baseTypeOf(final String contentType) {
+        if (contentType == null) return "application/octet-stream";
+        try {
+            return new ContentType(contentType).getBaseType();
+        }
+        catch (final ParseException e) {
+            final int parameters = contentType.indexOf(';');
+            return (parameters >= 0 ? contentType.substring(0, parameters) : contentType).strip();
+        }
+    }
+
     public void run(final ApplicationArguments args) throws Exception {
         this.process();
     }
@@ -0,0 +1,389 @@
+package dev.da0hn.email.management.system.core.service;
+
+import dev.da0hn.email.management.system.core.domain.Account;
+import dev.da0hn.email.management.system.core.ports.spi.LoggerFacade;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.Folder;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.Store;
+import org.eclipse.angus.mail.imap.IMAPFolder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps authenticated IMAP connections warm between runs, keyed by account id.
+ * <p>A pooled connection is a connected {@link Store} with one folder opened read-only. {@link #acquire(Account, String)}
+ * hands out an idle connection of the account after checking it with a {@code NOOP}, which also delivers the
+ * {@code EXISTS} updates received meanwhile, and transparently reconnects when the check fails. Connections idle for
+ * longer than {@code app.mail.pool.idle-timeout-millis} are closed, and at most
+ * {@code app.mail.pool.max-connections-per-host} connections, leased or idle, are kept per IMAP host: when the host is
+ * full, the least recently used idle connection of another account is closed, otherwise the caller waits up to
+ * {@code app.mail.pool.acquire-timeout-millis}.</p>
+ * <p>{@link #connect(Account)} opens unpooled connections, which do not count towards the host limit.</p>
+ */
+@Service
+public class ImapConnectionPool {
+
+    private final Connector connector;
+
+    private final int maxConnectionsPerHost;
+
+    private final long idleTimeoutMillis;
+
+    private final long acquireTimeoutMillis;
+
+    private final LongSupplier clock;
+
+    private final Map<UUID, Deque<PooledConnection>> idle = new HashMap<>();
+
+    private final Map<String, Integer> connectionsPerHost = new HashMap<>();
+
+    private boolean closed;
+
+    @Autowired
+    public ImapConnectionPool(
+        final JavaMailSender javaMailSender,
+        final PasswordEncryptionService passwordEncryptionService,
+        @Value("${app.mail.pool.max-connections-per-host:8}") final int maxConnectionsPerHost,
+        @Value("${app.mail.pool.idle-timeout-millis:300000}") final long idleTimeoutMillis,
+        @Value("${app.mail.pool.acquire-timeout-millis:30000}") final long acquireTimeoutMillis
+    ) {
+        this(
+            account -> connect(((JavaMailSenderImpl) javaMailSender).getSession(), passwordEncryptionService, account),
+            maxConnectionsPerHost,
+            idleTimeoutMillis,
+            acquireTimeoutMillis,
+            System::currentTimeMillis
+        );
+    }
+
+    ImapConnectionPool(
+        final Connector connector,
+        final int maxConnectionsPerHost,
+        final long idleTimeoutMillis,
+        final long acquireTimeoutMillis,
+        final LongSupplier clock
+    ) {
+        if (maxConnectionsPerHost <= 0) throw new IllegalArgumentException("Maximum connections per host must be positive");
+        if (idleTimeoutMillis <= 0) throw new IllegalArgumentException("Idle timeout must be positive");
+        if (acquireTimeoutMillis < 0) throw new IllegalArgumentException("Acquire timeout must not be negative");
+        this.connector = connector;
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * Opens an authenticated IMAP store for the account outside the pool; the caller closes it.
+     */
+    public Store connect(final Account account) throws MessagingException {
+        return this.connector.connect(account);
+    }
+
+    /**
+     * Leases a healthy connection of the account with {@code folderName} open read-only; closing the lease returns it
+     * to the pool.
+     */
+    public Lease acquire(final Account account, final String folderName) throws MessagingException {
+        final var host = account.emailConnectionDetails().host();
+        while (true) {
+            final var pooled = this.pollIdle(account.id(), folderName);
+            if (pooled == null) break;
+            if (this.isHealthy(pooled)) return new Lease(pooled);
+            this.destroy(pooled);
+        }
+
+        this.reserve(host);
+        Store store = null;
+        try {
+            store = this.connector.connect(account);
+            final var folder = store.getFolder(folderName);
+            folder.open(Folder.READ_ONLY);
+            return new Lease(new PooledConnection(account.id(), host, folderName, store, folder));
+        }
+        catch (final MessagingException | RuntimeException e) {
+            closeQuietly(store);
+            this.release(host);
+            throw e;
+        }
+    }
+
+    /**
+     * Closes the connections idle for longer than the idle timeout.
+     */
+    @Scheduled(fixedDelayString = "${app.mail.pool.eviction-interval-millis:60000}")
+    public void evictIdle() {
+        final long now = this.clock.getAsLong();
+        final var expired = new ArrayList<PooledConnection>();
+        synchronized (this) {
+            for (final var connections : this.idle.values()) {
+                connections.removeIf(connection -> {
+                    final boolean stale = now - connection.lastUsed >= this.idleTimeoutMillis;
+                    if (stale) expired.add(connection);
+                    return stale;
+                });
+            }
+            this.idle.values().removeIf(Deque::isEmpty);
+        }
+        expired.forEach(this::destroy);
+    }
+
+    /**
+     * Number of pooled connections, leased or idle, to the host.
+     */
+    synchronized int connectionCount(final String host) {
+        return this.connectionsPerHost.getOrDefault(host, 0);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        final var connections = new ArrayList<PooledConnection>();
+        synchronized (this) {
+            this.closed = true;
+            this.idle.values().forEach(connections::addAll);
+            this.idle.clear();
+            this.notifyAll();
+        }
+        connections.forEach(this::destroy);
+    }
+
+    private synchronized PooledConnection pollIdle(final UUID accountId, final String folderName) {
+        final var connections = this.idle.get(accountId);
+        if (connections == null) return null;
+        for (final var iterator = connections.iterator(); iterator.hasNext(); ) {
+            final var connection = iterator.next();
+            if (connection.folderName.equals(folderName)) {
+                iterator.remove();
+                if (connections.isEmpty()) this.idle.remove(accountId);
+                return connection;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Takes a connection slot of the host, closing another account's idle connection or waiting when the host is full.
+     */
+    private void reserve(final String host) throws MessagingException {
+        PooledConnection victim = null;
+        synchronized (this) {
+            final long deadline = System.nanoTime() + this.acquireTimeoutMillis * 1_000_000;
+            while (!this.closed && this.connectionCount(host) >= this.maxConnectionsPerHost) {
+                victim = this.leastRecentlyUsedIdle(host);
+                if (victim != null) break;
+                final long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) throw new MessagingException("Connection limit reached for host " + host);
+                try {
+                    this.wait(Math.max(1, remaining / 1_000_000));
+                }
+                catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new MessagingException("Interrupted while waiting for a connection to " + host, e);
+                }
+            }
+            if (this.closed) throw new MessagingException("Connection pool is shut down");
+            if (victim == null) this.connectionsPerHost.merge(host, 1, Integer::sum);
+        }
+        // The victim's slot is handed over to the new connection, so the host count is left unchanged.
+        if (victim != null) closeQuietly(victim);
+    }
+
+    private PooledConnection leastRecentlyUsedIdle(final String host) {
+        PooledConnection oldest = null;
+        for (final var connections : this.idle.values()) {
+            for (final var connection : connections) {
+                if (connection.host.equals(host) && (oldest == null || connection.lastUsed < oldest.lastUsed)) {
+                    oldest = connection;
+                }
+            }
+        }
+        if (oldest != null) {
+            final var connections = this.idle.get(oldest.accountId);
+            connections.remove(oldest);
+            if (connections.isEmpty()) this.idle.remove(oldest.accountId);
+        }
+        return oldest;
+    }
+
+    private void giveBack(final PooledConnection connection) {
+        synchronized (this) {
+            if (!this.closed) {
+                connection.lastUsed = this.clock.getAsLong();
+                this.idle.computeIfAbsent(connection.accountId, accountId -> new ArrayDeque<>()).addFirst(connection);
+                this.notifyAll();
+                return;
+            }
+        }
+        this.destroy(connection);
+    }
+
+    private void destroy(final PooledConnection connection) {
+        closeQuietly(connection);
+        this.release(connection.host);
+    }
+
+    private synchronized void release(final String host) {
+        this.connectionsPerHost.computeIfPresent(host, (key, count) -> count > 1 ? count - 1 : null);
+        this.notifyAll();
+    }
+
+    /**
+     * Sends a {@code NOOP} on IMAP folders; other folders are only checked for being open on a connected store.
+     */
+    private boolean isHealthy(final PooledConnection connection) {
+        try {
+            if (connection.folder instanceof final IMAPFolder imapFolder) {
+                imapFolder.doCommand(protocol -> {
+                    protocol.noop();
+                    return null;
+                });
+            }
+            return connection.folder.isOpen() && connection.store.isConnected();
+        }
+        catch (final MessagingException | RuntimeException e) {
+            LoggerFacade.instance()
+                .where(this)
+                .method("isHealthy")
+                .level(LoggerFacade.LogLevel.DEBUG)
+                .what("Pooled IMAP connection failed its health check, reconnecting")
+                .parameter("accountId", connection.accountId)
+                .parameter("error", e.getMessage())
+                .log();
+            return false;
+        }
+    }
+
+    private static void closeQuietly(final PooledConnection connection) {
+        try {
+            if (connection.folder.isOpen()) connection.folder.close(false);
+        }
+        catch (final MessagingException | RuntimeException ignored) {
+            // The store is closed below either way.
+        }
+        closeQuietly(connection.store);
+    }
+
+    private static void closeQuietly(final Store store) {
+        if (store == null) return;
+        try {
+            store.close();
+        }
+        catch (final MessagingException | RuntimeException ignored) {
+            // Nothing left to release.
+        }
+    }
+
+    /**
+     * Connects and authenticates an {@code imaps} store of the session; the caller closes it.
+     */
+    static Store connect(
+        final Session session,
+        final PasswordEncryptionService passwordEncryptionService,
+        final Account account
+    ) throws MessagingException {
+        final var store = session.getStore("imaps");
+        try {
+            store.connect(
+                account.emailConnectionDetails().host(),
+                account.emailConnectionDetails().port(),
+                account.accountCredentials().email(),
+                passwordEncryptionService.decrypt(account.accountCredentials().password())
+            );
+        }
+        catch (final MessagingException | RuntimeException e) {
+            store.close();
+            throw e;
+        }
+        return store;
+    }
+
+    @FunctionalInterface
+    interface Connector {
+
+        Store connect(Account account) throws MessagingException;
+
+    }
+
+    private static final class PooledConnection {
+
+        private final UUID accountId;
+
+        private final String host;
+
+        private final String folderName;
+
+        private final Store store;
+
+        private final Folder folder;
+
+        private long lastUsed;
+
+        private PooledConnection(
+            final UUID accountId,
+            final String host,
+            final String folderName,
+            final Store store,
+            final Folder folder
+        ) {
+            this.accountId = accountId;
+            this.host = host;
+            this.folderName = folderName;
+            this.store = store;
+            this.folder = folder;
+        }
+
+    }
+
+    /**
+     * A pooled connection in use. A caller that hit a connection error calls {@link #invalidate()} so that
+     * {@link #close()} closes the connection instead of returning it.
+     */
+    public final class Lease implements AutoCloseable {
+
+        private final PooledConnection connection;
+
+        private boolean invalid;
+
+        private boolean released;
+
+        private Lease(final PooledConnection connection) {
+            this.connection = connection;
+        }
+
+        public Folder folder() {
+            return this.connection.folder;
+        }
+
+        public void invalidate() {
+            this.invalid = true;
+        }
+
+        @Override
+        public void close() {
+            if (this.released) return;
+            this.released = true;
+            if (this.invalid || !this.connection.folder.isOpen()) {
+                ImapConnectionPool.this.destroy(this.connection);
+            }
+            else {
+                ImapConnectionPool.this.giveBack(this.connection);
+            }
+        }
+
+    }
+
+}
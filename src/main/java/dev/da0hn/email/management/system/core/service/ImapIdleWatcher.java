@@ -0,0 +1,138 @@
+package dev.da0hn.email.management.system.core.service;
+
+import dev.da0hn.email.management.system.core.domain.Account;
+import jakarta.mail.Folder;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.event.MessageCountAdapter;
+import jakarta.mail.event.MessageCountEvent;
+import org.eclipse.angus.mail.imap.IMAPFolder;
+import org.eclipse.angus.mail.imap.IMAPStore;
+import org.eclipse.angus.mail.imap.IdleManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Watches inboxes with IMAP IDLE on dedicated connections, without a thread per connection.
+ * <p>An {@link IdleManager} waits on every IDLE connection at once from a single platform thread with a NIO selector,
+ * and mail events are dispatched on virtual threads. The Angus {@link IMAPFolder#idle()} loop is not used because its
+ * blocking read holds a monitor, which would pin one carrier thread per idle account.</p>
+ */
+final class ImapIdleWatcher implements MailboxWatcher {
+
+    private final Session session;
+
+    private final PasswordEncryptionService passwordEncryptionService;
+
+    private final ExecutorService selector;
+
+    private final ExecutorService events;
+
+    private final IdleManager idleManager;
+
+    ImapIdleWatcher(final Session baseSession, final PasswordEncryptionService passwordEncryptionService) {
+        this.passwordEncryptionService = passwordEncryptionService;
+        this.selector = Executors.newSingleThreadExecutor(Thread.ofPlatform().name("imap-idle").daemon().factory());
+        this.events = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("imap-event-", 0).factory());
+        final var properties = new Properties();
+        properties.putAll(baseSession.getProperties());
+        properties.put("mail.imap.usesocketchannels", "true");
+        properties.put("mail.imaps.usesocketchannels", "true");
+        properties.put("mail.event.scope", "session");
+        properties.put("mail.event.executor", this.events);
+        this.session = Session.getInstance(properties);
+        try {
+            this.idleManager = new IdleManager(this.session, this.selector);
+        }
+        catch (final IOException e) {
+            this.selector.shutdownNow();
+            this.events.shutdownNow();
+            throw new UncheckedIOException("Could not start the IMAP IDLE selector", e);
+        }
+    }
+
+    @Override
+    public Optional<Watch> watch(final Account account, final Runnable onNewMessages) throws MessagingException {
+        final var store = (IMAPStore) ImapConnectionPool.connect(this.session, this.passwordEncryptionService, account);
+        try {
+            if (!store.hasCapability("IDLE")) {
+                store.close();
+                return Optional.empty();
+            }
+            final var folder = (IMAPFolder) store.getFolder(EmailProcessor.INBOX);
+            folder.open(Folder.READ_ONLY);
+            folder.addMessageCountListener(new MessageCountAdapter() {
+                @Override
+                public void messagesAdded(final MessageCountEvent event) {
+                    onNewMessages.run();
+                    try {
+                        ImapIdleWatcher.this.idleManager.watch(folder);
+                    }
+                    catch (final MessagingException ignored) {
+                        // The next renewal notices the closed folder and the account is watched again.
+                    }
+                }
+            });
+            this.idleManager.watch(folder);
+            return Optional.of(new IdleWatch(store, folder));
+        }
+        catch (final MessagingException | RuntimeException e) {
+            store.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() {
+        this.idleManager.stop();
+        this.selector.shutdownNow();
+        this.events.shutdownNow();
+    }
+
+    private final class IdleWatch implements Watch {
+
+        private final IMAPStore store;
+
+        private final IMAPFolder folder;
+
+        private IdleWatch(final IMAPStore store, final IMAPFolder folder) {
+            this.store = store;
+            this.folder = folder;
+        }
+
+        /**
+         * Any command ends the current IDLE, so a {@code NOOP} followed by a new watch restarts it.
+         */
+        @Override
+        public void renew() throws MessagingException {
+            this.folder.doCommand(protocol -> {
+                protocol.noop();
+                return null;
+            });
+            ImapIdleWatcher.this.idleManager.watch(this.folder);
+        }
+
+        @Override
+        public void close() {
+            try {
+                if (this.folder.isOpen()) this.folder.close(false);
+            }
+            catch (final MessagingException | RuntimeException ignored) {
+                // The store is closed below either way.
+            }
+            try {
+                this.store.close();
+            }
+            catch (final MessagingException | RuntimeException ignored) {
+                // Nothing left to release.
+            }
+        }
+
+    }
+
+}
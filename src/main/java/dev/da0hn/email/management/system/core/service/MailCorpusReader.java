@@ -0,0 +1,196 @@
+package dev.da0hn.email.management.system.core.service;
+
+import dev.da0hn.email.management.system.core.ports.api.InvalidCorpusException;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Splits an uploaded corpus into raw RFC 822 messages, one at a time, so only the message being read is held in memory.
+ * <p>A zip archive, recognized by its local file header signature, yields each {@code .eml} entry as one message. A
+ * stream starting with {@code From } is read as an mbox: every {@code From } line opens a message and mboxrd quoting
+ * ({@code >From }) is removed. Messages larger than {@code maxMessageBytes} are skipped and counted, but an mbox line
+ * longer than that fails the whole read, since no message can hold it.</p>
+ */
+abstract sealed class MailCorpusReader implements Closeable {
+
+    private static final byte[] ZIP_SIGNATURE = {'P', 'K', 3, 4};
+
+    private static final byte[] MBOX_SEPARATOR = {'F', 'r', 'o', 'm', ' '};
+
+    final InputStream input;
+
+    final int maxMessageBytes;
+
+    private int position;
+
+    private long skipped;
+
+    private MailCorpusReader(final InputStream input, final int maxMessageBytes) {
+        this.input = input;
+        this.maxMessageBytes = maxMessageBytes;
+    }
+
+    /**
+     * Detects the corpus format; throws {@link InvalidCorpusException} when it is neither a zip nor an mbox.
+     */
+    static MailCorpusReader open(final InputStream corpus, final int maxMessageBytes) throws IOException {
+        if (maxMessageBytes <= 0) throw new IllegalArgumentException("Maximum message size must be positive");
+        final var input = new BufferedInputStream(corpus);
+        input.mark(ZIP_SIGNATURE.length + MBOX_SEPARATOR.length);
+        final var head = input.readNBytes(MBOX_SEPARATOR.length);
+        input.reset();
+        if (startsWith(head, ZIP_SIGNATURE)) return new EmlZip(input, maxMessageBytes);
+        if (startsWith(head, MBOX_SEPARATOR)) return new Mbox(input, maxMessageBytes);
+        throw new InvalidCorpusException("Corpus must be an mbox or a zip of EML files");
+    }
+
+    /**
+     * Returns the next message, or {@code null} at the end of the corpus.
+     */
+    final RawMessage next() throws IOException {
+        while (true) {
+            final var content = this.read();
+            if (content == null) return null;
+            this.position++;
+            if (content.length <= this.maxMessageBytes) return new RawMessage(this.position, content);
+            this.skipped++;
+        }
+    }
+
+    /**
+     * Messages skipped so far for exceeding {@code maxMessageBytes}.
+     */
+    final long skipped() {
+        return this.skipped;
+    }
+
+    /**
+     * Reads the next message; returns more than {@code maxMessageBytes} bytes, not necessarily all of them, for a
+     * message that is too large.
+     */
+    abstract byte[] read() throws IOException;
+
+    @Override
+    public void close() throws IOException {
+        this.input.close();
+    }
+
+    private static boolean startsWith(final byte[] bytes, final byte[] prefix) {
+        return bytes.length >= prefix.length && Arrays.equals(bytes, 0, prefix.length, prefix, 0, prefix.length);
+    }
+
+    /**
+     * One message of the corpus; {@code position} is its 1-based rank, skipped messages included.
+     */
+    record RawMessage(int position, byte[] content) {
+    }
+
+    private static final class EmlZip extends MailCorpusReader {
+
+        private final ZipInputStream zip;
+
+        private EmlZip(final InputStream input, final int maxMessageBytes) {
+            super(new ZipInputStream(input), maxMessageBytes);
+            this.zip = (ZipInputStream) this.input;
+        }
+
+        @Override
+        byte[] read() throws IOException {
+            for (var entry = this.zip.getNextEntry(); entry != null; entry = this.zip.getNextEntry()) {
+                if (!entry.isDirectory() && entry.getName().toLowerCase(Locale.ROOT).endsWith(".eml")) {
+                    // The rest of an oversized entry is skipped by the next getNextEntry().
+                    return this.zip.readNBytes(this.maxMessageBytes + 1);
+                }
+            }
+            return null;
+        }
+
+    }
+
+    private static final class Mbox extends MailCorpusReader {
+
+        private byte[] line = new byte[256];
+
+        private int lineLength;
+
+        private boolean exhausted;
+
+        private Mbox(final InputStream input, final int maxMessageBytes) throws IOException {
+            super(input, maxMessageBytes);
+            // The stream starts with the first separator line.
+            this.readLine();
+        }
+
+        @Override
+        byte[] read() throws IOException {
+            if (this.exhausted) return null;
+            final var message = new ByteArrayOutputStream();
+            boolean oversized = false;
+            while (this.readLine()) {
+                if (this.isSeparator()) return finish(message, oversized);
+                if (oversized) continue;
+                final int offset = this.isQuotedSeparator() ? 1 : 0;
+                message.write(this.line, offset, this.lineLength - offset);
+                if (message.size() > this.maxMessageBytes) oversized = true;
+            }
+            this.exhausted = true;
+            return finish(message, oversized);
+        }
+
+        /**
+         * Drops the blank line that precedes the next separator.
+         */
+        private static byte[] finish(final ByteArrayOutputStream message, final boolean oversized) {
+            final var bytes = message.toByteArray();
+            if (oversized) return bytes;
+            int length = bytes.length;
+            if (length >= 2 && bytes[length - 1] == '\n' && bytes[length - 2] == '\n') length--;
+            else if (length >= 4 && bytes[length - 1] == '\n' && bytes[length - 3] == '\n' && bytes[length - 2] == '\r') length -= 2;
+            return length == bytes.length ? bytes : Arrays.copyOf(bytes, length);
+        }
+
+        /**
+         * Reads one line, terminator included; returns {@code false} at the end of the stream. The line buffer never
+         * grows past {@code maxMessageBytes}.
+         */
+        private boolean readLine() throws IOException {
+            this.lineLength = 0;
+            int next;
+            while ((next = this.input.read()) >= 0) {
+                if (this.lineLength == this.line.length) {
+                    if (this.lineLength >= this.maxMessageBytes) {
+                        throw new IOException("Mbox line longer than " + this.maxMessageBytes + " bytes");
+                    }
+                    this.line = Arrays.copyOf(this.line, (int) Math.min(this.maxMessageBytes, this.line.length * 2L));
+                }
+                this.line[this.lineLength++] = (byte) next;
+                if (next == '\n') break;
+            }
+            return this.lineLength > 0;
+        }
+
+        private boolean isSeparator() {
+            return Arrays.equals(this.line, 0, Math.min(this.lineLength, MBOX_SEPARATOR.length), MBOX_SEPARATOR, 0, MBOX_SEPARATOR.length);
+        }
+
+        /**
+         * Whether the line is {@code >From }, {@code >>From }, ...: mboxrd removes one level of quoting.
+         */
+        private boolean isQuotedSeparator() {
+            int quotes = 0;
+            while (quotes < this.lineLength && this.line[quotes] == '>') quotes++;
+            return quotes > 0 && Arrays.equals(
+                this.line, quotes, Math.min(this.lineLength, quotes + MBOX_SEPARATOR.length), MBOX_SEPARATOR, 0, MBOX_SEPARATOR.length
+            );
+        }
+
+    }
+
+}
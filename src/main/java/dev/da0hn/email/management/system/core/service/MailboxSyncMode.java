@@ -0,0 +1,24 @@
+package dev.da0hn.email.management.system.core.service;
+
+/**
+ * How inboxes are kept in sync, selected with {@code app.mail.sync.mode}.
+ */
+public enum MailboxSyncMode {
+
+    /**
+     * Inboxes are only processed on demand.
+     */
+    NONE,
+
+    /**
+     * Every inbox is processed each {@code app.mail.sync.polling-interval-millis}.
+     */
+    POLLING,
+
+    /**
+     * Inboxes are processed as soon as the server announces new messages through IMAP IDLE; accounts whose server does
+     * not support IDLE are polled.
+     */
+    PUSH
+
+}
@@ -0,0 +1,311 @@
+package dev.da0hn.email.management.system.core.service;
+
+import dev.da0hn.email.management.system.core.domain.Account;
+import dev.da0hn.email.management.system.core.ports.spi.AccountRepository;
+import dev.da0hn.email.management.system.core.ports.spi.LoggerFacade;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps account inboxes in sync according to {@code app.mail.sync.mode}.
+ * <p>In {@link MailboxSyncMode#POLLING} every account is processed each {@code app.mail.sync.polling-interval-millis}.
+ * In {@link MailboxSyncMode#PUSH} each account gets an IMAP IDLE watch on its own connection instead, and is processed
+ * incrementally when the server announces new messages; the same interval then only picks up new accounts, reconnects
+ * lost watches and polls the accounts whose server does not support IDLE. Watches are renewed every
+ * {@code app.mail.sync.idle-renew-millis}, below the 30 minutes after which servers may end an IDLE.</p>
+ * <p>Processing runs on virtual threads, at most once at a time per account: notifications arriving meanwhile are
+ * coalesced into one more run.</p>
+ */
+@Service
+public class MailboxSyncService {
+
+    private final AccountRepository accountRepository;
+
+    private final EmailProcessor emailProcessor;
+
+    private final MailboxSyncMode mode;
+
+    private final MailboxWatcher watcher;
+
+    private final Executor workers;
+
+    private final Map<UUID, AccountSync> accounts = new ConcurrentHashMap<>();
+
+    @Autowired
+    public MailboxSyncService(
+        final AccountRepository accountRepository,
+        final EmailProcessor emailProcessor,
+        final JavaMailSender javaMailSender,
+        final PasswordEncryptionService passwordEncryptionService,
+        @Value("${app.mail.sync.mode:NONE}") final MailboxSyncMode mode
+    ) {
+        this(
+            accountRepository,
+            emailProcessor,
+            mode,
+            mode == MailboxSyncMode.PUSH
+                ? new ImapIdleWatcher(((JavaMailSenderImpl) javaMailSender).getSession(), passwordEncryptionService)
+                : null,
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("mailbox-sync-", 0).factory())
+        );
+    }
+
+    MailboxSyncService(
+        final AccountRepository accountRepository,
+        final EmailProcessor emailProcessor,
+        final MailboxSyncMode mode,
+        final MailboxWatcher watcher,
+        final Executor workers
+    ) {
+        if (mode == MailboxSyncMode.PUSH && watcher == null) throw new IllegalArgumentException("Push mode needs a watcher");
+        this.accountRepository = accountRepository;
+        this.emailProcessor = emailProcessor;
+        this.mode = mode;
+        this.watcher = watcher;
+        this.workers = workers;
+    }
+
+    /**
+     * Polls the accounts that are not pushed and, in push mode, starts the missing watches.
+     */
+    @Scheduled(fixedDelayString = "${app.mail.sync.polling-interval-millis:60000}")
+    public void synchronize() {
+        if (this.mode == MailboxSyncMode.NONE) return;
+        final var current = this.accountRepository.findAll();
+        final Set<UUID> ids = current.stream().map(Account::id).collect(Collectors.toSet());
+        this.accounts.entrySet().removeIf(entry -> {
+            if (ids.contains(entry.getKey())) return false;
+            entry.getValue().stop();
+            return true;
+        });
+
+        for (final var account : current) {
+            final var sync = this.accounts.computeIfAbsent(account.id(), AccountSync::new);
+            if (this.mode == MailboxSyncMode.PUSH && sync.startWatching()) {
+                this.submit(sync, () -> this.watch(account, sync));
+            }
+            else if (this.mode == MailboxSyncMode.POLLING || sync.isPolled()) {
+                this.trigger(sync);
+            }
+        }
+    }
+
+    /**
+     * Restarts every IDLE before the server times it out; a watch whose connection was lost is dropped and started
+     * again by the next {@link #synchronize()}.
+     */
+    @Scheduled(
+        fixedDelayString = "${app.mail.sync.idle-renew-millis:1500000}",
+        initialDelayString = "${app.mail.sync.idle-renew-millis:1500000}"
+    )
+    public void renewWatches() {
+        for (final var sync : this.accounts.values()) {
+            final var watch = sync.watch();
+            if (watch == null) continue;
+            this.submit(sync, () -> {
+                try {
+                    watch.renew();
+                }
+                catch (final MessagingException | RuntimeException e) {
+                    LoggerFacade.instance()
+                        .where(this)
+                        .method("renewWatches")
+                        .level(LoggerFacade.LogLevel.WARN)
+                        .what("IMAP IDLE connection lost, it is watched again on the next synchronization")
+                        .parameter("accountId", sync.accountId)
+                        .parameter("error", e.getMessage())
+                        .log();
+                    sync.dropWatch(watch);
+                }
+            });
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        this.accounts.values().forEach(AccountSync::stop);
+        this.accounts.clear();
+        if (this.watcher != null) this.watcher.close();
+        if (this.workers instanceof final ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+    }
+
+    private void watch(final Account account, final AccountSync sync) {
+        try {
+            final var watch = this.watcher.watch(account, () -> this.trigger(sync));
+            if (watch.isEmpty()) {
+                LoggerFacade.instance()
+                    .where(this)
+                    .method("watch")
+                    .what("IMAP server does not support IDLE, polling the account instead")
+                    .parameter("accountId", account.id())
+                    .log();
+                sync.pollInstead();
+            }
+            else if (!sync.watching(watch.get())) {
+                watch.get().close();
+                return;
+            }
+        }
+        catch (final MessagingException | RuntimeException e) {
+            LoggerFacade.instance()
+                .where(this)
+                .method("watch")
+                .level(LoggerFacade.LogLevel.WARN)
+                .what("Could not start IMAP IDLE, retrying on the next synchronization")
+                .parameter("accountId", account.id())
+                .parameter("error", e.getMessage())
+                .log();
+            sync.watchFailed();
+            return;
+        }
+        // Catches up with the messages delivered before the watch started.
+        this.trigger(sync);
+    }
+
+    private void trigger(final AccountSync sync) {
+        if (sync.requestRun()) this.submit(sync, () -> this.process(sync));
+    }
+
+    private void process(final AccountSync sync) {
+        do {
+            final var account = this.accountRepository.findById(sync.accountId);
+            if (account.isEmpty()) {
+                sync.stop();
+                return;
+            }
+            try {
+                this.emailProcessor.process(account.get());
+            }
+            catch (final RuntimeException e) {
+                LoggerFacade.instance()
+                    .where(this)
+                    .method("process")
+                    .level(LoggerFacade.LogLevel.WARN)
+                    .what("Inbox synchronization failed")
+                    .parameter("accountId", sync.accountId)
+                    .parameter("error", e.getMessage())
+                    .log();
+            }
+        } while (sync.finishRun());
+    }
+
+    private void submit(final AccountSync sync, final Runnable task) {
+        try {
+            this.workers.execute(task);
+        }
+        catch (final RejectedExecutionException e) {
+            sync.stop();
+        }
+    }
+
+    /**
+     * Sync state of one account. A run requested while another is in progress only marks the account dirty, and the
+     * running worker processes it once more.
+     */
+    private static final class AccountSync {
+
+        private final UUID accountId;
+
+        private MailboxWatcher.Watch watch;
+
+        private boolean starting;
+
+        private boolean polled;
+
+        private boolean running;
+
+        private boolean dirty;
+
+        private boolean stopped;
+
+        private AccountSync(final UUID accountId) {
+            this.accountId = accountId;
+        }
+
+        synchronized boolean startWatching() {
+            if (this.stopped || this.polled || this.starting || this.watch != null) return false;
+            this.starting = true;
+            return true;
+        }
+
+        synchronized boolean watching(final MailboxWatcher.Watch watch) {
+            this.starting = false;
+            if (this.stopped) return false;
+            this.watch = watch;
+            return true;
+        }
+
+        synchronized void pollInstead() {
+            this.starting = false;
+            this.polled = true;
+        }
+
+        synchronized void watchFailed() {
+            this.starting = false;
+        }
+
+        synchronized MailboxWatcher.Watch watch() {
+            return this.watch;
+        }
+
+        synchronized boolean isPolled() {
+            return this.polled;
+        }
+
+        void dropWatch(final MailboxWatcher.Watch watch) {
+            synchronized (this) {
+                if (this.watch == watch) this.watch = null;
+            }
+            watch.close();
+        }
+
+        synchronized boolean requestRun() {
+            if (this.stopped) return false;
+            if (this.running) {
+                this.dirty = true;
+                return false;
+            }
+            this.running = true;
+            return true;
+        }
+
+        synchronized boolean finishRun() {
+            if (this.dirty && !this.stopped) {
+                this.dirty = false;
+                return true;
+            }
+            this.running = false;
+            return false;
+        }
+
+        void stop() {
+            final MailboxWatcher.Watch current;
+            synchronized (this) {
+                this.stopped = true;
+                current = this.watch;
+                this.watch = null;
+            }
+            if (current != null) current.close();
+        }
+
+    }
+
+}
@@ -0,0 +1,35 @@
+package dev.da0hn.email.management.system.core.service;
+
+import dev.da0hn.email.management.system.core.domain.Account;
+import jakarta.mail.MessagingException;
+
+import java.util.Optional;
+
+/**
+ * Source of new-message notifications for account inboxes.
+ */
+interface MailboxWatcher {
+
+    /**
+     * Starts watching the account's inbox, running {@code onNewMessages} each time the server announces new messages.
+     * Returns an empty optional when the server cannot push notifications.
+     */
+    Optional<Watch> watch(Account account, Runnable onNewMessages) throws MessagingException;
+
+    /**
+     * Stops watching every inbox.
+     */
+    void close();
+
+    interface Watch {
+
+        /**
+         * Restarts the wait for notifications before the server times it out; throws when the connection is lost.
+         */
+        void renew() throws MessagingException;
+
+        void close();
+
+    }
+
+}
@@ -0,0 +1,70 @@
+package dev.da0hn.email.management.system.core.service;
+
+import dev.da0hn.email.management.system.core.service.engine.MessageBody;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Multipart;
+import jakarta.mail.Part;
+import jakarta.mail.internet.ContentType;
+import jakarta.mail.internet.MimeUtility;
+import jakarta.mail.internet.ParseException;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+
+/**
+ * {@link MessageBody} over a Jakarta Mail message.
+ * <p>The multipart structure is walked without reading content (IMAP builds it from {@code BODYSTRUCTURE}) and only
+ * inline {@code text/*} parts are opened. Their stream is transfer-decoded and, on IMAP, fetched in blocks, so a scan
+ * that stops early does not download the rest of the part. Attachments and binary parts are never fetched.</p>
+ */
+final class MimeMessageBody implements MessageBody {
+
+    private final Part message;
+
+    MimeMessageBody(final Part message) {
+        this.message = message;
+    }
+
+    @Override
+    public void forEachTextPart(final TextPartScanner scanner) throws IOException {
+        try {
+            walk(this.message, scanner);
+        }
+        catch (final MessagingException e) {
+            throw new IOException("Could not read message body", e);
+        }
+    }
+
+    /**
+     * Returns whether the scanner wants the parts after this one.
+     */
+    private static boolean walk(final Part part, final TextPartScanner scanner) throws MessagingException, IOException {
+        if (part.isMimeType("multipart/*")) {
+            final var multipart = (Multipart) part.getContent();
+            for (int i = 0; i < multipart.getCount(); i++) {
+                if (!walk(multipart.getBodyPart(i), scanner)) return false;
+            }
+            return true;
+        }
+        if (!part.isMimeType("text/*") || Part.ATTACHMENT.equalsIgnoreCase(part.getDisposition())) return true;
+        try (final var content = part.getInputStream()) {
+            return scanner.scan(content, charsetOf(part));
+        }
+    }
+
+    private static Charset charsetOf(final Part part) throws MessagingException {
+        final var contentType = part.getContentType();
+        if (contentType == null) return StandardCharsets.UTF_8;
+        try {
+            final var charset = new ContentType(contentType).getParameter("charset");
+            return charset == null ? StandardCharsets.UTF_8 : Charset.forName(MimeUtility.javaCharset(charset));
+        }
+        catch (final ParseException | IllegalCharsetNameException | UnsupportedCharsetException e) {
+            return StandardCharsets.UTF_8;
+        }
+    }
+
+}
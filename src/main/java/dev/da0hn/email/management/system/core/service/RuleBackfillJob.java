@@ -0,0 +1,160 @@
+package dev.da0hn.email.management.system.core.service;
+
+import dev.da0hn.email.management.system.core.domain.Rule;
+import dev.da0hn.email.management.system.core.ports.api.dto.RuleBackfillOutput;
+import dev.da0hn.email.management.system.core.ports.api.dto.RuleBackfillOutput.Status;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Cursor and counters of one rule backfill.
+ * <p>The cursor only moves past a UID range once the whole chunk was scanned, so a failed backfill resumes from the
+ * first unscanned chunk. It is bound to the mailbox's {@code UIDVALIDITY}: when the server renumbers the mailbox the
+ * scan starts over.</p>
+ */
+final class RuleBackfillJob {
+
+    private static final long UNBOUND = -1;
+
+    private final UUID accountId;
+
+    private final UUID ruleId;
+
+    private Rule rule;
+
+    private Status status;
+
+    private long uidValidity = UNBOUND;
+
+    private long firstUid = 1;
+
+    private long nextUid = 1;
+
+    private long lastUid;
+
+    private long scannedMessages;
+
+    private long matchedMessages;
+
+    private long failedMessages;
+
+    private String error;
+
+    private final LocalDateTime startedAt;
+
+    private LocalDateTime updatedAt;
+
+    RuleBackfillJob(final UUID accountId, final Rule rule) {
+        this.accountId = accountId;
+        this.ruleId = rule.id();
+        this.rule = rule;
+        this.status = Status.QUEUED;
+        this.startedAt = LocalDateTime.now();
+        this.updatedAt = this.startedAt;
+    }
+
+    synchronized Rule rule() {
+        return this.rule;
+    }
+
+    synchronized Status status() {
+        return this.status;
+    }
+
+    synchronized boolean isActive() {
+        return this.status == Status.QUEUED || this.status == Status.RUNNING;
+    }
+
+    synchronized long nextUid() {
+        return this.nextUid;
+    }
+
+    synchronized long lastUid() {
+        return this.lastUid;
+    }
+
+    /**
+     * Queues a failed backfill again with the rule's current definition, keeping its cursor.
+     */
+    synchronized void resume(final Rule rule) {
+        this.rule = rule;
+        this.error = null;
+        this.transition(Status.QUEUED);
+    }
+
+    synchronized void running() {
+        this.transition(Status.RUNNING);
+    }
+
+    /**
+     * Binds the cursor to the mailbox the first time, or again after the server changed its {@code UIDVALIDITY}.
+     * {@code lastUid} is only read on binding, so messages arriving later are left to regular polling.
+     */
+    synchronized void bind(final long uidValidity, final long firstUid, final long lastUid) {
+        if (this.uidValidity == uidValidity) return;
+        this.uidValidity = uidValidity;
+        this.firstUid = firstUid;
+        this.nextUid = firstUid;
+        this.lastUid = lastUid;
+        this.scannedMessages = 0;
+        this.matchedMessages = 0;
+        this.failedMessages = 0;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    synchronized void advance(
+        final long nextUid,
+        final long scannedMessages,
+        final long matchedMessages,
+        final long failedMessages
+    ) {
+        this.nextUid = nextUid;
+        this.scannedMessages += scannedMessages;
+        this.matchedMessages += matchedMessages;
+        this.failedMessages += failedMessages;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    synchronized void complete() {
+        this.transition(Status.COMPLETED);
+    }
+
+    synchronized void fail(final String error) {
+        this.error = error;
+        this.transition(Status.FAILED);
+    }
+
+    synchronized RuleBackfillOutput progress() {
+        final double progress;
+        if (this.status == Status.COMPLETED) {
+            progress = 1;
+        }
+        else if (this.lastUid < this.firstUid) {
+            progress = 0;
+        }
+        else {
+            progress = Math.min(1, (double) (this.nextUid - this.firstUid) / (this.lastUid - this.firstUid + 1));
+        }
+        return new RuleBackfillOutput(
+            this.accountId,
+            this.ruleId,
+            this.status,
+            this.nextUid,
+            this.lastUid,
+            this.scannedMessages,
+            this.matchedMessages,
+            this.failedMessages,
+            progress,
+            this.error,
+            this.startedAt,
+            this.updatedAt
+        );
+    }
+
+    private void transition(final Status status) {
+        this.status = status;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+}
@@ -0,0 +1,285 @@
+package dev.da0hn.email.management.system.core.service;
+
+import dev.da0hn.email.management.system.core.domain.Account;
+import dev.da0hn.email.management.system.core.ports.api.RuleBackfillService;
+import dev.da0hn.email.management.system.core.ports.api.dto.RuleBackfillOutput;
+import dev.da0hn.email.management.system.core.ports.api.dto.RuleBackfillOutput.Status;
+import dev.da0hn.email.management.system.core.ports.spi.AccountRepository;
+import dev.da0hn.email.management.system.core.ports.spi.LoggerFacade;
+import dev.da0hn.email.management.system.core.service.engine.RuleMatcher;
+import dev.da0hn.email.management.system.core.service.engine.SearchPlan;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.Folder;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.UIDFolder;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs a single rule over the messages already in an account's inbox.
+ * <p>The inbox is scanned in ranges of {@code app.rules.backfill.chunk-size} UIDs, oldest first, over one connection
+ * opened for the whole run. Each chunk pushes the rule down to IMAP SEARCH restricted to the chunk and matches the
+ * candidates locally, then the worker pauses {@code app.rules.backfill.pause-millis} before the next one. A message
+ * whose fields cannot be read is logged, counted as failed and skipped. Backfills run one at a time on a dedicated
+ * thread, so they hold at most one extra connection and never delay regular polling.</p>
+ * <p>Progress is kept in memory: a failed backfill resumes from its first unscanned chunk, but not across restarts.
+ * Only the {@code app.rules.backfill.max-retained-jobs} most recent backfills are kept, finished ones being forgotten
+ * oldest first.</p>
+ */
+@Slf4j
+@Service
+public class RuleBackfillServiceImpl implements RuleBackfillService {
+
+    private final AccountRepository accountRepository;
+
+    private final EmailProcessor emailProcessor;
+
+    private final RuleEngine ruleEngine;
+
+    private final Executor executor;
+
+    private final int chunkSize;
+
+    private final long pauseMillis;
+
+    private final int maxRetainedJobs;
+
+    /**
+     * Backfills in the order they were started.
+     */
+    private final Map<JobKey, RuleBackfillJob> jobs = new LinkedHashMap<>();
+
+    @Autowired
+    public RuleBackfillServiceImpl(
+        final AccountRepository accountRepository,
+        final EmailProcessor emailProcessor,
+        final RuleEngine ruleEngine,
+        @Value("${app.rules.backfill.chunk-size:500}") final int chunkSize,
+        @Value("${app.rules.backfill.pause-millis:1000}") final long pauseMillis,
+        @Value("${app.rules.backfill.max-retained-jobs:1000}") final int maxRetainedJobs
+    ) {
+        this(
+            accountRepository,
+            emailProcessor,
+            ruleEngine,
+            Executors.newSingleThreadExecutor(Thread.ofPlatform().name("rule-backfill").daemon().factory()),
+            chunkSize,
+            pauseMillis,
+            maxRetainedJobs
+        );
+    }
+
+    RuleBackfillServiceImpl(
+        final AccountRepository accountRepository,
+        final EmailProcessor emailProcessor,
+        final RuleEngine ruleEngine,
+        final Executor executor,
+        final int chunkSize,
+        final long pauseMillis,
+        final int maxRetainedJobs
+    ) {
+        if (chunkSize <= 0) throw new IllegalArgumentException("Chunk size must be positive");
+        if (pauseMillis < 0) throw new IllegalArgumentException("Pause must not be negative");
+        if (maxRetainedJobs <= 0) throw new IllegalArgumentException("Maximum retained jobs must be positive");
+        this.accountRepository = accountRepository;
+        this.emailProcessor = emailProcessor;
+        this.ruleEngine = ruleEngine;
+        this.executor = executor;
+        this.chunkSize = chunkSize;
+        this.pauseMillis = pauseMillis;
+        this.maxRetainedJobs = maxRetainedJobs;
+    }
+
+    @Override
+    public RuleBackfillOutput start(final UUID accountId, final UUID ruleId) {
+        LoggerFacade.instance()
+            .where(this)
+            .method("start")
+            .what("Starting rule backfill")
+            .parameter("accountId", accountId)
+            .parameter("ruleId", ruleId)
+            .log();
+
+        final var account = this.accountRepository.findById(accountId)
+            .orElseThrow(() -> new EntityNotFoundException("Account not found"));
+        final var rule = account.rules().stream()
+            .filter(candidate -> candidate.id().equals(ruleId))
+            .findFirst()
+            .orElseThrow(() -> new EntityNotFoundException("Rule not found"));
+
+        final var key = new JobKey(accountId, ruleId);
+        final RuleBackfillJob job;
+        synchronized (this.jobs) {
+            final var current = this.jobs.get(key);
+            if (current != null && current.isActive()) return current.progress();
+            if (current != null && current.status() == Status.FAILED) {
+                current.resume(rule);
+                job = current;
+            }
+            else {
+                job = new RuleBackfillJob(accountId, rule);
+                this.jobs.remove(key);
+                this.jobs.put(key, job);
+                this.evictFinishedJobs();
+            }
+        }
+
+        try {
+            this.executor.execute(() -> this.run(job, account));
+        }
+        catch (final RejectedExecutionException e) {
+            job.fail("Backfill worker is shut down");
+        }
+        return job.progress();
+    }
+
+    @Override
+    public RuleBackfillOutput findProgress(final UUID accountId, final UUID ruleId) {
+        final RuleBackfillJob job;
+        synchronized (this.jobs) {
+            job = this.jobs.get(new JobKey(accountId, ruleId));
+        }
+        if (job == null) throw new EntityNotFoundException("Backfill not found");
+        return job.progress();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (this.executor instanceof final ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * Forgets the oldest finished backfills beyond {@code maxRetainedJobs}; active ones are always kept.
+     */
+    private void evictFinishedJobs() {
+        int excess = this.jobs.size() - this.maxRetainedJobs;
+        for (final var iterator = this.jobs.values().iterator(); excess > 0 && iterator.hasNext(); ) {
+            if (!iterator.next().isActive()) {
+                iterator.remove();
+                excess--;
+            }
+        }
+    }
+
+    private void run(final RuleBackfillJob job, final Account account) {
+        job.running();
+        try {
+            final var matcher = this.ruleEngine.compile(Set.of(job.rule()));
+            final var plan = this.ruleEngine.searchPlan(matcher);
+            if (!plan.isEmpty()) {
+                try (final var store = this.emailProcessor.connect(account)) {
+                    final var folder = store.getFolder(EmailProcessor.INBOX);
+                    folder.open(Folder.READ_ONLY);
+                    try {
+                        while (this.scanChunk(job, folder, matcher, plan)) {
+                            Thread.sleep(this.pauseMillis);
+                        }
+                    }
+                    finally {
+                        if (folder.isOpen()) folder.close(false);
+                    }
+                }
+            }
+            job.complete();
+        }
+        catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.fail("Backfill interrupted");
+        }
+        catch (final MessagingException | RuntimeException e) {
+            LoggerFacade.instance()
+                .where(this)
+                .method("run")
+                .level(LoggerFacade.LogLevel.WARN)
+                .what("Rule backfill failed, it can be resumed from its last chunk")
+                .parameter("accountId", account.id())
+                .parameter("ruleId", job.rule().id())
+                .parameter("nextUid", job.nextUid())
+                .parameter("error", e.getMessage())
+                .log();
+            job.fail(e.getMessage());
+        }
+    }
+
+    /**
+     * Scans the job's next non-empty UID range of the open inbox and returns whether ranges remain.
+     * <p>Empty ranges, left by expunged or sparse UIDs, are skipped in the same call so the pause between chunks is
+     * only paid after messages were actually read.</p>
+     */
+    private boolean scanChunk(
+        final RuleBackfillJob job,
+        final Folder folder,
+        final RuleMatcher matcher,
+        final SearchPlan plan
+    ) throws MessagingException {
+        final var uidFolder = (UIDFolder) folder;
+        final int count = folder.getMessageCount();
+        if (count == 0) return false;
+        final long uidNext = uidFolder.getUIDNext();
+        job.bind(
+            uidFolder.getUIDValidity(),
+            uidFolder.getUID(folder.getMessage(1)),
+            uidNext > 0 ? uidNext - 1 : uidFolder.getUID(folder.getMessage(count))
+        );
+
+        long end;
+        Message[] chunk;
+        do {
+            final long start = job.nextUid();
+            if (start > job.lastUid()) return false;
+            end = Math.min(job.lastUid(), start + this.chunkSize - 1);
+            chunk = uidFolder.getMessagesByUID(start, end);
+            if (chunk.length == 0) job.advance(end + 1, 0, 0, 0);
+        } while (chunk.length == 0);
+
+        long matched = 0;
+        long failed = 0;
+        final var context = matcher.newContext();
+        final var types = matcher.criteriaTypes();
+        final var candidates = EmailProcessor.search(folder, plan, chunk);
+        this.emailProcessor.prefetch(folder, candidates, this.ruleEngine.fetchProfile(matcher));
+        for (final var message : candidates) {
+            try {
+                matcher.evaluate(EmailProcessor.headersOf(message, types), context);
+            }
+            catch (final MessagingException | RuntimeException e) {
+                LoggerFacade.instance()
+                    .where(this)
+                    .method("scanChunk")
+                    .level(LoggerFacade.LogLevel.WARN)
+                    .what("Could not read message, skipping it")
+                    .parameter("ruleId", job.rule().id())
+                    .parameter("messageNumber", message.getMessageNumber())
+                    .parameter("error", e.getMessage())
+                    .log();
+                failed++;
+                continue;
+            }
+            if (context.isMatched(0)) {
+                matched++;
+                log.info("Message {} matched rule {} (backfill)", uidFolder.getUID(message), job.rule().name());
+            }
+        }
+        job.advance(end + 1, chunk.length, matched, failed);
+        return end < job.lastUid();
+    }
+
+    private record JobKey(UUID accountId, UUID ruleId) {
+    }
+
+}
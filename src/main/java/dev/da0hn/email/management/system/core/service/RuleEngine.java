@@ -0,0 +1,103 @@
+package dev.da0hn.email.management.system.core.service;
+
+import dev.da0hn.email.management.system.core.domain.Rule;
+import dev.da0hn.email.management.system.core.domain.RuleMatchMode;
+import dev.da0hn.email.management.system.core.service.engine.BloomFilterSettings;
+import dev.da0hn.email.management.system.core.service.engine.ImapFetchProfiles;
+import dev.da0hn.email.management.system.core.service.engine.ImapSearchTranslator;
+import dev.da0hn.email.management.system.core.service.engine.RuleMatcher;
+import dev.da0hn.email.management.system.core.service.engine.RuleMatcherBackend;
+import dev.da0hn.email.management.system.core.service.engine.RuleMatcherSettings;
+import dev.da0hn.email.management.system.core.service.engine.SearchPlan;
+import jakarta.mail.FetchProfile;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.ZoneId;
+import java.util.Comparator;
+import java.util.Set;
+
+/**
+ * Compiles the rules of an account into an immutable {@link RuleMatcher}.
+ * Compilation is done once per rule set; the resulting matcher is meant to be shared by every message of a poll.
+ * The matcher implementation is chosen with {@code app.rules.engine.backend}; it applies to polling and backfills,
+ * which evaluate messages one at a time.
+ */
+@Service
+public class RuleEngine {
+
+    /**
+     * Lowest priority first; ties are broken by name and id so the order never depends on set iteration.
+     */
+    private static final Comparator<Rule> RULE_ORDER = Comparator.comparingInt(Rule::priority)
+        .thenComparing(Rule::name, Comparator.nullsLast(Comparator.naturalOrder()))
+        .thenComparing(Rule::id, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private final ZoneId zone;
+
+    private final RuleMatcherBackend backend;
+
+    private final RuleMatcherSettings settings;
+
+    @Autowired
+    public RuleEngine(
+        @Value("${app.rules.engine.backend:INTERPRETED}") final RuleMatcherBackend backend,
+        @Value("${app.rules.bloom-filter.minimum-values:10000}") final int bloomFilterMinimumValues,
+        @Value("${app.rules.bloom-filter.false-positive-rate:0.01}") final double bloomFilterFalsePositiveRate,
+        @Value("${app.rules.memo.maximum-entries:10000}") final int memoMaximumEntries,
+        @Value("${app.rules.body.scan-limit-bytes:1048576}") final long bodyScanLimit
+    ) {
+        this(
+            ZoneId.systemDefault(),
+            backend,
+            new RuleMatcherSettings(
+                new BloomFilterSettings(bloomFilterMinimumValues, bloomFilterFalsePositiveRate),
+                memoMaximumEntries,
+                bodyScanLimit
+            )
+        );
+    }
+
+    RuleEngine(final ZoneId zone) {
+        this(zone, RuleMatcherBackend.INTERPRETED);
+    }
+
+    RuleEngine(final ZoneId zone, final RuleMatcherBackend backend) {
+        this(zone, backend, RuleMatcherSettings.DEFAULT);
+    }
+
+    RuleEngine(final ZoneId zone, final RuleMatcherBackend backend, final RuleMatcherSettings settings) {
+        this.zone = zone;
+        this.backend = backend;
+        this.settings = settings;
+    }
+
+    public RuleMatcher compile(final Set<Rule> rules) {
+        return this.compile(rules, RuleMatchMode.ALL_MATCHES, null);
+    }
+
+    /**
+     * Compiles the rules, reusing what it can from {@code previous}, the matcher of the account's former rules, or
+     * {@code null}. The Bloom filters of large {@code EQUALS} indexes then only hash the new values.
+     */
+    public RuleMatcher compile(final Set<Rule> rules, final RuleMatchMode matchMode, final RuleMatcher previous) {
+        final var orderedRules = rules.stream().sorted(RULE_ORDER).toList();
+        return this.backend.compile(orderedRules, this.zone, this.settings, matchMode, previous);
+    }
+
+    /**
+     * Translates the matcher's rules into IMAP SEARCH keys that select a superset of the messages it can match.
+     */
+    public SearchPlan searchPlan(final RuleMatcher matcher) {
+        return ImapSearchTranslator.translate(matcher.rules(), this.zone);
+    }
+
+    /**
+     * Returns the IMAP fetch items covering exactly the message fields the matcher's rules read.
+     */
+    public FetchProfile fetchProfile(final RuleMatcher matcher) {
+        return ImapFetchProfiles.forCriteriaTypes(matcher.criteriaTypes());
+    }
+
+}
@@ -0,0 +1,151 @@
+package dev.da0hn.email.management.system.core.service;
+
+import dev.da0hn.email.management.system.core.domain.Account;
+import dev.da0hn.email.management.system.core.service.engine.RuleMatcher;
+import dev.da0hn.email.management.system.core.service.engine.SearchPlan;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Keeps the compiled {@link RuleMatcher} of each account, along with its IMAP {@link SearchPlan}, so rules are only
+ * compiled and translated again after they change.
+ * <p>Entries are keyed by account id and versioned by {@link Account#updatedAt()}: a lookup with a different version
+ * recompiles and replaces the entry, so nodes that did not see the mutation still pick up new rules. The cache is bounded
+ * by a total weight (one per account plus one per rule criterion) and evicts the least recently used entries first.</p>
+ */
+@Service
+public class RuleMatcherCache {
+
+    private final RuleEngine ruleEngine;
+
+    private final long maximumWeight;
+
+    private final Map<UUID, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long weight;
+
+    private final Counter hits;
+
+    private final Counter misses;
+
+    private final Counter evictions;
+
+    public RuleMatcherCache(
+        final RuleEngine ruleEngine,
+        final MeterRegistry meterRegistry,
+        @Value("${app.rules.cache.maximum-weight:1000000}") final long maximumWeight
+    ) {
+        if (maximumWeight <= 0) throw new IllegalArgumentException("Maximum weight must be positive");
+        this.ruleEngine = ruleEngine;
+        this.maximumWeight = maximumWeight;
+        this.hits = meterRegistry.counter("rules.matcher.cache", "result", "hit");
+        this.misses = meterRegistry.counter("rules.matcher.cache", "result", "miss");
+        this.evictions = meterRegistry.counter("rules.matcher.cache.evictions");
+        Gauge.builder("rules.matcher.cache.size", this, RuleMatcherCache::size).register(meterRegistry);
+        Gauge.builder("rules.matcher.cache.weight", this, RuleMatcherCache::weight).register(meterRegistry);
+    }
+
+    /**
+     * Returns the compiled matcher for the account's current rules, compiling it on a miss.
+     */
+    public RuleMatcher matcherFor(final Account account) {
+        return this.compiledFor(account).matcher();
+    }
+
+    /**
+     * Returns the compiled matcher for the account's current rules together with its search plan, compiling both on a
+     * miss.
+     */
+    public CompiledRules compiledFor(final Account account) {
+        final RuleMatcher previous;
+        synchronized (this.entries) {
+            final var entry = this.entries.get(account.id());
+            if (entry != null && entry.version().equals(account.updatedAt())) {
+                this.hits.increment();
+                return entry.compiled();
+            }
+            previous = entry == null ? null : entry.compiled().matcher();
+        }
+        this.misses.increment();
+
+        // Compiled outside the lock; a concurrent miss for the same account only wastes one compilation.
+        final var matcher = this.ruleEngine.compile(account.rules(), account.ruleMatchMode(), previous);
+        final var compiled = new CompiledRules(matcher, this.ruleEngine.searchPlan(matcher));
+        final var entry = new Entry(account.updatedAt(), compiled, weightOf(account));
+        synchronized (this.entries) {
+            final var current = this.entries.get(account.id());
+            if (current != null && current.version().isAfter(entry.version())) {
+                return compiled;
+            }
+            this.remove(account.id());
+            this.entries.put(account.id(), entry);
+            this.weight += entry.weight();
+            this.evictExcess();
+        }
+        return compiled;
+    }
+
+    /**
+     * Drops the account's compiled matcher; called when rules are updated or deleted. Creating a rule keeps the stale
+     * entry instead: its version no longer matches, so the next lookup recompiles, reusing the old matcher's Bloom
+     * filters.
+     */
+    public void evict(final UUID accountId) {
+        synchronized (this.entries) {
+            this.remove(accountId);
+        }
+    }
+
+    public int size() {
+        synchronized (this.entries) {
+            return this.entries.size();
+        }
+    }
+
+    public long weight() {
+        synchronized (this.entries) {
+            return this.weight;
+        }
+    }
+
+    private void remove(final UUID accountId) {
+        final var removed = this.entries.remove(accountId);
+        if (removed != null) {
+            this.weight -= removed.weight();
+        }
+    }
+
+    private void evictExcess() {
+        final Iterator<Entry> eldest = this.entries.values().iterator();
+        // The newest entry is always kept, even when it alone exceeds the bound.
+        while (this.weight > this.maximumWeight && this.entries.size() > 1) {
+            this.weight -= eldest.next().weight();
+            eldest.remove();
+            this.evictions.increment();
+        }
+    }
+
+    private static long weightOf(final Account account) {
+        long weight = 1;
+        for (final var rule : account.rules()) {
+            weight += rule.criteriaCount();
+        }
+        return weight;
+    }
+
+    public record CompiledRules(RuleMatcher matcher, SearchPlan searchPlan) {
+    }
+
+    private record Entry(LocalDateTime version, CompiledRules compiled, long weight) {
+    }
+
+}
@@ -0,0 +1,286 @@
+package dev.da0hn.email.management.system.core.service;
+
+import dev.da0hn.email.management.system.core.ports.api.InvalidCorpusException;
+import dev.da0hn.email.management.system.core.ports.api.RuleSimulationService;
+import dev.da0hn.email.management.system.core.ports.api.dto.RuleSimulationOutput;
+import dev.da0hn.email.management.system.core.ports.spi.AccountRepository;
+import dev.da0hn.email.management.system.core.ports.spi.LoggerFacade;
+import dev.da0hn.email.management.system.core.service.MailCorpusReader.RawMessage;
+import dev.da0hn.email.management.system.core.service.engine.MessageHeaders;
+import dev.da0hn.email.management.system.core.service.engine.RuleMatcher;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs an account's compiled rule set over an uploaded corpus, for previewing rule changes and benchmarking them.
+ * <p>The corpus is read sequentially by the calling thread in chunks of {@value #CHUNK_SIZE} messages. Each chunk is
+ * handed to a dedicated {@link ForkJoinPool} sized by {@code app.rules.simulation.parallelism}, where it is split in
+ * halves down to batches of {@value #LEAF_SIZE} messages, each parsed and evaluated through a {@code MessageBatch}. At
+ * most {@value #MAX_CHUNKS_IN_FLIGHT} chunks are queued, so memory stays bounded whatever the corpus size. Messages
+ * over {@code app.rules.simulation.max-message-bytes} are skipped.</p>
+ * <p>Parsed messages have no {@code INTERNALDATE}: their {@code Date} header stands in for the received date, and the
+ * raw message length for {@code RFC822.SIZE}.</p>
+ */
+@Service
+public class RuleSimulationServiceImpl implements RuleSimulationService {
+
+    static final int CHUNK_SIZE = 512;
+
+    static final int LEAF_SIZE = 64;
+
+    static final int MAX_CHUNKS_IN_FLIGHT = 8;
+
+    static final int MAX_EXAMPLES = 5;
+
+    private final AccountRepository accountRepository;
+
+    private final RuleMatcherCache ruleMatcherCache;
+
+    private final ForkJoinPool pool;
+
+    private final int maxMessageBytes;
+
+    private final Session session = Session.getInstance(new Properties());
+
+    @Autowired
+    public RuleSimulationServiceImpl(
+        final AccountRepository accountRepository,
+        final RuleMatcherCache ruleMatcherCache,
+        @Value("${app.rules.simulation.parallelism:0}") final int parallelism,
+        @Value("${app.rules.simulation.max-message-bytes:26214400}") final int maxMessageBytes
+    ) {
+        if (parallelism < 0) throw new IllegalArgumentException("Parallelism must not be negative");
+        if (maxMessageBytes <= 0) throw new IllegalArgumentException("Maximum message size must be positive");
+        this.accountRepository = accountRepository;
+        this.ruleMatcherCache = ruleMatcherCache;
+        this.pool = new ForkJoinPool(parallelism == 0 ? Runtime.getRuntime().availableProcessors() : parallelism);
+        this.maxMessageBytes = maxMessageBytes;
+    }
+
+    @Override
+    public RuleSimulationOutput simulate(final UUID accountId, final InputStream corpus) {
+        LoggerFacade.instance()
+            .where(this)
+            .method("simulate")
+            .what("Simulating rules over uploaded corpus")
+            .parameter("accountId", accountId)
+            .log();
+
+        final var account = this.accountRepository.findById(accountId)
+            .orElseThrow(() -> new EntityNotFoundException("Account not found"));
+        final var simulation = new Simulation(this.ruleMatcherCache.matcherFor(account));
+        final var inFlight = new Semaphore(MAX_CHUNKS_IN_FLIGHT);
+        final long start = System.nanoTime();
+        try (final var reader = MailCorpusReader.open(corpus, this.maxMessageBytes)) {
+            var chunk = new ArrayList<RawMessage>(CHUNK_SIZE);
+            for (var message = reader.next(); message != null; message = reader.next()) {
+                chunk.add(message);
+                if (chunk.size() == CHUNK_SIZE) {
+                    this.submit(simulation, chunk, inFlight);
+                    chunk = new ArrayList<>(CHUNK_SIZE);
+                }
+            }
+            if (!chunk.isEmpty()) this.submit(simulation, chunk, inFlight);
+            simulation.failed.add(reader.skipped());
+        }
+        catch (final IOException e) {
+            throw new InvalidCorpusException("Could not read corpus: " + e.getMessage(), e);
+        }
+        catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Simulation interrupted", e);
+        }
+        finally {
+            // Every chunk holds a permit until it is evaluated, so taking them all waits for the last one.
+            inFlight.acquireUninterruptibly(MAX_CHUNKS_IN_FLIGHT);
+        }
+        return simulation.output(accountId, System.nanoTime() - start);
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        this.pool.shutdownNow();
+        this.pool.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    private void submit(final Simulation simulation, final List<RawMessage> chunk, final Semaphore inFlight)
+        throws InterruptedException {
+        inFlight.acquire();
+        try {
+            this.pool.execute(new EvaluateChunk(simulation, chunk, 0, chunk.size(), inFlight));
+        }
+        catch (final RejectedExecutionException e) {
+            inFlight.release();
+            throw new IllegalStateException("Simulation pool is shut down", e);
+        }
+    }
+
+    /**
+     * Counters of one run, shared by its tasks.
+     */
+    private final class Simulation {
+
+        private final RuleMatcher matcher;
+
+        private final LongAdder evaluated = new LongAdder();
+
+        private final LongAdder failed = new LongAdder();
+
+        private final LongAdder[] hits;
+
+        private final List<List<String>> examples;
+
+        private Simulation(final RuleMatcher matcher) {
+            this.matcher = matcher;
+            final int rules = matcher.rules().size();
+            this.hits = new LongAdder[rules];
+            this.examples = new ArrayList<>(rules);
+            for (int rule = 0; rule < rules; rule++) {
+                this.hits[rule] = new LongAdder();
+                this.examples.add(new ArrayList<>(MAX_EXAMPLES));
+            }
+        }
+
+        private void evaluate(final List<RawMessage> messages) {
+            final var batch = this.matcher.newBatch(messages.size());
+            final var ids = new String[messages.size()];
+            final var types = this.matcher.criteriaTypes();
+            for (final var raw : messages) {
+                try {
+                    final var message = new MimeMessage(RuleSimulationServiceImpl.this.session, new ByteArrayInputStream(raw.content()));
+                    final var headers = EmailProcessor.headersOf(message, types);
+                    final var sent = message.getSentDate();
+                    batch.add(new MessageHeaders(
+                        headers.from(),
+                        headers.to(),
+                        headers.subject(),
+                        sent != null ? sent.getTime() : MessageHeaders.UNKNOWN_RECEIVED_AT,
+                        raw.content().length,
+                        headers.attachmentTypes(),
+                        headers.body()
+                    ));
+                    final var messageId = message.getMessageID();
+                    ids[batch.size() - 1] = messageId != null ? messageId : "#" + raw.position();
+                }
+                catch (final MessagingException | RuntimeException e) {
+                    this.failed.increment();
+                }
+            }
+            this.matcher.evaluate(batch);
+            this.evaluated.add(batch.size());
+            for (int rule = 0; rule < this.hits.length; rule++) {
+                for (int message = batch.nextMessage(rule, 0); message >= 0; message = batch.nextMessage(rule, message + 1)) {
+                    this.hits[rule].increment();
+                    final var ruleExamples = this.examples.get(rule);
+                    synchronized (ruleExamples) {
+                        if (ruleExamples.size() < MAX_EXAMPLES) ruleExamples.add(ids[message]);
+                    }
+                }
+            }
+        }
+
+        private RuleSimulationOutput output(final UUID accountId, final long elapsedNanos) {
+            final long messages = this.evaluated.sum();
+            final var rules = new ArrayList<RuleSimulationOutput.RuleHits>(this.hits.length);
+            for (int rule = 0; rule < this.hits.length; rule++) {
+                final var definition = this.matcher.rules().get(rule);
+                final List<String> ruleExamples;
+                synchronized (this.examples.get(rule)) {
+                    ruleExamples = List.copyOf(this.examples.get(rule));
+                }
+                rules.add(new RuleSimulationOutput.RuleHits(definition.id(), definition.name(), this.hits[rule].sum(), ruleExamples));
+            }
+            return new RuleSimulationOutput(
+                accountId,
+                messages,
+                this.failed.sum(),
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                elapsedNanos == 0 ? 0 : messages * 1e9 / elapsedNanos,
+                rules
+            );
+        }
+
+    }
+
+    /**
+     * Splits a chunk in halves down to {@value #LEAF_SIZE} messages; the root task releases the chunk's permit.
+     */
+    private static final class EvaluateChunk extends RecursiveAction {
+
+        private final Simulation simulation;
+
+        private final List<RawMessage> messages;
+
+        private final int from;
+
+        private final int to;
+
+        private final Semaphore permit;
+
+        private EvaluateChunk(
+            final Simulation simulation,
+            final List<RawMessage> messages,
+            final int from,
+            final int to,
+            final Semaphore permit
+        ) {
+            this.simulation = simulation;
+            this.messages = messages;
+            this.from = from;
+            this.to = to;
+            this.permit = permit;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                if (this.to - this.from > LEAF_SIZE) {
+                    final int middle = (this.from + this.to) >>> 1;
+                    invokeAll(
+                        new EvaluateChunk(this.simulation, this.messages, this.from, middle, null),
+                        new EvaluateChunk(this.simulation, this.messages, middle, this.to, null)
+                    );
+                    return;
+                }
+                try {
+                    this.simulation.evaluate(this.messages.subList(this.from, this.to));
+                }
+                catch (final RuntimeException e) {
+                    LoggerFacade.instance()
+                        .where(this)
+                        .method("compute")
+                        .level(LoggerFacade.LogLevel.WARN)
+                        .what("Simulation batch failed, its messages are counted as failed")
+                        .parameter("error", e.getMessage())
+                        .log();
+                    this.simulation.failed.add(this.to - this.from);
+                }
+            }
+            finally {
+                if (this.permit != null) this.permit.release();
+            }
+        }
+
+    }
+
+}
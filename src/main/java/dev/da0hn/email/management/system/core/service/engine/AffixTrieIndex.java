@@ -0,0 +1,126 @@
+package dev.da0hn.email.management.system.core.service.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Trie over {@code STARTS_WITH} values (read forwards) or {@code ENDS_WITH} values (read backwards).
+ * <p>A header is walked once from the anchored end; every node reached that terminates a value reports its slots, so
+ * all matching prefix or suffix rules are collected in {@code O(length)} without testing them one by one.</p>
+ */
+final class AffixTrieIndex {
+
+    enum Direction {
+        PREFIX,
+        SUFFIX
+    }
+
+    private static final int ROOT = 0;
+
+    private final Direction direction;
+
+    private final int[] edgeStart;
+
+    private final char[] edgeChars;
+
+    private final int[] edgeTargets;
+
+    private final int[][] outputs;
+
+    private AffixTrieIndex(
+        final Direction direction,
+        final int[] edgeStart,
+        final char[] edgeChars,
+        final int[] edgeTargets,
+        final int[][] outputs
+    ) {
+        this.direction = direction;
+        this.edgeStart = edgeStart;
+        this.edgeChars = edgeChars;
+        this.edgeTargets = edgeTargets;
+        this.outputs = outputs;
+    }
+
+    void collect(final String value, final BitSet satisfied) {
+        final int length = value.length();
+        int node = ROOT;
+        for (int i = 0; i < length; i++) {
+            final char c = this.direction == Direction.PREFIX ? value.charAt(i) : value.charAt(length - 1 - i);
+            final int from = this.edgeStart[node];
+            final int index = Arrays.binarySearch(this.edgeChars, from, this.edgeStart[node + 1], c);
+            if (index < 0) return;
+            node = this.edgeTargets[index];
+            for (final int slot : this.outputs[node]) {
+                satisfied.set(slot);
+            }
+        }
+    }
+
+    static final class Builder {
+
+        private final Direction direction;
+
+        private final List<TreeMap<Character, Integer>> children = new ArrayList<>();
+
+        private final List<List<Integer>> outputs = new ArrayList<>();
+
+        Builder(final Direction direction) {
+            this.direction = direction;
+            this.newNode();
+        }
+
+        boolean isEmpty() {
+            return this.children.size() == 1;
+        }
+
+        void add(final String value, final int slot) {
+            final int length = value.length();
+            int node = ROOT;
+            for (int i = 0; i < length; i++) {
+                final char c = this.direction == Direction.PREFIX ? value.charAt(i) : value.charAt(length - 1 - i);
+                final var existing = this.children.get(node).get(c);
+                if (existing != null) {
+                    node = existing;
+                }
+                else {
+                    final int created = this.newNode();
+                    this.children.get(node).put(c, created);
+                    node = created;
+                }
+            }
+            this.outputs.get(node).add(slot);
+        }
+
+        AffixTrieIndex build() {
+            final int size = this.children.size();
+            final var edgeStart = new int[size + 1];
+            for (int node = 0; node < size; node++) {
+                edgeStart[node + 1] = edgeStart[node] + this.children.get(node).size();
+            }
+            final var edgeChars = new char[edgeStart[size]];
+            final var edgeTargets = new int[edgeStart[size]];
+            final var outputArrays = new int[size][];
+            for (int node = 0; node < size; node++) {
+                int edge = edgeStart[node];
+                for (final var entry : this.children.get(node).entrySet()) {
+                    edgeChars[edge] = entry.getKey();
+                    edgeTargets[edge] = entry.getValue();
+                    edge++;
+                }
+                outputArrays[node] = this.outputs.get(node).stream().mapToInt(Integer::intValue).toArray();
+            }
+            return new AffixTrieIndex(this.direction, edgeStart, edgeChars, edgeTargets, outputArrays);
+        }
+
+        private int newNode() {
+            this.children.add(new TreeMap<>());
+            this.outputs.add(new ArrayList<>());
+            return this.children.size() - 1;
+        }
+
+    }
+
+}
@@ -0,0 +1,182 @@
+package dev.da0hn.email.management.system.core.service.engine;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Aho-Corasick automaton over the lower-cased values of {@code CONTAINS} criteria.
+ * <p>A single left-to-right scan of a header reports the slot of every pattern occurring in it, in
+ * {@code O(length + matches)} regardless of the number of patterns. Input characters are case-folded on the fly.</p>
+ * <p>Transitions are stored in compressed sparse rows (sorted characters per node, binary searched) to keep memory
+ * proportional to the total pattern length even for non-ASCII alphabets.</p>
+ */
+final class AhoCorasickIndex {
+
+    static final int ROOT = 0;
+
+    private final int[] edgeStart;
+
+    private final char[] edgeChars;
+
+    private final int[] edgeTargets;
+
+    private final int[] fail;
+
+    private final int[] dictionaryLink;
+
+    private final int[][] outputs;
+
+    private AhoCorasickIndex(
+        final int[] edgeStart,
+        final char[] edgeChars,
+        final int[] edgeTargets,
+        final int[] fail,
+        final int[] dictionaryLink,
+        final int[][] outputs
+    ) {
+        this.edgeStart = edgeStart;
+        this.edgeChars = edgeChars;
+        this.edgeTargets = edgeTargets;
+        this.fail = fail;
+        this.dictionaryLink = dictionaryLink;
+        this.outputs = outputs;
+    }
+
+    void collect(final CharSequence text, final BitSet satisfied) {
+        int state = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            state = this.next(state, text.charAt(i));
+            this.collectOutputs(state, satisfied);
+        }
+    }
+
+    /**
+     * Follows the goto/failure functions for one input character.
+     */
+    int next(int state, final char input) {
+        final char c = Character.toLowerCase(input);
+        while (true) {
+            final int target = this.transition(state, c);
+            if (target >= 0) return target;
+            if (state == ROOT) return ROOT;
+            state = this.fail[state];
+        }
+    }
+
+    /**
+     * Sets the slots of the patterns ending at {@code state} and returns how many of them were not set yet.
+     */
+    int collectOutputs(final int state, final BitSet satisfied) {
+        int added = 0;
+        int node = this.outputs[state].length > 0 ? state : this.dictionaryLink[state];
+        while (node > ROOT) {
+            for (final int slot : this.outputs[node]) {
+                if (!satisfied.get(slot)) {
+                    satisfied.set(slot);
+                    added++;
+                }
+            }
+            node = this.dictionaryLink[node];
+        }
+        return added;
+    }
+
+    private int transition(final int state, final char c) {
+        final int from = this.edgeStart[state];
+        final int to = this.edgeStart[state + 1];
+        final int index = Arrays.binarySearch(this.edgeChars, from, to, c);
+        return index >= 0 ? this.edgeTargets[index] : -1;
+    }
+
+    static final class Builder {
+
+        private final List<TreeMap<Character, Integer>> children = new ArrayList<>();
+
+        private final List<List<Integer>> outputs = new ArrayList<>();
+
+        Builder() {
+            this.newNode();
+        }
+
+        boolean isEmpty() {
+            return this.children.size() == 1;
+        }
+
+        void add(final String pattern, final int slot) {
+            int node = ROOT;
+            for (int i = 0; i < pattern.length(); i++) {
+                final char c = Character.toLowerCase(pattern.charAt(i));
+                final var existing = this.children.get(node).get(c);
+                if (existing != null) {
+                    node = existing;
+                }
+                else {
+                    final int created = this.newNode();
+                    this.children.get(node).put(c, created);
+                    node = created;
+                }
+            }
+            this.outputs.get(node).add(slot);
+        }
+
+        AhoCorasickIndex build() {
+            final int size = this.children.size();
+            final var edgeStart = new int[size + 1];
+            for (int node = 0; node < size; node++) {
+                edgeStart[node + 1] = edgeStart[node] + this.children.get(node).size();
+            }
+            final var edgeChars = new char[edgeStart[size]];
+            final var edgeTargets = new int[edgeStart[size]];
+            for (int node = 0; node < size; node++) {
+                int edge = edgeStart[node];
+                for (final var entry : this.children.get(node).entrySet()) {
+                    edgeChars[edge] = entry.getKey();
+                    edgeTargets[edge] = entry.getValue();
+                    edge++;
+                }
+            }
+
+            final var fail = new int[size];
+            final var dictionaryLink = new int[size];
+            final var queue = new ArrayDeque<Integer>();
+            for (final int child : this.children.get(ROOT).values()) {
+                queue.add(child);
+            }
+            while (!queue.isEmpty()) {
+                final int node = queue.poll();
+                for (final var entry : this.children.get(node).entrySet()) {
+                    final char c = entry.getKey();
+                    final int child = entry.getValue();
+                    int candidate = fail[node];
+                    while (candidate != ROOT && !this.children.get(candidate).containsKey(c)) {
+                        candidate = fail[candidate];
+                    }
+                    final var target = this.children.get(candidate).get(c);
+                    fail[child] = target != null && target != child ? target : ROOT;
+                    dictionaryLink[child] = this.outputs.get(fail[child]).isEmpty()
+                        ? dictionaryLink[fail[child]]
+                        : fail[child];
+                    queue.add(child);
+                }
+            }
+
+            final var outputArrays = new int[size][];
+            for (int node = 0; node < size; node++) {
+                outputArrays[node] = this.outputs.get(node).stream().mapToInt(Integer::intValue).toArray();
+            }
+            return new AhoCorasickIndex(edgeStart, edgeChars, edgeTargets, fail, dictionaryLink, outputArrays);
+        }
+
+        private int newNode() {
+            this.children.add(new TreeMap<>());
+            this.outputs.add(new ArrayList<>());
+            return this.children.size() - 1;
+        }
+
+    }
+
+}
@@ -0,0 +1,205 @@
+package dev.da0hn.email.management.system.core.service.engine;
+
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaGroupOperator;
+import dev.da0hn.email.management.system.core.domain.RuleMatchMode;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Columnar evaluation of a {@link MessageBatch}, shared by both backends.
+ * <p>Each probe the rule set needs runs once per message over the whole batch, in one loop per column, and spreads
+ * the slots it answers into one bitmap per slot. Groups and rules are then resolved with word-wise {@code AND},
+ * {@code OR} and {@code NOT} over those bitmaps, 64 messages at a time. Unlike single-message evaluation nothing is
+ * skipped lazily, but the indexes and columns stay hot in cache across the batch. The decision memo, the
+ * predicate statistics and the generated evaluator are bypassed, so batches serve bulk runs over a whole corpus, such
+ * as rule simulations; live polling and backfills evaluate one message at a time.</p>
+ * <p>The body probe is the exception: it runs last, and only for the messages for which some rule depending on the
+ * body already satisfies all of its other slots.</p>
+ */
+final class BatchEvaluator {
+
+    private final CompiledRuleSet compiled;
+
+    private final PredicateProbe[] probes;
+
+    private final BitSet bodyDependentSlots;
+
+    /**
+     * Rules with at least one body-dependent slot.
+     */
+    private final int[] bodyRules;
+
+    BatchEvaluator(final CompiledRuleSet compiled) {
+        this.compiled = compiled;
+        this.probes = Arrays.stream(compiled.slotProbes())
+            .filter(probe -> probe != null && !probe.readsBody())
+            .distinct()
+            .toArray(PredicateProbe[]::new);
+        this.bodyDependentSlots = compiled.bodyDependentSlots();
+        final var ruleSlots = compiled.ruleSlots();
+        this.bodyRules = IntStream.range(0, ruleSlots.length)
+            .filter(rule -> Arrays.stream(ruleSlots[rule]).anyMatch(this.bodyDependentSlots::get))
+            .toArray();
+    }
+
+    MessageBatch newBatch(final int capacity) {
+        return new MessageBatch(this.compiled, capacity);
+    }
+
+    void evaluate(final MessageBatch batch) {
+        if (batch.compiled != this.compiled) {
+            throw new IllegalArgumentException("Batch was not created by this matcher");
+        }
+        final int size = batch.size;
+        final int words = (size + 63) >>> 6;
+        final long lastWord = size % 64 == 0 ? -1L : (1L << size) - 1;
+        for (final var slotWords : batch.slotWords) Arrays.fill(slotWords, 0L);
+        for (final var ruleWords : batch.ruleWords) Arrays.fill(ruleWords, 0L);
+        if (size == 0) return;
+
+        for (final var probe : this.probes) {
+            this.run(probe, batch);
+        }
+
+        this.combineGroups(batch, words, lastWord, false);
+        if (this.bodyRules.length > 0) {
+            this.scanBodies(batch, words, lastWord);
+            this.combineGroups(batch, words, lastWord, true);
+        }
+
+        final boolean firstMatch = this.compiled.matchMode() == RuleMatchMode.FIRST_MATCH;
+        if (firstMatch) {
+            Arrays.fill(batch.pending, 0, words, -1L);
+            batch.pending[words - 1] = lastWord;
+        }
+        final var ruleSlots = this.compiled.ruleSlots();
+        for (int rule = 0; rule < ruleSlots.length; rule++) {
+            final var slots = ruleSlots[rule];
+            if (slots.length == 0) continue;
+            final var matched = batch.ruleWords[rule];
+            for (int word = 0; word < words; word++) {
+                long value = firstMatch ? batch.pending[word] : word == words - 1 ? lastWord : -1L;
+                for (int i = 0; i < slots.length && value != 0; i++) {
+                    value &= batch.slotWords[slots[i]][word];
+                }
+                matched[word] = value;
+                if (firstMatch) batch.pending[word] &= ~value;
+            }
+        }
+    }
+
+    /**
+     * Resolves the group slots that do, or do not, depend on the body.
+     */
+    private void combineGroups(final MessageBatch batch, final int words, final long lastWord, final boolean body) {
+        final var slotGroups = this.compiled.slotGroups();
+        for (int slot = 0; slot < slotGroups.length; slot++) {
+            if (slotGroups[slot] != null && this.bodyDependentSlots.get(slot) == body) {
+                combine(slotGroups[slot], batch.slotWords, batch.slotWords[slot], words, lastWord);
+            }
+        }
+    }
+
+    /**
+     * Runs the body probe on every message for which some body-dependent rule satisfies all its other slots.
+     */
+    private void scanBodies(final MessageBatch batch, final int words, final long lastWord) {
+        final var ruleSlots = this.compiled.ruleSlots();
+        final var scratch = batch.scratch;
+        for (int word = 0; word < words; word++) {
+            long needed = 0L;
+            for (final int rule : this.bodyRules) {
+                long value = word == words - 1 ? lastWord : -1L;
+                for (int i = 0; i < ruleSlots[rule].length && value != 0; i++) {
+                    final int slot = ruleSlots[rule][i];
+                    if (!this.bodyDependentSlots.get(slot)) value &= batch.slotWords[slot][word];
+                }
+                needed |= value;
+            }
+            for (long remaining = needed; remaining != 0; remaining &= remaining - 1) {
+                final int message = (word << 6) + Long.numberOfTrailingZeros(remaining);
+                scratch.clear();
+                this.compiled.body().collect(batch.body(message), scratch);
+                spread(scratch, batch.slotWords, message);
+            }
+        }
+    }
+
+    private void run(final PredicateProbe probe, final MessageBatch batch) {
+        switch (probe.type()) {
+            case FROM -> this.collect(this.compiled.from(), probe, batch, batch.fromText(), batch.fromAddress());
+            case TO -> this.collectAll(this.compiled.to(), probe, batch, batch.toText(), batch.toAddresses());
+            case SUBJECT -> this.collect(this.compiled.subject(), probe, batch, batch.subjectText(), batch.subjectText());
+            case RECEIVED_AT -> this.compiled.receivedAt().collect(batch.receivedAt, batch.size, batch.slotWords);
+            case SIZE -> this.compiled.size().collect(batch.sizes, batch.size, batch.slotWords);
+            case HAS_ATTACHMENT -> this.collect(
+                this.compiled.hasAttachment(), probe, batch, batch.hasAttachmentText(), batch.hasAttachmentText()
+            );
+            case ATTACHMENT_TYPE -> this.collectAll(
+                this.compiled.attachmentType(), probe, batch, batch.attachmentTypes(), batch.attachmentTypes()
+            );
+            case BODY -> throw new IllegalStateException("Body probes only run through scanBodies");
+        }
+    }
+
+    private void collect(
+        final TextCriteriaGroup group,
+        final PredicateProbe probe,
+        final MessageBatch batch,
+        final String[] texts,
+        final String[] values
+    ) {
+        final var scratch = batch.scratch;
+        for (int i = 0; i < batch.size; i++) {
+            scratch.clear();
+            group.collect(probe.operator(), texts[i], values[i], scratch);
+            spread(scratch, batch.slotWords, i);
+        }
+    }
+
+    private void collectAll(
+        final TextCriteriaGroup group,
+        final PredicateProbe probe,
+        final MessageBatch batch,
+        final List<List<String>> texts,
+        final List<List<String>> values
+    ) {
+        final var scratch = batch.scratch;
+        for (int i = 0; i < batch.size; i++) {
+            scratch.clear();
+            group.collectAll(probe.operator(), texts.get(i), values.get(i), scratch);
+            spread(scratch, batch.slotWords, i);
+        }
+    }
+
+    private static void spread(final BitSet slots, final long[][] slotWords, final int message) {
+        for (int slot = slots.nextSetBit(0); slot >= 0; slot = slots.nextSetBit(slot + 1)) {
+            slotWords[slot][message >>> 6] |= 1L << message;
+        }
+    }
+
+    /**
+     * Writes the group's bitmap from its children's, which have lower slot numbers and are therefore resolved.
+     */
+    private static void combine(
+        final SlotGroup group,
+        final long[][] slotWords,
+        final long[] target,
+        final int words,
+        final long lastWord
+    ) {
+        final boolean and = group.operator() == RuleCriteriaGroupOperator.AND;
+        for (int word = 0; word < words; word++) {
+            final long mask = word == words - 1 ? lastWord : -1L;
+            long value = and ? mask : 0L;
+            for (final int child : group.children()) {
+                value = and ? value & slotWords[child][word] : value | slotWords[child][word];
+            }
+            target[word] = (group.operator() == RuleCriteriaGroupOperator.NOT ? ~value : value) & mask;
+        }
+    }
+
+}
@@ -0,0 +1,97 @@
+package dev.da0hn.email.management.system.core.service.engine;
+
+import java.util.Arrays;
+
+/**
+ * Bloom filter over normalized header values, used to skip large {@link EqualsIndex} lookups for values that are
+ * certainly absent.
+ * <p>Bit positions are derived from {@link String#hashCode()}, which the string caches: a value that passes the filter
+ * is then looked up in the hash index without hashing it again. The filter is sized for a capacity larger than its
+ * initial content so the values of later rules can be {@link #add added} to a copy instead of hashing every value
+ * into a new filter.</p>
+ */
+final class BloomFilter {
+
+    private static final double LN2 = Math.log(2);
+
+    private final long[] words;
+
+    private final int bitCount;
+
+    private final int hashCount;
+
+    private final int capacity;
+
+    private int size;
+
+    private BloomFilter(final long[] words, final int bitCount, final int hashCount, final int capacity, final int size) {
+        this.words = words;
+        this.bitCount = bitCount;
+        this.hashCount = hashCount;
+        this.capacity = capacity;
+        this.size = size;
+    }
+
+    /**
+     * Creates an empty filter that keeps the false-positive rate below {@code falsePositiveRate} up to
+     * {@code capacity} values.
+     */
+    static BloomFilter withCapacity(final int capacity, final double falsePositiveRate) {
+        final int expected = Math.max(1, capacity);
+        final long bits = (long) Math.ceil(-expected * Math.log(falsePositiveRate) / (LN2 * LN2));
+        final int bitCount = (int) Math.min(Integer.MAX_VALUE - 63L, Math.max(64, bits));
+        final int hashCount = Math.max(1, (int) Math.round((double) bitCount / expected * LN2));
+        return new BloomFilter(new long[(bitCount + 63) >>> 6], bitCount, hashCount, expected, 0);
+    }
+
+    /**
+     * Returns an independent copy, so values can be added without affecting matchers that share this filter.
+     */
+    BloomFilter copy() {
+        return new BloomFilter(Arrays.copyOf(this.words, this.words.length), this.bitCount, this.hashCount, this.capacity, this.size);
+    }
+
+    void add(final String value) {
+        final long hash = mix(value.hashCode());
+        final int h1 = (int) hash;
+        final int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < this.hashCount; i++) {
+            final int bit = Math.floorMod(h1 + i * h2, this.bitCount);
+            this.words[bit >>> 6] |= 1L << bit;
+        }
+        this.size++;
+    }
+
+    boolean mightContain(final String value) {
+        final long hash = mix(value.hashCode());
+        final int h1 = (int) hash;
+        final int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < this.hashCount; i++) {
+            final int bit = Math.floorMod(h1 + i * h2, this.bitCount);
+            if ((this.words[bit >>> 6] & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether {@code additional} more values fit without exceeding the configured false-positive rate.
+     */
+    boolean hasRoomFor(final int additional) {
+        return this.size + (long) additional <= this.capacity;
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * Spreads the 32-bit string hash over 64 bits (SplitMix64 finalizer) to derive two independent probe hashes.
+     */
+    private static long mix(final int hashCode) {
+        long z = hashCode * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+}
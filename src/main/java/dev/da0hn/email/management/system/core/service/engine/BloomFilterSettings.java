@@ -0,0 +1,21 @@
+package dev.da0hn.email.management.system.core.service.engine;
+
+/**
+ * When to put a {@link BloomFilter} in front of an {@code EQUALS} index, configured with
+ * {@code app.rules.bloom-filter.*}.
+ *
+ * @param minimumValues     smallest number of distinct values worth a filter; smaller indexes are probed directly
+ * @param falsePositiveRate target rate of absent values that still reach the index
+ */
+public record BloomFilterSettings(int minimumValues, double falsePositiveRate) {
+
+    public static final BloomFilterSettings DEFAULT = new BloomFilterSettings(10_000, 0.01);
+
+    public BloomFilterSettings {
+        if (minimumValues <= 0) throw new IllegalArgumentException("Minimum values must be positive");
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("False-positive rate must be between 0 and 1");
+        }
+    }
+
+}
@@ -0,0 +1,156 @@
+package dev.da0hn.email.management.system.core.service.engine;
+
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaOperator;
+import dev.da0hn.email.management.system.core.ports.spi.LoggerFacade;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.BitSet;
+
+/**
+ * {@code BODY CONTAINS} criteria, answered by streaming the message's text parts through one {@link AhoCorasickIndex}.
+ * <p>The body is never held in memory: parts are decoded through a small buffer and at most {@code scanLimit} bytes
+ * are read per message, across parts. The scan is abandoned as soon as every pattern has been seen, since nothing
+ * more can then change the outcome. Whitespace runs, line breaks included, are read as a single space so a phrase
+ * still matches when the text is wrapped; patterns do not span parts.</p>
+ */
+final class BodyCriteriaGroup {
+
+    private static final int BUFFER_SIZE = 4096;
+
+    private final AhoCorasickIndex contains;
+
+    private final int slotCount;
+
+    private final long scanLimit;
+
+    private BodyCriteriaGroup(final AhoCorasickIndex contains, final int slotCount, final long scanLimit) {
+        this.contains = contains;
+        this.slotCount = slotCount;
+        this.scanLimit = scanLimit;
+    }
+
+    static boolean supports(final RuleCriteriaOperator operator) {
+        return operator == RuleCriteriaOperator.CONTAINS;
+    }
+
+    /**
+     * Sets the slots of every pattern found in the body; a {@code null} body satisfies none.
+     */
+    void collect(final MessageBody body, final BitSet satisfied) {
+        if (this.contains == null || body == null) return;
+        final var scan = new Scan(satisfied);
+        try {
+            body.forEachTextPart(scan::part);
+        }
+        catch (final IOException e) {
+            // Patterns found before the failure still count; the others are treated as absent.
+            LoggerFacade.instance()
+                .where(this)
+                .method("collect")
+                .level(LoggerFacade.LogLevel.WARN)
+                .what("Could not read message body, scan abandoned")
+                .parameter("error", e.getMessage())
+                .log();
+        }
+    }
+
+    /**
+     * State of one message's scan.
+     */
+    private final class Scan {
+
+        private final BitSet satisfied;
+
+        private final char[] buffer = new char[BUFFER_SIZE];
+
+        private long remaining = BodyCriteriaGroup.this.scanLimit;
+
+        private int found;
+
+        private Scan(final BitSet satisfied) {
+            this.satisfied = satisfied;
+        }
+
+        private boolean part(final InputStream content, final Charset charset) throws IOException {
+            final var index = BodyCriteriaGroup.this.contains;
+            final var limited = new Limited(content, this.remaining);
+            final var reader = new InputStreamReader(limited, charset);
+            int state = AhoCorasickIndex.ROOT;
+            boolean space = false;
+            int read;
+            while ((read = reader.read(this.buffer)) > 0) {
+                for (int i = 0; i < read; i++) {
+                    final char c = this.buffer[i];
+                    if (Character.isWhitespace(c)) {
+                        if (space) continue;
+                        space = true;
+                        state = index.next(state, ' ');
+                    }
+                    else {
+                        space = false;
+                        state = index.next(state, c);
+                    }
+                    this.found += index.collectOutputs(state, this.satisfied);
+                    if (this.found == BodyCriteriaGroup.this.slotCount) return false;
+                }
+            }
+            this.remaining -= limited.consumed;
+            return this.remaining > 0;
+        }
+
+    }
+
+    /**
+     * Ends the stream after {@code limit} bytes.
+     */
+    private static final class Limited extends FilterInputStream {
+
+        private final long limit;
+
+        private long consumed;
+
+        private Limited(final InputStream in, final long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (this.consumed >= this.limit) return -1;
+            final int value = super.read();
+            if (value >= 0) this.consumed++;
+            return value;
+        }
+
+        @Override
+        public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+            if (this.consumed >= this.limit) return -1;
+            final int read = super.read(buffer, offset, (int) Math.min(length, this.limit - this.consumed));
+            if (read > 0) this.consumed += read;
+            return read;
+        }
+
+    }
+
+    static final class Builder {
+
+        private final AhoCorasickIndex.Builder contains = new AhoCorasickIndex.Builder();
+
+        private int slotCount;
+
+        void add(final int slot, final String normalized) {
+            this.contains.add(normalized, slot);
+            this.slotCount++;
+        }
+
+        BodyCriteriaGroup build(final long scanLimit) {
+            return new BodyCriteriaGroup(this.contains.isEmpty() ? null : this.contains.build(), this.slotCount, scanLimit);
+        }
+
+    }
+
+}
@@ -0,0 +1,112 @@
+package dev.da0hn.email.management.system.core.service.engine;
+
+import dev.da0hn.email.management.system.core.domain.Rule;
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaType;
+import dev.da0hn.email.management.system.core.domain.RuleMatchMode;
+
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * {@link RuleMatcher} backed by a hidden class generated for the rule set.
+ * <p>Shares the compiler and indexes of {@link InterpretedRuleMatcher}, but rule resolution is emitted as straight-line
+ * bytecode the JIT can inline instead of loops over slot arrays. The predicate order is fixed at generation time from
+ * the static cost priors: regenerating a class on every statistics refresh would churn hidden classes, so this backend
+ * trades adaptive ordering for lower dispatch overhead. Batches go through the columnar evaluator shared with the
+ * interpreted backend.</p>
+ */
+public final class BytecodeRuleMatcher implements RuleMatcher {
+
+    private final CompiledRuleSet compiled;
+
+    private final RuleEvaluator evaluator;
+
+    private final DecisionMemo memo;
+
+    private final BatchEvaluator batchEvaluator;
+
+    private final Set<RuleCriteriaType> criteriaTypes;
+
+    private BytecodeRuleMatcher(final CompiledRuleSet compiled, final int memoMaximumEntries) {
+        this.compiled = compiled;
+        this.memo = new DecisionMemo(compiled, memoMaximumEntries);
+        this.batchEvaluator = new BatchEvaluator(compiled);
+        this.criteriaTypes = Collections.unmodifiableSet(compiled.criteriaTypes());
+        final var order = new PredicateStatistics(compiled).order(compiled.ruleSlots());
+        this.evaluator = RuleEvaluatorGenerator.generate(compiled, order);
+    }
+
+    public static BytecodeRuleMatcher compile(final Collection<? extends Rule> rules, final ZoneId zone) {
+        return compile(rules, zone, RuleMatcherSettings.DEFAULT, RuleMatchMode.ALL_MATCHES, null);
+    }
+
+    /**
+     * Compiles the rules, reusing what can be reused from {@code previous}, the account's former matcher (may be
+     * {@code null}).
+     */
+    public static BytecodeRuleMatcher compile(
+        final Collection<? extends Rule> rules,
+        final ZoneId zone,
+        final RuleMatcherSettings settings,
+        final RuleMatchMode matchMode,
+        final RuleMatcher previous
+    ) {
+        final var compiler = new RuleSetCompiler(zone, settings, RuleSetCompiler.compiledOf(previous));
+        return new BytecodeRuleMatcher(compiler.compile(rules, matchMode), settings.memoMaximumEntries());
+    }
+
+    CompiledRuleSet compiled() {
+        return this.compiled;
+    }
+
+    @Override
+    public List<Rule> rules() {
+        return this.compiled.rules();
+    }
+
+    @Override
+    public Set<RuleCriteriaType> criteriaTypes() {
+        return this.criteriaTypes;
+    }
+
+    @Override
+    public MatchContext newContext() {
+        return new MatchContext(this.compiled.criteriaCount(), this.compiled.rules().size());
+    }
+
+    @Override
+    public void evaluate(final MessageHeaders headers, final MatchContext context) {
+        context.reset(headers);
+        if (!this.memo.isEnabled()) {
+            this.evaluator.evaluate(context.normalized, context);
+            return;
+        }
+        // Seeded probes are marked as already run, so the generated code only probes what the memo did not answer.
+        final var key = this.memo.keyOf(context);
+        final boolean seeded = this.memo.seed(key, context);
+        this.evaluator.evaluate(context.normalized, context);
+        if (!seeded) this.memo.store(key, context);
+    }
+
+    @Override
+    public MessageBatch newBatch(final int capacity) {
+        return this.batchEvaluator.newBatch(capacity);
+    }
+
+    @Override
+    public void evaluate(final MessageBatch batch) {
+        this.batchEvaluator.evaluate(batch);
+    }
+
+    DecisionMemo memo() {
+        return this.memo;
+    }
+
+    Class<?> evaluatorClass() {
+        return this.evaluator.getClass();
+    }
+
+}
@@ -0,0 +1,101 @@
+package dev.da0hn.email.management.system.core.service.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Set of characters matched by one regex atom, stored as sorted inclusive ranges.
+ */
+final class CharClass {
+
+    static final CharClass ANY = new CharClass(new char[]{Character.MIN_VALUE, Character.MAX_VALUE}, false);
+
+    static final CharClass DIGIT = new CharClass(new char[]{'0', '9'}, false);
+
+    static final CharClass WORD = new CharClass(new char[]{'0', '9', 'A', 'Z', '_', '_', 'a', 'z'}, false);
+
+    static final CharClass SPACE = new CharClass(new char[]{'\t', '\r', ' ', ' '}, false);
+
+    /**
+     * Pairs of inclusive bounds, {@code [lo0, hi0, lo1, hi1, ...]}.
+     */
+    private final char[] ranges;
+
+    private final boolean negated;
+
+    private CharClass(final char[] ranges, final boolean negated) {
+        this.ranges = ranges;
+        this.negated = negated;
+    }
+
+    static CharClass of(final char c) {
+        return new CharClass(new char[]{c, c}, false);
+    }
+
+    CharClass negate() {
+        return new CharClass(this.ranges, !this.negated);
+    }
+
+    /**
+     * Returns the only character of the class, or {@code -1} when it has several or is negated.
+     */
+    int singleChar() {
+        return !this.negated && this.ranges.length == 2 && this.ranges[0] == this.ranges[1] ? this.ranges[0] : -1;
+    }
+
+    /**
+     * Case-insensitive membership: the character, its upper case or its lower case must be in the ranges.
+     */
+    boolean matches(final char c) {
+        final boolean contained = this.contains(c)
+            || this.contains(Character.toUpperCase(c))
+            || this.contains(Character.toLowerCase(c));
+        return contained != this.negated;
+    }
+
+    private boolean contains(final char c) {
+        for (int i = 0; i < this.ranges.length; i += 2) {
+            if (c < this.ranges[i]) return false;
+            if (c <= this.ranges[i + 1]) return true;
+        }
+        return false;
+    }
+
+    static final class Builder {
+
+        private final List<char[]> ranges = new ArrayList<>();
+
+        Builder add(final char lo, final char hi) {
+            if (lo > hi) throw new IllegalArgumentException("Invalid character range " + lo + "-" + hi);
+            this.ranges.add(new char[]{lo, hi});
+            return this;
+        }
+
+        Builder add(final CharClass other) {
+            if (other.negated) throw new IllegalArgumentException("Negated classes cannot be nested in a character class");
+            for (int i = 0; i < other.ranges.length; i += 2) {
+                this.add(other.ranges[i], other.ranges[i + 1]);
+            }
+            return this;
+        }
+
+        CharClass build(final boolean negated) {
+            this.ranges.sort((a, b) -> Character.compare(a[0], b[0]));
+            final var merged = new char[this.ranges.size() * 2];
+            int size = 0;
+            for (final var range : this.ranges) {
+                if (size > 0 && range[0] <= merged[size - 1] + 1) {
+                    merged[size - 1] = (char) Math.max(merged[size - 1], range[1]);
+                }
+                else {
+                    merged[size++] = range[0];
+                    merged[size++] = range[1];
+                }
+            }
+            return new CharClass(Arrays.copyOf(merged, size), negated);
+        }
+
+    }
+
+}
@@ -0,0 +1,68 @@
+package dev.da0hn.email.management.system.core.service.engine;
+
+import dev.da0hn.email.management.system.core.domain.Rule;
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaType;
+import dev.da0hn.email.management.system.core.domain.RuleMatchMode;
+
+import java.util.BitSet;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Output of {@link RuleSetCompiler}: distinct criteria numbered as slots, grouped by criteria type, and the slots each
+ * rule requires. {@code slotProbes} gives the probe that answers each leaf slot and {@code slotGroups} the definition
+ * of each group slot; a slot with neither can never be satisfied. Rules are in priority order, which is the order
+ * {@code matchMode} resolves them in.
+ */
+record CompiledRuleSet(
+    List<Rule> rules,
+    RuleMatchMode matchMode,
+    int[][] ruleSlots,
+    int criteriaCount,
+    PredicateProbe[] slotProbes,
+    SlotGroup[] slotGroups,
+    TextCriteriaGroup from,
+    TextCriteriaGroup to,
+    TextCriteriaGroup subject,
+    RangeCriteriaGroup receivedAt,
+    TextCriteriaGroup hasAttachment,
+    TextCriteriaGroup attachmentType,
+    RangeCriteriaGroup size,
+    BodyCriteriaGroup body
+) {
+
+    /**
+     * Criteria types some probe of the rule set reads, i.e. the message fields evaluation needs.
+     */
+    Set<RuleCriteriaType> criteriaTypes() {
+        final var types = EnumSet.noneOf(RuleCriteriaType.class);
+        for (final var probe : this.slotProbes) {
+            if (probe != null) types.add(probe.type());
+        }
+        return types;
+    }
+
+    /**
+     * Slots whose value depends on the message body: those of body probes and the groups containing one.
+     */
+    BitSet bodyDependentSlots() {
+        final var dependent = new BitSet(this.criteriaCount);
+        for (int slot = 0; slot < this.criteriaCount; slot++) {
+            final var probe = this.slotProbes[slot];
+            final var group = this.slotGroups[slot];
+            if (probe != null ? probe.readsBody() : group != null && anySet(group.children(), dependent)) {
+                dependent.set(slot);
+            }
+        }
+        return dependent;
+    }
+
+    private static boolean anySet(final int[] slots, final BitSet bits) {
+        for (final int slot : slots) {
+            if (bits.get(slot)) return true;
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,206 @@
+package dev.da0hn.email.management.system.core.service.engine;
+
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaType;
+
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Bounded memo of text criteria outcomes, for the bursts of near-identical messages sent by mailing lists and bots.
+ * <p>The key holds the normalized headers the rule set actually reads, so two messages with equal keys satisfy
+ * exactly the same text criteria. The memo stores those outcomes, not the matched rules: {@code RECEIVED_AT},
+ * {@code SIZE} and attachment criteria depend on more than those headers and are always evaluated again, after which
+ * rules are resolved as usual. A memo
+ * belongs to one compiled matcher, so it is discarded with it whenever the account's rules change.</p>
+ * <p>Workers share the memo, so it is split into {@value #STRIPES} independently locked stripes by key hash, each an
+ * LRU of its share of {@code maximumEntries}. Lookups reuse the context's {@link Key}, which points at the normalized
+ * header values of the flyweight; the recipient list is only copied when a new outcome is stored.</p>
+ */
+final class DecisionMemo {
+
+    private static final int STRIPES = 16;
+
+    private final int maximumEntries;
+
+    private final long textProbes;
+
+    /**
+     * Slots of probes outside the key and group slots, whose values are never remembered: groups are cheaply resolved
+     * again from the seeded criteria and may depend on those other probes.
+     */
+    private final BitSet excludedSlots = new BitSet();
+
+    private final boolean readsFrom;
+
+    private final boolean readsTo;
+
+    private final boolean readsSubject;
+
+    private final Stripe[] stripes;
+
+    DecisionMemo(final CompiledRuleSet compiled, final int maximumEntries) {
+        long textProbes = 0;
+        final var slotProbes = compiled.slotProbes();
+        for (int slot = 0; slot < slotProbes.length; slot++) {
+            final var probe = slotProbes[slot];
+            if (probe == null || !probe.readsHeaderText()) {
+                this.excludedSlots.set(slot);
+            }
+            else {
+                textProbes |= 1L << probe.ordinal();
+            }
+        }
+        this.textProbes = textProbes;
+        this.readsFrom = reads(textProbes, RuleCriteriaType.FROM);
+        this.readsTo = reads(textProbes, RuleCriteriaType.TO);
+        this.readsSubject = reads(textProbes, RuleCriteriaType.SUBJECT);
+        this.maximumEntries = textProbes == 0 ? 0 : maximumEntries;
+        // A power of two no larger than the bound, so that no stripe is left without entries.
+        final int stripes = this.maximumEntries == 0 ? 1 : Integer.highestOneBit(Math.min(STRIPES, this.maximumEntries));
+        final int stripeEntries = Math.ceilDiv(Math.max(1, this.maximumEntries), stripes);
+        this.stripes = new Stripe[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new Stripe(stripeEntries);
+        }
+    }
+
+    boolean isEnabled() {
+        return this.maximumEntries > 0;
+    }
+
+    /**
+     * Points the context's reusable key at the normalized headers of its current message.
+     */
+    Key keyOf(final MatchContext context) {
+        final var headers = context.normalized;
+        return context.memoKey.set(
+            this.readsFrom ? headers.fromText() : null,
+            this.readsTo ? headers.toText() : List.of(),
+            this.readsSubject ? headers.subjectText() : null
+        );
+    }
+
+    /**
+     * Copies the remembered text criteria outcomes into a freshly reset context and returns whether there were any.
+     */
+    boolean seed(final Key key, final MatchContext context) {
+        final var stripe = this.stripeOf(key);
+        final Decision decision;
+        synchronized (stripe) {
+            decision = stripe.get(key);
+        }
+        if (decision == null) return false;
+        context.satisfied.or(decision.satisfied());
+        context.probed |= decision.probed();
+        return true;
+    }
+
+    /**
+     * Remembers the text criteria outcomes of an evaluated context.
+     */
+    void store(final Key key, final MatchContext context) {
+        final long probed = context.probed & this.textProbes;
+        if (probed == 0) return;
+        final var satisfied = (BitSet) context.satisfied.clone();
+        satisfied.andNot(this.excludedSlots);
+        final var decision = new Decision(probed, satisfied);
+        final var retained = key.retain();
+        final var stripe = this.stripeOf(retained);
+        synchronized (stripe) {
+            stripe.put(retained, decision);
+        }
+    }
+
+    int size() {
+        int size = 0;
+        for (final var stripe : this.stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    private Stripe stripeOf(final Key key) {
+        final int hash = key.hashCode();
+        return this.stripes[(hash ^ hash >>> 16) & this.stripes.length - 1];
+    }
+
+    private static boolean reads(final long probes, final RuleCriteriaType type) {
+        for (final var probe : PredicateProbe.values()) {
+            if (probe.type() == type && (probes & 1L << probe.ordinal()) != 0) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Normalized headers a rule set reads. A context's key is reused for every message and only borrows the
+     * flyweight's values; {@link #retain()} takes the copy the memo stores.
+     */
+    static final class Key {
+
+        private String from;
+
+        private List<String> to = List.of();
+
+        private String subject;
+
+        private int hash;
+
+        private Key set(final String from, final List<String> to, final String subject) {
+            this.from = from;
+            this.to = to;
+            this.subject = subject;
+            this.hash = (Objects.hashCode(from) * 31 + to.hashCode()) * 31 + Objects.hashCode(subject);
+            return this;
+        }
+
+        private Key retain() {
+            return new Key().set(this.from, List.copyOf(this.to), this.subject);
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            return other instanceof final Key key
+                && this.hash == key.hash
+                && Objects.equals(this.from, key.from)
+                && Objects.equals(this.subject, key.subject)
+                && this.to.equals(key.to);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+
+    }
+
+    /**
+     * Access-ordered map of one stripe, evicting its least recently used entry past {@code maximumEntries}.
+     */
+    private static final class Stripe extends LinkedHashMap<Key, Decision> {
+
+        private final int maximumEntries;
+
+        private Stripe(final int maximumEntries) {
+            super(16, 0.75f, true);
+            this.maximumEntries = maximumEntries;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<Key, Decision> eldest) {
+            return this.size() > this.maximumEntries;
+        }
+
+    }
+
+    /**
+     * Probes that had run and the text criteria they satisfied; other slots of {@code satisfied} are clear.
+     */
+    private record Decision(long probed, BitSet satisfied) {
+    }
+
+}
@@ -0,0 +1,93 @@
+package dev.da0hn.email.management.system.core.service.engine;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hash index from normalized {@code EQUALS} values to the slots that expect them.
+ * A lookup costs a single hash probe no matter how many sender or recipient rules an account has.
+ * <p>Large indexes, such as imported sender block lists, are fronted by a {@link BloomFilter}: most messages come from
+ * senders that are not listed and are rejected by a few bit tests on a compact array instead of a probe into a map that
+ * no longer fits in cache.</p>
+ * <p>The index is rebuilt from every value on each compilation, since slots are renumbered whenever rules change. Only
+ * the filter's bits can be carried over from the former index, which spares hashing the unchanged values into a new
+ * filter; finding them still takes one lookup per value, so building stays linear in the number of values.</p>
+ */
+final class EqualsIndex {
+
+    /**
+     * Headroom given to a new filter so the values of later rules can be added to a copy of it.
+     */
+    private static final int FILTER_GROWTH = 2;
+
+    private final Map<String, int[]> slotsByValue;
+
+    private final BloomFilter prefilter;
+
+    private EqualsIndex(final Map<String, int[]> slotsByValue, final BloomFilter prefilter) {
+        this.slotsByValue = slotsByValue;
+        this.prefilter = prefilter;
+    }
+
+    void collect(final String normalizedValue, final BitSet satisfied) {
+        if (this.prefilter != null && !this.prefilter.mightContain(normalizedValue)) return;
+        final var slots = this.slotsByValue.get(normalizedValue);
+        if (slots == null) return;
+        for (final int slot : slots) {
+            satisfied.set(slot);
+        }
+    }
+
+    BloomFilter prefilter() {
+        return this.prefilter;
+    }
+
+    static final class Builder {
+
+        private final Map<String, List<Integer>> slotsByValue = new HashMap<>();
+
+        boolean isEmpty() {
+            return this.slotsByValue.isEmpty();
+        }
+
+        void add(final String normalizedValue, final int slot) {
+            this.slotsByValue.computeIfAbsent(normalizedValue, key -> new ArrayList<>(1)).add(slot);
+        }
+
+        /**
+         * Builds the index from all values, starting from a copy of the filter of {@code previous} (the same group
+         * before the rules changed) when values were only added and the filter still has room for them.
+         */
+        EqualsIndex build(final BloomFilterSettings settings, final EqualsIndex previous) {
+            final var index = HashMap.<String, int[]>newHashMap(this.slotsByValue.size());
+            this.slotsByValue.forEach((value, slots) -> index.put(value, slots.stream().mapToInt(Integer::intValue).toArray()));
+            return new EqualsIndex(index, this.prefilter(settings, previous));
+        }
+
+        private BloomFilter prefilter(final BloomFilterSettings settings, final EqualsIndex previous) {
+            final int size = this.slotsByValue.size();
+            if (size < settings.minimumValues()) return null;
+
+            if (previous != null && previous.prefilter != null) {
+                final var added = this.slotsByValue.keySet().stream()
+                    .filter(value -> !previous.slotsByValue.containsKey(value))
+                    .toList();
+                final boolean removed = size - added.size() < previous.slotsByValue.size();
+                if (!removed && previous.prefilter.hasRoomFor(added.size())) {
+                    final var filter = previous.prefilter.copy();
+                    added.forEach(filter::add);
+                    return filter;
+                }
+            }
+
+            final var filter = BloomFilter.withCapacity(FILTER_GROWTH * size, settings.falsePositiveRate());
+            this.slotsByValue.keySet().forEach(filter::add);
+            return filter;
+        }
+
+    }
+
+}
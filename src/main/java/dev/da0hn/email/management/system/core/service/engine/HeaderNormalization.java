@@ -0,0 +1,55 @@
+package dev.da0hn.email.management.system.core.service.engine;
+
+import java.text.Normalizer;
+import java.util.Locale;
+
+/**
+ * Canonical form shared by criterion values (at compile time) and header values (once per message, see
+ * {@link NormalizedHeaders}).
+ */
+enum HeaderNormalization {
+
+    /**
+     * Applies Unicode NFKC, trims and case-folds the value, so compatibility forms such as full-width letters or
+     * ligatures and case variants such as {@code ß}/{@code SS} compare equal.
+     */
+    TEXT {
+        @Override
+        String apply(final String value) {
+            final var normalized = isAscii(value) ? value : Normalizer.normalize(value, Normalizer.Form.NFKC);
+            final var stripped = normalized.strip();
+            return isAscii(stripped)
+                ? stripped.toLowerCase(Locale.ROOT)
+                : stripped.toUpperCase(Locale.ROOT).toLowerCase(Locale.ROOT);
+        }
+    },
+
+    /**
+     * Additionally keeps only the address of a {@code Display Name <user@host>} mailbox.
+     */
+    ADDRESS {
+        @Override
+        String apply(final String value) {
+            return address(TEXT.apply(value));
+        }
+    };
+
+    abstract String apply(String value);
+
+    /**
+     * Extracts the address of a value already normalized with {@link #TEXT}.
+     */
+    static String address(final String text) {
+        final int open = text.lastIndexOf('<');
+        final int close = open >= 0 ? text.indexOf('>', open) : -1;
+        return close > open ? text.substring(open + 1, close).strip() : text;
+    }
+
+    private static boolean isAscii(final String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) >= 0x80) return false;
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,46 @@
+package dev.da0hn.email.management.system.core.service.engine;
+
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaType;
+import jakarta.mail.FetchProfile;
+import jakarta.mail.UIDFolder;
+import org.eclipse.angus.mail.imap.IMAPFolder;
+
+import java.util.Set;
+
+/**
+ * Derives the narrowest IMAP {@code FETCH} from the criteria types a rule set reads.
+ * <p>Header criteria fetch only their own header line ({@code BODY.PEEK[HEADER.FIELDS (...)]}) instead of the whole
+ * {@code ENVELOPE}, {@code RECEIVED_AT} fetches {@code INTERNALDATE}, {@code SIZE} fetches {@code RFC822.SIZE}, and
+ * attachment and body criteria fetch {@code BODYSTRUCTURE}; body content itself is streamed later, only when needed.
+ * The {@code UID} is always fetched, it identifies matched messages.</p>
+ */
+public final class ImapFetchProfiles {
+
+    public static final String FROM_HEADER = "From";
+
+    public static final String TO_HEADER = "To";
+
+    public static final String SUBJECT_HEADER = "Subject";
+
+    private ImapFetchProfiles() {
+    }
+
+    public static FetchProfile forCriteriaTypes(final Set<RuleCriteriaType> types) {
+        final var profile = new FetchProfile();
+        profile.add(UIDFolder.FetchProfileItem.UID);
+        for (final var type : types) {
+            switch (type) {
+                case FROM -> profile.add(FROM_HEADER);
+                case TO -> profile.add(TO_HEADER);
+                case SUBJECT -> profile.add(SUBJECT_HEADER);
+                case RECEIVED_AT -> profile.add(IMAPFolder.FetchProfileItem.INTERNALDATE);
+                case SIZE -> profile.add(FetchProfile.Item.SIZE);
+                case HAS_ATTACHMENT, ATTACHMENT_TYPE, BODY -> {
+                    if (!profile.contains(FetchProfile.Item.CONTENT_INFO)) profile.add(FetchProfile.Item.CONTENT_INFO);
+                }
+            }
+        }
+        return profile;
+    }
+
+}
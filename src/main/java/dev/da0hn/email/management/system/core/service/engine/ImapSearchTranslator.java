@@ -0,0 +1,266 @@
+package dev.da0hn.email.management.system.core.service.engine;
+
+import dev.da0hn.email.management.system.core.domain.Rule;
+import dev.da0hn.email.management.system.core.domain.RuleCriteria;
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaGroup;
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaGroupOperator;
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaOperator;
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaType;
+import jakarta.mail.Message;
+import jakarta.mail.search.AndTerm;
+import jakarta.mail.search.ComparisonTerm;
+import jakarta.mail.search.FromStringTerm;
+import jakarta.mail.search.OrTerm;
+import jakarta.mail.search.ReceivedDateTerm;
+import jakarta.mail.search.RecipientStringTerm;
+import jakarta.mail.search.SearchTerm;
+import jakarta.mail.search.SizeTerm;
+import jakarta.mail.search.StringTerm;
+import jakarta.mail.search.SubjectTerm;
+
+import java.io.Serial;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Pushes rule criteria down to IMAP SEARCH so the server only returns candidate messages.
+ * <p>Each rule becomes an {@link AndTerm} of its criteria and the rules are combined with {@link OrTerm}s. IMAP string
+ * keys are case-insensitive substring matches and date keys have day granularity in the server time zone, so every
+ * translation is a superset of the rule: {@code EQUALS}, {@code STARTS_WITH} and {@code ENDS_WITH} become substring
+ * searches, date bounds are widened by one day and size bounds become {@code LARGER}/{@code SMALLER}. The one exception
+ * is Unicode compatibility folding: the server does not apply NFKC, so a header that only matches after
+ * {@link NormalizedHeaders} folds it (full-width letters, ligatures) can be left out by the search. Attachment criteria
+ * have no SEARCH key and, like body criteria, never narrow the search. The client-side matcher still makes the exact
+ * decision.</p>
+ * <p>Criteria groups follow the same rule: {@code AND} and {@code OR} groups map to {@link AndTerm} and {@link OrTerm},
+ * while a {@code NOT} group cannot be narrowed, since the negation of a superset is no longer a superset.</p>
+ * <p>Rules are split into several searches of at most {@value #MAX_RULES_PER_SEARCH} rules to keep commands short.
+ * Every search is a round trip, so a rule set whose terms exceed {@value #MAX_SEARCH_KEYS} keys or
+ * {@value #MAX_SEARCH_BYTES} bytes of search strings falls back to a full scan: past that size the searches cost more
+ * than matching every message locally.</p>
+ */
+public final class ImapSearchTranslator {
+
+    static final int MAX_RULES_PER_SEARCH = 50;
+
+    static final int MAX_SEARCH_KEYS = 1000;
+
+    static final int MAX_SEARCH_BYTES = 64 * 1024;
+
+    /**
+     * Approximate size of a search key without its string, e.g. {@code OR}, {@code FROM} and the quotes.
+     */
+    private static final int KEY_OVERHEAD_BYTES = 8;
+
+    private static final long ONE_DAY_MILLIS = 24L * 60 * 60 * 1000;
+
+    private ImapSearchTranslator() {
+    }
+
+    public static SearchPlan translate(final Collection<? extends Rule> rules, final ZoneId zone) {
+        final var ruleTerms = new LinkedHashSet<SearchTerm>();
+        long keys = 0;
+        long bytes = 0;
+        for (final var rule : rules) {
+            if (rule.criteria().isEmpty() && rule.groups().isEmpty()) continue;
+            final var term = translateRule(rule, zone);
+            if (term.isEmpty()) continue;
+            if (term.get() == Unrestricted.INSTANCE) return SearchPlan.full();
+            if (!ruleTerms.add(term.get())) continue;
+            keys += keysOf(term.get());
+            bytes += bytesOf(term.get());
+            if (keys > MAX_SEARCH_KEYS || bytes > MAX_SEARCH_BYTES) return SearchPlan.full();
+        }
+
+        final var batches = new ArrayList<SearchTerm>();
+        final var batch = new ArrayList<SearchTerm>(MAX_RULES_PER_SEARCH);
+        for (final var term : ruleTerms) {
+            batch.add(term);
+            if (batch.size() == MAX_RULES_PER_SEARCH) {
+                batches.add(or(batch));
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            batches.add(or(batch));
+        }
+        return SearchPlan.of(batches);
+    }
+
+    /**
+     * Returns the rule's search term, {@link Unrestricted#INSTANCE} when no criterion can be pushed down, or empty when
+     * the rule can never match.
+     */
+    private static Optional<SearchTerm> translateRule(final Rule rule, final ZoneId zone) {
+        return translateAll(rule.criteria(), rule.groups(), zone);
+    }
+
+    /**
+     * Conjunction of the conditions, with the same conventions as {@link #translateRule}.
+     */
+    private static Optional<SearchTerm> translateAll(
+        final Set<RuleCriteria> criteria,
+        final Set<RuleCriteriaGroup> groups,
+        final ZoneId zone
+    ) {
+        final var terms = new LinkedHashSet<SearchTerm>();
+        final var conditions = new ArrayList<Optional<SearchTerm>>(criteria.size() + groups.size());
+        criteria.forEach(value -> conditions.add(translateCriteria(value, zone)));
+        groups.forEach(group -> conditions.add(translateGroup(group, zone)));
+        for (final var term : conditions) {
+            if (term.isEmpty()) return Optional.empty();
+            if (term.get() != Unrestricted.INSTANCE) {
+                terms.add(term.get());
+            }
+        }
+        if (terms.isEmpty()) return Optional.of(Unrestricted.INSTANCE);
+        return Optional.of(terms.size() == 1 ? terms.iterator().next() : new AndTerm(terms.toArray(SearchTerm[]::new)));
+    }
+
+    /**
+     * Any unsupported criterion makes the whole group never match, mirroring {@link RuleSetCompiler}.
+     */
+    private static Optional<SearchTerm> translateGroup(final RuleCriteriaGroup group, final ZoneId zone) {
+        if (group.operator() == RuleCriteriaGroupOperator.AND) return translateAll(group.criteria(), group.groups(), zone);
+        final var conditions = new ArrayList<Optional<SearchTerm>>();
+        group.criteria().forEach(value -> conditions.add(translateCriteria(value, zone)));
+        group.groups().forEach(nested -> conditions.add(translateGroup(nested, zone)));
+        if (conditions.stream().anyMatch(Optional::isEmpty)) return Optional.empty();
+        if (group.operator() == RuleCriteriaGroupOperator.NOT) return Optional.of(Unrestricted.INSTANCE);
+        final var terms = new LinkedHashSet<SearchTerm>();
+        for (final var term : conditions) {
+            if (term.get() == Unrestricted.INSTANCE) return term;
+            terms.add(term.get());
+        }
+        return Optional.of(terms.size() == 1 ? terms.iterator().next() : new OrTerm(terms.toArray(SearchTerm[]::new)));
+    }
+
+    private static Optional<SearchTerm> translateCriteria(final RuleCriteria criteria, final ZoneId zone) {
+        final var raw = criteria.value() == null ? "" : criteria.value();
+        // IMAP SEARCH has no regex key; the pattern is only checked client-side.
+        if (criteria.operator() == RuleCriteriaOperator.MATCHES && isHeaderText(criteria.type())) {
+            return Optional.of(Unrestricted.INSTANCE);
+        }
+        return switch (criteria.type()) {
+            case FROM -> textValue(criteria, raw, HeaderNormalization.ADDRESS).map(FromStringTerm::new);
+            case TO -> textValue(criteria, raw, HeaderNormalization.ADDRESS)
+                .map(value -> new RecipientStringTerm(Message.RecipientType.TO, value));
+            case SUBJECT -> textValue(criteria, raw, HeaderNormalization.TEXT).map(SubjectTerm::new);
+            case RECEIVED_AT -> ReceivedAtBounds.parse(criteria.operator(), raw.strip(), zone)
+                .map(ImapSearchTranslator::receivedAt);
+            case SIZE -> SizeBounds.parse(criteria.operator(), raw.strip()).map(ImapSearchTranslator::size);
+            // SEARCH has no BODYSTRUCTURE key: attachment criteria are only checked client-side.
+            case HAS_ATTACHMENT -> RuleSetCompiler.isHasAttachment(criteria.operator(), HeaderNormalization.TEXT.apply(raw))
+                ? Optional.of(Unrestricted.INSTANCE)
+                : Optional.empty();
+            case ATTACHMENT_TYPE -> textValue(criteria, raw, HeaderNormalization.TEXT).map(value -> Unrestricted.INSTANCE);
+            // Servers differ on whether SEARCH BODY decodes transfer encodings, so it could drop base64 matches.
+            case BODY -> BodyCriteriaGroup.supports(criteria.operator()) && !HeaderNormalization.TEXT.apply(raw).isEmpty()
+                ? Optional.of(Unrestricted.INSTANCE)
+                : Optional.empty();
+        };
+    }
+
+    private static boolean isHeaderText(final RuleCriteriaType type) {
+        return type == RuleCriteriaType.FROM || type == RuleCriteriaType.TO || type == RuleCriteriaType.SUBJECT;
+    }
+
+    private static Optional<String> textValue(
+        final RuleCriteria criteria,
+        final String raw,
+        final HeaderNormalization normalization
+    ) {
+        if (!TextCriteriaGroup.supports(criteria.operator())) return Optional.empty();
+        final var value = criteria.operator() == RuleCriteriaOperator.CONTAINS
+            ? HeaderNormalization.TEXT.apply(raw)
+            : normalization.apply(raw);
+        return value.isEmpty() ? Optional.empty() : Optional.of(value);
+    }
+
+    private static SearchTerm receivedAt(final ReceivedAtBounds bounds) {
+        final var terms = new ArrayList<SearchTerm>(2);
+        if (bounds.lower() > Long.MIN_VALUE + 1) {
+            terms.add(new ReceivedDateTerm(ComparisonTerm.GE, Date.from(Instant.ofEpochMilli(bounds.lower() - ONE_DAY_MILLIS))));
+        }
+        if (bounds.upper() < Long.MAX_VALUE) {
+            terms.add(new ReceivedDateTerm(ComparisonTerm.LE, Date.from(Instant.ofEpochMilli(bounds.upper() + ONE_DAY_MILLIS))));
+        }
+        if (terms.isEmpty()) return Unrestricted.INSTANCE;
+        return terms.size() == 1 ? terms.getFirst() : new AndTerm(terms.toArray(SearchTerm[]::new));
+    }
+
+    /**
+     * {@code LARGER} and {@code SMALLER} are strict and take a 32-bit size, so bounds beyond it are widened or dropped.
+     */
+    private static SearchTerm size(final SizeBounds bounds) {
+        final var terms = new ArrayList<SearchTerm>(2);
+        if (bounds.lower() > 0) {
+            terms.add(new SizeTerm(ComparisonTerm.GT, (int) Math.min(bounds.lower() - 1, Integer.MAX_VALUE)));
+        }
+        if (bounds.upper() < Integer.MAX_VALUE) {
+            terms.add(new SizeTerm(ComparisonTerm.LT, (int) bounds.upper() + 1));
+        }
+        if (terms.isEmpty()) return Unrestricted.INSTANCE;
+        return terms.size() == 1 ? terms.getFirst() : new AndTerm(terms.toArray(SearchTerm[]::new));
+    }
+
+    private static long keysOf(final SearchTerm term) {
+        final var children = childrenOf(term);
+        if (children == null) return 1;
+        long keys = 0;
+        for (final var child : children) {
+            keys += keysOf(child);
+        }
+        return keys;
+    }
+
+    private static long bytesOf(final SearchTerm term) {
+        final var children = childrenOf(term);
+        if (children == null) {
+            return term instanceof final StringTerm stringTerm
+                ? KEY_OVERHEAD_BYTES + stringTerm.getPattern().getBytes(StandardCharsets.UTF_8).length
+                : KEY_OVERHEAD_BYTES;
+        }
+        long bytes = KEY_OVERHEAD_BYTES;
+        for (final var child : children) {
+            bytes += bytesOf(child);
+        }
+        return bytes;
+    }
+
+    private static SearchTerm[] childrenOf(final SearchTerm term) {
+        if (term instanceof final AndTerm and) return and.getTerms();
+        if (term instanceof final OrTerm or) return or.getTerms();
+        return null;
+    }
+
+    private static SearchTerm or(final List<SearchTerm> terms) {
+        return terms.size() == 1 ? terms.getFirst() : new OrTerm(terms.toArray(SearchTerm[]::new));
+    }
+
+    /**
+     * Marker for criteria that cannot narrow the search; never sent to the server.
+     */
+    private static final class Unrestricted extends SearchTerm {
+
+        @Serial
+        private static final long serialVersionUID = 4719083345729950241L;
+
+        private static final Unrestricted INSTANCE = new Unrestricted();
+
+        @Override
+        public boolean match(final Message message) {
+            return true;
+        }
+
+    }
+
+}
@@ -0,0 +1,235 @@
+package dev.da0hn.email.management.system.core.service.engine;
+
+import dev.da0hn.email.management.system.core.domain.Rule;
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaType;
+import dev.da0hn.email.management.system.core.domain.RuleMatchMode;
+
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Table-driven {@link RuleMatcher}.
+ * <p>Each rule is resolved as the conjunction of its criteria slots, walked in an order that puts cheap and selective
+ * predicates first and stops at the first unsatisfied one. Indexes are probed lazily, the first time a rule needs one
+ * of their slots, so a header that no surviving rule cares about is never scanned. Rules without criteria never
+ * match. Rules are walked in priority order; in {@link RuleMatchMode#FIRST_MATCH} mode the walk ends at the first
+ * matching rule, so probes only later rules need are never run.</p>
+ * <p>One message in {@value #SAMPLE_INTERVAL} per context is evaluated exhaustively and timed to feed
+ * {@link PredicateStatistics}, except for the body, which is still only streamed when a rule needs it; every
+ * {@value #REFRESH_INTERVAL} samples the order is recomputed and swapped in without blocking concurrent
+ * evaluations.</p>
+ */
+public final class InterpretedRuleMatcher implements RuleMatcher {
+
+    static final int SAMPLE_INTERVAL = 16;
+
+    static final int REFRESH_INTERVAL = 256;
+
+    private final CompiledRuleSet compiled;
+
+    private final PredicateProbe[] activeProbes;
+
+    private final BitSet bodyDependentSlots;
+
+    private final PredicateStatistics statistics;
+
+    private final AtomicLong samples = new AtomicLong();
+
+    private final DecisionMemo memo;
+
+    private final BatchEvaluator batchEvaluator;
+
+    private final Set<RuleCriteriaType> criteriaTypes;
+
+    private final boolean firstMatch;
+
+    private volatile int[][] order;
+
+    private InterpretedRuleMatcher(final CompiledRuleSet compiled, final int memoMaximumEntries) {
+        this.compiled = compiled;
+        this.memo = new DecisionMemo(compiled, memoMaximumEntries);
+        this.batchEvaluator = new BatchEvaluator(compiled);
+        this.criteriaTypes = Collections.unmodifiableSet(compiled.criteriaTypes());
+        this.firstMatch = compiled.matchMode() == RuleMatchMode.FIRST_MATCH;
+        this.activeProbes = Arrays.stream(compiled.slotProbes())
+            .filter(probe -> probe != null && !probe.readsBody())
+            .distinct()
+            .toArray(PredicateProbe[]::new);
+        this.bodyDependentSlots = compiled.bodyDependentSlots();
+        this.statistics = new PredicateStatistics(compiled);
+        this.order = this.statistics.order(compiled.ruleSlots());
+    }
+
+    public static InterpretedRuleMatcher compile(final Collection<? extends Rule> rules, final ZoneId zone) {
+        return compile(rules, zone, RuleMatcherSettings.DEFAULT, RuleMatchMode.ALL_MATCHES, null);
+    }
+
+    /**
+     * Compiles the rules, reusing what can be reused from {@code previous}, the account's former matcher (may be
+     * {@code null}).
+     */
+    public static InterpretedRuleMatcher compile(
+        final Collection<? extends Rule> rules,
+        final ZoneId zone,
+        final RuleMatcherSettings settings,
+        final RuleMatchMode matchMode,
+        final RuleMatcher previous
+    ) {
+        final var compiler = new RuleSetCompiler(zone, settings, RuleSetCompiler.compiledOf(previous));
+        return new InterpretedRuleMatcher(compiler.compile(rules, matchMode), settings.memoMaximumEntries());
+    }
+
+    CompiledRuleSet compiled() {
+        return this.compiled;
+    }
+
+    @Override
+    public List<Rule> rules() {
+        return this.compiled.rules();
+    }
+
+    @Override
+    public Set<RuleCriteriaType> criteriaTypes() {
+        return this.criteriaTypes;
+    }
+
+    @Override
+    public MatchContext newContext() {
+        return new MatchContext(this.compiled.criteriaCount(), this.compiled.rules().size());
+    }
+
+    @Override
+    public void evaluate(final MessageHeaders headers, final MatchContext context) {
+        context.reset(headers);
+        final var key = this.memo.isEnabled() ? this.memo.keyOf(context) : null;
+        if (context.evaluations++ % SAMPLE_INTERVAL == 0) {
+            // Sampled messages always run every probe, so the statistics never see memoized outcomes.
+            this.evaluateSampled(context);
+            if (key != null) this.memo.store(key, context);
+            return;
+        }
+
+        final boolean seeded = key != null && this.memo.seed(key, context);
+        final var ruleSlots = this.order;
+        for (int rule = 0; rule < ruleSlots.length; rule++) {
+            if (this.allSatisfied(ruleSlots[rule], context)) {
+                context.matched.set(rule);
+                if (this.firstMatch) break;
+            }
+        }
+        if (key != null && !seeded) this.memo.store(key, context);
+    }
+
+    @Override
+    public MessageBatch newBatch(final int capacity) {
+        return this.batchEvaluator.newBatch(capacity);
+    }
+
+    @Override
+    public void evaluate(final MessageBatch batch) {
+        this.batchEvaluator.evaluate(batch);
+    }
+
+    DecisionMemo memo() {
+        return this.memo;
+    }
+
+    /**
+     * Recomputes the evaluation order from the statistics gathered so far.
+     */
+    void refreshOrder() {
+        this.order = this.statistics.order(this.compiled.ruleSlots());
+    }
+
+    int[] evaluationOrder(final int rule) {
+        return this.order[rule].clone();
+    }
+
+    private boolean allSatisfied(final int[] slots, final MatchContext context) {
+        if (slots.length == 0) return false;
+        for (final int slot : slots) {
+            if (!this.test(slot, context)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the slot's value, running its probe or resolving its group on first use.
+     */
+    private boolean test(final int slot, final MatchContext context) {
+        final var probe = this.compiled.slotProbes()[slot];
+        if (probe != null) {
+            final long bit = 1L << probe.ordinal();
+            if ((context.probed & bit) == 0) {
+                this.run(probe, context.normalized, context.satisfied);
+                context.probed |= bit;
+            }
+            return context.satisfied.get(slot);
+        }
+        final var group = this.compiled.slotGroups()[slot];
+        if (group == null) return false;
+        if (context.resolved.get(slot)) return context.satisfied.get(slot);
+
+        boolean value = !group.decidedValue();
+        for (final int child : group.children()) {
+            if (this.test(child, context) == group.decisiveChildValue()) {
+                value = group.decidedValue();
+                break;
+            }
+        }
+        context.resolved.set(slot);
+        if (value) context.satisfied.set(slot);
+        return value;
+    }
+
+    private void evaluateSampled(final MatchContext context) {
+        final var satisfied = context.satisfied;
+        for (final var probe : this.activeProbes) {
+            final long start = System.nanoTime();
+            this.run(probe, context.normalized, satisfied);
+            this.statistics.recordProbe(probe, System.nanoTime() - start);
+        }
+        for (int slot = 0; slot < this.compiled.criteriaCount(); slot++) {
+            if (this.bodyDependentSlots.get(slot)) continue;
+            // Every other probe already ran, so groups only combine known values; children resolve before their group.
+            if (this.compiled.slotGroups()[slot] != null) this.test(slot, context);
+            this.statistics.recordSlot(slot, satisfied.get(slot));
+        }
+
+        // Body-dependent slots are still resolved lazily, so rules are walked in cost order.
+        final var ruleSlots = this.order;
+        for (int rule = 0; rule < ruleSlots.length; rule++) {
+            if (this.allSatisfied(ruleSlots[rule], context)) {
+                context.matched.set(rule);
+                if (this.firstMatch) break;
+            }
+        }
+
+        if (this.samples.incrementAndGet() % REFRESH_INTERVAL == 0) {
+            this.refreshOrder();
+        }
+    }
+
+    private void run(final PredicateProbe probe, final NormalizedHeaders headers, final BitSet satisfied) {
+        final var operator = probe.operator();
+        switch (probe.type()) {
+            case FROM -> this.compiled.from().collect(operator, headers.fromText(), headers.fromAddress(), satisfied);
+            case TO -> this.compiled.to().collectAll(operator, headers.toText(), headers.toAddresses(), satisfied);
+            case SUBJECT -> this.compiled.subject().collect(operator, headers.subjectText(), headers.subjectText(), satisfied);
+            case RECEIVED_AT -> this.compiled.receivedAt().collect(headers.receivedAt(), satisfied);
+            case SIZE -> this.compiled.size().collect(headers.size(), satisfied);
+            case HAS_ATTACHMENT -> this.compiled.hasAttachment()
+                .collect(operator, headers.hasAttachmentText(), headers.hasAttachmentText(), satisfied);
+            case ATTACHMENT_TYPE -> this.compiled.attachmentType()
+                .collectAll(operator, headers.attachmentTypes(), headers.attachmentTypes(), satisfied);
+            case BODY -> this.compiled.body().collect(headers.body(), satisfied);
+        }
+    }
+
+}
@@ -0,0 +1,172 @@
+package dev.da0hn.email.management.system.core.service.engine;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.LongStream;
+
+/**
+ * Static centered interval tree over inclusive epoch ranges.
+ * <p>A stabbing query reports every interval containing a point in {@code O(log n + k)}: each visited node keeps the
+ * intervals crossing its center sorted by lower bound (scanned when the point is left of the center) and by upper
+ * bound (scanned when it is right of it), and the scan stops at the first interval that cannot contain the point.</p>
+ */
+final class IntervalIndex {
+
+    private final long[] centers;
+
+    private final int[] left;
+
+    private final int[] right;
+
+    private final int[] rangeStart;
+
+    private final int[] byLowerSlots;
+
+    private final long[] byLowerBounds;
+
+    private final int[] byUpperSlots;
+
+    private final long[] byUpperBounds;
+
+    private IntervalIndex(
+        final long[] centers,
+        final int[] left,
+        final int[] right,
+        final int[] rangeStart,
+        final int[] byLowerSlots,
+        final long[] byLowerBounds,
+        final int[] byUpperSlots,
+        final long[] byUpperBounds
+    ) {
+        this.centers = centers;
+        this.left = left;
+        this.right = right;
+        this.rangeStart = rangeStart;
+        this.byLowerSlots = byLowerSlots;
+        this.byLowerBounds = byLowerBounds;
+        this.byUpperSlots = byUpperSlots;
+        this.byUpperBounds = byUpperBounds;
+    }
+
+    void collect(final long point, final BitSet satisfied) {
+        int node = this.centers.length == 0 ? -1 : 0;
+        while (node >= 0) {
+            final int from = this.rangeStart[node];
+            final int to = this.rangeStart[node + 1];
+            if (point < this.centers[node]) {
+                for (int i = from; i < to && this.byLowerBounds[i] <= point; i++) {
+                    satisfied.set(this.byLowerSlots[i]);
+                }
+                node = this.left[node];
+            }
+            else if (point > this.centers[node]) {
+                for (int i = from; i < to && this.byUpperBounds[i] >= point; i++) {
+                    satisfied.set(this.byUpperSlots[i]);
+                }
+                node = this.right[node];
+            }
+            else {
+                for (int i = from; i < to; i++) {
+                    satisfied.set(this.byLowerSlots[i]);
+                }
+                node = -1;
+            }
+        }
+    }
+
+    private record Interval(int slot, long lower, long upper) {}
+
+    static final class Builder {
+
+        private final List<Interval> intervals = new ArrayList<>();
+
+        boolean isEmpty() {
+            return this.intervals.isEmpty();
+        }
+
+        void add(final int slot, final long lower, final long upper) {
+            this.intervals.add(new Interval(slot, lower, upper));
+        }
+
+        IntervalIndex build() {
+            final var nodes = new ArrayList<List<Interval>>();
+            final var centers = new ArrayList<Long>();
+            final var left = new ArrayList<Integer>();
+            final var right = new ArrayList<Integer>();
+            if (!this.intervals.isEmpty()) {
+                this.buildNode(this.intervals, nodes, centers, left, right);
+            }
+
+            final int size = nodes.size();
+            final var rangeStart = new int[size + 1];
+            final var byLowerSlots = new int[this.intervals.size()];
+            final var byLowerBounds = new long[this.intervals.size()];
+            final var byUpperSlots = new int[this.intervals.size()];
+            final var byUpperBounds = new long[this.intervals.size()];
+            for (int node = 0; node < size; node++) {
+                final var crossing = nodes.get(node);
+                final int offset = rangeStart[node];
+                rangeStart[node + 1] = offset + crossing.size();
+
+                final var byLower = crossing.stream().sorted(Comparator.comparingLong(Interval::lower)).toList();
+                final var byUpper = crossing.stream().sorted(Comparator.comparingLong(Interval::upper).reversed()).toList();
+                for (int i = 0; i < crossing.size(); i++) {
+                    byLowerSlots[offset + i] = byLower.get(i).slot();
+                    byLowerBounds[offset + i] = byLower.get(i).lower();
+                    byUpperSlots[offset + i] = byUpper.get(i).slot();
+                    byUpperBounds[offset + i] = byUpper.get(i).upper();
+                }
+            }
+            return new IntervalIndex(
+                centers.stream().mapToLong(Long::longValue).toArray(),
+                left.stream().mapToInt(Integer::intValue).toArray(),
+                right.stream().mapToInt(Integer::intValue).toArray(),
+                rangeStart,
+                byLowerSlots,
+                byLowerBounds,
+                byUpperSlots,
+                byUpperBounds
+            );
+        }
+
+        private int buildNode(
+            final List<Interval> intervals,
+            final List<List<Interval>> nodes,
+            final List<Long> centers,
+            final List<Integer> left,
+            final List<Integer> right
+        ) {
+            final var endpoints = intervals.stream()
+                .flatMapToLong(interval -> LongStream.of(interval.lower(), interval.upper()))
+                .sorted()
+                .toArray();
+            final long center = endpoints[endpoints.length / 2];
+
+            final var crossing = new ArrayList<Interval>();
+            final var leftIntervals = new ArrayList<Interval>();
+            final var rightIntervals = new ArrayList<Interval>();
+            for (final var interval : intervals) {
+                if (interval.upper() < center) leftIntervals.add(interval);
+                else if (interval.lower() > center) rightIntervals.add(interval);
+                else crossing.add(interval);
+            }
+
+            final int node = nodes.size();
+            nodes.add(crossing);
+            centers.add(center);
+            left.add(-1);
+            right.add(-1);
+            if (!leftIntervals.isEmpty()) {
+                left.set(node, this.buildNode(leftIntervals, nodes, centers, left, right));
+            }
+            if (!rightIntervals.isEmpty()) {
+                right.set(node, this.buildNode(rightIntervals, nodes, centers, left, right));
+            }
+            return node;
+        }
+
+    }
+
+}
@@ -0,0 +1,66 @@
+package dev.da0hn.email.management.system.core.service.engine;
+
+import java.util.BitSet;
+
+/**
+ * Reusable per-worker scratch space for a {@link RuleMatcher}.
+ * Holds the current message's {@link NormalizedHeaders}, the criteria it satisfies and the rules that matched it.
+ */
+public final class MatchContext {
+
+    final BitSet satisfied;
+
+    final BitSet matched;
+
+    /**
+     * Group slots already resolved for the current message; their value is then in {@link #satisfied}.
+     */
+    final BitSet resolved;
+
+    final NormalizedHeaders normalized = new NormalizedHeaders();
+
+    /**
+     * Decision memo key reused for every message of this context.
+     */
+    final DecisionMemo.Key memoKey = new DecisionMemo.Key();
+
+    /**
+     * Bit per {@link PredicateProbe} ordinal already run for the current message.
+     */
+    long probed;
+
+    /**
+     * Messages evaluated with this context, used to pick the sampled ones.
+     */
+    int evaluations;
+
+    MatchContext(final int criteriaCount, final int ruleCount) {
+        this.satisfied = new BitSet(criteriaCount);
+        this.matched = new BitSet(ruleCount);
+        this.resolved = new BitSet(criteriaCount);
+    }
+
+    void reset(final MessageHeaders headers) {
+        this.normalized.reset(headers);
+        this.satisfied.clear();
+        this.matched.clear();
+        this.resolved.clear();
+        this.probed = 0;
+    }
+
+    public boolean isMatched(final int ruleIndex) {
+        return this.matched.get(ruleIndex);
+    }
+
+    /**
+     * Returns the index of the first matched rule at or after {@code fromIndex}, or {@code -1} when there is none.
+     */
+    public int nextMatch(final int fromIndex) {
+        return this.matched.nextSetBit(fromIndex);
+    }
+
+    public int matchCount() {
+        return this.matched.cardinality();
+    }
+
+}
@@ -0,0 +1,253 @@
+package dev.da0hn.email.management.system.core.service.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Reusable per-worker buffer of up to {@code capacity} messages, evaluated together by
+ * {@link RuleMatcher#evaluate(MessageBatch)}.
+ * <p>Headers are stored column by column in parallel arrays: normalized sender, recipients, subject (their string
+ * hashes are cached on first lookup) and attachment types, received epochs and sizes. A text column is only normalized
+ * when a probe first reads it. Results are one bitmap per rule, bit {@code i} standing for the {@code i}-th message
+ * added, so a rule's hits over the whole batch are a few {@code long} words.</p>
+ * <p>A batch is sized for the matcher that created it and, like {@link MatchContext}, is not thread-safe.</p>
+ */
+public final class MessageBatch {
+
+    final CompiledRuleSet compiled;
+
+    private final int capacity;
+
+    int size;
+
+    private final MessageHeaders[] raw;
+
+    final long[] receivedAt;
+
+    final long[] sizes;
+
+    private final NormalizedHeaders normalizer = new NormalizedHeaders();
+
+    private boolean fromDone;
+
+    private final String[] fromText;
+
+    private final String[] fromAddress;
+
+    private boolean toDone;
+
+    private final List<List<String>> toText;
+
+    private final List<List<String>> toAddresses;
+
+    private boolean subjectDone;
+
+    private final String[] subjectText;
+
+    private boolean attachmentsDone;
+
+    private final String[] hasAttachmentText;
+
+    private final List<List<String>> attachmentTypes;
+
+    /**
+     * Bitmap of the messages satisfying each slot, {@code criteriaCount} rows of {@link #words} longs.
+     */
+    final long[][] slotWords;
+
+    /**
+     * Bitmap of the messages matching each rule.
+     */
+    final long[][] ruleWords;
+
+    /**
+     * Messages no rule matched yet, for {@code FIRST_MATCH} evaluation.
+     */
+    final long[] pending;
+
+    /**
+     * Slots answered by one text probe for one message, before they are spread into {@link #slotWords}.
+     */
+    final BitSet scratch;
+
+    MessageBatch(final CompiledRuleSet compiled, final int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("Batch capacity must be positive");
+        this.compiled = compiled;
+        this.capacity = capacity;
+        this.raw = new MessageHeaders[capacity];
+        this.receivedAt = new long[capacity];
+        this.sizes = new long[capacity];
+        this.hasAttachmentText = new String[capacity];
+        this.attachmentTypes = new ArrayList<>(capacity);
+        this.fromText = new String[capacity];
+        this.fromAddress = new String[capacity];
+        this.subjectText = new String[capacity];
+        this.toText = new ArrayList<>(capacity);
+        this.toAddresses = new ArrayList<>(capacity);
+        final int words = (capacity + 63) >>> 6;
+        this.slotWords = new long[compiled.criteriaCount()][words];
+        this.ruleWords = new long[compiled.rules().size()][words];
+        this.pending = new long[words];
+        this.scratch = new BitSet(compiled.criteriaCount());
+    }
+
+    /**
+     * Appends a message; throws {@link IllegalStateException} when the batch is full.
+     */
+    public void add(final MessageHeaders headers) {
+        if (this.size == this.capacity) throw new IllegalStateException("Batch is full");
+        this.raw[this.size] = headers;
+        this.receivedAt[this.size] = headers.receivedAt();
+        this.sizes[this.size] = headers.size();
+        this.size++;
+        this.fromDone = false;
+        this.toDone = false;
+        this.subjectDone = false;
+        this.attachmentsDone = false;
+    }
+
+    /**
+     * Empties the batch so it can be filled again; matches of the previous evaluation are discarded.
+     */
+    public void clear() {
+        Arrays.fill(this.raw, 0, this.size, null);
+        this.size = 0;
+        this.toText.clear();
+        this.toAddresses.clear();
+        this.attachmentTypes.clear();
+        for (final var words : this.ruleWords) Arrays.fill(words, 0L);
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public int capacity() {
+        return this.capacity;
+    }
+
+    public boolean isFull() {
+        return this.size == this.capacity;
+    }
+
+    public boolean isMatched(final int message, final int rule) {
+        return (this.ruleWords[rule][message >>> 6] & 1L << message) != 0;
+    }
+
+    /**
+     * Returns the index of the first rule at or after {@code fromRule} matched by the message, or {@code -1}.
+     */
+    public int nextMatch(final int message, final int fromRule) {
+        for (int rule = fromRule; rule < this.ruleWords.length; rule++) {
+            if (this.isMatched(message, rule)) return rule;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index of the first message at or after {@code fromMessage} matched by the rule, or {@code -1}.
+     */
+    public int nextMessage(final int rule, final int fromMessage) {
+        final var words = this.ruleWords[rule];
+        int index = fromMessage >>> 6;
+        if (index >= words.length) return -1;
+        long word = words[index] & -1L << fromMessage;
+        while (true) {
+            if (word != 0) return (index << 6) + Long.numberOfTrailingZeros(word);
+            if (++index == words.length) return -1;
+            word = words[index];
+        }
+    }
+
+    /**
+     * Number of messages of the batch matched by the rule.
+     */
+    public int matchCount(final int rule) {
+        int count = 0;
+        for (final long word : this.ruleWords[rule]) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    MessageBody body(final int message) {
+        return this.raw[message].body();
+    }
+
+    String[] fromText() {
+        this.normalizeFrom();
+        return this.fromText;
+    }
+
+    String[] fromAddress() {
+        this.normalizeFrom();
+        return this.fromAddress;
+    }
+
+    List<List<String>> toText() {
+        this.normalizeTo();
+        return this.toText;
+    }
+
+    List<List<String>> toAddresses() {
+        this.normalizeTo();
+        return this.toAddresses;
+    }
+
+    String[] subjectText() {
+        if (!this.subjectDone) {
+            for (int i = 0; i < this.size; i++) {
+                this.normalizer.reset(this.raw[i]);
+                this.subjectText[i] = this.normalizer.subjectText();
+            }
+            this.subjectDone = true;
+        }
+        return this.subjectText;
+    }
+
+    String[] hasAttachmentText() {
+        this.normalizeAttachments();
+        return this.hasAttachmentText;
+    }
+
+    List<List<String>> attachmentTypes() {
+        this.normalizeAttachments();
+        return this.attachmentTypes;
+    }
+
+    private void normalizeAttachments() {
+        if (this.attachmentsDone) return;
+        this.attachmentTypes.clear();
+        for (int i = 0; i < this.size; i++) {
+            this.normalizer.reset(this.raw[i]);
+            this.hasAttachmentText[i] = this.normalizer.hasAttachmentText();
+            this.attachmentTypes.add(List.copyOf(this.normalizer.attachmentTypes()));
+        }
+        this.attachmentsDone = true;
+    }
+
+    private void normalizeFrom() {
+        if (this.fromDone) return;
+        for (int i = 0; i < this.size; i++) {
+            this.normalizer.reset(this.raw[i]);
+            this.fromText[i] = this.normalizer.fromText();
+            this.fromAddress[i] = this.normalizer.fromAddress();
+        }
+        this.fromDone = true;
+    }
+
+    private void normalizeTo() {
+        if (this.toDone) return;
+        this.toText.clear();
+        this.toAddresses.clear();
+        for (int i = 0; i < this.size; i++) {
+            this.normalizer.reset(this.raw[i]);
+            this.toText.add(List.copyOf(this.normalizer.toText()));
+            this.toAddresses.add(List.copyOf(this.normalizer.toAddresses()));
+        }
+        this.toDone = true;
+    }
+
+}
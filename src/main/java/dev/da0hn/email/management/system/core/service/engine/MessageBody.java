@@ -0,0 +1,32 @@
+package dev.da0hn.email.management.system.core.service.engine;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+/**
+ * Content of a message, streamed on demand by {@code BODY} criteria.
+ * <p>Implementations hand out the text parts one at a time with their transfer encoding already removed, and skip
+ * binary parts without decoding them. A scan may stop after any part, so parts should only be opened when they are
+ * reached. A body may be scanned more than once.</p>
+ */
+@FunctionalInterface
+public interface MessageBody {
+
+    /**
+     * Passes each text part to {@code scanner}, in order, until it returns {@code false} or none are left.
+     */
+    void forEachTextPart(TextPartScanner scanner) throws IOException;
+
+    @FunctionalInterface
+    interface TextPartScanner {
+
+        /**
+         * Reads as much of the part as needed and returns whether the next part is wanted. The stream is closed by
+         * the caller.
+         */
+        boolean scan(InputStream content, Charset charset) throws IOException;
+
+    }
+
+}
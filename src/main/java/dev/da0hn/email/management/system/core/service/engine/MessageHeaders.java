@@ -0,0 +1,48 @@
+package dev.da0hn.email.management.system.core.service.engine;
+
+import java.util.List;
+
+/**
+ * Header fields of a single message as seen by the rule engine.
+ * Text fields are taken as found in the message: RFC 2047 encoded-words are decoded by {@link NormalizedHeaders}, once,
+ * when a criterion first reads the field.
+ * {@code receivedAt} is expressed in epoch milliseconds, or {@link #UNKNOWN_RECEIVED_AT} when the server did not report it.
+ * {@code size} is the {@code RFC822.SIZE} in bytes, or {@link #UNKNOWN_SIZE}, and {@code attachmentTypes} the MIME
+ * types of the attachments listed by {@code BODYSTRUCTURE}, or {@code null} when it was not fetched. {@code body}
+ * streams the text parts to {@code BODY} criteria on demand; it is {@code null} when not available.
+ */
+public record MessageHeaders(
+    String from,
+    List<String> to,
+    String subject,
+    long receivedAt,
+    long size,
+    List<String> attachmentTypes,
+    MessageBody body
+) {
+
+    public static final long UNKNOWN_RECEIVED_AT = Long.MIN_VALUE;
+
+    public static final long UNKNOWN_SIZE = -1;
+
+    public MessageHeaders {
+        to = to != null ? List.copyOf(to) : List.of();
+        attachmentTypes = attachmentTypes != null ? List.copyOf(attachmentTypes) : null;
+    }
+
+    public MessageHeaders(final String from, final List<String> to, final String subject, final long receivedAt) {
+        this(from, to, subject, receivedAt, UNKNOWN_SIZE, null, null);
+    }
+
+    public MessageHeaders(
+        final String from,
+        final List<String> to,
+        final String subject,
+        final long receivedAt,
+        final long size,
+        final List<String> attachmentTypes
+    ) {
+        this(from, to, subject, receivedAt, size, attachmentTypes, null);
+    }
+
+}
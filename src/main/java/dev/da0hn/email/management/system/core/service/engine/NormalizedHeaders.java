@@ -0,0 +1,173 @@
+package dev.da0hn.email.management.system.core.service.engine;
+
+import jakarta.mail.internet.MimeUtility;
+
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Normalized view of one message's {@link MessageHeaders}, read by every criterion.
+ * <p>Each field is decoded (RFC 2047 encoded-words), normalized with {@link HeaderNormalization#TEXT} and, for
+ * mailboxes, reduced to the bare address at most once per message, the first time a criterion asks for it. Instances
+ * are flyweights owned by a {@link MatchContext}: they are reset for every message instead of being allocated, so they
+ * must not be retained or shared between threads.</p>
+ */
+public final class NormalizedHeaders {
+
+    private MessageHeaders raw;
+
+    private boolean fromDone;
+
+    private String fromText;
+
+    private String fromAddress;
+
+    private boolean toDone;
+
+    private final List<String> toText = new ArrayList<>();
+
+    private final List<String> toAddresses = new ArrayList<>();
+
+    private boolean subjectDone;
+
+    private String subjectText;
+
+    private boolean attachmentsDone;
+
+    private final List<String> attachmentTypes = new ArrayList<>();
+
+    NormalizedHeaders() {
+    }
+
+    void reset(final MessageHeaders headers) {
+        this.raw = headers;
+        this.fromDone = false;
+        this.toDone = false;
+        this.subjectDone = false;
+        this.attachmentsDone = false;
+    }
+
+    public MessageHeaders raw() {
+        return this.raw;
+    }
+
+    /**
+     * Whole normalized sender header, display name included; {@code null} when absent.
+     */
+    public String fromText() {
+        this.normalizeFrom();
+        return this.fromText;
+    }
+
+    /**
+     * Normalized sender address; {@code null} when absent.
+     */
+    public String fromAddress() {
+        this.normalizeFrom();
+        return this.fromAddress;
+    }
+
+    /**
+     * Normalized recipient headers; the list is reused for the next message and must not be modified.
+     */
+    public List<String> toText() {
+        this.normalizeTo();
+        return this.toText;
+    }
+
+    /**
+     * Normalized recipient addresses, aligned with {@link #toText()}.
+     */
+    public List<String> toAddresses() {
+        this.normalizeTo();
+        return this.toAddresses;
+    }
+
+    /**
+     * Normalized subject; {@code null} when absent.
+     */
+    public String subjectText() {
+        if (!this.subjectDone) {
+            this.subjectText = text(this.raw.subject());
+            this.subjectDone = true;
+        }
+        return this.subjectText;
+    }
+
+    public long receivedAt() {
+        return this.raw.receivedAt();
+    }
+
+    public long size() {
+        return this.raw.size();
+    }
+
+    /**
+     * {@code "true"} or {@code "false"}, compared with {@code HAS_ATTACHMENT} criteria; {@code null} when unknown.
+     */
+    public String hasAttachmentText() {
+        if (this.raw.attachmentTypes() == null) return null;
+        return this.raw.attachmentTypes().isEmpty() ? "false" : "true";
+    }
+
+    /**
+     * Normalized attachment MIME types, empty when unknown; the list is reused for the next message and must not be
+     * modified.
+     */
+    public List<String> attachmentTypes() {
+        if (!this.attachmentsDone) {
+            this.attachmentTypes.clear();
+            if (this.raw.attachmentTypes() != null) {
+                for (final var type : this.raw.attachmentTypes()) {
+                    if (type != null) this.attachmentTypes.add(HeaderNormalization.TEXT.apply(type));
+                }
+            }
+            this.attachmentsDone = true;
+        }
+        return this.attachmentTypes;
+    }
+
+    /**
+     * Source of the message's text parts; {@code null} when not available. Read by the probe as a stream, never
+     * normalized as a whole.
+     */
+    public MessageBody body() {
+        return this.raw.body();
+    }
+
+    private void normalizeFrom() {
+        if (this.fromDone) return;
+        this.fromText = text(this.raw.from());
+        this.fromAddress = this.fromText == null ? null : HeaderNormalization.address(this.fromText);
+        this.fromDone = true;
+    }
+
+    private void normalizeTo() {
+        if (this.toDone) return;
+        this.toText.clear();
+        this.toAddresses.clear();
+        for (final var recipient : this.raw.to()) {
+            final var text = text(recipient);
+            if (text == null) continue;
+            this.toText.add(text);
+            this.toAddresses.add(HeaderNormalization.address(text));
+        }
+        this.toDone = true;
+    }
+
+    private static String text(final String headerValue) {
+        return headerValue == null ? null : HeaderNormalization.TEXT.apply(decode(headerValue));
+    }
+
+    private static String decode(final String headerValue) {
+        if (!headerValue.contains("=?")) return headerValue;
+        try {
+            return MimeUtility.decodeText(headerValue);
+        }
+        catch (final UnsupportedEncodingException e) {
+            return headerValue;
+        }
+    }
+
+}
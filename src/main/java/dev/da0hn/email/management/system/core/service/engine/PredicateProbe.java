@@ -0,0 +1,92 @@
+package dev.da0hn.email.management.system.core.service.engine;
+
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaOperator;
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaType;
+
+/**
+ * Smallest unit of work the matcher can run lazily: one index of one header.
+ * <p>Running a probe answers every criteria slot registered in that index at once. The prior cost is a relative
+ * estimate used until {@link PredicateStatistics} has measured the probe.</p>
+ */
+enum PredicateProbe {
+
+    FROM_EQUALS(RuleCriteriaType.FROM, RuleCriteriaOperator.EQUALS, 1),
+    FROM_CONTAINS(RuleCriteriaType.FROM, RuleCriteriaOperator.CONTAINS, 4),
+    FROM_STARTS_WITH(RuleCriteriaType.FROM, RuleCriteriaOperator.STARTS_WITH, 2),
+    FROM_ENDS_WITH(RuleCriteriaType.FROM, RuleCriteriaOperator.ENDS_WITH, 2),
+    FROM_MATCHES(RuleCriteriaType.FROM, RuleCriteriaOperator.MATCHES, 5),
+    TO_EQUALS(RuleCriteriaType.TO, RuleCriteriaOperator.EQUALS, 2),
+    TO_CONTAINS(RuleCriteriaType.TO, RuleCriteriaOperator.CONTAINS, 8),
+    TO_STARTS_WITH(RuleCriteriaType.TO, RuleCriteriaOperator.STARTS_WITH, 4),
+    TO_ENDS_WITH(RuleCriteriaType.TO, RuleCriteriaOperator.ENDS_WITH, 4),
+    TO_MATCHES(RuleCriteriaType.TO, RuleCriteriaOperator.MATCHES, 10),
+    SUBJECT_EQUALS(RuleCriteriaType.SUBJECT, RuleCriteriaOperator.EQUALS, 1),
+    SUBJECT_CONTAINS(RuleCriteriaType.SUBJECT, RuleCriteriaOperator.CONTAINS, 6),
+    SUBJECT_STARTS_WITH(RuleCriteriaType.SUBJECT, RuleCriteriaOperator.STARTS_WITH, 2),
+    SUBJECT_ENDS_WITH(RuleCriteriaType.SUBJECT, RuleCriteriaOperator.ENDS_WITH, 2),
+    SUBJECT_MATCHES(RuleCriteriaType.SUBJECT, RuleCriteriaOperator.MATCHES, 7),
+    RECEIVED_AT(RuleCriteriaType.RECEIVED_AT, null, 1),
+    SIZE(RuleCriteriaType.SIZE, null, 1),
+    HAS_ATTACHMENT(RuleCriteriaType.HAS_ATTACHMENT, RuleCriteriaOperator.EQUALS, 1),
+    ATTACHMENT_TYPE_EQUALS(RuleCriteriaType.ATTACHMENT_TYPE, RuleCriteriaOperator.EQUALS, 2),
+    ATTACHMENT_TYPE_CONTAINS(RuleCriteriaType.ATTACHMENT_TYPE, RuleCriteriaOperator.CONTAINS, 6),
+    ATTACHMENT_TYPE_STARTS_WITH(RuleCriteriaType.ATTACHMENT_TYPE, RuleCriteriaOperator.STARTS_WITH, 3),
+    ATTACHMENT_TYPE_ENDS_WITH(RuleCriteriaType.ATTACHMENT_TYPE, RuleCriteriaOperator.ENDS_WITH, 3),
+    ATTACHMENT_TYPE_MATCHES(RuleCriteriaType.ATTACHMENT_TYPE, RuleCriteriaOperator.MATCHES, 7),
+    BODY_CONTAINS(RuleCriteriaType.BODY, RuleCriteriaOperator.CONTAINS, 1000);
+
+    private static final PredicateProbe[] VALUES = values();
+
+    private final RuleCriteriaType type;
+
+    private final RuleCriteriaOperator operator;
+
+    private final double priorCost;
+
+    PredicateProbe(final RuleCriteriaType type, final RuleCriteriaOperator operator, final double priorCost) {
+        this.type = type;
+        this.operator = operator;
+        this.priorCost = priorCost;
+    }
+
+    static PredicateProbe of(final RuleCriteriaType type, final RuleCriteriaOperator operator) {
+        if (type == RuleCriteriaType.RECEIVED_AT) return RECEIVED_AT;
+        if (type == RuleCriteriaType.SIZE) return SIZE;
+        for (final var probe : VALUES) {
+            if (probe.type == type && probe.operator == operator) return probe;
+        }
+        throw new IllegalArgumentException("No probe for " + type + " " + operator);
+    }
+
+    RuleCriteriaType type() {
+        return this.type;
+    }
+
+    RuleCriteriaOperator operator() {
+        return this.operator;
+    }
+
+    double priorCost() {
+        return this.priorCost;
+    }
+
+    /**
+     * Whether the probe only reads the sender, recipient or subject header, the fields a {@link DecisionMemo} key
+     * holds.
+     */
+    boolean readsHeaderText() {
+        return switch (this.type) {
+            case FROM, TO, SUBJECT -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * Whether the probe streams the message body. Such a probe is never run eagerly, only when a rule still needs
+     * one of its slots.
+     */
+    boolean readsBody() {
+        return this.type == RuleCriteriaType.BODY;
+    }
+
+}
@@ -0,0 +1,107 @@
+package dev.da0hn.email.management.system.core.service.engine;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runtime selectivity and cost of the predicates of one compiled rule set.
+ * <p>Counters are striped {@link LongAdder}s so concurrent workers record samples without contending. Only sampled
+ * messages are recorded, and those are evaluated exhaustively, so pass rates are not biased by short-circuiting.</p>
+ */
+final class PredicateStatistics {
+
+    private final PredicateProbe[] slotProbes;
+
+    private final SlotGroup[] slotGroups;
+
+    private final BitSet bodyDependentSlots;
+
+    private final LongAdder[] evaluated;
+
+    private final LongAdder[] passed;
+
+    private final LongAdder[] probeRuns = new LongAdder[PredicateProbe.values().length];
+
+    private final LongAdder[] probeNanos = new LongAdder[PredicateProbe.values().length];
+
+    PredicateStatistics(final CompiledRuleSet compiled) {
+        this.slotProbes = compiled.slotProbes();
+        this.slotGroups = compiled.slotGroups();
+        this.bodyDependentSlots = compiled.bodyDependentSlots();
+        this.evaluated = adders(this.slotProbes.length);
+        this.passed = adders(this.slotProbes.length);
+        Arrays.setAll(this.probeRuns, i -> new LongAdder());
+        Arrays.setAll(this.probeNanos, i -> new LongAdder());
+    }
+
+    void recordProbe(final PredicateProbe probe, final long nanos) {
+        this.probeRuns[probe.ordinal()].increment();
+        this.probeNanos[probe.ordinal()].add(nanos);
+    }
+
+    void recordSlot(final int slot, final boolean satisfied) {
+        this.evaluated[slot].increment();
+        if (satisfied) {
+            this.passed[slot].increment();
+        }
+    }
+
+    /**
+     * Orders each rule's slots by expected cost per rejection, {@code cost / (1 - passRate)}, so cheap and selective
+     * predicates run first. Slots that can never be satisfied come first since they reject for free. A group costs at
+     * most the sum of its children.
+     * <p>Body-dependent slots always come after the header-only ones: body probes only run lazily, so they are never
+     * timed and their unit-less prior cannot be compared with measured nanoseconds.</p>
+     */
+    int[][] order(final int[][] ruleSlots) {
+        final var cost = new double[this.slotProbes.length];
+        final var rank = new double[this.slotProbes.length];
+        // Children have lower slot numbers than their group, so their cost is known when the group is reached.
+        for (int slot = 0; slot < rank.length; slot++) {
+            cost[slot] = this.cost(slot, cost);
+            rank[slot] = this.rank(slot, cost[slot]);
+        }
+        final var ordered = new int[ruleSlots.length][];
+        for (int rule = 0; rule < ruleSlots.length; rule++) {
+            ordered[rule] = Arrays.stream(ruleSlots[rule])
+                .boxed()
+                .sorted(Comparator.<Integer, Boolean>comparing(this.bodyDependentSlots::get)
+                            .thenComparingDouble(slot -> rank[slot]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        }
+        return ordered;
+    }
+
+    private double cost(final int slot, final double[] cost) {
+        final var probe = this.slotProbes[slot];
+        if (probe != null) {
+            final long runs = this.probeRuns[probe.ordinal()].sum();
+            return runs == 0 ? probe.priorCost() : (double) this.probeNanos[probe.ordinal()].sum() / runs;
+        }
+        final var group = this.slotGroups[slot];
+        if (group == null) return 0;
+        double total = 0;
+        for (final int child : group.children()) {
+            total += cost[child];
+        }
+        return total;
+    }
+
+    private double rank(final int slot, final double cost) {
+        if (this.slotProbes[slot] == null && this.slotGroups[slot] == null) return Double.NEGATIVE_INFINITY;
+
+        // Laplace smoothing keeps unseen slots at 50% and never lets the pass rate reach exactly 1.
+        final double passRate = (this.passed[slot].sum() + 1.0) / (this.evaluated[slot].sum() + 2.0);
+        return cost / (1.0 - passRate);
+    }
+
+    private static LongAdder[] adders(final int size) {
+        final var adders = new LongAdder[size];
+        Arrays.setAll(adders, i -> new LongAdder());
+        return adders;
+    }
+
+}
@@ -0,0 +1,84 @@
+package dev.da0hn.email.management.system.core.service.engine;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Numeric criteria of a single {@code RuleCriteriaType} ({@code RECEIVED_AT} epochs, {@code SIZE} bytes), parsed into
+ * inclusive bounds once at compile time and stored in an {@link IntervalIndex}, so a message's value finds every
+ * satisfied criterion in {@code O(log n + k)}.
+ * <p>The bounds are also kept as parallel arrays for {@link #collect(long[], int, long[][])}, which compares a whole
+ * column of values against one criterion at a time. Unknown values ({@link MessageHeaders#UNKNOWN_RECEIVED_AT},
+ * {@link MessageHeaders#UNKNOWN_SIZE}) lie below every lower bound, so they never match.</p>
+ */
+final class RangeCriteriaGroup {
+
+    private final IntervalIndex index;
+
+    private final int[] slots;
+
+    private final long[] lowers;
+
+    private final long[] uppers;
+
+    private RangeCriteriaGroup(final IntervalIndex index, final int[] slots, final long[] lowers, final long[] uppers) {
+        this.index = index;
+        this.slots = slots;
+        this.lowers = lowers;
+        this.uppers = uppers;
+    }
+
+    boolean isEmpty() {
+        return this.index == null;
+    }
+
+    void collect(final long value, final BitSet satisfied) {
+        if (this.index == null) return;
+        this.index.collect(value, satisfied);
+    }
+
+    /**
+     * Sets bit {@code i} of {@code slotWords[slot]} for every message {@code i < size} whose value satisfies the
+     * criterion of {@code slot}.
+     * <p>The inner loop is a branch-free compare over a {@code long[]}, which the JIT unrolls.</p>
+     */
+    void collect(final long[] values, final int size, final long[][] slotWords) {
+        for (int criterion = 0; criterion < this.slots.length; criterion++) {
+            final long lower = this.lowers[criterion];
+            final long upper = this.uppers[criterion];
+            final long[] words = slotWords[this.slots[criterion]];
+            for (int i = 0; i < size; i++) {
+                final long value = values[i];
+                final long hit = value >= lower & value <= upper ? 1L : 0L;
+                words[i >>> 6] |= hit << i;
+            }
+        }
+    }
+
+    static final class Builder {
+
+        private final IntervalIndex.Builder index = new IntervalIndex.Builder();
+
+        private final List<Integer> slots = new ArrayList<>();
+
+        private final List<long[]> bounds = new ArrayList<>();
+
+        void add(final int slot, final long lower, final long upper) {
+            this.index.add(slot, lower, upper);
+            this.slots.add(slot);
+            this.bounds.add(new long[]{lower, upper});
+        }
+
+        RangeCriteriaGroup build() {
+            return new RangeCriteriaGroup(
+                this.index.isEmpty() ? null : this.index.build(),
+                this.slots.stream().mapToInt(Integer::intValue).toArray(),
+                this.bounds.stream().mapToLong(bound -> bound[0]).toArray(),
+                this.bounds.stream().mapToLong(bound -> bound[1]).toArray()
+            );
+        }
+
+    }
+
+}
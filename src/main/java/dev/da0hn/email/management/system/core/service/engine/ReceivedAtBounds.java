@@ -0,0 +1,46 @@
+package dev.da0hn.email.management.system.core.service.engine;
+
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaOperator;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.Optional;
+
+/**
+ * Inclusive epoch-millisecond range satisfied by a {@code RECEIVED_AT} criterion.
+ * <p>Values are ISO-8601 local dates ({@code 2024-01-01}) or date-times ({@code 2024-01-01T10:00:00}) in the system zone.
+ * A date covers the whole day, a date-time covers its whole second.</p>
+ */
+record ReceivedAtBounds(long lower, long upper) {
+
+    static Optional<ReceivedAtBounds> parse(final RuleCriteriaOperator operator, final String value, final ZoneId zone) {
+        final long start;
+        final long end;
+        try {
+            if (value.length() == 10) {
+                final var date = LocalDate.parse(value);
+                start = date.atStartOfDay(zone).toInstant().toEpochMilli();
+                end = date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli() - 1;
+            }
+            else {
+                final var dateTime = LocalDateTime.parse(value).withNano(0);
+                start = dateTime.atZone(zone).toInstant().toEpochMilli();
+                end = start + 999;
+            }
+        }
+        catch (final DateTimeParseException e) {
+            return Optional.empty();
+        }
+        return switch (operator) {
+            case EQUALS -> Optional.of(new ReceivedAtBounds(start, end));
+            case GREATER_THAN -> Optional.of(new ReceivedAtBounds(end + 1, Long.MAX_VALUE));
+            case GREATER_THAN_OR_EQUALS -> Optional.of(new ReceivedAtBounds(start, Long.MAX_VALUE));
+            case LESS_THAN -> Optional.of(new ReceivedAtBounds(Long.MIN_VALUE + 1, start - 1));
+            case LESS_THAN_OR_EQUALS -> Optional.of(new ReceivedAtBounds(Long.MIN_VALUE + 1, end));
+            default -> Optional.empty();
+        };
+    }
+
+}
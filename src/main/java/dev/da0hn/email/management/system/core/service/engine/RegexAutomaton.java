@@ -0,0 +1,477 @@
+package dev.da0hn.email.management.system.core.service.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Matches many {@code MATCHES} patterns against a text in one pass, in time linear in the text length.
+ * <p>All patterns are compiled into a single Thompson NFA whose accepting states carry the criterion slot. The NFA is
+ * run as a lazily built DFA: each DFA state is the set of NFA states active after some input, and its transitions are
+ * computed on first use and cached. Patterns are unanchored unless they start with {@code ^}, and patterns ending with
+ * {@code $} only accept at the end of the text. Matching is case-insensitive.</p>
+ * <p>The matcher is shared between worker threads. Cached states are immutable apart from their transition tables,
+ * which are filled with benign races: a thread that misses a transition recomputes it and finds the same interned
+ * state. When {@value #MAX_CACHED_STATES} states are cached the whole cache is flushed and rebuilt from the current
+ * input, as RE2 does, so one pathological text cannot degrade every later match. A scan that fills the cache a second
+ * time finishes by simulating the NFA directly, in per-thread scratch buffers, which keeps it linear without
+ * allocating per character. A single pattern may compile to at most {@value #MAX_PATTERN_STATES} NFA states.</p>
+ */
+final class RegexAutomaton {
+
+    static final int MAX_NFA_STATES = 100_000;
+
+    static final int MAX_PATTERN_STATES = 2_000;
+
+    static final int MAX_CACHED_STATES = 2_000;
+
+    private static final int ASCII = 128;
+
+    private static final byte CHAR = 0;
+
+    private static final byte SPLIT = 1;
+
+    private static final byte MATCH = 2;
+
+    private final byte[] kinds;
+
+    private final CharClass[] classes;
+
+    private final int[] out;
+
+    private final int[] alt;
+
+    /**
+     * Slot of a {@code MATCH} state, and whether it only accepts at the end of the text.
+     */
+    private final int[] slots;
+
+    private final boolean[] atEnd;
+
+    private final int[] unanchoredStarts;
+
+    private final int[] allStarts;
+
+    private final ThreadLocal<Scratch> scratch;
+
+    private volatile Generation generation;
+
+    private RegexAutomaton(final Builder builder) {
+        this.kinds = toByteArray(builder.kinds);
+        this.classes = builder.classes.toArray(CharClass[]::new);
+        this.out = builder.out.stream().mapToInt(Integer::intValue).toArray();
+        this.alt = builder.alt.stream().mapToInt(Integer::intValue).toArray();
+        this.slots = builder.slots.stream().mapToInt(Integer::intValue).toArray();
+        this.atEnd = new boolean[this.kinds.length];
+        for (int i = 0; i < this.atEnd.length; i++) {
+            this.atEnd[i] = builder.atEnd.get(i);
+        }
+        this.unanchoredStarts = builder.unanchoredStarts.stream().mapToInt(Integer::intValue).toArray();
+        this.allStarts = new int[builder.unanchoredStarts.size() + builder.anchoredStarts.size()];
+        int i = 0;
+        for (final int start : builder.unanchoredStarts) this.allStarts[i++] = start;
+        for (final int start : builder.anchoredStarts) this.allStarts[i++] = start;
+        final int states = this.kinds.length;
+        final int starts = this.allStarts.length;
+        this.scratch = ThreadLocal.withInitial(() -> new Scratch(states, starts));
+        this.generation = this.newGeneration();
+    }
+
+    /**
+     * Throws {@link IllegalArgumentException} when the pattern is invalid or compiles to too many states.
+     */
+    static void check(final String pattern) {
+        new Builder().add(pattern, 0);
+    }
+
+    void collect(final CharSequence text, final BitSet satisfied) {
+        var generation = this.generation;
+        var state = generation.initial;
+        state.accept(satisfied);
+        boolean flushed = false;
+        for (int i = 0; i < text.length(); i++) {
+            // Without active states (only possible when every pattern is anchored) nothing else can match.
+            if (state.nfaStates.length == 0) return;
+            final var active = state.nfaStates;
+            var target = this.next(generation, state, text.charAt(i));
+            if (target == null && !flushed) {
+                flushed = true;
+                generation = this.flush(generation);
+                final var restarted = this.intern(generation, active);
+                target = restarted == null ? null : this.next(generation, restarted, text.charAt(i));
+            }
+            if (target == null) {
+                this.simulate(active, text, i, satisfied);
+                return;
+            }
+            state = target;
+            state.accept(satisfied);
+        }
+        for (final int slot : state.acceptAtEnd) {
+            satisfied.set(slot);
+        }
+    }
+
+    /**
+     * Returns the state reached from {@code state} on {@code c}, or {@code null} when the generation's cache is full.
+     */
+    private State next(final Generation generation, final State state, final char c) {
+        if (c < ASCII) {
+            final var cached = state.ascii[c];
+            if (cached != null) return cached;
+        }
+        else {
+            final var cached = state.others.get(c);
+            if (cached != null) return cached;
+        }
+
+        final var scratch = this.scratch.get();
+        final int moved = this.move(state.nfaStates, state.nfaStates.length, c, scratch.moved);
+        final int reached = this.closure(scratch, scratch.moved, moved, this.unanchoredStarts, scratch.next);
+        final var nfaStates = Arrays.copyOf(scratch.next, reached);
+        Arrays.sort(nfaStates);
+        final var target = this.intern(generation, nfaStates);
+        if (target == null) return null;
+        if (c < ASCII) {
+            state.ascii[c] = target;
+        }
+        else {
+            state.others.putIfAbsent(c, target);
+        }
+        return target;
+    }
+
+    /**
+     * Runs the NFA over {@code text} from {@code from}, starting in {@code nfaStates}, without building DFA states.
+     */
+    private void simulate(final int[] nfaStates, final CharSequence text, final int from, final BitSet satisfied) {
+        final var scratch = this.scratch.get();
+        var current = scratch.current;
+        var next = scratch.next;
+        System.arraycopy(nfaStates, 0, current, 0, nfaStates.length);
+        int count = nfaStates.length;
+        for (int i = from; i < text.length(); i++) {
+            if (count == 0) return;
+            final int moved = this.move(current, count, text.charAt(i), scratch.moved);
+            count = this.closure(scratch, scratch.moved, moved, this.unanchoredStarts, next);
+            final var swap = current;
+            current = next;
+            next = swap;
+            this.accept(current, count, false, satisfied);
+        }
+        this.accept(current, count, true, satisfied);
+    }
+
+    private int move(final int[] from, final int count, final char c, final int[] into) {
+        int moved = 0;
+        for (int i = 0; i < count; i++) {
+            final int nfaState = from[i];
+            if (this.kinds[nfaState] == CHAR && this.classes[nfaState].matches(c)) {
+                into[moved++] = this.out[nfaState];
+            }
+        }
+        return moved;
+    }
+
+    /**
+     * Follows epsilon edges from the given states and writes the reached character and match states to {@code into},
+     * returning their count.
+     */
+    private int closure(final Scratch scratch, final int[] from, final int count, final int[] extra, final int[] into) {
+        final int stamp = scratch.nextStamp();
+        final var marks = scratch.marks;
+        final var stack = scratch.stack;
+        int top = 0;
+        for (int i = 0; i < count; i++) {
+            stack[top++] = from[i];
+        }
+        for (final int state : extra) {
+            stack[top++] = state;
+        }
+        int reached = 0;
+        while (top > 0) {
+            final int state = stack[--top];
+            if (marks[state] == stamp) continue;
+            marks[state] = stamp;
+            if (this.kinds[state] == SPLIT) {
+                stack[top++] = this.out[state];
+                if (this.alt[state] >= 0) stack[top++] = this.alt[state];
+            }
+            else {
+                into[reached++] = state;
+            }
+        }
+        return reached;
+    }
+
+    private void accept(final int[] nfaStates, final int count, final boolean end, final BitSet satisfied) {
+        for (int i = 0; i < count; i++) {
+            final int state = nfaStates[i];
+            if (this.kinds[state] == MATCH && this.atEnd[state] == end) satisfied.set(this.slots[state]);
+        }
+    }
+
+    /**
+     * Returns the interned state of the sorted NFA state set, or {@code null} when the generation's cache is full.
+     */
+    private State intern(final Generation generation, final int[] nfaStates) {
+        final var key = new StateKey(nfaStates);
+        final var cached = generation.states.get(key);
+        if (cached != null) return cached;
+        if (generation.states.size() >= MAX_CACHED_STATES) return null;
+        return generation.states.computeIfAbsent(key, k -> this.newState(nfaStates));
+    }
+
+    /**
+     * Replaces a full cache with an empty one; concurrent scans that filled the same generation share its replacement.
+     */
+    private synchronized Generation flush(final Generation full) {
+        if (this.generation == full) {
+            this.generation = this.newGeneration();
+        }
+        return this.generation;
+    }
+
+    private Generation newGeneration() {
+        final var scratch = this.scratch.get();
+        final int reached = this.closure(scratch, scratch.moved, 0, this.allStarts, scratch.next);
+        final var nfaStates = Arrays.copyOf(scratch.next, reached);
+        Arrays.sort(nfaStates);
+        final var generation = new Generation();
+        generation.initial = this.newState(nfaStates);
+        generation.states.put(new StateKey(nfaStates), generation.initial);
+        return generation;
+    }
+
+    private State newState(final int[] nfaStates) {
+        final var acceptNow = new ArrayList<Integer>();
+        final var acceptAtEnd = new ArrayList<Integer>();
+        for (final int state : nfaStates) {
+            if (this.kinds[state] != MATCH) continue;
+            (this.atEnd[state] ? acceptAtEnd : acceptNow).add(this.slots[state]);
+        }
+        return new State(
+            nfaStates,
+            acceptNow.stream().mapToInt(Integer::intValue).toArray(),
+            acceptAtEnd.stream().mapToInt(Integer::intValue).toArray()
+        );
+    }
+
+    private static byte[] toByteArray(final List<Byte> values) {
+        final var bytes = new byte[values.size()];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = values.get(i);
+        }
+        return bytes;
+    }
+
+    private record StateKey(int[] nfaStates) {
+
+        @Override
+        public boolean equals(final Object other) {
+            return other instanceof final StateKey key && Arrays.equals(this.nfaStates, key.nfaStates);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(this.nfaStates);
+        }
+
+    }
+
+    private static final class State {
+
+        private final int[] nfaStates;
+
+        private final int[] acceptNow;
+
+        private final int[] acceptAtEnd;
+
+        private final State[] ascii = new State[ASCII];
+
+        private final ConcurrentHashMap<Character, State> others = new ConcurrentHashMap<>(4);
+
+        private State(final int[] nfaStates, final int[] acceptNow, final int[] acceptAtEnd) {
+            this.nfaStates = nfaStates;
+            this.acceptNow = acceptNow;
+            this.acceptAtEnd = acceptAtEnd;
+        }
+
+        private void accept(final BitSet satisfied) {
+            for (final int slot : this.acceptNow) {
+                satisfied.set(slot);
+            }
+        }
+
+    }
+
+    /**
+     * DFA states cached since the last flush, and the initial state they grow from.
+     */
+    private static final class Generation {
+
+        private final ConcurrentHashMap<StateKey, State> states = new ConcurrentHashMap<>();
+
+        private State initial;
+
+    }
+
+    /**
+     * Buffers of one thread, sized for the automaton. NFA state sets never hold duplicates, so none exceeds the number
+     * of states, and the closure stack holds at most every start plus two pushes per split.
+     */
+    private static final class Scratch {
+
+        private final int[] moved;
+
+        private final int[] current;
+
+        private final int[] next;
+
+        private final int[] marks;
+
+        private final int[] stack;
+
+        private int stamp;
+
+        private Scratch(final int states, final int starts) {
+            this.moved = new int[states];
+            this.current = new int[states];
+            this.next = new int[states];
+            this.marks = new int[states];
+            this.stack = new int[3 * states + starts];
+        }
+
+        private int nextStamp() {
+            if (++this.stamp == 0) {
+                Arrays.fill(this.marks, 0);
+                this.stamp = 1;
+            }
+            return this.stamp;
+        }
+
+    }
+
+    static final class Builder {
+
+        private final List<Byte> kinds = new ArrayList<>();
+
+        private final List<CharClass> classes = new ArrayList<>();
+
+        private final List<Integer> out = new ArrayList<>();
+
+        private final List<Integer> alt = new ArrayList<>();
+
+        private final List<Integer> slots = new ArrayList<>();
+
+        private final BitSet atEnd = new BitSet();
+
+        private final List<Integer> unanchoredStarts = new ArrayList<>();
+
+        private final List<Integer> anchoredStarts = new ArrayList<>();
+
+        private int patternStart;
+
+        /**
+         * Parses and adds a pattern; throws {@link IllegalArgumentException} without changing the automaton when the
+         * pattern is invalid or too large.
+         */
+        void add(final String pattern, final int slot) {
+            final var parsed = RegexParser.parse(pattern);
+            final int mark = this.kinds.size();
+            this.patternStart = mark;
+            try {
+                final int match = this.state(MATCH, null, -1, -1);
+                this.slots.set(match, slot);
+                if (parsed.anchoredEnd()) this.atEnd.set(match);
+                final int start = this.compile(parsed.node(), match);
+                (parsed.anchoredStart() ? this.anchoredStarts : this.unanchoredStarts).add(start);
+            }
+            catch (final IllegalArgumentException e) {
+                this.truncate(mark);
+                throw e;
+            }
+        }
+
+        boolean isEmpty() {
+            return this.unanchoredStarts.isEmpty() && this.anchoredStarts.isEmpty();
+        }
+
+        RegexAutomaton build() {
+            return new RegexAutomaton(this);
+        }
+
+        /**
+         * Emits the states of {@code node} so that they continue to {@code next}, and returns the entry state.
+         */
+        private int compile(final RegexParser.Node node, final int next) {
+            return switch (node) {
+                case RegexParser.Atom atom -> this.state(CHAR, atom.chars(), next, -1);
+                case RegexParser.Concat concat -> {
+                    int entry = next;
+                    for (int i = concat.nodes().size() - 1; i >= 0; i--) {
+                        entry = this.compile(concat.nodes().get(i), entry);
+                    }
+                    yield entry;
+                }
+                case RegexParser.Alternation alternation -> {
+                    final var nodes = alternation.nodes();
+                    int entry = this.compile(nodes.getLast(), next);
+                    for (int i = nodes.size() - 2; i >= 0; i--) {
+                        entry = this.state(SPLIT, null, this.compile(nodes.get(i), next), entry);
+                    }
+                    yield entry;
+                }
+                case RegexParser.Repeat repeat -> {
+                    int entry;
+                    if (repeat.max() < 0) {
+                        final int loop = this.state(SPLIT, null, -1, next);
+                        this.out.set(loop, this.compile(repeat.node(), loop));
+                        entry = loop;
+                    }
+                    else {
+                        entry = next;
+                        for (int i = repeat.min(); i < repeat.max(); i++) {
+                            entry = this.state(SPLIT, null, this.compile(repeat.node(), entry), next);
+                        }
+                    }
+                    for (int i = 0; i < repeat.min(); i++) {
+                        entry = this.compile(repeat.node(), entry);
+                    }
+                    yield entry;
+                }
+            };
+        }
+
+        private int state(final byte kind, final CharClass chars, final int out, final int alt) {
+            if (this.kinds.size() >= MAX_NFA_STATES) {
+                throw new IllegalArgumentException("Pattern set exceeds " + MAX_NFA_STATES + " automaton states");
+            }
+            if (this.kinds.size() - this.patternStart >= MAX_PATTERN_STATES) {
+                throw new IllegalArgumentException("Pattern exceeds " + MAX_PATTERN_STATES + " automaton states");
+            }
+            this.kinds.add(kind);
+            this.classes.add(chars);
+            this.out.add(out);
+            this.alt.add(alt);
+            this.slots.add(-1);
+            return this.kinds.size() - 1;
+        }
+
+        private void truncate(final int size) {
+            while (this.kinds.size() > size) {
+                final int last = this.kinds.size() - 1;
+                this.kinds.remove(last);
+                this.classes.remove(last);
+                this.out.remove(last);
+                this.alt.remove(last);
+                this.slots.remove(last);
+                this.atEnd.clear(last);
+            }
+        }
+
+    }
+
+}
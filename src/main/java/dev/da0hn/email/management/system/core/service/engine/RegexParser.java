@@ -0,0 +1,251 @@
+package dev.da0hn.email.management.system.core.service.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parses the regex subset accepted by the {@code MATCHES} operator.
+ * <p>Supported: literals, {@code .}, character classes with ranges, {@code \d \w \s} and their negations, groups
+ * ({@code (...)} and {@code (?:...)}), alternation and the quantifiers {@code * + ? {n} {n,} {n,m}} (a trailing
+ * {@code ?} is accepted and ignored since only a yes/no answer is needed). {@code ^} and {@code $} are only allowed at
+ * the very start and end of the pattern. Backreferences, lookarounds and other features that cannot be expressed as a
+ * finite automaton are rejected with an {@link IllegalArgumentException}.</p>
+ */
+final class RegexParser {
+
+    static final int MAX_REPETITION = 1000;
+
+    sealed interface Node permits Atom, Concat, Alternation, Repeat {}
+
+    record Atom(CharClass chars) implements Node {}
+
+    record Concat(List<Node> nodes) implements Node {}
+
+    record Alternation(List<Node> nodes) implements Node {}
+
+    /**
+     * {@code max} is {@code -1} when unbounded.
+     */
+    record Repeat(Node node, int min, int max) implements Node {}
+
+    record Parsed(Node node, boolean anchoredStart, boolean anchoredEnd) {}
+
+    private final String pattern;
+
+    private final int end;
+
+    private int position;
+
+    private int depth;
+
+    private boolean topLevelAlternation;
+
+    private RegexParser(final String pattern, final int start, final int end) {
+        this.pattern = pattern;
+        this.position = start;
+        this.end = end;
+    }
+
+    static Parsed parse(final String pattern) {
+        final boolean anchoredStart = pattern.startsWith("^");
+        final boolean anchoredEnd = pattern.endsWith("$") && !isEscaped(pattern, pattern.length() - 1);
+        final int start = anchoredStart ? 1 : 0;
+        final int end = Math.max(start, anchoredEnd ? pattern.length() - 1 : pattern.length());
+
+        final var parser = new RegexParser(pattern, start, end);
+        final var node = parser.alternation();
+        if (parser.position != end) {
+            throw parser.error("Unexpected '" + pattern.charAt(parser.position) + "'");
+        }
+        if ((anchoredStart || anchoredEnd) && parser.topLevelAlternation) {
+            throw parser.error("Anchored alternatives must be grouped, e.g. ^(a|b)$");
+        }
+        return new Parsed(node, anchoredStart, anchoredEnd);
+    }
+
+    private static boolean isEscaped(final String pattern, final int index) {
+        int backslashes = 0;
+        for (int i = index - 1; i >= 0 && pattern.charAt(i) == '\\'; i--) {
+            backslashes++;
+        }
+        return backslashes % 2 == 1;
+    }
+
+    private Node alternation() {
+        final var alternatives = new ArrayList<Node>();
+        alternatives.add(this.concat());
+        while (this.peek('|')) {
+            this.position++;
+            alternatives.add(this.concat());
+        }
+        if (this.depth == 0 && alternatives.size() > 1) {
+            this.topLevelAlternation = true;
+        }
+        return alternatives.size() == 1 ? alternatives.getFirst() : new Alternation(List.copyOf(alternatives));
+    }
+
+    private Node concat() {
+        final var nodes = new ArrayList<Node>();
+        while (this.position < this.end && !this.peek('|') && !this.peek(')')) {
+            nodes.add(this.repeat());
+        }
+        return nodes.size() == 1 ? nodes.getFirst() : new Concat(List.copyOf(nodes));
+    }
+
+    private Node repeat() {
+        var node = this.atom();
+        while (this.position < this.end) {
+            final char c = this.pattern.charAt(this.position);
+            final int min;
+            final int max;
+            if (c == '*') {
+                this.position++;
+                min = 0;
+                max = -1;
+            }
+            else if (c == '+') {
+                this.position++;
+                min = 1;
+                max = -1;
+            }
+            else if (c == '?') {
+                this.position++;
+                min = 0;
+                max = 1;
+            }
+            else if (c == '{') {
+                this.position++;
+                min = this.number();
+                if (this.peek(',')) {
+                    this.position++;
+                    max = this.peek('}') ? -1 : this.number();
+                }
+                else {
+                    max = min;
+                }
+                this.expect('}');
+                if (max != -1 && max < min) throw this.error("Invalid repetition {" + min + "," + max + "}");
+            }
+            else {
+                break;
+            }
+            if (this.peek('?')) {
+                this.position++;
+            }
+            else if (this.peek('+')) {
+                throw this.error("Possessive quantifiers are not supported");
+            }
+            node = new Repeat(node, min, max);
+        }
+        return node;
+    }
+
+    private Node atom() {
+        final char c = this.pattern.charAt(this.position++);
+        return switch (c) {
+            case '(' -> {
+                if (this.peek('?')) {
+                    if (this.position + 1 >= this.end || this.pattern.charAt(this.position + 1) != ':') {
+                        throw this.error("Only non-capturing groups (?:...) are supported");
+                    }
+                    this.position += 2;
+                }
+                this.depth++;
+                final var inner = this.alternation();
+                this.depth--;
+                this.expect(')');
+                yield inner;
+            }
+            case '[' -> new Atom(this.charClass());
+            case '.' -> new Atom(CharClass.ANY);
+            case '\\' -> new Atom(this.escape(false));
+            case '*', '+', '?', '{' -> throw this.error("Nothing to repeat");
+            case '^', '$' -> throw this.error("Anchors are only supported at the start and end of the pattern");
+            case ')' -> throw this.error("Unbalanced ')'");
+            default -> new Atom(CharClass.of(c));
+        };
+    }
+
+    private CharClass charClass() {
+        final boolean negated = this.peek('^');
+        if (negated) this.position++;
+        final var builder = new CharClass.Builder();
+        boolean first = true;
+        while (this.position < this.end && (first || !this.peek(']'))) {
+            first = false;
+            final var lo = this.classAtom();
+            if (this.peek('-') && this.position + 1 < this.end && this.pattern.charAt(this.position + 1) != ']') {
+                this.position++;
+                builder.add(this.single(lo), this.single(this.classAtom()));
+            }
+            else {
+                builder.add(lo);
+            }
+        }
+        this.expect(']');
+        return builder.build(negated);
+    }
+
+    private CharClass escape(final boolean inClass) {
+        if (this.position >= this.end) throw this.error("Dangling '\\'");
+        final char c = this.pattern.charAt(this.position++);
+        return switch (c) {
+            case 'd' -> CharClass.DIGIT;
+            case 'w' -> CharClass.WORD;
+            case 's' -> CharClass.SPACE;
+            case 'D', 'W', 'S' -> {
+                if (inClass) throw this.error("\\" + c + " is not supported inside a character class");
+                yield (c == 'D' ? CharClass.DIGIT : c == 'W' ? CharClass.WORD : CharClass.SPACE).negate();
+            }
+            case 't' -> CharClass.of('\t');
+            case 'n' -> CharClass.of('\n');
+            case 'r' -> CharClass.of('\r');
+            default -> {
+                if (Character.isLetterOrDigit(c)) throw this.error("Unsupported escape \\" + c);
+                yield CharClass.of(c);
+            }
+        };
+    }
+
+    private CharClass classAtom() {
+        final char c = this.pattern.charAt(this.position++);
+        return c == '\\' ? this.escape(true) : CharClass.of(c);
+    }
+
+    private char single(final CharClass chars) {
+        final int c = chars.singleChar();
+        if (c < 0) throw this.error("Class escapes cannot be used as range bounds");
+        return (char) c;
+    }
+
+    private int number() {
+        final int start = this.position;
+        while (this.position < this.end && Character.isDigit(this.pattern.charAt(this.position))) {
+            this.position++;
+        }
+        if (start == this.position) throw this.error("Expected a number");
+        final int value;
+        try {
+            value = Integer.parseInt(this.pattern, start, this.position, 10);
+        }
+        catch (final NumberFormatException e) {
+            throw this.error("Repetition too large");
+        }
+        if (value > MAX_REPETITION) throw this.error("Repetition above " + MAX_REPETITION);
+        return value;
+    }
+
+    private boolean peek(final char c) {
+        return this.position < this.end && this.pattern.charAt(this.position) == c;
+    }
+
+    private void expect(final char c) {
+        if (!this.peek(c)) throw this.error("Expected '" + c + "'");
+        this.position++;
+    }
+
+    private IllegalArgumentException error(final String message) {
+        return new IllegalArgumentException(message + " at index " + this.position + " in pattern " + this.pattern);
+    }
+
+}
@@ -0,0 +1,13 @@
+package dev.da0hn.email.management.system.core.service.engine;
+
+/**
+ * Entry point of the classes generated by {@link RuleEvaluatorGenerator}.
+ */
+interface RuleEvaluator {
+
+    /**
+     * Sets the matched rules of an already reset context.
+     */
+    void evaluate(NormalizedHeaders headers, MatchContext context);
+
+}
@@ -0,0 +1,58 @@
+package dev.da0hn.email.management.system.core.service.engine;
+
+import dev.da0hn.email.management.system.core.domain.Rule;
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Immutable, thread-safe matcher compiled from the rules of an account.
+ * Evaluation writes into a caller owned {@link MatchContext} so the hot path does not allocate per message.
+ */
+public interface RuleMatcher {
+
+    /**
+     * Rules known by this matcher, indexed the same way as the matches reported by {@link MatchContext}.
+     */
+    List<Rule> rules();
+
+    /**
+     * Criteria types the compiled rules read, so callers only fetch the message fields evaluation needs.
+     */
+    Set<RuleCriteriaType> criteriaTypes();
+
+    /**
+     * Creates a scratch context sized for this matcher. Contexts are not thread-safe and should be reused per worker.
+     */
+    MatchContext newContext();
+
+    /**
+     * Evaluates the message against every compiled rule, replacing the previous content of the context.
+     */
+    void evaluate(MessageHeaders headers, MatchContext context);
+
+    /**
+     * Creates a reusable columnar batch of up to {@code capacity} messages sized for this matcher.
+     */
+    MessageBatch newBatch(int capacity);
+
+    /**
+     * Evaluates every message of the batch against every compiled rule, column by column, replacing the previous
+     * matches of the batch. Yields the same matches as evaluating the messages one at a time, without the memo,
+     * statistics or backend-specific code of that path.
+     */
+    void evaluate(MessageBatch batch);
+
+    default List<Rule> match(final MessageHeaders headers) {
+        final var context = this.newContext();
+        this.evaluate(headers, context);
+        final var matched = new ArrayList<Rule>();
+        for (int i = context.nextMatch(0); i >= 0; i = context.nextMatch(i + 1)) {
+            matched.add(this.rules().get(i));
+        }
+        return matched;
+    }
+
+}
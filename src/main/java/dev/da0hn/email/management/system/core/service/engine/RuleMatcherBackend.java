@@ -0,0 +1,56 @@
+package dev.da0hn.email.management.system.core.service.engine;
+
+import dev.da0hn.email.management.system.core.domain.Rule;
+import dev.da0hn.email.management.system.core.domain.RuleMatchMode;
+
+import java.time.ZoneId;
+import java.util.Collection;
+
+/**
+ * Available {@link RuleMatcher} implementations, selected with {@code app.rules.engine.backend}.
+ * <p>The backend decides how messages evaluated one at a time are matched, which is how polling and backfills run;
+ * a {@link MessageBatch}, as used by simulations, is evaluated column by column the same way by every backend.</p>
+ */
+public enum RuleMatcherBackend {
+
+    INTERPRETED {
+        @Override
+        public RuleMatcher compile(
+            final Collection<? extends Rule> rules,
+            final ZoneId zone,
+            final RuleMatcherSettings settings,
+            final RuleMatchMode matchMode,
+            final RuleMatcher previous
+        ) {
+            return InterpretedRuleMatcher.compile(rules, zone, settings, matchMode, previous);
+        }
+    },
+    BYTECODE {
+        @Override
+        public RuleMatcher compile(
+            final Collection<? extends Rule> rules,
+            final ZoneId zone,
+            final RuleMatcherSettings settings,
+            final RuleMatchMode matchMode,
+            final RuleMatcher previous
+        ) {
+            return BytecodeRuleMatcher.compile(rules, zone, settings, matchMode, previous);
+        }
+    };
+
+    public RuleMatcher compile(final Collection<? extends Rule> rules, final ZoneId zone) {
+        return this.compile(rules, zone, RuleMatcherSettings.DEFAULT, RuleMatchMode.ALL_MATCHES, null);
+    }
+
+    /**
+     * Compiles the rules; {@code previous} is the matcher of the account's former rules, or {@code null}.
+     */
+    public abstract RuleMatcher compile(
+        Collection<? extends Rule> rules,
+        ZoneId zone,
+        RuleMatcherSettings settings,
+        RuleMatchMode matchMode,
+        RuleMatcher previous
+    );
+
+}
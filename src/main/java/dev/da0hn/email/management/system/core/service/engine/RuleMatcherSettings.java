@@ -0,0 +1,20 @@
+package dev.da0hn.email.management.system.core.service.engine;
+
+/**
+ * Tuning knobs applied when compiling a {@link RuleMatcher}, configured under {@code app.rules}.
+ *
+ * @param bloomFilter        when large {@code EQUALS} indexes get a {@link BloomFilter} in front of them
+ * @param memoMaximumEntries size of each matcher's memo of text criteria outcomes; {@code 0} disables it
+ * @param bodyScanLimit      decoded bytes of text parts read per message by {@code BODY} criteria
+ */
+public record RuleMatcherSettings(BloomFilterSettings bloomFilter, int memoMaximumEntries, long bodyScanLimit) {
+
+    public static final RuleMatcherSettings DEFAULT = new RuleMatcherSettings(BloomFilterSettings.DEFAULT, 10_000, 1L << 20);
+
+    public RuleMatcherSettings {
+        if (bloomFilter == null) throw new IllegalArgumentException("Bloom filter settings are required");
+        if (memoMaximumEntries < 0) throw new IllegalArgumentException("Memo maximum entries must not be negative");
+        if (bodyScanLimit < 0) throw new IllegalArgumentException("Body scan limit must not be negative");
+    }
+
+}
@@ -0,0 +1,45 @@
+package dev.da0hn.email.management.system.core.service.engine;
+
+import dev.da0hn.email.management.system.core.domain.RuleCriteria;
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaGroup;
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaOperator;
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaType;
+import dev.da0hn.email.management.system.core.ports.api.InvalidRuleException;
+
+import java.util.Collection;
+
+/**
+ * Checks {@code MATCHES} patterns when a rule is saved.
+ * <p>The compiler drops a pattern it cannot turn into a {@link RegexAutomaton}, leaving its rule unable to match, so
+ * invalid patterns and patterns above {@value RegexAutomaton#MAX_PATTERN_STATES} automaton states are rejected up front
+ * instead.</p>
+ */
+public final class RulePatterns {
+
+    private RulePatterns() {
+    }
+
+    /**
+     * Throws {@link InvalidRuleException} naming the first pattern of the criteria or groups that cannot be compiled.
+     */
+    public static void validate(final Collection<RuleCriteria> criteria, final Collection<RuleCriteriaGroup> groups) {
+        for (final var value : criteria) {
+            validate(value);
+        }
+        for (final var group : groups) {
+            validate(group.criteria(), group.groups());
+        }
+    }
+
+    private static void validate(final RuleCriteria criteria) {
+        if (criteria.operator() != RuleCriteriaOperator.MATCHES || criteria.type() == RuleCriteriaType.BODY) return;
+        final var pattern = criteria.value() == null ? "" : criteria.value().strip();
+        try {
+            RegexAutomaton.check(pattern);
+        }
+        catch (final IllegalArgumentException e) {
+            throw new InvalidRuleException("Invalid pattern '" + pattern + "': " + e.getMessage(), e);
+        }
+    }
+
+}
@@ -0,0 +1,291 @@
+package dev.da0hn.email.management.system.core.service.engine;
+
+import dev.da0hn.email.management.system.core.domain.Rule;
+import dev.da0hn.email.management.system.core.domain.RuleCriteria;
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaGroup;
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaGroupOperator;
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaOperator;
+import dev.da0hn.email.management.system.core.domain.RuleMatchMode;
+import dev.da0hn.email.management.system.core.ports.spi.LoggerFacade;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+/**
+ * Turns a set of rules into a {@link CompiledRuleSet}.
+ * <p>Identical criteria (same type, operator and normalized value) share a single slot, so they are evaluated once per
+ * message no matter how many rules reference them. Criteria whose operator does not apply to their type get a slot
+ * that is never satisfied and has no probe, which disables the owning rule instead of failing the whole account.</p>
+ * <p>A rule is the conjunction of its criteria and groups. Each distinct {@code OR}/{@code NOT} group (and each
+ * {@code AND} group nested under one) gets a derived slot described by a {@link SlotGroup}.</p>
+ */
+final class RuleSetCompiler {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final ZoneId zone;
+
+    private final BloomFilterSettings bloomFilter;
+
+    private final long bodyScanLimit;
+
+    private final CompiledRuleSet previous;
+
+    private final Map<String, Integer> slotsByKey = new HashMap<>();
+
+    private final List<PredicateProbe> slotProbes = new ArrayList<>();
+
+    private final List<SlotGroup> slotGroups = new ArrayList<>();
+
+    private final TextCriteriaGroup.Builder from = new TextCriteriaGroup.Builder();
+
+    private final TextCriteriaGroup.Builder to = new TextCriteriaGroup.Builder();
+
+    private final TextCriteriaGroup.Builder subject = new TextCriteriaGroup.Builder();
+
+    private final RangeCriteriaGroup.Builder receivedAt = new RangeCriteriaGroup.Builder();
+
+    private final TextCriteriaGroup.Builder hasAttachment = new TextCriteriaGroup.Builder();
+
+    private final TextCriteriaGroup.Builder attachmentType = new TextCriteriaGroup.Builder();
+
+    private final RangeCriteriaGroup.Builder size = new RangeCriteriaGroup.Builder();
+
+    private final BodyCriteriaGroup.Builder body = new BodyCriteriaGroup.Builder();
+
+    /**
+     * @param previous rule set compiled from the account's former rules, or {@code null}; the Bloom filters of large
+     *                 {@code EQUALS} indexes start from its filters instead of hashing every value again
+     */
+    RuleSetCompiler(final ZoneId zone, final RuleMatcherSettings settings, final CompiledRuleSet previous) {
+        this.zone = zone;
+        this.bloomFilter = settings.bloomFilter();
+        this.bodyScanLimit = settings.bodyScanLimit();
+        this.previous = previous;
+    }
+
+    /**
+     * Returns the rule set a matcher of this package was compiled from, or {@code null} for any other matcher.
+     */
+    static CompiledRuleSet compiledOf(final RuleMatcher matcher) {
+        return switch (matcher) {
+            case InterpretedRuleMatcher interpreted -> interpreted.compiled();
+            case BytecodeRuleMatcher bytecode -> bytecode.compiled();
+            case null, default -> null;
+        };
+    }
+
+    CompiledRuleSet compile(final Collection<? extends Rule> rules, final RuleMatchMode matchMode) {
+        final List<Rule> orderedRules = new ArrayList<>(rules);
+        // Stable, so rules of equal priority keep the order they were given in.
+        orderedRules.sort(Comparator.comparingInt(Rule::priority));
+        final var ruleSlots = new int[orderedRules.size()][];
+        for (int i = 0; i < orderedRules.size(); i++) {
+            final var rule = orderedRules.get(i);
+            final var slots = new LinkedHashSet<Integer>();
+            this.addConditions(RuleCriteriaGroupOperator.AND, rule.criteria(), rule.groups(), slots);
+            ruleSlots[i] = slots.stream().mapToInt(Integer::intValue).toArray();
+        }
+        return new CompiledRuleSet(
+            List.copyOf(orderedRules),
+            matchMode,
+            ruleSlots,
+            this.slotsByKey.size(),
+            this.slotProbes.toArray(PredicateProbe[]::new),
+            this.slotGroups.toArray(SlotGroup[]::new),
+            this.from.build(this.bloomFilter, this.previous == null ? null : this.previous.from()),
+            this.to.build(this.bloomFilter, this.previous == null ? null : this.previous.to()),
+            this.subject.build(this.bloomFilter, this.previous == null ? null : this.previous.subject()),
+            this.receivedAt.build(),
+            this.hasAttachment.build(this.bloomFilter, null),
+            this.attachmentType.build(this.bloomFilter, this.previous == null ? null : this.previous.attachmentType()),
+            this.size.build(),
+            this.body.build(this.bodyScanLimit)
+        );
+    }
+
+    private int slotOf(final RuleCriteria criteria) {
+        final var value = normalizeValue(criteria);
+        final var key = criteria.type() + "|" + criteria.operator() + "|" + value;
+        final var existing = this.slotsByKey.get(key);
+        if (existing != null) return existing;
+
+        final int slot = this.slotsByKey.size();
+        this.slotsByKey.put(key, slot);
+        this.slotProbes.add(this.register(slot, criteria, value) ? PredicateProbe.of(criteria.type(), criteria.operator()) : null);
+        this.slotGroups.add(null);
+        return slot;
+    }
+
+    /**
+     * Adds the slots of a group's conditions to {@code slots}. Nested {@code AND} and {@code OR} groups with the same
+     * operator as their parent are inlined, since both operators are associative.
+     */
+    private void addConditions(
+        final RuleCriteriaGroupOperator operator,
+        final Set<RuleCriteria> criteria,
+        final Set<RuleCriteriaGroup> groups,
+        final Set<Integer> slots
+    ) {
+        for (final var condition : criteria) {
+            slots.add(this.slotOf(condition));
+        }
+        for (final var group : groups) {
+            if (operator != RuleCriteriaGroupOperator.NOT && group.operator() == operator) {
+                this.addConditions(operator, group.criteria(), group.groups(), slots);
+            }
+            else {
+                slots.add(this.groupSlotOf(group));
+            }
+        }
+    }
+
+    /**
+     * Returns the slot of a group. Groups with the same operator and child slots share one slot, so a sub-expression
+     * repeated across rules is resolved once per message. A group containing an unsupported criterion is never
+     * satisfied, like a rule would be: under {@code NOT} it could otherwise match every message.
+     */
+    private int groupSlotOf(final RuleCriteriaGroup group) {
+        final var children = new LinkedHashSet<Integer>();
+        this.addConditions(group.operator(), group.criteria(), group.groups(), children);
+        if (children.stream().anyMatch(this::isUnsatisfiable)) return this.unsatisfiableSlot();
+        if (group.operator() != RuleCriteriaGroupOperator.NOT && children.size() == 1) return children.iterator().next();
+
+        final var key = "GROUP|" + group.operator() + "|" + new TreeSet<>(children);
+        final var existing = this.slotsByKey.get(key);
+        if (existing != null) return existing;
+
+        final var ordered = children.stream()
+            .sorted(Comparator.<Integer, Boolean>comparing(this::readsBody).thenComparingDouble(this::priorCost))
+            .mapToInt(Integer::intValue)
+            .toArray();
+        final int slot = this.slotsByKey.size();
+        this.slotsByKey.put(key, slot);
+        this.slotProbes.add(null);
+        this.slotGroups.add(new SlotGroup(group.operator(), ordered));
+        return slot;
+    }
+
+    private int unsatisfiableSlot() {
+        return this.slotsByKey.computeIfAbsent("UNSATISFIABLE", key -> {
+            this.slotProbes.add(null);
+            this.slotGroups.add(null);
+            return this.slotProbes.size() - 1;
+        });
+    }
+
+    private boolean isUnsatisfiable(final int slot) {
+        return this.slotProbes.get(slot) == null && this.slotGroups.get(slot) == null;
+    }
+
+    /**
+     * Whether the slot is a body probe or a group containing one.
+     */
+    private boolean readsBody(final int slot) {
+        final var probe = this.slotProbes.get(slot);
+        if (probe != null) return probe.readsBody();
+        for (final int child : this.slotGroups.get(slot).children()) {
+            if (this.readsBody(child)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Static cost estimate used to order group children: a probe's prior, or the sum of a group's children.
+     */
+    private double priorCost(final int slot) {
+        final var probe = this.slotProbes.get(slot);
+        if (probe != null) return probe.priorCost();
+        double cost = 0;
+        for (final int child : this.slotGroups.get(slot).children()) {
+            cost += this.priorCost(child);
+        }
+        return cost;
+    }
+
+    private boolean register(final int slot, final RuleCriteria criteria, final String value) {
+        final boolean registered = switch (criteria.type()) {
+            case FROM -> addText(this.from, slot, criteria, value);
+            case TO -> addText(this.to, slot, criteria, value);
+            case SUBJECT -> addText(this.subject, slot, criteria, value);
+            case RECEIVED_AT -> ReceivedAtBounds.parse(criteria.operator(), value, this.zone)
+                .map(bounds -> {
+                    this.receivedAt.add(slot, bounds.lower(), bounds.upper());
+                    return true;
+                })
+                .orElse(false);
+            case SIZE -> SizeBounds.parse(criteria.operator(), value)
+                .map(bounds -> {
+                    this.size.add(slot, bounds.lower(), bounds.upper());
+                    return true;
+                })
+                .orElse(false);
+            case HAS_ATTACHMENT -> isHasAttachment(criteria.operator(), value)
+                && addText(this.hasAttachment, slot, criteria, value);
+            case ATTACHMENT_TYPE -> addText(this.attachmentType, slot, criteria, value);
+            case BODY -> {
+                if (!BodyCriteriaGroup.supports(criteria.operator()) || value.isEmpty()) yield false;
+                this.body.add(slot, value);
+                yield true;
+            }
+        };
+        if (!registered) {
+            LoggerFacade.instance()
+                .where(this)
+                .method("register")
+                .level(LoggerFacade.LogLevel.WARN)
+                .what("Unsupported criteria, owning rule will never match")
+                .parameter("criteria", criteria)
+                .log();
+        }
+        return registered;
+    }
+
+    private static boolean addText(
+        final TextCriteriaGroup.Builder group,
+        final int slot,
+        final RuleCriteria criteria,
+        final String value
+    ) {
+        if (!TextCriteriaGroup.supports(criteria.operator()) || value.isEmpty()) return false;
+        try {
+            group.add(slot, criteria.operator(), value);
+            return true;
+        }
+        catch (final IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static String normalizeValue(final RuleCriteria criteria) {
+        final var value = criteria.value() == null ? "" : criteria.value();
+        // Patterns keep their case: escapes such as \D differ from \d, and the automaton ignores case itself.
+        if (criteria.operator() == RuleCriteriaOperator.MATCHES) return value.strip();
+        return switch (criteria.type()) {
+            case FROM, TO -> criteria.operator() != RuleCriteriaOperator.CONTAINS
+                ? HeaderNormalization.ADDRESS.apply(value)
+                : HeaderNormalization.TEXT.apply(value);
+            case SUBJECT, HAS_ATTACHMENT, ATTACHMENT_TYPE -> HeaderNormalization.TEXT.apply(value);
+            case RECEIVED_AT, SIZE -> value.strip();
+            // Body text is scanned with whitespace runs folded to one space.
+            case BODY -> WHITESPACE.matcher(HeaderNormalization.TEXT.apply(value)).replaceAll(" ");
+        };
+    }
+
+    /**
+     * {@code HAS_ATTACHMENT} only supports {@code EQUALS} against a normalized {@code true} or {@code false}.
+     */
+    static boolean isHasAttachment(final RuleCriteriaOperator operator, final String normalized) {
+        return operator == RuleCriteriaOperator.EQUALS && (normalized.equals("true") || normalized.equals("false"));
+    }
+
+}
@@ -0,0 +1,30 @@
+package dev.da0hn.email.management.system.core.service.engine;
+
+import jakarta.mail.search.SearchTerm;
+
+import java.util.List;
+
+/**
+ * Server-side searches whose union is a superset of the messages a rule set can match.
+ * <p>{@code fullScan} means at least one rule cannot be expressed as IMAP SEARCH keys, so every message is a candidate.
+ * An empty plan without full scan means no rule can ever match and nothing needs to be fetched.</p>
+ */
+public record SearchPlan(boolean fullScan, List<SearchTerm> terms) {
+
+    public SearchPlan {
+        terms = List.copyOf(terms);
+    }
+
+    public static SearchPlan full() {
+        return new SearchPlan(true, List.of());
+    }
+
+    public static SearchPlan of(final List<SearchTerm> terms) {
+        return new SearchPlan(false, terms);
+    }
+
+    public boolean isEmpty() {
+        return !this.fullScan && this.terms.isEmpty();
+    }
+
+}
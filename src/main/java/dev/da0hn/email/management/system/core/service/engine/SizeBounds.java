@@ -0,0 +1,44 @@
+package dev.da0hn.email.management.system.core.service.engine;
+
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaOperator;
+
+import java.util.Locale;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Inclusive byte range satisfied by a {@code SIZE} criterion, compared with the message's {@code RFC822.SIZE}.
+ * <p>Values are a whole number of bytes with an optional binary unit: {@code 2048}, {@code 512KB}, {@code 10 MB},
+ * {@code 1GB}.</p>
+ */
+record SizeBounds(long lower, long upper) {
+
+    private static final Pattern VALUE = Pattern.compile("(\\d+)\\s*([KMG]?B)?");
+
+    static Optional<SizeBounds> parse(final RuleCriteriaOperator operator, final String value) {
+        final var matcher = VALUE.matcher(value.strip().toUpperCase(Locale.ROOT));
+        if (!matcher.matches()) return Optional.empty();
+        final long bytes;
+        try {
+            final long multiplier = switch (matcher.group(2) == null ? "B" : matcher.group(2)) {
+                case "KB" -> 1L << 10;
+                case "MB" -> 1L << 20;
+                case "GB" -> 1L << 30;
+                default -> 1L;
+            };
+            bytes = Math.multiplyExact(Long.parseLong(matcher.group(1)), multiplier);
+        }
+        catch (final NumberFormatException | ArithmeticException e) {
+            return Optional.empty();
+        }
+        return switch (operator) {
+            case EQUALS -> Optional.of(new SizeBounds(bytes, bytes));
+            case GREATER_THAN -> bytes == Long.MAX_VALUE ? Optional.empty() : Optional.of(new SizeBounds(bytes + 1, Long.MAX_VALUE));
+            case GREATER_THAN_OR_EQUALS -> Optional.of(new SizeBounds(bytes, Long.MAX_VALUE));
+            case LESS_THAN -> bytes == 0 ? Optional.empty() : Optional.of(new SizeBounds(0, bytes - 1));
+            case LESS_THAN_OR_EQUALS -> Optional.of(new SizeBounds(0, bytes));
+            default -> Optional.empty();
+        };
+    }
+
+}
@@ -0,0 +1,28 @@
+package dev.da0hn.email.management.system.core.service.engine;
+
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaGroupOperator;
+
+/**
+ * Compiled criteria group: a derived slot whose value combines other slots.
+ * {@code children} always have lower slot numbers than the group, so resolving slots in ascending order resolves
+ * children first. Children that read the body come last and the others cheapest first, so short-circuiting skips the
+ * costly part.
+ */
+record SlotGroup(RuleCriteriaGroupOperator operator, int[] children) {
+
+    /**
+     * Child value that decides the group on its own: {@code false} for {@code AND}, {@code true} for {@code OR} and
+     * {@code NOT}.
+     */
+    boolean decisiveChildValue() {
+        return this.operator != RuleCriteriaGroupOperator.AND;
+    }
+
+    /**
+     * Group value once a decisive child is found; when none is, the group takes the opposite value.
+     */
+    boolean decidedValue() {
+        return this.operator == RuleCriteriaGroupOperator.OR;
+    }
+
+}
@@ -0,0 +1,140 @@
+package dev.da0hn.email.management.system.core.service.engine;
+
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaOperator;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Criteria of a single textual {@code RuleCriteriaType}, evaluated against one header value.
+ * <p>Each operator is answered by an index: {@code EQUALS} by one {@link EqualsIndex} probe, {@code CONTAINS} by one
+ * {@link AhoCorasickIndex} scan, {@code STARTS_WITH} and {@code ENDS_WITH} by one walk of an {@link AffixTrieIndex},
+ * {@code MATCHES} by one pass of a {@link RegexAutomaton}. {@code CONTAINS} and {@code MATCHES} look at the whole
+ * folded header, so keywords in a display name still match, while the other operators compare the normalized value
+ * (the bare address for sender and recipient headers). Operators are collected separately so the matcher can skip
+ * indexes no pending rule needs.</p>
+ */
+final class TextCriteriaGroup {
+
+    private final EqualsIndex equals;
+
+    private final AhoCorasickIndex contains;
+
+    private final AffixTrieIndex startsWith;
+
+    private final AffixTrieIndex endsWith;
+
+    private final RegexAutomaton matches;
+
+    private TextCriteriaGroup(
+        final EqualsIndex equals,
+        final AhoCorasickIndex contains,
+        final AffixTrieIndex startsWith,
+        final AffixTrieIndex endsWith,
+        final RegexAutomaton matches
+    ) {
+        this.equals = equals;
+        this.contains = contains;
+        this.startsWith = startsWith;
+        this.endsWith = endsWith;
+        this.matches = matches;
+    }
+
+    static boolean supports(final RuleCriteriaOperator operator) {
+        return switch (operator) {
+            case EQUALS, CONTAINS, STARTS_WITH, ENDS_WITH, MATCHES -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * Returns whether any criterion uses the operator, i.e. whether its probe has anything to answer.
+     */
+    boolean has(final RuleCriteriaOperator operator) {
+        return switch (operator) {
+            case EQUALS -> this.equals != null;
+            case CONTAINS -> this.contains != null;
+            case STARTS_WITH -> this.startsWith != null;
+            case ENDS_WITH -> this.endsWith != null;
+            case MATCHES -> this.matches != null;
+            default -> false;
+        };
+    }
+
+    /**
+     * Sets the slots of every criterion with the given operator that the header satisfies.
+     * <p>Both arguments come from {@link NormalizedHeaders}: {@code text} is the whole normalized header, read by
+     * {@code CONTAINS} and {@code MATCHES}, and {@code value} is the form the other operators compare against (the
+     * bare address for mailbox headers, otherwise the text itself).</p>
+     */
+    void collect(final RuleCriteriaOperator operator, final String text, final String value, final BitSet satisfied) {
+        if (text == null) return;
+        switch (operator) {
+            case EQUALS -> this.equals.collect(value, satisfied);
+            case CONTAINS -> this.contains.collect(text, satisfied);
+            case STARTS_WITH -> this.startsWith.collect(value, satisfied);
+            case ENDS_WITH -> this.endsWith.collect(value, satisfied);
+            case MATCHES -> this.matches.collect(text, satisfied);
+            default -> throw new IllegalArgumentException("Unsupported text operator: " + operator);
+        }
+    }
+
+    /**
+     * Same as {@link #collect(RuleCriteriaOperator, String, String, BitSet)} for every value of a multi-valued
+     * header; both lists are aligned.
+     */
+    void collectAll(
+        final RuleCriteriaOperator operator,
+        final List<String> texts,
+        final List<String> values,
+        final BitSet satisfied
+    ) {
+        for (int i = 0; i < texts.size(); i++) {
+            this.collect(operator, texts.get(i), values.get(i), satisfied);
+        }
+    }
+
+    static final class Builder {
+
+        private final EqualsIndex.Builder equals = new EqualsIndex.Builder();
+
+        private final AhoCorasickIndex.Builder contains = new AhoCorasickIndex.Builder();
+
+        private final AffixTrieIndex.Builder startsWith = new AffixTrieIndex.Builder(AffixTrieIndex.Direction.PREFIX);
+
+        private final AffixTrieIndex.Builder endsWith = new AffixTrieIndex.Builder(AffixTrieIndex.Direction.SUFFIX);
+
+        private final RegexAutomaton.Builder matches = new RegexAutomaton.Builder();
+
+        /**
+         * Registers a criterion whose value was already normalized by the compiler.
+         * Throws {@link IllegalArgumentException} for an invalid {@code MATCHES} pattern, leaving the group unchanged.
+         */
+        void add(final int slot, final RuleCriteriaOperator operator, final String normalized) {
+            switch (operator) {
+                case EQUALS -> this.equals.add(normalized, slot);
+                case CONTAINS -> this.contains.add(normalized, slot);
+                case STARTS_WITH -> this.startsWith.add(normalized, slot);
+                case ENDS_WITH -> this.endsWith.add(normalized, slot);
+                case MATCHES -> this.matches.add(normalized, slot);
+                default -> throw new IllegalArgumentException("Unsupported text operator: " + operator);
+            }
+        }
+
+        /**
+         * Builds the group; {@code previous} is the same group compiled from the account's former rules, or
+         * {@code null}, and only serves to reuse the Bloom filter of a large {@code EQUALS} index.
+         */
+        TextCriteriaGroup build(final BloomFilterSettings settings, final TextCriteriaGroup previous) {
+            return new TextCriteriaGroup(
+                this.equals.isEmpty() ? null : this.equals.build(settings, previous == null ? null : previous.equals),
+                this.contains.isEmpty() ? null : this.contains.build(),
+                this.startsWith.isEmpty() ? null : this.startsWith.build(),
+                this.endsWith.isEmpty() ? null : this.endsWith.build(),
+                this.matches.isEmpty() ? null : this.matches.build()
+            );
+        }
+
+    }
+
+}
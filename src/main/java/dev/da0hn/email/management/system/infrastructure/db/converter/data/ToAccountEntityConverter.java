@@ -29,6 +29,7 @@ public class ToAccountEntityConverter implements Converter<Account, AccountEntit
                     .map(this.toRuleJsonConverter::convert)
                     .toList()
             )
+            .ruleMatchMode(source.ruleMatchMode())
             .build();
     }
 
@@ -0,0 +1,35 @@
+package dev.da0hn.email.management.system.infrastructure.db.converter.data;
+
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaGroup;
+import dev.da0hn.email.management.system.infrastructure.db.entities.RuleCriteriaGroupJson;
+import dev.da0hn.email.management.system.shared.annotations.Mapper;
+import org.springframework.core.convert.converter.Converter;
+
+@Mapper
+public class ToCriteriaGroupJsonConverter implements Converter<RuleCriteriaGroup, RuleCriteriaGroupJson> {
+
+    private final ToCriteriaJsonConverter toCriteriaJsonConverter;
+
+    public ToCriteriaGroupJsonConverter(final ToCriteriaJsonConverter toCriteriaJsonConverter) {
+        this.toCriteriaJsonConverter = toCriteriaJsonConverter;
+    }
+
+    @Override
+    public RuleCriteriaGroupJson convert(final RuleCriteriaGroup source) {
+        return RuleCriteriaGroupJson.builder()
+            .groupId(source.id())
+            .operator(source.operator())
+            .criteria(
+                source.criteria().stream()
+                    .map(this.toCriteriaJsonConverter::convert)
+                    .toList()
+            )
+            .groups(
+                source.groups().stream()
+                    .map(this::convert)
+                    .toList()
+            )
+            .build();
+    }
+
+}
@@ -0,0 +1,23 @@
+package dev.da0hn.email.management.system.infrastructure.db.converter.data;
+
+import dev.da0hn.email.management.system.core.domain.MailboxCheckpoint;
+import dev.da0hn.email.management.system.infrastructure.db.entities.MailboxCheckpointEntity;
+import dev.da0hn.email.management.system.shared.annotations.Mapper;
+import org.springframework.core.convert.converter.Converter;
+
+import java.time.LocalDateTime;
+
+@Mapper
+public class ToMailboxCheckpointEntityConverter implements Converter<MailboxCheckpoint, MailboxCheckpointEntity> {
+
+    @Override
+    public MailboxCheckpointEntity convert(final MailboxCheckpoint source) {
+        return MailboxCheckpointEntity.builder()
+            .id(new MailboxCheckpointEntity.Id(source.accountId(), source.folder()))
+            .uidValidity(source.uidValidity())
+            .lastUid(source.lastUid())
+            .updatedAt(LocalDateTime.now())
+            .build();
+    }
+
+}
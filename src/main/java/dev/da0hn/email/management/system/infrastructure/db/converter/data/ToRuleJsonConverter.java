@@ -16,9 +16,15 @@ public class ToRuleJsonConverter implements Converter<Rule, RuleJson> {
 
     private final ToCriteriaJsonConverter toCriteriaJsonConverter;
 
-    public ToRuleJsonConverter(final ToCriteriaJsonConverter toCriteriaJsonConverter) {
+    private final ToCriteriaGroupJsonConverter toCriteriaGroupJsonConverter;
+
+    public ToRuleJsonConverter(
+        final ToCriteriaJsonConverter toCriteriaJsonConverter,
+        final ToCriteriaGroupJsonConverter toCriteriaGroupJsonConverter
+    ) {
         this.toCriteriaJsonConverter =
             toCriteriaJsonConverter;
+        this.toCriteriaGroupJsonConverter = toCriteriaGroupJsonConverter;
     }
 
     @Override
@@ -36,6 +42,12 @@ public class ToRuleJsonConverter implements Converter<Rule, RuleJson> {
                         .map(this.toCriteriaJsonConverter::convert)
                         .toList()
                 )
+                .groups(
+                    rule.groups().stream()
+                        .map(this.toCriteriaGroupJsonConverter::convert)
+                        .toList()
+                )
+                .priority(rule.priority())
                 .build();
             case final ArchiveEmailRule rule -> ArchiveEmailRuleJson.builder()
                 .ruleId(rule.id())
@@ -47,6 +59,12 @@ public class ToRuleJsonConverter implements Converter<Rule, RuleJson> {
                         .map(this.toCriteriaJsonConverter::convert)
                         .toList()
                 )
+                .groups(
+                    rule.groups().stream()
+                        .map(this.toCriteriaGroupJsonConverter::convert)
+                        .toList()
+                )
+                .priority(rule.priority())
                 .build();
             case final DeleteEmailRule rule -> DeleteEmailRuleJson.builder()
                 .ruleId(rule.id())
@@ -58,6 +76,12 @@ public class ToRuleJsonConverter implements Converter<Rule, RuleJson> {
                         .map(this.toCriteriaJsonConverter::convert)
                         .toList()
                 )
+                .groups(
+                    rule.groups().stream()
+                        .map(this.toCriteriaGroupJsonConverter::convert)
+                        .toList()
+                )
+                .priority(rule.priority())
                 .build();
         };
     }
@@ -43,6 +43,7 @@ public class ToAccountConverter implements Converter<AccountEntity, Account> {
                         .map(this.toRuleConverter::convert)
                         .collect(Collectors.toSet()) : Collections.emptySet()
             )
+            .ruleMatchMode(source.getRuleMatchMode())
             .build();
     }
 
@@ -0,0 +1,21 @@
+package dev.da0hn.email.management.system.infrastructure.db.converter.domain;
+
+import dev.da0hn.email.management.system.core.domain.MailboxCheckpoint;
+import dev.da0hn.email.management.system.infrastructure.db.entities.MailboxCheckpointEntity;
+import dev.da0hn.email.management.system.shared.annotations.Mapper;
+import org.springframework.core.convert.converter.Converter;
+
+@Mapper
+public class ToMailboxCheckpointConverter implements Converter<MailboxCheckpointEntity, MailboxCheckpoint> {
+
+    @Override
+    public MailboxCheckpoint convert(final MailboxCheckpointEntity source) {
+        return new MailboxCheckpoint(
+            source.getId().getAccountId(),
+            source.getId().getFolder(),
+            source.getUidValidity(),
+            source.getLastUid()
+        );
+    }
+
+}
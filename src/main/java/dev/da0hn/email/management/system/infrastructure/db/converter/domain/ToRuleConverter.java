@@ -5,6 +5,7 @@ import dev.da0hn.email.management.system.core.domain.DeleteEmailRule;
 import dev.da0hn.email.management.system.core.domain.MoveEmailRule;
 import dev.da0hn.email.management.system.core.domain.Rule;
 import dev.da0hn.email.management.system.core.domain.RuleCriteria;
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaGroup;
 import dev.da0hn.email.management.system.infrastructure.db.entities.MoveEmailRuleJson;
 import dev.da0hn.email.management.system.infrastructure.db.entities.RuleJson;
 import dev.da0hn.email.management.system.shared.annotations.Mapper;
@@ -21,6 +22,8 @@ public class ToRuleConverter implements Converter<RuleJson, Rule> {
 
     private final ToRuleCriteriaConverter toRuleCriteriaConverter;
 
+    private final ToRuleCriteriaGroupConverter toRuleCriteriaGroupConverter;
+
     @Override
     public Rule convert(final RuleJson source) {
         return switch (source.getAction()) {
@@ -32,6 +35,8 @@ public class ToRuleConverter implements Converter<RuleJson, Rule> {
                 .sourceFolder(((MoveEmailRuleJson) source).getSourceFolder())
                 .targetFolder(((MoveEmailRuleJson) source).getTargetFolder())
                 .criteria(this.convertCriteria(source))
+                .groups(this.convertGroups(source))
+                .priority(source.getPriority() != null ? source.getPriority() : 0)
                 .build();
             case DELETE -> DeleteEmailRule.builder()
                 .id(source.getRuleId())
@@ -39,6 +44,8 @@ public class ToRuleConverter implements Converter<RuleJson, Rule> {
                 .name(source.getName())
                 .description(source.getDescription())
                 .criteria(this.convertCriteria(source))
+                .groups(this.convertGroups(source))
+                .priority(source.getPriority() != null ? source.getPriority() : 0)
                 .build();
             case ARCHIVE -> ArchiveEmailRule.builder()
                 .id(source.getRuleId())
@@ -46,6 +53,8 @@ public class ToRuleConverter implements Converter<RuleJson, Rule> {
                 .name(source.getName())
                 .description(source.getDescription())
                 .criteria(this.convertCriteria(source))
+                .groups(this.convertGroups(source))
+                .priority(source.getPriority() != null ? source.getPriority() : 0)
                 .build();
         };
     }
@@ -59,4 +68,13 @@ public class ToRuleConverter implements Converter<RuleJson, Rule> {
             .collect(Collectors.toSet());
     }
 
+    private Set<RuleCriteriaGroup> convertGroups(final RuleJson source) {
+        if (source.getGroups() == null) {
+            return Collections.emptySet();
+        }
+        return source.getGroups().stream()
+            .map(this.toRuleCriteriaGroupConverter::convert)
+            .collect(Collectors.toSet());
+    }
+
 }
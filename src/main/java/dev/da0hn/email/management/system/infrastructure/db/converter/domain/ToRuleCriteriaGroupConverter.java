@@ -0,0 +1,36 @@
+package dev.da0hn.email.management.system.infrastructure.db.converter.domain;
+
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaGroup;
+import dev.da0hn.email.management.system.infrastructure.db.entities.RuleCriteriaGroupJson;
+import dev.da0hn.email.management.system.shared.annotations.Mapper;
+import lombok.AllArgsConstructor;
+import org.springframework.core.convert.converter.Converter;
+
+import java.util.Collections;
+import java.util.stream.Collectors;
+
+@Mapper
+@AllArgsConstructor
+public class ToRuleCriteriaGroupConverter implements Converter<RuleCriteriaGroupJson, RuleCriteriaGroup> {
+
+    private final ToRuleCriteriaConverter toRuleCriteriaConverter;
+
+    @Override
+    public RuleCriteriaGroup convert(final RuleCriteriaGroupJson source) {
+        return new RuleCriteriaGroup(
+            source.getGroupId(),
+            source.getOperator(),
+            source.getCriteria() == null
+                ? Collections.emptySet()
+                : source.getCriteria().stream()
+                    .map(this.toRuleCriteriaConverter::convert)
+                    .collect(Collectors.toSet()),
+            source.getGroups() == null
+                ? Collections.emptySet()
+                : source.getGroups().stream()
+                    .map(this::convert)
+                    .collect(Collectors.toSet())
+        );
+    }
+
+}
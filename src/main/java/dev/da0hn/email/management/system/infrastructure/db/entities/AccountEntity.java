@@ -1,8 +1,11 @@
 package dev.da0hn.email.management.system.infrastructure.db.entities;
 
+import dev.da0hn.email.management.system.core.domain.RuleMatchMode;
 import dev.da0hn.email.management.system.shared.interfaces.DataLayerEntity;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
@@ -67,6 +70,10 @@ public class AccountEntity implements Serializable, DataLayerEntity {
     @Column(nullable = false, name = "rules", columnDefinition = "jsonb")
     private List<RuleJson> rules = new ArrayList<>();
 
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, name = "rule_match_mode")
+    private RuleMatchMode ruleMatchMode;
+
     @Override
     public final int hashCode() {
         return this instanceof HibernateProxy ?
@@ -0,0 +1,85 @@
+package dev.da0hn.email.management.system.infrastructure.db.entities;
+
+import dev.da0hn.email.management.system.shared.interfaces.DataLayerEntity;
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.proxy.HibernateProxy;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.UUID;
+
+@Setter
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "mailbox_checkpoints")
+@Entity(name = "MailboxCheckpoint")
+public class MailboxCheckpointEntity implements Serializable, DataLayerEntity {
+
+    @Serial
+    private static final long serialVersionUID = -3409914672840531190L;
+
+    @EmbeddedId
+    private Id id;
+
+    @Column(nullable = false, name = "uid_validity")
+    private Long uidValidity;
+
+    @Column(nullable = false, name = "last_uid")
+    private Long lastUid;
+
+    @Column(nullable = false, name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Override
+    public final int hashCode() {
+        return this instanceof HibernateProxy ?
+            ((HibernateProxy) this).getHibernateLazyInitializer().getPersistentClass().hashCode() : this.getClass().hashCode();
+    }
+
+    @Override
+    public final boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null) return false;
+        final Class<?> oEffectiveClass = o instanceof HibernateProxy ?
+            ((HibernateProxy) o).getHibernateLazyInitializer().getPersistentClass() : o.getClass();
+        final Class<?> thisEffectiveClass = this instanceof HibernateProxy ?
+            ((HibernateProxy) this).getHibernateLazyInitializer().getPersistentClass() : this.getClass();
+        if (thisEffectiveClass != oEffectiveClass) return false;
+        final MailboxCheckpointEntity that = (MailboxCheckpointEntity) o;
+        return this.id != null && Objects.equals(this.id, that.id);
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    @Embeddable
+    public static class Id implements Serializable {
+
+        @Serial
+        private static final long serialVersionUID = 6017482531187719342L;
+
+        @Column(nullable = false, name = "account_id", columnDefinition = "uuid")
+        private UUID accountId;
+
+        @Column(nullable = false, name = "folder")
+        private String folder;
+
+    }
+
+}
@@ -0,0 +1,58 @@
+package dev.da0hn.email.management.system.infrastructure.db.entities;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaGroupOperator;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RuleCriteriaGroupJson implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = -4021933158772250571L;
+
+    @JsonProperty(value = "group_id", required = true)
+    private UUID groupId;
+
+    private RuleCriteriaGroupOperator operator;
+
+    private List<RuleCriteriaJson> criteria;
+
+    private List<RuleCriteriaGroupJson> groups;
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(this.groupId);
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (o == null || this.getClass() != o.getClass()) return false;
+
+        final RuleCriteriaGroupJson that = (RuleCriteriaGroupJson) o;
+        return Objects.equals(this.groupId, that.groupId);
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+            .append("groupId", this.groupId)
+            .append("operator", this.operator)
+            .append("criteria", this.criteria)
+            .append("groups", this.groups)
+            .toString();
+    }
+
+}
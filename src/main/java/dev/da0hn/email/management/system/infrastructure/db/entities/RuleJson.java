@@ -40,6 +40,10 @@ public abstract class RuleJson {
 
     private List<RuleCriteriaJson> criteria;
 
+    private List<RuleCriteriaGroupJson> groups;
+
+    private Integer priority;
+
     @JsonProperty(value = "created_at")
     private LocalDateTime createdAt;
 
@@ -67,6 +71,8 @@ public abstract class RuleJson {
             .append("description", this.description)
             .append("action", this.action)
             .append("criteria", this.criteria)
+            .append("groups", this.groups)
+            .append("priority", this.priority)
             .append("createdAt", this.createdAt)
             .append("updatedAt", this.updatedAt)
             .toString();
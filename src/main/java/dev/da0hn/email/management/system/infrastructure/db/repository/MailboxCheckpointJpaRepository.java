@@ -0,0 +1,7 @@
+package dev.da0hn.email.management.system.infrastructure.db.repository;
+
+import dev.da0hn.email.management.system.infrastructure.db.entities.MailboxCheckpointEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface MailboxCheckpointJpaRepository extends JpaRepository<MailboxCheckpointEntity, MailboxCheckpointEntity.Id> {
+}
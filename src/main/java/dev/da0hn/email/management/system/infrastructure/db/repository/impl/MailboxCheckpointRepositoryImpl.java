@@ -0,0 +1,37 @@
+package dev.da0hn.email.management.system.infrastructure.db.repository.impl;
+
+import dev.da0hn.email.management.system.core.domain.MailboxCheckpoint;
+import dev.da0hn.email.management.system.core.ports.spi.MailboxCheckpointRepository;
+import dev.da0hn.email.management.system.infrastructure.db.converter.EntityConverter;
+import dev.da0hn.email.management.system.infrastructure.db.entities.MailboxCheckpointEntity;
+import dev.da0hn.email.management.system.infrastructure.db.repository.MailboxCheckpointJpaRepository;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+@AllArgsConstructor
+public class MailboxCheckpointRepositoryImpl implements MailboxCheckpointRepository {
+
+    private final MailboxCheckpointJpaRepository mailboxCheckpointJpaRepository;
+
+    private final EntityConverter entityConverter;
+
+    @Override
+    @Transactional
+    public void save(final MailboxCheckpoint checkpoint) {
+        final var checkpointEntity = this.entityConverter.toEntity(checkpoint, MailboxCheckpointEntity.class);
+        this.mailboxCheckpointJpaRepository.save(checkpointEntity);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<MailboxCheckpoint> findByAccountIdAndFolder(final UUID accountId, final String folder) {
+        return this.mailboxCheckpointJpaRepository.findById(new MailboxCheckpointEntity.Id(accountId, folder))
+            .map(entity -> this.entityConverter.toDomain(entity, MailboxCheckpoint.class));
+    }
+
+}
@@ -1,17 +1,23 @@
 package dev.da0hn.email.management.system.infrastructure.web;
 
 import dev.da0hn.email.management.system.core.ports.api.AccountService;
+import dev.da0hn.email.management.system.core.ports.api.RuleBackfillService;
+import dev.da0hn.email.management.system.core.ports.api.RuleSimulationService;
 import dev.da0hn.email.management.system.core.ports.api.dto.AccountOutput;
 import dev.da0hn.email.management.system.core.ports.api.dto.DetailedAccountOutput;
 import dev.da0hn.email.management.system.core.ports.api.dto.NewAccountInput;
 import dev.da0hn.email.management.system.core.ports.api.dto.NewAccountOutput;
 import dev.da0hn.email.management.system.core.ports.api.dto.NewRuleInput;
 import dev.da0hn.email.management.system.core.ports.api.dto.NewRuleOutput;
+import dev.da0hn.email.management.system.core.ports.api.dto.RuleBackfillOutput;
+import dev.da0hn.email.management.system.core.ports.api.dto.RuleSimulationOutput;
 import dev.da0hn.email.management.system.core.ports.api.dto.UpdateRuleInput;
+import dev.da0hn.email.management.system.core.ports.api.dto.UpdateRuleMatchModeInput;
 import dev.da0hn.email.management.system.core.ports.api.dto.UpdateRuleOutput;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -22,6 +28,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.InputStream;
 import java.util.List;
 import java.util.UUID;
 
@@ -32,6 +39,10 @@ public class AccountController {
 
   private final AccountService accountService;
 
+  private final RuleBackfillService ruleBackfillService;
+
+  private final RuleSimulationService ruleSimulationService;
+
   @PostMapping
   @ResponseStatus(HttpStatus.CREATED)
   public NewAccountOutput create(@RequestBody @Valid final NewAccountInput input) {
@@ -84,4 +95,46 @@ public class AccountController {
         this.accountService.deleteRule(accountId, ruleId);
     }
 
+    @PutMapping("/{accountId}/rule-match-mode")
+    @ResponseStatus(HttpStatus.OK)
+    public DetailedAccountOutput updateRuleMatchMode(
+        @PathVariable final UUID accountId,
+        @RequestBody @Valid final UpdateRuleMatchModeInput input
+    ) {
+        return this.accountService.updateRuleMatchMode(accountId, input);
+    }
+
+    @PostMapping("/{accountId}/rules/{ruleId}/backfill")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public RuleBackfillOutput startBackfill(
+        @PathVariable final UUID accountId,
+        @PathVariable final UUID ruleId
+    ) {
+        return this.ruleBackfillService.start(accountId, ruleId);
+    }
+
+    @GetMapping("/{accountId}/rules/{ruleId}/backfill")
+    @ResponseStatus(HttpStatus.OK)
+    public RuleBackfillOutput findBackfill(
+        @PathVariable final UUID accountId,
+        @PathVariable final UUID ruleId
+    ) {
+        return this.ruleBackfillService.findProgress(accountId, ruleId);
+    }
+
+    /**
+     * Evaluates the account's rules over the request body, an mbox or a zip of EML files, streamed as it is read.
+     */
+    @PostMapping(
+        path = "/{accountId}/simulations",
+        consumes = {"application/mbox", "application/zip", MediaType.APPLICATION_OCTET_STREAM_VALUE}
+    )
+    @ResponseStatus(HttpStatus.OK)
+    public RuleSimulationOutput simulate(
+        @PathVariable final UUID accountId,
+        final InputStream corpus
+    ) {
+        return this.ruleSimulationService.simulate(accountId, corpus);
+    }
+
 }
@@ -1,5 +1,7 @@
 package dev.da0hn.email.management.system.infrastructure.web.error;
 
+import dev.da0hn.email.management.system.core.ports.api.InvalidCorpusException;
+import dev.da0hn.email.management.system.core.ports.api.InvalidRuleException;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.HttpStatus;
@@ -58,4 +60,44 @@ public class GlobalExceptionHandler {
             ))
             .build();
     }
+
+    @ExceptionHandler(InvalidCorpusException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ErrorResponse handleInvalidCorpus(
+        InvalidCorpusException exception,
+        HttpServletRequest request
+    ) {
+        return ErrorResponse.builder()
+            .timestamp(LocalDateTime.now())
+            .status(HttpStatus.BAD_REQUEST.value())
+            .error("Bad Request")
+            .message("Invalid corpus")
+            .path(request.getRequestURI())
+            .errors(List.of(
+                ErrorResponse.Error.builder()
+                    .message(exception.getMessage())
+                    .build()
+            ))
+            .build();
+    }
+
+    @ExceptionHandler(InvalidRuleException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ErrorResponse handleInvalidRule(
+        InvalidRuleException exception,
+        HttpServletRequest request
+    ) {
+        return ErrorResponse.builder()
+            .timestamp(LocalDateTime.now())
+            .status(HttpStatus.BAD_REQUEST.value())
+            .error("Bad Request")
+            .message("Invalid rule")
+            .path(request.getRequestURI())
+            .errors(List.of(
+                ErrorResponse.Error.builder()
+                    .message(exception.getMessage())
+                    .build()
+            ))
+            .build();
+    }
 }
@@ -0,0 +1,2 @@
+alter table accounts
+    add column rule_match_mode varchar(32) not null default 'ALL_MATCHES';
@@ -0,0 +1,10 @@
+create table mailbox_checkpoints
+(
+    account_id   uuid         not null,
+    folder       varchar(256) not null,
+    uid_validity bigint       not null,
+    last_uid     bigint       not null,
+    updated_at   timestamp    not null default now(),
+    constraint pk_mailbox_checkpoint primary key (account_id, folder),
+    constraint fk_mailbox_checkpoint_account foreign key (account_id) references accounts (id) on delete cascade
+);
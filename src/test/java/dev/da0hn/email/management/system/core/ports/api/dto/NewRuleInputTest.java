@@ -1,6 +1,7 @@
 package dev.da0hn.email.management.system.core.ports.api.dto;
 
 import dev.da0hn.email.management.system.core.domain.RuleAction;
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaGroupOperator;
 import dev.da0hn.email.management.system.core.domain.RuleCriteriaOperator;
 import dev.da0hn.email.management.system.core.domain.RuleCriteriaType;
 import jakarta.validation.Validation;
@@ -121,4 +122,35 @@ class NewRuleInputTest {
                 "Pelo menos um critério é obrigatório"
             );
     }
+
+    @Test
+    @DisplayName("Deve aceitar regra apenas com grupos e rejeitar grupos vazios")
+    void shouldAcceptGroupsOnlyRuleAndRejectEmptyGroups() {
+        final var criteria = new NewRuleCriteriaInput("newsletter", RuleCriteriaType.SUBJECT, RuleCriteriaOperator.CONTAINS);
+        final var valid = new NewRuleInput(
+            UUID.randomUUID(),
+            "Archive newsletters",
+            "Archive newsletters",
+            RuleAction.ARCHIVE,
+            Set.of(),
+            null,
+            Set.of(new NewRuleCriteriaGroupInput(RuleCriteriaGroupOperator.OR, Set.of(criteria), Set.of())),
+            null
+        );
+        final var empty = new NewRuleInput(
+            UUID.randomUUID(),
+            "Archive newsletters",
+            "Archive newsletters",
+            RuleAction.ARCHIVE,
+            Set.of(),
+            null,
+            Set.of(new NewRuleCriteriaGroupInput(RuleCriteriaGroupOperator.NOT, Set.of(), Set.of())),
+            null
+        );
+
+        assertThat(this.validator.validate(valid)).isEmpty();
+        assertThat(this.validator.validate(empty))
+            .extracting("message")
+            .containsExactly("Grupo de critérios deve ter pelo menos uma condição");
+    }
 }
@@ -10,11 +10,13 @@ import dev.da0hn.email.management.system.core.domain.Rule;
 import dev.da0hn.email.management.system.core.domain.RuleAction;
 import dev.da0hn.email.management.system.core.domain.RuleCriteriaOperator;
 import dev.da0hn.email.management.system.core.domain.RuleCriteriaType;
+import dev.da0hn.email.management.system.core.domain.RuleMatchMode;
 import dev.da0hn.email.management.system.core.ports.api.dto.MoveRuleInput;
 import dev.da0hn.email.management.system.core.ports.api.dto.NewAccountInput;
 import dev.da0hn.email.management.system.core.ports.api.dto.NewRuleCriteriaInput;
 import dev.da0hn.email.management.system.core.ports.api.dto.NewRuleInput;
 import dev.da0hn.email.management.system.core.ports.api.dto.UpdateRuleInput;
+import dev.da0hn.email.management.system.core.ports.api.dto.UpdateRuleMatchModeInput;
 import dev.da0hn.email.management.system.core.ports.spi.AccountRepository;
 import dev.da0hn.email.management.system.core.ports.spi.PasswordEncryption;
 import jakarta.persistence.EntityNotFoundException;
@@ -35,6 +37,7 @@ import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 class AccountServiceImplTest {
@@ -45,6 +48,8 @@ class AccountServiceImplTest {
 
     private PasswordEncryption passwordEncryption;
 
+    private RuleMatcherCache ruleMatcherCache;
+
     private Account createTestAccount(final UUID accountId) {
         return this.createTestAccount(accountId, null);
     }
@@ -111,7 +116,8 @@ class AccountServiceImplTest {
         this.accountRepository = mock(AccountRepository.class);
         this.passwordEncryption = mock(PasswordEncryption.class);
         final var passwordEncryptionService = new PasswordEncryptionService(this.passwordEncryption);
-        this.accountService = new AccountServiceImpl(this.accountRepository, passwordEncryptionService);
+        this.ruleMatcherCache = mock(RuleMatcherCache.class);
+        this.accountService = new AccountServiceImpl(this.accountRepository, passwordEncryptionService, this.ruleMatcherCache);
     }
 
     @Test
@@ -271,8 +277,10 @@ class AccountServiceImplTest {
             assertThat(rule.name()).isEqualTo(input.name());
             assertThat(rule.description()).isEqualTo(input.description());
             assertThat(rule.action()).isEqualTo(input.action());
+            assertThat(savedAccount.updatedAt()).isAfterOrEqualTo(account.updatedAt());
             return true;
         }));
+        verifyNoInteractions(this.ruleMatcherCache);
     }
 
     @Test
@@ -633,6 +641,7 @@ class AccountServiceImplTest {
                                                         updatedAccount.rules().stream()
                                                             .noneMatch(rule -> rule.id().equals(existingRule.id()))
         ));
+        verify(this.ruleMatcherCache).evict(accountId);
     }
 
     @Test
@@ -664,4 +673,24 @@ class AccountServiceImplTest {
             .hasMessage("Rule not found");
     }
 
+    @Test
+    @DisplayName("Deve alterar o modo de aplicação das regras da conta")
+    void shouldUpdateRuleMatchMode() {
+
+        final var accountId = UUID.randomUUID();
+        final var account = this.createTestAccount(accountId, RuleAction.ARCHIVE);
+
+        when(this.accountRepository.findById(accountId)).thenReturn(Optional.of(account));
+
+        final var output = this.accountService.updateRuleMatchMode(accountId, new UpdateRuleMatchModeInput(RuleMatchMode.FIRST_MATCH));
+
+        assertThat(account.ruleMatchMode()).isEqualTo(RuleMatchMode.ALL_MATCHES);
+        assertThat(output.ruleMatchMode()).isEqualTo(RuleMatchMode.FIRST_MATCH);
+        verify(this.accountRepository).save(argThat(updatedAccount ->
+                                                        updatedAccount.ruleMatchMode() == RuleMatchMode.FIRST_MATCH
+                                                        && updatedAccount.rules().equals(account.rules())
+        ));
+        verify(this.ruleMatcherCache).evict(accountId);
+    }
+
 }
@@ -0,0 +1,285 @@
+package dev.da0hn.email.management.system.core.service;
+
+import dev.da0hn.email.management.system.core.domain.Account;
+import dev.da0hn.email.management.system.core.domain.AccountCredentials;
+import dev.da0hn.email.management.system.core.domain.ArchiveEmailRule;
+import dev.da0hn.email.management.system.core.domain.EmailConnectionDetails;
+import dev.da0hn.email.management.system.core.domain.MailboxCheckpoint;
+import dev.da0hn.email.management.system.core.domain.RuleCriteria;
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaOperator;
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaType;
+import dev.da0hn.email.management.system.core.ports.spi.AccountRepository;
+import dev.da0hn.email.management.system.core.ports.spi.MailboxCheckpointRepository;
+import dev.da0hn.email.management.system.core.service.engine.MessageHeaders;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.Address;
+import jakarta.mail.FetchProfile;
+import jakarta.mail.Flags;
+import jakarta.mail.Folder;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Store;
+import jakarta.mail.UIDFolder;
+import jakarta.mail.internet.AddressException;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.search.SearchTerm;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static dev.da0hn.email.management.system.core.service.engine.RuleFixtures.archive;
+import static dev.da0hn.email.management.system.core.service.engine.RuleFixtures.criteria;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+class EmailProcessorTest {
+
+    private static final String[] SENDERS = {"news@vendor.com", "boss@corp.com", "news@vendor.com", "friend@mail.org", "boss@corp.com"};
+
+    private AccountRepository accountRepository;
+
+    private MailboxCheckpointRepository mailboxCheckpointRepository;
+
+    private Folder folder;
+
+    private Account account;
+
+    private EmailProcessor emailProcessor;
+
+    @BeforeEach
+    void setUp() throws MessagingException {
+        final var rule = ArchiveEmailRule.newRule(
+            UUID.randomUUID(),
+            "Boss",
+            "Archive boss messages",
+            Set.of(new RuleCriteria(UUID.randomUUID(), "boss@corp.com", RuleCriteriaType.FROM, RuleCriteriaOperator.EQUALS))
+        );
+        this.account = Account.builder()
+            .id(UUID.randomUUID())
+            .name("John Doe")
+            .createdAt(LocalDateTime.now())
+            .updatedAt(LocalDateTime.now())
+            .accountCredentials(AccountCredentials.builder()
+                                    .email("john@example.com")
+                                    .password("encrypted_password")
+                                    .build())
+            .emailConnectionDetails(EmailConnectionDetails.builder()
+                                        .host("imap.example.com")
+                                        .port(993)
+                                        .protocol("imaps")
+                                        .build())
+            .rules(Set.of(rule))
+            .build();
+
+        this.accountRepository = mock(AccountRepository.class);
+        this.mailboxCheckpointRepository = mock(MailboxCheckpointRepository.class);
+        final var ruleEngine = new RuleEngine(ZoneOffset.UTC);
+        final var store = mock(Store.class);
+        this.folder = this.mailbox();
+        when(store.getFolder(EmailProcessor.INBOX)).thenReturn(this.folder);
+        this.emailProcessor = new EmailProcessor(
+            this.accountRepository,
+            this.mailboxCheckpointRepository,
+            new ImapConnectionPool(account -> store, 1, 60_000, 0, System::currentTimeMillis),
+            ruleEngine,
+            new RuleMatcherCache(ruleEngine, new SimpleMeterRegistry(), 10),
+            1
+        );
+    }
+
+    /**
+     * Inbox with UIDs 1 to 5 whose SEARCH evaluates the pushed-down terms on the given messages only.
+     */
+    private Folder mailbox() throws MessagingException {
+        final var messages = new Message[SENDERS.length];
+        final var folder = mock(Folder.class, withSettings().extraInterfaces(UIDFolder.class));
+        final var uidFolder = (UIDFolder) folder;
+        for (int i = 0; i < SENDERS.length; i++) {
+            final var message = mock(Message.class);
+            when(message.getMessageNumber()).thenReturn(i + 1);
+            when(message.getFrom()).thenReturn(new Address[] {new InternetAddress(SENDERS[i])});
+            when(message.getHeader("From")).thenReturn(new String[] {SENDERS[i]});
+            when(message.getSubject()).thenReturn("message " + i);
+            when(message.getFlags()).thenReturn(new Flags());
+            when(uidFolder.getUID(message)).thenReturn(i + 1L);
+            when(folder.getMessage(i + 1)).thenReturn(message);
+            messages[i] = message;
+        }
+        when(folder.getMessageCount()).thenReturn(messages.length);
+        when(uidFolder.getUIDValidity()).thenReturn(7L);
+        when(uidFolder.getUIDNext()).thenReturn(messages.length + 1L);
+        when(uidFolder.getMessagesByUID(anyLong(), anyLong())).thenAnswer(invocation -> {
+            final long start = invocation.getArgument(0);
+            final long end = invocation.getArgument(1);
+            return Arrays.copyOfRange(messages, (int) start - 1, (int) Math.min(end, messages.length));
+        });
+        when(folder.search(any(SearchTerm.class))).thenAnswer(invocation -> {
+            final SearchTerm term = invocation.getArgument(0);
+            return Arrays.stream(messages).filter(term::match).toArray(Message[]::new);
+        });
+        when(folder.search(any(SearchTerm.class), any(Message[].class))).thenAnswer(invocation -> {
+            final SearchTerm term = invocation.getArgument(0);
+            final Message[] scope = invocation.getArgument(1);
+            return Arrays.stream(scope).filter(term::match).toArray(Message[]::new);
+        });
+        return folder;
+    }
+
+    private MailboxCheckpoint savedCheckpoint() {
+        final var captor = ArgumentCaptor.forClass(MailboxCheckpoint.class);
+        verify(this.mailboxCheckpointRepository).save(captor.capture());
+        return captor.getValue();
+    }
+
+    @Test
+    @DisplayName("Deve buscar apenas os UIDs acima do checkpoint e avançá-lo")
+    void shouldOnlySearchUidsAboveCheckpoint() throws MessagingException {
+        when(this.mailboxCheckpointRepository.findByAccountIdAndFolder(this.account.id(), EmailProcessor.INBOX))
+            .thenReturn(Optional.of(new MailboxCheckpoint(this.account.id(), EmailProcessor.INBOX, 7, 3)));
+
+        this.emailProcessor.process(this.account);
+
+        verify((UIDFolder) this.folder).getMessagesByUID(4, 5);
+        verify(this.folder, never()).search(any(SearchTerm.class));
+        verify(this.folder, times(1)).fetch(any(Message[].class), any(FetchProfile.class));
+        final var checkpoint = this.savedCheckpoint();
+        assertThat(checkpoint.uidValidity()).isEqualTo(7);
+        assertThat(checkpoint.lastUid()).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("Deve usar o UID da última mensagem quando o UIDNEXT da pasta reutilizada está defasado")
+    void shouldUseLastMessageUidWhenUidNextIsStale() throws MessagingException {
+        when(((UIDFolder) this.folder).getUIDNext()).thenReturn(4L);
+        when(this.mailboxCheckpointRepository.findByAccountIdAndFolder(this.account.id(), EmailProcessor.INBOX))
+            .thenReturn(Optional.of(new MailboxCheckpoint(this.account.id(), EmailProcessor.INBOX, 7, 3)));
+
+        this.emailProcessor.process(this.account);
+
+        verify((UIDFolder) this.folder).getMessagesByUID(4, 5);
+        assertThat(this.savedCheckpoint().lastUid()).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("Deve pré-carregar em blocos apenas os campos que as regras leem")
+    void shouldPrefetchCandidatesInChunks() throws MessagingException {
+        when(this.mailboxCheckpointRepository.findByAccountIdAndFolder(this.account.id(), EmailProcessor.INBOX))
+            .thenReturn(Optional.of(new MailboxCheckpoint(this.account.id(), EmailProcessor.INBOX, 7, 0)));
+
+        this.emailProcessor.process(this.account);
+
+        final var messages = ArgumentCaptor.forClass(Message[].class);
+        final var profile = ArgumentCaptor.forClass(FetchProfile.class);
+        verify(this.folder, times(2)).fetch(messages.capture(), profile.capture());
+        assertThat(messages.getAllValues()).allSatisfy(chunk -> assertThat(chunk).hasSize(1));
+        assertThat(messages.getAllValues().get(1)[0].getMessageNumber()).isEqualTo(5);
+        assertThat(profile.getValue().getHeaderNames()).containsExactly("From");
+        assertThat(profile.getValue().getItems()).containsExactly(UIDFolder.FetchProfileItem.UID);
+    }
+
+    @Test
+    @DisplayName("Deve ignorar mensagem com endereço malformado e ainda avançar o checkpoint")
+    void shouldSkipMessageWithMalformedAddressAndAdvanceCheckpoint() throws MessagingException {
+        when(this.folder.getMessage(2).getHeader("From")).thenThrow(new AddressException("Missing '>'", "Boss <boss@corp.com"));
+        when(this.mailboxCheckpointRepository.findByAccountIdAndFolder(this.account.id(), EmailProcessor.INBOX))
+            .thenReturn(Optional.of(new MailboxCheckpoint(this.account.id(), EmailProcessor.INBOX, 7, 0)));
+
+        this.emailProcessor.process(this.account);
+
+        verify(this.folder.getMessage(5)).getHeader("From");
+        final var checkpoint = this.savedCheckpoint();
+        assertThat(checkpoint.uidValidity()).isEqualTo(7);
+        assertThat(checkpoint.lastUid()).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("Deve continuar processando as demais contas quando uma delas falha")
+    void shouldProcessRemainingAccountsWhenOneFails() {
+        final var broken = Account.builder()
+            .id(UUID.randomUUID())
+            .name("Jane Doe")
+            .createdAt(LocalDateTime.now())
+            .updatedAt(LocalDateTime.now())
+            .accountCredentials(this.account.accountCredentials())
+            .emailConnectionDetails(this.account.emailConnectionDetails())
+            .rules(this.account.rules())
+            .build();
+        when(this.accountRepository.findAll()).thenReturn(List.of(broken, this.account));
+        when(this.mailboxCheckpointRepository.findByAccountIdAndFolder(broken.id(), EmailProcessor.INBOX))
+            .thenThrow(new IllegalStateException("connection refused"));
+        when(this.mailboxCheckpointRepository.findByAccountIdAndFolder(this.account.id(), EmailProcessor.INBOX))
+            .thenReturn(Optional.of(new MailboxCheckpoint(this.account.id(), EmailProcessor.INBOX, 7, 3)));
+
+        this.emailProcessor.process();
+
+        final var checkpoint = this.savedCheckpoint();
+        assertThat(checkpoint.accountId()).isEqualTo(this.account.id());
+        assertThat(checkpoint.lastUid()).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("Não deve buscar nem gravar o checkpoint quando não há mensagens novas")
+    void shouldSkipSearchWhenNoNewMessages() throws MessagingException {
+        when(this.mailboxCheckpointRepository.findByAccountIdAndFolder(this.account.id(), EmailProcessor.INBOX))
+            .thenReturn(Optional.of(new MailboxCheckpoint(this.account.id(), EmailProcessor.INBOX, 7, 5)));
+
+        this.emailProcessor.process(this.account);
+
+        verify((UIDFolder) this.folder, never()).getMessagesByUID(anyLong(), anyLong());
+        verify(this.folder, never()).search(any(SearchTerm.class));
+        verify(this.mailboxCheckpointRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Deve ressincronizar a caixa inteira quando o UIDVALIDITY muda")
+    void shouldResynchronizeWhenUidValidityChanges() throws MessagingException {
+        when(this.mailboxCheckpointRepository.findByAccountIdAndFolder(this.account.id(), EmailProcessor.INBOX))
+            .thenReturn(Optional.of(new MailboxCheckpoint(this.account.id(), EmailProcessor.INBOX, 6, 40)));
+
+        this.emailProcessor.process(this.account);
+
+        verify(this.folder).search(any(SearchTerm.class));
+        verify((UIDFolder) this.folder, never()).getMessagesByUID(anyLong(), anyLong());
+        final var checkpoint = this.savedCheckpoint();
+        assertThat(checkpoint.uidValidity()).isEqualTo(7);
+        assertThat(checkpoint.lastUid()).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("Deve ler da mensagem apenas os campos dos tipos de critério usados")
+    void shouldReadOnlyFieldsOfUsedCriteriaTypes() throws MessagingException {
+        final var message = mock(Message.class);
+        when(message.getHeader("Subject")).thenReturn(new String[] {"=?UTF-8?Q?Relat=C3=B3rio?=\r\n semanal"});
+
+        final var headers = EmailProcessor.headersOf(message, Set.of(RuleCriteriaType.SUBJECT));
+
+        // Encoded-words are left to the engine, which decodes them once.
+        assertThat(headers.subject()).isEqualTo("=?UTF-8?Q?Relat=C3=B3rio?= semanal");
+        assertThat(new RuleEngine(ZoneOffset.UTC)
+            .compile(Set.of(archive(criteria(RuleCriteriaType.SUBJECT, RuleCriteriaOperator.EQUALS, "Relatório semanal"))))
+            .match(headers)).hasSize(1);
+        assertThat(headers.from()).isNull();
+        assertThat(headers.receivedAt()).isEqualTo(MessageHeaders.UNKNOWN_RECEIVED_AT);
+        verify(message, never()).getFrom();
+        verify(message, never()).getHeader("From");
+        verify(message, never()).getReceivedDate();
+        verify(message, never()).getSize();
+    }
+
+}
@@ -0,0 +1,153 @@
+package dev.da0hn.email.management.system.core.service;
+
+import dev.da0hn.email.management.system.core.domain.Account;
+import dev.da0hn.email.management.system.core.domain.AccountCredentials;
+import dev.da0hn.email.management.system.core.domain.EmailConnectionDetails;
+import jakarta.mail.Folder;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Store;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ImapConnectionPoolTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private final List<Store> stores = new ArrayList<>();
+
+    private ImapConnectionPool pool;
+
+    private static Account account(final String host) {
+        return Account.builder()
+            .id(UUID.randomUUID())
+            .name("John Doe")
+            .createdAt(LocalDateTime.now())
+            .updatedAt(LocalDateTime.now())
+            .accountCredentials(AccountCredentials.builder()
+                                    .email("john@example.com")
+                                    .password("encrypted_password")
+                                    .build())
+            .emailConnectionDetails(EmailConnectionDetails.builder()
+                                        .host(host)
+                                        .port(993)
+                                        .protocol("imaps")
+                                        .build())
+            .rules(Set.of())
+            .build();
+    }
+
+    /**
+     * Connected store whose folder reports itself open until it is closed.
+     */
+    private Store connect(final Account account) throws MessagingException {
+        final var store = mock(Store.class);
+        final var folder = mock(Folder.class);
+        when(store.isConnected()).thenReturn(true);
+        when(store.getFolder(EmailProcessor.INBOX)).thenReturn(folder);
+        when(folder.isOpen()).thenReturn(true);
+        this.stores.add(store);
+        return store;
+    }
+
+    @BeforeEach
+    void setUp() {
+        this.pool = new ImapConnectionPool(this::connect, 2, 1_000, 0, this.clock::get);
+    }
+
+    @Test
+    @DisplayName("Deve reutilizar a conexão ociosa da conta em vez de reconectar")
+    void shouldReuseIdleConnectionOfAccount() throws MessagingException {
+        final var account = account("imap.example.com");
+
+        final Folder first;
+        try (final var lease = this.pool.acquire(account, EmailProcessor.INBOX)) {
+            first = lease.folder();
+        }
+        try (final var lease = this.pool.acquire(account, EmailProcessor.INBOX)) {
+            assertThat(lease.folder()).isSameAs(first);
+        }
+
+        assertThat(this.stores).hasSize(1);
+        verify(first).open(Folder.READ_ONLY);
+        assertThat(this.pool.connectionCount("imap.example.com")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve reconectar quando a conexão ociosa falha na verificação de saúde")
+    void shouldReconnectWhenIdleConnectionIsUnhealthy() throws MessagingException {
+        final var account = account("imap.example.com");
+        try (final var ignored = this.pool.acquire(account, EmailProcessor.INBOX)) {
+            when(this.stores.getFirst().isConnected()).thenReturn(false);
+        }
+
+        try (final var lease = this.pool.acquire(account, EmailProcessor.INBOX)) {
+            assertThat(lease.folder()).isSameAs(this.stores.get(1).getFolder(EmailProcessor.INBOX));
+        }
+
+        verify(this.stores.getFirst()).close();
+        assertThat(this.pool.connectionCount("imap.example.com")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve fechar em vez de devolver a conexão invalidada")
+    void shouldCloseInvalidatedConnection() throws MessagingException {
+        try (final var lease = this.pool.acquire(account("imap.example.com"), EmailProcessor.INBOX)) {
+            lease.invalidate();
+        }
+
+        verify(this.stores.getFirst()).close();
+        assertThat(this.pool.connectionCount("imap.example.com")).isZero();
+    }
+
+    @Test
+    @DisplayName("Deve despejar as conexões ociosas além do tempo limite")
+    void shouldEvictConnectionsIdleBeyondTimeout() throws MessagingException {
+        this.pool.acquire(account("imap.example.com"), EmailProcessor.INBOX).close();
+        this.clock.set(500);
+        this.pool.acquire(account("imap.example.com"), EmailProcessor.INBOX).close();
+
+        this.clock.set(1_200);
+        this.pool.evictIdle();
+
+        verify(this.stores.get(0)).close();
+        verify(this.stores.get(1), never()).close();
+        assertThat(this.pool.connectionCount("imap.example.com")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve limitar as conexões por host, fechando a ociosa mais antiga de outra conta")
+    void shouldCapConnectionsPerHost() throws MessagingException {
+        final var oldest = account("imap.example.com");
+        this.pool.acquire(oldest, EmailProcessor.INBOX).close();
+        this.clock.set(10);
+        final var held = this.pool.acquire(account("imap.example.com"), EmailProcessor.INBOX);
+        try (final var ignored = this.pool.acquire(account("imap.other.com"), EmailProcessor.INBOX)) {
+            try (final var lease = this.pool.acquire(account("imap.example.com"), EmailProcessor.INBOX)) {
+                verify(this.stores.getFirst()).close();
+                assertThat(this.pool.connectionCount("imap.example.com")).isEqualTo(2);
+
+                assertThatThrownBy(() -> this.pool.acquire(oldest, EmailProcessor.INBOX))
+                    .isInstanceOf(MessagingException.class)
+                    .hasMessage("Connection limit reached for host imap.example.com");
+            }
+        }
+        held.close();
+        assertThat(this.pool.connectionCount("imap.other.com")).isEqualTo(1);
+    }
+
+}
@@ -0,0 +1,169 @@
+package dev.da0hn.email.management.system.core.service;
+
+import dev.da0hn.email.management.system.core.domain.Account;
+import dev.da0hn.email.management.system.core.domain.AccountCredentials;
+import dev.da0hn.email.management.system.core.domain.EmailConnectionDetails;
+import dev.da0hn.email.management.system.core.ports.spi.AccountRepository;
+import jakarta.mail.MessagingException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MailboxSyncServiceTest {
+
+    private AccountRepository accountRepository;
+
+    private EmailProcessor emailProcessor;
+
+    private MailboxWatcher watcher;
+
+    private Account pushed;
+
+    private Account polled;
+
+    private final Map<UUID, Runnable> notifications = new HashMap<>();
+
+    private static Account account(final String host) {
+        return Account.builder()
+            .id(UUID.randomUUID())
+            .name("John Doe")
+            .createdAt(LocalDateTime.now())
+            .updatedAt(LocalDateTime.now())
+            .accountCredentials(AccountCredentials.builder()
+                                    .email("john@example.com")
+                                    .password("encrypted_password")
+                                    .build())
+            .emailConnectionDetails(EmailConnectionDetails.builder()
+                                        .host(host)
+                                        .port(993)
+                                        .protocol("imaps")
+                                        .build())
+            .rules(Set.of())
+            .build();
+    }
+
+    @BeforeEach
+    void setUp() throws MessagingException {
+        this.pushed = account("imap.idle.com");
+        this.polled = account("imap.legacy.com");
+        this.accountRepository = mock(AccountRepository.class);
+        when(this.accountRepository.findAll()).thenReturn(List.of(this.pushed, this.polled));
+        when(this.accountRepository.findById(this.pushed.id())).thenReturn(Optional.of(this.pushed));
+        when(this.accountRepository.findById(this.polled.id())).thenReturn(Optional.of(this.polled));
+        this.emailProcessor = mock(EmailProcessor.class);
+        this.watcher = mock(MailboxWatcher.class);
+        when(this.watcher.watch(any(), any())).thenAnswer(invocation -> {
+            final Account account = invocation.getArgument(0);
+            if (account == this.polled) return Optional.empty();
+            this.notifications.put(account.id(), invocation.getArgument(1));
+            return Optional.of(mock(MailboxWatcher.Watch.class));
+        });
+    }
+
+    private MailboxSyncService service(final MailboxSyncMode mode) {
+        return new MailboxSyncService(
+            this.accountRepository,
+            this.emailProcessor,
+            mode,
+            mode == MailboxSyncMode.PUSH ? this.watcher : null,
+            Runnable::run
+        );
+    }
+
+    @Test
+    @DisplayName("Deve processar a conta ao receber notificação do IDLE, sem reabrir a escuta")
+    void shouldProcessAccountOnIdleNotification() throws MessagingException {
+        final var service = this.service(MailboxSyncMode.PUSH);
+
+        service.synchronize();
+        verify(this.emailProcessor, times(1)).process(this.pushed);
+
+        this.notifications.get(this.pushed.id()).run();
+        service.synchronize();
+
+        verify(this.emailProcessor, times(2)).process(this.pushed);
+        verify(this.watcher, times(1)).watch(eq(this.pushed), any());
+        assertThat(this.notifications).containsOnlyKeys(this.pushed.id());
+    }
+
+    @Test
+    @DisplayName("Deve recorrer ao polling para contas cujo servidor não suporta IDLE")
+    void shouldFallBackToPollingWithoutIdleSupport() throws MessagingException {
+        final var service = this.service(MailboxSyncMode.PUSH);
+
+        service.synchronize();
+        service.synchronize();
+
+        verify(this.watcher, times(1)).watch(eq(this.polled), any());
+        verify(this.emailProcessor, times(2)).process(this.polled);
+    }
+
+    @Test
+    @DisplayName("Deve reabrir a escuta perdida na renovação do IDLE")
+    void shouldWatchAgainAfterLostConnection() throws MessagingException {
+        final var watch = mock(MailboxWatcher.Watch.class);
+        doThrow(new MessagingException("connection lost")).when(watch).renew();
+        doReturn(Optional.of(watch)).when(this.watcher).watch(any(), any());
+        when(this.accountRepository.findAll()).thenReturn(List.of(this.pushed));
+        final var service = this.service(MailboxSyncMode.PUSH);
+
+        service.synchronize();
+        service.renewWatches();
+        service.synchronize();
+
+        verify(watch).close();
+        verify(this.watcher, times(2)).watch(any(), any());
+    }
+
+    @Test
+    @DisplayName("Deve reprocessar uma única vez as notificações recebidas durante o processamento")
+    void shouldCoalesceNotificationsReceivedWhileProcessing() throws MessagingException {
+        final var service = this.service(MailboxSyncMode.PUSH);
+        when(this.accountRepository.findAll()).thenReturn(List.of(this.pushed));
+        final var calls = new int[1];
+        doAnswer(invocation -> {
+            if (calls[0]++ == 0) {
+                this.notifications.get(this.pushed.id()).run();
+                this.notifications.get(this.pushed.id()).run();
+            }
+            return null;
+        }).when(this.emailProcessor).process(this.pushed);
+
+        service.synchronize();
+
+        verify(this.emailProcessor, times(2)).process(this.pushed);
+    }
+
+    @Test
+    @DisplayName("Deve processar todas as contas a cada ciclo no modo polling")
+    void shouldProcessEveryAccountWhenPolling() throws MessagingException {
+        final var service = this.service(MailboxSyncMode.POLLING);
+
+        service.synchronize();
+
+        verify(this.emailProcessor).process(this.pushed);
+        verify(this.emailProcessor).process(this.polled);
+        verify(this.watcher, never()).watch(any(), any());
+    }
+
+}
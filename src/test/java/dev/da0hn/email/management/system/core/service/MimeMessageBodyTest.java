@@ -0,0 +1,73 @@
+package dev.da0hn.email.management.system.core.service;
+
+import jakarta.mail.Part;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeBodyPart;
+import jakarta.mail.internet.MimeMessage;
+import jakarta.mail.internet.MimeMultipart;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MimeMessageBodyTest {
+
+    private static MimeMessage parse(final MimeMessage message) throws Exception {
+        message.saveChanges();
+        final var bytes = new ByteArrayOutputStream();
+        message.writeTo(bytes);
+        return new MimeMessage(Session.getInstance(new Properties()), new ByteArrayInputStream(bytes.toByteArray()));
+    }
+
+    @Test
+    @DisplayName("Deve entregar apenas as partes de texto decodificadas, ignorando anexos e partes binárias")
+    void shouldStreamDecodedTextPartsAndSkipAttachmentsAndBinaryParts() throws Exception {
+        final var text = new MimeBodyPart();
+        text.setText("Fatura de março em anexo", "ISO-8859-1");
+        text.setHeader("Content-Transfer-Encoding", "quoted-printable");
+        final var image = new MimeBodyPart();
+        image.setContent(new byte[]{(byte) 0x89, 'P', 'N', 'G'}, "image/png");
+        final var attachedText = new MimeBodyPart();
+        attachedText.setText("notes");
+        attachedText.setDisposition(Part.ATTACHMENT);
+        final var html = new MimeBodyPart();
+        html.setText("<p>Pague até sexta</p>", "UTF-8", "html");
+        html.setHeader("Content-Transfer-Encoding", "base64");
+        final var message = new MimeMessage(Session.getInstance(new Properties()));
+        message.setContent(new MimeMultipart(text, image, attachedText, html));
+
+        final var parts = new ArrayList<String>();
+        new MimeMessageBody(parse(message)).forEachTextPart((content, charset) -> {
+            parts.add(new String(content.readAllBytes(), charset));
+            return true;
+        });
+
+        assertThat(parts).containsExactly("Fatura de março em anexo", "<p>Pague até sexta</p>");
+    }
+
+    @Test
+    @DisplayName("Deve parar de percorrer as partes quando a varredura é abandonada")
+    void shouldStopWalkingPartsWhenScanIsAbandoned() throws Exception {
+        final var first = new MimeBodyPart();
+        first.setText("first");
+        final var second = new MimeBodyPart();
+        second.setText("second");
+        final var message = new MimeMessage(Session.getInstance(new Properties()));
+        message.setContent(new MimeMultipart(first, second));
+
+        final var parts = new ArrayList<String>();
+        new MimeMessageBody(parse(message)).forEachTextPart((content, charset) -> {
+            parts.add(new String(content.readAllBytes(), StandardCharsets.US_ASCII));
+            return false;
+        });
+
+        assertThat(parts).containsExactly("first");
+    }
+
+}
@@ -0,0 +1,260 @@
+package dev.da0hn.email.management.system.core.service;
+
+import dev.da0hn.email.management.system.core.domain.Account;
+import dev.da0hn.email.management.system.core.domain.AccountCredentials;
+import dev.da0hn.email.management.system.core.domain.ArchiveEmailRule;
+import dev.da0hn.email.management.system.core.domain.EmailConnectionDetails;
+import dev.da0hn.email.management.system.core.domain.Rule;
+import dev.da0hn.email.management.system.core.domain.RuleCriteria;
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaOperator;
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaType;
+import dev.da0hn.email.management.system.core.ports.api.dto.RuleBackfillOutput;
+import dev.da0hn.email.management.system.core.ports.spi.AccountRepository;
+import jakarta.mail.Address;
+import jakarta.mail.Flags;
+import jakarta.mail.Folder;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Store;
+import jakarta.mail.UIDFolder;
+import jakarta.mail.internet.AddressException;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.search.SearchTerm;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+class RuleBackfillServiceImplTest {
+
+    private static final String[] SENDERS = {"news@vendor.com", "boss@corp.com", "news@vendor.com", "friend@mail.org", "boss@corp.com"};
+
+    private AccountRepository accountRepository;
+
+    private EmailProcessor emailProcessor;
+
+    private Store store;
+
+    private Folder folder;
+
+    private Account account;
+
+    private Rule rule;
+
+    private Rule otherRule;
+
+    private RuleBackfillServiceImpl backfillService;
+
+    @BeforeEach
+    void setUp() throws MessagingException {
+        this.rule = ArchiveEmailRule.newRule(
+            UUID.randomUUID(),
+            "Boss",
+            "Archive boss messages",
+            Set.of(new RuleCriteria(UUID.randomUUID(), "boss@corp.com", RuleCriteriaType.FROM, RuleCriteriaOperator.EQUALS))
+        );
+        this.otherRule = ArchiveEmailRule.newRule(
+            UUID.randomUUID(),
+            "News",
+            "Archive vendor news",
+            Set.of(new RuleCriteria(UUID.randomUUID(), "news@vendor.com", RuleCriteriaType.FROM, RuleCriteriaOperator.EQUALS))
+        );
+        this.account = Account.builder()
+            .id(UUID.randomUUID())
+            .name("John Doe")
+            .createdAt(LocalDateTime.now())
+            .updatedAt(LocalDateTime.now())
+            .accountCredentials(AccountCredentials.builder()
+                                    .email("john@example.com")
+                                    .password("encrypted_password")
+                                    .build())
+            .emailConnectionDetails(EmailConnectionDetails.builder()
+                                        .host("imap.example.com")
+                                        .port(993)
+                                        .protocol("imaps")
+                                        .build())
+            .rules(Set.of(this.rule, this.otherRule))
+            .build();
+
+        this.accountRepository = mock(AccountRepository.class);
+        when(this.accountRepository.findById(this.account.id())).thenReturn(Optional.of(this.account));
+        this.emailProcessor = mock(EmailProcessor.class);
+        this.store = mock(Store.class);
+        this.folder = this.mailbox();
+        when(this.store.getFolder(EmailProcessor.INBOX)).thenReturn(this.folder);
+
+        this.backfillService = new RuleBackfillServiceImpl(
+            this.accountRepository,
+            this.emailProcessor,
+            new RuleEngine(ZoneOffset.UTC),
+            Runnable::run,
+            2,
+            0,
+            1
+        );
+    }
+
+    /**
+     * Inbox with UIDs 1 to 5 whose SEARCH evaluates the pushed-down terms on the given messages only.
+     */
+    private Folder mailbox() throws MessagingException {
+        final var messages = new Message[SENDERS.length];
+        final var folder = mock(Folder.class, withSettings().extraInterfaces(UIDFolder.class));
+        final var uidFolder = (UIDFolder) folder;
+        for (int i = 0; i < SENDERS.length; i++) {
+            final var message = mock(Message.class);
+            when(message.getMessageNumber()).thenReturn(i + 1);
+            when(message.getFrom()).thenReturn(new Address[] {new InternetAddress(SENDERS[i])});
+            when(message.getHeader("From")).thenReturn(new String[] {SENDERS[i]});
+            when(message.getSubject()).thenReturn("message " + i);
+            when(message.getFlags()).thenReturn(new Flags());
+            when(uidFolder.getUID(message)).thenReturn(i + 1L);
+            when(folder.getMessage(i + 1)).thenReturn(message);
+            messages[i] = message;
+        }
+        when(folder.getMessageCount()).thenReturn(messages.length);
+        when(uidFolder.getUIDValidity()).thenReturn(7L);
+        when(uidFolder.getUIDNext()).thenReturn(messages.length + 1L);
+        when(uidFolder.getMessagesByUID(anyLong(), anyLong())).thenAnswer(invocation -> {
+            final long start = invocation.getArgument(0);
+            final long end = invocation.getArgument(1);
+            final int to = (int) Math.min(end, messages.length);
+            return Arrays.copyOfRange(messages, Math.min((int) start - 1, to), to);
+        });
+        when(folder.search(any(SearchTerm.class), any(Message[].class))).thenAnswer(invocation -> {
+            final SearchTerm term = invocation.getArgument(0);
+            final Message[] scope = invocation.getArgument(1);
+            return Arrays.stream(scope).filter(term::match).toArray(Message[]::new);
+        });
+        return folder;
+    }
+
+    @Test
+    @DisplayName("Deve aplicar a regra em blocos de UIDs sobre uma única conexão")
+    void shouldBackfillRuleInUidChunks() throws MessagingException {
+        when(this.emailProcessor.connect(this.account)).thenReturn(this.store);
+
+        this.backfillService.start(this.account.id(), this.rule.id());
+        final var progress = this.backfillService.findProgress(this.account.id(), this.rule.id());
+
+        assertThat(progress.status()).isEqualTo(RuleBackfillOutput.Status.COMPLETED);
+        assertThat(progress.scannedMessages()).isEqualTo(5);
+        assertThat(progress.matchedMessages()).isEqualTo(2);
+        assertThat(progress.failedMessages()).isZero();
+        assertThat(progress.nextUid()).isEqualTo(6);
+        assertThat(progress.lastUid()).isEqualTo(5);
+        assertThat(progress.progress()).isEqualTo(1.0);
+        verify(this.emailProcessor, times(1)).connect(this.account);
+        verify(this.folder, times(1)).open(Folder.READ_ONLY);
+        verify((UIDFolder) this.folder).getMessagesByUID(5, 5);
+    }
+
+    @Test
+    @DisplayName("Deve retomar o backfill a partir do último bloco concluído após uma falha")
+    void shouldResumeFailedBackfillFromLastChunk() throws MessagingException {
+        when(this.emailProcessor.connect(this.account)).thenReturn(this.store);
+        final var messages = ((UIDFolder) this.folder).getMessagesByUID(3, 4);
+        when(((UIDFolder) this.folder).getMessagesByUID(3, 4))
+            .thenThrow(new MessagingException("connection reset"))
+            .thenReturn(messages);
+
+        final var failed = this.backfillService.start(this.account.id(), this.rule.id());
+
+        assertThat(failed.status()).isEqualTo(RuleBackfillOutput.Status.FAILED);
+        assertThat(failed.error()).isEqualTo("connection reset");
+        assertThat(failed.nextUid()).isEqualTo(3);
+        assertThat(failed.progress()).isEqualTo(0.4);
+
+        final var resumed = this.backfillService.start(this.account.id(), this.rule.id());
+
+        assertThat(resumed.status()).isEqualTo(RuleBackfillOutput.Status.COMPLETED);
+        assertThat(resumed.scannedMessages()).isEqualTo(5);
+        assertThat(resumed.matchedMessages()).isEqualTo(2);
+        verify((UIDFolder) this.folder, times(1)).getMessagesByUID(1, 2);
+        verify(this.emailProcessor, times(2)).connect(this.account);
+    }
+
+    @Test
+    @DisplayName("Deve pular e contar mensagens ilegíveis sem interromper o backfill")
+    void shouldSkipAndCountUnreadableMessages() throws MessagingException {
+        when(this.emailProcessor.connect(this.account)).thenReturn(this.store);
+        when(this.folder.getMessage(5).getHeader("From")).thenThrow(new AddressException("Missing '>'"));
+
+        final var progress = this.backfillService.start(this.account.id(), this.rule.id());
+
+        assertThat(progress.status()).isEqualTo(RuleBackfillOutput.Status.COMPLETED);
+        assertThat(progress.scannedMessages()).isEqualTo(5);
+        assertThat(progress.matchedMessages()).isEqualTo(1);
+        assertThat(progress.failedMessages()).isEqualTo(1);
+        assertThat(progress.nextUid()).isEqualTo(6);
+    }
+
+    @Test
+    @DisplayName("Deve pular faixas de UIDs vazias sem pausar entre elas")
+    void shouldSkipEmptyUidRangesWithoutPausing() throws MessagingException {
+        when(this.emailProcessor.connect(this.account)).thenReturn(this.store);
+        when(((UIDFolder) this.folder).getUIDNext()).thenReturn(1001L);
+        final var service = new RuleBackfillServiceImpl(
+            this.accountRepository,
+            this.emailProcessor,
+            new RuleEngine(ZoneOffset.UTC),
+            Runnable::run,
+            5,
+            200,
+            1
+        );
+
+        final var progress = assertTimeoutPreemptively(
+            Duration.ofSeconds(10),
+            () -> service.start(this.account.id(), this.rule.id())
+        );
+
+        assertThat(progress.status()).isEqualTo(RuleBackfillOutput.Status.COMPLETED);
+        assertThat(progress.scannedMessages()).isEqualTo(5);
+        assertThat(progress.matchedMessages()).isEqualTo(2);
+        assertThat(progress.nextUid()).isEqualTo(1001);
+        assertThat(progress.lastUid()).isEqualTo(1000);
+    }
+
+    @Test
+    @DisplayName("Deve descartar os backfills concluídos mais antigos além do limite")
+    void shouldEvictOldestFinishedBackfillsBeyondLimit() throws MessagingException {
+        when(this.emailProcessor.connect(this.account)).thenReturn(this.store);
+
+        this.backfillService.start(this.account.id(), this.rule.id());
+        this.backfillService.start(this.account.id(), this.otherRule.id());
+
+        assertThat(this.backfillService.findProgress(this.account.id(), this.otherRule.id()).matchedMessages()).isEqualTo(2);
+        assertThatThrownBy(() -> this.backfillService.findProgress(this.account.id(), this.rule.id()))
+            .isInstanceOf(EntityNotFoundException.class)
+            .hasMessage("Backfill not found");
+    }
+
+    @Test
+    @DisplayName("Deve lançar exceção ao consultar backfill inexistente")
+    void shouldThrowWhenBackfillDoesNotExist() {
+        assertThatThrownBy(() -> this.backfillService.findProgress(this.account.id(), UUID.randomUUID()))
+            .isInstanceOf(EntityNotFoundException.class)
+            .hasMessage("Backfill not found");
+    }
+
+}
@@ -0,0 +1,202 @@
+package dev.da0hn.email.management.system.core.service;
+
+import dev.da0hn.email.management.system.core.domain.ArchiveEmailRule;
+import dev.da0hn.email.management.system.core.domain.DeleteEmailRule;
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaOperator;
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaType;
+import dev.da0hn.email.management.system.core.domain.RuleMatchMode;
+import dev.da0hn.email.management.system.core.service.engine.MessageBody;
+import dev.da0hn.email.management.system.core.service.engine.MessageHeaders;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static dev.da0hn.email.management.system.core.service.engine.RuleFixtures.archive;
+import static dev.da0hn.email.management.system.core.service.engine.RuleFixtures.criteria;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RuleEngineTest {
+
+    private final RuleEngine ruleEngine = new RuleEngine(ZoneOffset.UTC);
+
+    private static long epoch(final String dateTime) {
+        return LocalDateTime.parse(dateTime).toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static MessageHeaders headers(final String from, final String subject, final String receivedAt) {
+        return new MessageHeaders(from, List.of("me@example.com"), subject, epoch(receivedAt));
+    }
+
+    @Test
+    @DisplayName("Deve casar regra quando todos os critérios são satisfeitos")
+    void shouldMatchRuleWhenAllCriteriaAreSatisfied() {
+        final var rule = archive(
+            "Newsletter",
+            criteria(RuleCriteriaType.FROM, RuleCriteriaOperator.ENDS_WITH, "@vendor.com"),
+            criteria(RuleCriteriaType.SUBJECT, RuleCriteriaOperator.CONTAINS, "newsletter")
+        );
+        final var matcher = this.ruleEngine.compile(Set.of(rule));
+
+        assertThat(matcher.match(headers("news@Vendor.com", "Weekly NEWSLETTER #42", "2024-05-01T10:00:00")))
+            .containsExactly(rule);
+        assertThat(matcher.match(headers("news@vendor.com", "Invoice", "2024-05-01T10:00:00")))
+            .isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve avaliar cada operador de texto sem diferenciar maiúsculas")
+    void shouldEvaluateTextOperatorsIgnoringCase() {
+        final var equals = archive("equals", criteria(RuleCriteriaType.FROM, RuleCriteriaOperator.EQUALS, "Boss@Corp.com"));
+        final var startsWith = archive("starts", criteria(RuleCriteriaType.SUBJECT, RuleCriteriaOperator.STARTS_WITH, "[alert]"));
+        final var recipient = archive("to", criteria(RuleCriteriaType.TO, RuleCriteriaOperator.EQUALS, "me@example.com"));
+        final var matcher = this.ruleEngine.compile(Set.of(equals, startsWith, recipient));
+
+        assertThat(matcher.match(headers("boss@corp.com", "[ALERT] disk full", "2024-05-01T10:00:00")))
+            .containsExactlyInAnyOrder(equals, startsWith, recipient);
+    }
+
+    @Test
+    @DisplayName("Deve avaliar critérios de data de recebimento")
+    void shouldEvaluateReceivedAtCriteria() {
+        final var after = archive("after", criteria(RuleCriteriaType.RECEIVED_AT, RuleCriteriaOperator.GREATER_THAN, "2024-01-01T00:00:00"));
+        final var onDay = archive("day", criteria(RuleCriteriaType.RECEIVED_AT, RuleCriteriaOperator.EQUALS, "2024-01-01"));
+        final var before = archive("before", criteria(RuleCriteriaType.RECEIVED_AT, RuleCriteriaOperator.LESS_THAN_OR_EQUALS, "2023-12-31"));
+        final var matcher = this.ruleEngine.compile(Set.of(after, onDay, before));
+
+        assertThat(matcher.match(headers("a@b.com", "x", "2024-01-01T12:00:00"))).containsExactlyInAnyOrder(after, onDay);
+        assertThat(matcher.match(headers("a@b.com", "x", "2023-12-31T23:59:59"))).containsExactly(before);
+        assertThat(matcher.match(new MessageHeaders("a@b.com", List.of(), "x", MessageHeaders.UNKNOWN_RECEIVED_AT))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve avaliar critérios de tamanho e de anexos")
+    void shouldEvaluateSizeAndAttachmentCriteria() {
+        final var large = archive("large", criteria(RuleCriteriaType.SIZE, RuleCriteriaOperator.GREATER_THAN, "10MB"));
+        final var withAttachment = archive("attached", criteria(RuleCriteriaType.HAS_ATTACHMENT, RuleCriteriaOperator.EQUALS, "true"));
+        final var withoutAttachment = archive("plain", criteria(RuleCriteriaType.HAS_ATTACHMENT, RuleCriteriaOperator.EQUALS, "False"));
+        final var image = archive("image", criteria(RuleCriteriaType.ATTACHMENT_TYPE, RuleCriteriaOperator.STARTS_WITH, "Image/"));
+        final var matcher = this.ruleEngine.compile(Set.of(large, withAttachment, withoutAttachment, image));
+        final long receivedAt = epoch("2024-01-01T12:00:00");
+
+        assertThat(matcher.match(new MessageHeaders("a@b.com", List.of(), "x", receivedAt, 12L << 20, List.of("text/plain", "image/png"))))
+            .containsExactlyInAnyOrder(large, withAttachment, image);
+        assertThat(matcher.match(new MessageHeaders("a@b.com", List.of(), "x", receivedAt, 10L << 20, List.of())))
+            .containsExactly(withoutAttachment);
+        assertThat(matcher.match(new MessageHeaders("a@b.com", List.of(), "x", receivedAt, MessageHeaders.UNKNOWN_SIZE, null)))
+            .isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve avaliar critérios de corpo apenas quando as demais condições da regra são satisfeitas")
+    void shouldEvaluateBodyCriteriaOnlyWhenRestOfRuleIsSatisfied() {
+        final var rule = archive(
+            "overdue",
+            criteria(RuleCriteriaType.FROM, RuleCriteriaOperator.ENDS_WITH, "@vendor.com"),
+            criteria(RuleCriteriaType.BODY, RuleCriteriaOperator.CONTAINS, "Payment   overdue")
+        );
+        final var unsupported = archive("equals", criteria(RuleCriteriaType.BODY, RuleCriteriaOperator.EQUALS, "x"));
+        final var matcher = this.ruleEngine.compile(Set.of(rule, unsupported));
+        final var scans = new AtomicInteger();
+        final MessageBody body = scanner -> {
+            scans.incrementAndGet();
+            scanner.scan(new ByteArrayInputStream("Your PAYMENT\r\nis overdue? Payment\n overdue!".getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8);
+        };
+        final long receivedAt = epoch("2024-01-01T12:00:00");
+
+        assertThat(matcher.match(new MessageHeaders("billing@vendor.com", List.of(), "x", receivedAt, 0, null, body)))
+            .containsExactly(rule);
+        assertThat(matcher.match(new MessageHeaders("friend@mail.org", List.of(), "x", receivedAt, 0, null, body)))
+            .isEmpty();
+        assertThat(scans).hasValue(1);
+        assertThat(matcher.match(new MessageHeaders("billing@vendor.com", List.of(), "x", receivedAt))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve ignorar regras sem critérios ou com critérios não suportados")
+    void shouldNeverMatchRulesWithoutOrWithUnsupportedCriteria() {
+        final var empty = DeleteEmailRule.newRule(UUID.randomUUID(), "empty", "empty", Set.of());
+        final var unsupported = archive("unsupported", criteria(RuleCriteriaType.SUBJECT, RuleCriteriaOperator.GREATER_THAN, "a"));
+        final var invalidDate = archive("invalid", criteria(RuleCriteriaType.RECEIVED_AT, RuleCriteriaOperator.GREATER_THAN, "yesterday"));
+        final var matcher = this.ruleEngine.compile(Set.of(empty, unsupported, invalidDate));
+
+        assertThat(matcher.match(headers("a@b.com", "zzz", "2024-01-01T12:00:00"))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve reutilizar o contexto entre mensagens")
+    void shouldReuseContextBetweenMessages() {
+        final var rule = archive("from", criteria(RuleCriteriaType.FROM, RuleCriteriaOperator.EQUALS, "a@b.com"));
+        final var matcher = this.ruleEngine.compile(Set.of(rule));
+        final var context = matcher.newContext();
+
+        matcher.evaluate(headers("a@b.com", "x", "2024-01-01T12:00:00"), context);
+        assertThat(context.matchCount()).isEqualTo(1);
+        assertThat(context.isMatched(0)).isTrue();
+
+        matcher.evaluate(headers("c@d.com", "x", "2024-01-01T12:00:00"), context);
+        assertThat(context.matchCount()).isZero();
+        assertThat(context.nextMatch(0)).isNegative();
+    }
+
+    @Test
+    @DisplayName("Deve normalizar endereços com nome de exibição nos critérios de igualdade")
+    void shouldNormalizeDisplayNamesForEqualsCriteria() {
+        final var blocked = archive("blocked", criteria(RuleCriteriaType.FROM, RuleCriteriaOperator.EQUALS, " Spammer <SPAM@evil.com> "));
+        final var domain = archive("domain", criteria(RuleCriteriaType.FROM, RuleCriteriaOperator.ENDS_WITH, "@evil.com"));
+        final var displayName = archive("display", criteria(RuleCriteriaType.FROM, RuleCriteriaOperator.CONTAINS, "spammer"));
+        final var matcher = this.ruleEngine.compile(Set.of(blocked, domain, displayName));
+
+        assertThat(matcher.match(headers("\"Evil, Spammer\" <spam@EVIL.com>", "x", "2024-01-01T12:00:00")))
+            .containsExactlyInAnyOrder(blocked, domain, displayName);
+        assertThat(matcher.match(headers("friend@evil.com.br", "x", "2024-01-01T12:00:00"))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve avaliar critérios de expressão regular sem diferenciar maiúsculas")
+    void shouldEvaluateRegexCriteriaIgnoringCase() {
+        final var ticket = archive("ticket", criteria(RuleCriteriaType.SUBJECT, RuleCriteriaOperator.MATCHES, "^\\[TICKET-\\d+\\]"));
+        final var invoice = archive("invoice", criteria(RuleCriteriaType.SUBJECT, RuleCriteriaOperator.MATCHES, "invoice (no\\.)? ?\\d{4,}$"));
+        final var sender = archive("sender", criteria(RuleCriteriaType.FROM, RuleCriteriaOperator.MATCHES, "@(billing|finance)\\.corp\\.com>?$"));
+        final var invalid = archive("invalid", criteria(RuleCriteriaType.SUBJECT, RuleCriteriaOperator.MATCHES, "(a)\\1"));
+        final var matcher = this.ruleEngine.compile(Set.of(ticket, invoice, sender, invalid));
+
+        assertThat(matcher.match(headers("Billing <pay@Billing.Corp.com>", "[ticket-123] Invoice No. 20240", "2024-01-01T12:00:00")))
+            .containsExactlyInAnyOrder(ticket, invoice, sender);
+        assertThat(matcher.match(headers("pay@billing.corp.com.br", "Re: [ticket-123] invoice 99", "2024-01-01T12:00:00")))
+            .isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve ordenar as regras por prioridade e parar na primeira que casar no modo FIRST_MATCH")
+    void shouldOrderRulesByPriorityAndStopAtFirstMatch() {
+        final var vendor = criteria(RuleCriteriaType.FROM, RuleCriteriaOperator.ENDS_WITH, "@vendor.com");
+        final var low = ArchiveEmailRule.newRule(UUID.randomUUID(), "low", "low", Set.of(vendor), Set.of(), 5);
+        final var high = DeleteEmailRule.newRule(UUID.randomUUID(), "high", "high", Set.of(vendor), Set.of(), 1);
+        final var other = ArchiveEmailRule.newRule(
+            UUID.randomUUID(),
+            "other",
+            "other",
+            Set.of(criteria(RuleCriteriaType.SUBJECT, RuleCriteriaOperator.CONTAINS, "invoice")),
+            Set.of(),
+            0
+        );
+        final var message = headers("news@vendor.com", "Invoice #42", "2024-05-01T10:00:00");
+
+        final var allMatches = this.ruleEngine.compile(Set.of(low, high, other), RuleMatchMode.ALL_MATCHES, null);
+        final var firstMatch = this.ruleEngine.compile(Set.of(low, high, other), RuleMatchMode.FIRST_MATCH, null);
+
+        assertThat(allMatches.rules()).containsExactly(other, high, low);
+        assertThat(allMatches.match(message)).containsExactly(other, high, low);
+        assertThat(firstMatch.match(message)).containsExactly(other);
+        assertThat(firstMatch.match(headers("news@vendor.com", "Weekly", "2024-05-01T10:00:00"))).containsExactly(high);
+    }
+
+}
@@ -0,0 +1,130 @@
+package dev.da0hn.email.management.system.core.service;
+
+import dev.da0hn.email.management.system.core.domain.Account;
+import dev.da0hn.email.management.system.core.domain.AccountCredentials;
+import dev.da0hn.email.management.system.core.domain.ArchiveEmailRule;
+import dev.da0hn.email.management.system.core.domain.EmailConnectionDetails;
+import dev.da0hn.email.management.system.core.domain.Rule;
+import dev.da0hn.email.management.system.core.domain.RuleCriteria;
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaOperator;
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RuleMatcherCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private RuleMatcherCache cache;
+
+    private static Account account(final UUID id, final LocalDateTime updatedAt, final int criteriaCount) {
+        final var criteria = new HashSet<RuleCriteria>();
+        for (int i = 0; i < criteriaCount; i++) {
+            criteria.add(new RuleCriteria(UUID.randomUUID(), "keyword" + i, RuleCriteriaType.SUBJECT, RuleCriteriaOperator.CONTAINS));
+        }
+        return Account.builder()
+            .id(id)
+            .name("John Doe")
+            .createdAt(updatedAt)
+            .updatedAt(updatedAt)
+            .accountCredentials(AccountCredentials.builder()
+                                    .email("john@example.com")
+                                    .password("encrypted_password")
+                                    .build())
+            .emailConnectionDetails(EmailConnectionDetails.builder()
+                                        .host("imap.example.com")
+                                        .port(993)
+                                        .protocol("imaps")
+                                        .build())
+            .rules(new HashSet<>(Set.<Rule>of(ArchiveEmailRule.newRule(UUID.randomUUID(), "rule", "rule", criteria))))
+            .build();
+    }
+
+    private double count(final String result) {
+        return this.meterRegistry.counter("rules.matcher.cache", "result", result).count();
+    }
+
+    @BeforeEach
+    void setUp() {
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.cache = new RuleMatcherCache(new RuleEngine(ZoneOffset.UTC), this.meterRegistry, 10);
+    }
+
+    @Test
+    @DisplayName("Deve reutilizar o matcher enquanto a versão da conta não mudar")
+    void shouldReuseMatcherWhileAccountVersionIsUnchanged() {
+        final var id = UUID.randomUUID();
+        final var version = LocalDateTime.of(2024, 1, 1, 10, 0);
+
+        final var first = this.cache.matcherFor(account(id, version, 1));
+        final var second = this.cache.matcherFor(account(id, version, 1));
+        final var updated = this.cache.matcherFor(account(id, version.plusSeconds(1), 2));
+
+        assertThat(second).isSameAs(first);
+        assertThat(updated).isNotSameAs(first);
+        assertThat(updated.rules().getFirst().criteria()).hasSize(2);
+        assertThat(this.count("hit")).isEqualTo(1);
+        assertThat(this.count("miss")).isEqualTo(2);
+        assertThat(this.cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve guardar o plano de busca IMAP junto com o matcher")
+    void shouldCacheSearchPlanAlongsideMatcher() {
+        final var id = UUID.randomUUID();
+        final var version = LocalDateTime.of(2024, 1, 1, 10, 0);
+
+        final var first = this.cache.compiledFor(account(id, version, 1));
+        final var second = this.cache.compiledFor(account(id, version, 1));
+
+        assertThat(first.searchPlan().isEmpty()).isFalse();
+        assertThat(second.searchPlan()).isSameAs(first.searchPlan());
+        assertThat(second.matcher()).isSameAs(first.matcher());
+    }
+
+    @Test
+    @DisplayName("Deve descartar a entrada da conta ao ser invalidada")
+    void shouldDropEntryWhenEvicted() {
+        final var id = UUID.randomUUID();
+        final var version = LocalDateTime.of(2024, 1, 1, 10, 0);
+
+        final var first = this.cache.matcherFor(account(id, version, 1));
+        this.cache.evict(id);
+
+        assertThat(this.cache.size()).isZero();
+        assertThat(this.cache.weight()).isZero();
+        assertThat(this.cache.matcherFor(account(id, version, 1))).isNotSameAs(first);
+    }
+
+    @Test
+    @DisplayName("Deve remover as entradas menos usadas ao exceder o peso máximo")
+    void shouldEvictLeastRecentlyUsedEntriesWhenOverWeight() {
+        final var version = LocalDateTime.of(2024, 1, 1, 10, 0);
+        final var eldest = account(UUID.randomUUID(), version, 3);
+        final var recent = account(UUID.randomUUID(), version, 3);
+        final var newest = account(UUID.randomUUID(), version, 3);
+
+        this.cache.matcherFor(eldest);
+        this.cache.matcherFor(recent);
+        this.cache.matcherFor(eldest);
+        this.cache.matcherFor(newest);
+
+        assertThat(this.cache.size()).isEqualTo(2);
+        assertThat(this.cache.weight()).isEqualTo(8);
+        assertThat(this.meterRegistry.counter("rules.matcher.cache.evictions").count()).isEqualTo(1);
+
+        this.cache.matcherFor(eldest);
+        assertThat(this.count("hit")).isEqualTo(2);
+    }
+
+}
@@ -0,0 +1,187 @@
+package dev.da0hn.email.management.system.core.service;
+
+import dev.da0hn.email.management.system.core.domain.Account;
+import dev.da0hn.email.management.system.core.domain.AccountCredentials;
+import dev.da0hn.email.management.system.core.domain.ArchiveEmailRule;
+import dev.da0hn.email.management.system.core.domain.EmailConnectionDetails;
+import dev.da0hn.email.management.system.core.domain.Rule;
+import dev.da0hn.email.management.system.core.domain.RuleCriteria;
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaOperator;
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaType;
+import dev.da0hn.email.management.system.core.ports.api.InvalidCorpusException;
+import dev.da0hn.email.management.system.core.ports.spi.AccountRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RuleSimulationServiceImplTest {
+
+    private Account account;
+
+    private Rule boss;
+
+    private Rule overdue;
+
+    private RuleSimulationServiceImpl simulationService;
+
+    @BeforeEach
+    void setUp() {
+        this.boss = ArchiveEmailRule.newRule(
+            UUID.randomUUID(),
+            "Boss",
+            "Archive boss messages",
+            Set.of(new RuleCriteria(UUID.randomUUID(), "boss@corp.com", RuleCriteriaType.FROM, RuleCriteriaOperator.EQUALS)),
+            Set.of(),
+            0
+        );
+        this.overdue = ArchiveEmailRule.newRule(
+            UUID.randomUUID(),
+            "Overdue",
+            "Archive overdue payment reminders",
+            Set.of(new RuleCriteria(UUID.randomUUID(), "payment overdue", RuleCriteriaType.BODY, RuleCriteriaOperator.CONTAINS)),
+            Set.of(),
+            1
+        );
+        this.account = Account.builder()
+            .id(UUID.randomUUID())
+            .name("John Doe")
+            .createdAt(LocalDateTime.now())
+            .updatedAt(LocalDateTime.now())
+            .accountCredentials(AccountCredentials.builder()
+                                    .email("john@example.com")
+                                    .password("encrypted_password")
+                                    .build())
+            .emailConnectionDetails(EmailConnectionDetails.builder()
+                                        .host("imap.example.com")
+                                        .port(993)
+                                        .protocol("imaps")
+                                        .build())
+            .rules(Set.of(this.boss, this.overdue))
+            .build();
+
+        final var accountRepository = mock(AccountRepository.class);
+        when(accountRepository.findById(this.account.id())).thenReturn(Optional.of(this.account));
+        this.simulationService = new RuleSimulationServiceImpl(
+            accountRepository,
+            new RuleMatcherCache(new RuleEngine(ZoneOffset.UTC), new SimpleMeterRegistry(), 10),
+            2,
+            4096
+        );
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        this.simulationService.shutdown();
+    }
+
+    private static String message(final int index) {
+        final var from = index % 3 == 0 ? "Boss <boss@corp.com>" : "billing@vendor.com";
+        final var body = index % 5 == 0 ? "Your payment\r\nis overdue. Payment\r\n  overdue!" : "Hello";
+        return "From: " + from + "\r\n"
+            + (index % 2 == 0 ? "Message-ID: <" + index + "@corp.com>\r\n" : "")
+            + "Subject: message " + index + "\r\n"
+            + "Date: Mon, 1 Jan 2024 10:00:00 +0000\r\n"
+            + "\r\n"
+            + body + "\r\n"
+            + ">From the desk of the sender\r\n";
+    }
+
+    @Test
+    @DisplayName("Deve contar acertos por regra em um mbox processado em paralelo")
+    void shouldCountRuleHitsOverMboxInParallel() {
+        final int count = 1_500;
+        final var mbox = new StringBuilder();
+        for (int i = 1; i <= count; i++) {
+            mbox.append("From sender@example.com Mon Jan  1 10:00:00 2024\r\n").append(message(i)).append("\r\n");
+        }
+
+        final var output = this.simulationService.simulate(
+            this.account.id(),
+            new ByteArrayInputStream(mbox.toString().getBytes(StandardCharsets.UTF_8))
+        );
+
+        assertThat(output.accountId()).isEqualTo(this.account.id());
+        assertThat(output.messages()).isEqualTo(count);
+        assertThat(output.failedMessages()).isZero();
+        assertThat(output.messagesPerSecond()).isPositive();
+        assertThat(output.rules()).hasSize(2);
+        final var bossHits = output.rules().get(0);
+        assertThat(bossHits.ruleId()).isEqualTo(this.boss.id());
+        assertThat(bossHits.hits()).isEqualTo(count / 3);
+        assertThat(bossHits.exampleMessageIds()).hasSize(RuleSimulationServiceImpl.MAX_EXAMPLES)
+            .allMatch(id -> id.matches("<\\d+@corp\\.com>|#\\d+"));
+        final var overdueHits = output.rules().get(1);
+        assertThat(overdueHits.ruleId()).isEqualTo(this.overdue.id());
+        assertThat(overdueHits.hits()).isEqualTo(count / 5);
+    }
+
+    @Test
+    @DisplayName("Deve ler apenas arquivos EML de um zip e ignorar mensagens acima do limite de tamanho")
+    void shouldReadEmlEntriesOfZipAndSkipOversizedMessages() throws IOException {
+        final var zip = new ByteArrayOutputStream();
+        try (final var output = new ZipOutputStream(zip)) {
+            output.putNextEntry(new ZipEntry("inbox/"));
+            output.putNextEntry(new ZipEntry("inbox/1.eml"));
+            output.write(message(3).getBytes(StandardCharsets.UTF_8));
+            output.putNextEntry(new ZipEntry("inbox/2.EML"));
+            output.write(message(5).getBytes(StandardCharsets.UTF_8));
+            output.putNextEntry(new ZipEntry("inbox/large.eml"));
+            output.write((message(6) + "x".repeat(5000)).getBytes(StandardCharsets.UTF_8));
+            output.putNextEntry(new ZipEntry("inbox/notes.txt"));
+            output.write("not a message".getBytes(StandardCharsets.UTF_8));
+        }
+
+        final var output = this.simulationService.simulate(this.account.id(), new ByteArrayInputStream(zip.toByteArray()));
+
+        assertThat(output.messages()).isEqualTo(2);
+        assertThat(output.failedMessages()).isEqualTo(1);
+        assertThat(output.rules().get(0).exampleMessageIds()).containsExactly("#1");
+        assertThat(output.rules().get(1).exampleMessageIds()).containsExactly("#2");
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar mbox com linha maior que o limite de tamanho de mensagem")
+    void shouldRejectMboxLineLongerThanMessageLimit() {
+        final var mbox = "From sender@example.com Mon Jan  1 10:00:00 2024\r\n" + message(1) + "\r\n"
+            + "From sender@example.com Mon Jan  1 10:00:00 2024\r\n" + "x".repeat(10_000);
+        final var corpus = new ByteArrayInputStream(mbox.getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> this.simulationService.simulate(this.account.id(), corpus))
+            .isInstanceOf(InvalidCorpusException.class)
+            .hasMessage("Could not read corpus: Mbox line longer than 4096 bytes");
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar corpus que não é mbox nem zip e conta inexistente")
+    void shouldRejectUnknownCorpusFormatAndMissingAccount() {
+        final var corpus = new ByteArrayInputStream(message(1).getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> this.simulationService.simulate(this.account.id(), corpus))
+            .isInstanceOf(InvalidCorpusException.class)
+            .hasMessage("Corpus must be an mbox or a zip of EML files");
+        assertThatThrownBy(() -> this.simulationService.simulate(UUID.randomUUID(), corpus))
+            .isInstanceOf(EntityNotFoundException.class)
+            .hasMessage("Account not found");
+    }
+
+}
@@ -0,0 +1,48 @@
+package dev.da0hn.email.management.system.core.service.engine;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AffixTrieIndexTest {
+
+    private static BitSet walk(final AffixTrieIndex index, final String value) {
+        final var satisfied = new BitSet();
+        index.collect(value, satisfied);
+        return satisfied;
+    }
+
+    @Test
+    @DisplayName("Deve coletar todos os sufixos que casam com o remetente")
+    void shouldCollectEveryMatchingSuffix() {
+        final var builder = new AffixTrieIndex.Builder(AffixTrieIndex.Direction.SUFFIX);
+        builder.add(".com", 0);
+        builder.add("@vendor.com", 1);
+        builder.add("@mail.vendor.com", 2);
+        builder.add("@other.com", 3);
+        builder.add("vendor.com", 4);
+        final var index = builder.build();
+
+        assertThat(walk(index, "billing@mail.vendor.com").stream()).containsExactlyInAnyOrder(0, 2, 4);
+        assertThat(walk(index, "sales@vendor.com").stream()).containsExactlyInAnyOrder(0, 1, 4);
+        assertThat(walk(index, "sales@vendor.com.br").isEmpty()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Deve coletar todos os prefixos que casam com o assunto")
+    void shouldCollectEveryMatchingPrefix() {
+        final var builder = new AffixTrieIndex.Builder(AffixTrieIndex.Direction.PREFIX);
+        builder.add("[alert]", 0);
+        builder.add("[alert] prod", 1);
+        builder.add("re:", 2);
+        final var index = builder.build();
+
+        assertThat(walk(index, "[alert] production down").stream()).containsExactlyInAnyOrder(0, 1);
+        assertThat(walk(index, "re: [alert]").stream()).containsExactly(2);
+        assertThat(walk(index, "[aler").isEmpty()).isTrue();
+    }
+
+}
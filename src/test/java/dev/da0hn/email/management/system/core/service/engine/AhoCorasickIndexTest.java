@@ -0,0 +1,57 @@
+package dev.da0hn.email.management.system.core.service.engine;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AhoCorasickIndexTest {
+
+    private static BitSet scan(final AhoCorasickIndex index, final String text) {
+        final var satisfied = new BitSet();
+        index.collect(text, satisfied);
+        return satisfied;
+    }
+
+    @Test
+    @DisplayName("Deve reportar padrões sobrepostos em uma única varredura")
+    void shouldReportOverlappingPatternsInSingleScan() {
+        final var builder = new AhoCorasickIndex.Builder();
+        builder.add("he", 0);
+        builder.add("she", 1);
+        builder.add("his", 2);
+        builder.add("hers", 3);
+        final var index = builder.build();
+
+        assertThat(scan(index, "ushers").stream()).containsExactlyInAnyOrder(0, 1, 3);
+        assertThat(scan(index, "this")).isEqualTo(BitSet.valueOf(new long[] { 0b100 }));
+        assertThat(scan(index, "nothing").isEmpty()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Deve ignorar maiúsculas no texto e nos padrões")
+    void shouldIgnoreCase() {
+        final var builder = new AhoCorasickIndex.Builder();
+        builder.add("Unsubscribe", 7);
+        builder.add("promoção", 8);
+        final var index = builder.build();
+
+        assertThat(scan(index, "Click to UNSUBSCRIBE now").stream()).containsExactly(7);
+        assertThat(scan(index, "Grande PROMOÇÃO").stream()).containsExactly(8);
+    }
+
+    @Test
+    @DisplayName("Deve compartilhar slots entre padrões que são sufixos de outros")
+    void shouldReportSuffixPatternsThroughDictionaryLinks() {
+        final var builder = new AhoCorasickIndex.Builder();
+        IntStream.range(0, 2000).forEach(i -> builder.add("keyword" + i, i));
+        builder.add("word1", 2000);
+        final var index = builder.build();
+
+        assertThat(scan(index, "subject with keyword1999 inside").stream()).containsExactlyInAnyOrder(1, 19, 199, 1999, 2000);
+    }
+
+}
@@ -0,0 +1,80 @@
+package dev.da0hn.email.management.system.core.service.engine;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BodyCriteriaGroupTest {
+
+    private static BodyCriteriaGroup group(final long scanLimit, final String... patterns) {
+        final var builder = new BodyCriteriaGroup.Builder();
+        for (int slot = 0; slot < patterns.length; slot++) {
+            builder.add(slot, patterns[slot]);
+        }
+        return builder.build(scanLimit);
+    }
+
+    /**
+     * Body made of the given text parts, recording the parts the scanner asked for.
+     */
+    private static MessageBody body(final List<String> scanned, final String... parts) {
+        return scanner -> {
+            for (final var part : parts) {
+                scanned.add(part);
+                if (!scanner.scan(new ByteArrayInputStream(part.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8)) return;
+            }
+        };
+    }
+
+    private static BitSet scan(final BodyCriteriaGroup group, final MessageBody body) {
+        final var satisfied = new BitSet();
+        group.collect(body, satisfied);
+        return satisfied;
+    }
+
+    @Test
+    @DisplayName("Deve abandonar a leitura do corpo assim que todos os padrões forem encontrados")
+    void shouldStopReadingOnceEveryPatternIsFound() {
+        final var group = group(1 << 20, "invoice", "due date");
+        final var scanned = new ArrayList<String>();
+
+        final var satisfied = scan(group, body(scanned, "Your INVOICE is attached.", "Due\r\n   Date: tomorrow", "Signature"));
+
+        assertThat(satisfied.stream()).containsExactly(0, 1);
+        assertThat(scanned).hasSize(2);
+        assertThat(scan(group, body(new ArrayList<>(), "invoice", "due", "date")).stream()).containsExactly(0);
+    }
+
+    @Test
+    @DisplayName("Deve ler no máximo o limite de bytes por mensagem, somando as partes")
+    void shouldReadAtMostScanLimitBytesAcrossParts() {
+        final var scanned = new ArrayList<String>();
+
+        assertThat(scan(group(12, "keyword"), body(scanned, "0123456789", "keyword", "keyword")).isEmpty()).isTrue();
+        assertThat(scanned).hasSize(2);
+        assertThat(scan(group(17, "keyword"), body(new ArrayList<>(), "0123456789", "keyword")).stream()).containsExactly(0);
+        assertThat(scan(group(0, "keyword"), body(new ArrayList<>(), "keyword")).isEmpty()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Deve manter os padrões já encontrados quando a leitura do corpo falha")
+    void shouldKeepPatternsFoundBeforeReadFailure() {
+        final var group = group(1 << 20, "invoice", "overdue");
+        final MessageBody failing = scanner -> {
+            scanner.scan(new ByteArrayInputStream("invoice".getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8);
+            throw new IOException("connection reset");
+        };
+
+        assertThat(scan(group, failing).stream()).containsExactly(0);
+        assertThat(scan(group, null).isEmpty()).isTrue();
+    }
+
+}
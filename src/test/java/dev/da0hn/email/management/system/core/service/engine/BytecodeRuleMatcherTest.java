@@ -0,0 +1,114 @@
+package dev.da0hn.email.management.system.core.service.engine;
+
+import dev.da0hn.email.management.system.core.domain.ArchiveEmailRule;
+import dev.da0hn.email.management.system.core.domain.Rule;
+import dev.da0hn.email.management.system.core.domain.RuleCriteria;
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaGroup;
+import dev.da0hn.email.management.system.core.domain.RuleMatchMode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static dev.da0hn.email.management.system.core.service.engine.RuleFixtures.randomCriteria;
+import static dev.da0hn.email.management.system.core.service.engine.RuleFixtures.randomGroup;
+import static dev.da0hn.email.management.system.core.service.engine.RuleFixtures.randomHeaders;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BytecodeRuleMatcherTest {
+
+    @Test
+    @DisplayName("Deve casar as mesmas regras que o matcher interpretado")
+    void shouldMatchSameRulesAsInterpretedMatcher() {
+        final var random = new Random(42);
+        final var rules = new ArrayList<Rule>();
+        for (int i = 0; i < 400; i++) {
+            final var criteria = new HashSet<RuleCriteria>();
+            final int count = random.nextInt(4);
+            for (int j = 0; j < count; j++) {
+                criteria.add(randomCriteria(random));
+            }
+            rules.add(ArchiveEmailRule.newRule(UUID.randomUUID(), "rule" + i, "rule" + i, criteria));
+        }
+
+        final var interpreted = InterpretedRuleMatcher.compile(rules, ZoneOffset.UTC);
+        final var bytecode = BytecodeRuleMatcher.compile(rules, ZoneOffset.UTC);
+
+        assertThat(bytecode.rules()).isEqualTo(interpreted.rules());
+        for (int i = 0; i < 2000; i++) {
+            final var headers = randomHeaders(random);
+            assertThat(bytecode.match(headers)).isEqualTo(interpreted.match(headers));
+        }
+    }
+
+    @Test
+    @DisplayName("Deve casar as mesmas regras com grupos aninhados que o matcher interpretado")
+    void shouldMatchSameGroupedRulesAsInterpretedMatcher() {
+        final var random = new Random(7);
+        final var rules = new ArrayList<Rule>();
+        for (int i = 0; i < 200; i++) {
+            final var criteria = new HashSet<RuleCriteria>();
+            if (random.nextBoolean()) {
+                criteria.add(randomCriteria(random));
+            }
+            final var groups = new HashSet<RuleCriteriaGroup>();
+            groups.add(randomGroup(random, 2));
+            rules.add(ArchiveEmailRule.newRule(UUID.randomUUID(), "rule" + i, "rule" + i, criteria, groups));
+        }
+
+        final var interpreted = InterpretedRuleMatcher.compile(rules, ZoneOffset.UTC);
+        final var bytecode = BytecodeRuleMatcher.compile(rules, ZoneOffset.UTC);
+
+        var matched = 0;
+        for (int i = 0; i < 2000; i++) {
+            final var headers = randomHeaders(random);
+            final var expected = interpreted.match(headers);
+            assertThat(bytecode.match(headers)).isEqualTo(expected);
+            matched += expected.size();
+        }
+        assertThat(matched).isPositive();
+    }
+
+    @Test
+    @DisplayName("Deve parar na primeira regra casada por prioridade como o matcher interpretado")
+    void shouldStopAtFirstMatchLikeInterpretedMatcher() {
+        final var random = new Random(11);
+        final var rules = new ArrayList<Rule>();
+        for (int i = 0; i < 300; i++) {
+            final var criteria = new HashSet<RuleCriteria>();
+            criteria.add(randomCriteria(random));
+            rules.add(ArchiveEmailRule.newRule(UUID.randomUUID(), "rule" + i, "rule" + i, criteria, new HashSet<>(), random.nextInt(10)));
+        }
+
+        final var allMatches = InterpretedRuleMatcher.compile(rules, ZoneOffset.UTC, RuleMatcherSettings.DEFAULT, RuleMatchMode.ALL_MATCHES, null);
+        final var interpreted = InterpretedRuleMatcher.compile(rules, ZoneOffset.UTC, RuleMatcherSettings.DEFAULT, RuleMatchMode.FIRST_MATCH, null);
+        final var bytecode = BytecodeRuleMatcher.compile(rules, ZoneOffset.UTC, RuleMatcherSettings.DEFAULT, RuleMatchMode.FIRST_MATCH, null);
+
+        var matched = 0;
+        for (int i = 0; i < 2000; i++) {
+            final var headers = randomHeaders(random);
+            final var expected = allMatches.match(headers).stream().limit(1).toList();
+            assertThat(interpreted.match(headers)).isEqualTo(expected);
+            assertThat(bytecode.match(headers)).isEqualTo(expected);
+            matched += expected.size();
+        }
+        assertThat(matched).isPositive();
+    }
+
+    @Test
+    @DisplayName("Deve gerar uma classe oculta independente por conjunto de regras")
+    void shouldGenerateIndependentHiddenClassPerRuleSet() {
+        final var first = BytecodeRuleMatcher.compile(List.of(), ZoneOffset.UTC);
+        final var second = BytecodeRuleMatcher.compile(List.of(), ZoneOffset.UTC);
+
+        assertThat(first.evaluatorClass().isHidden()).isTrue();
+        assertThat(first.evaluatorClass()).isNotEqualTo(second.evaluatorClass());
+        assertThat(first.match(randomHeaders(new Random(1)))).isEmpty();
+    }
+
+}
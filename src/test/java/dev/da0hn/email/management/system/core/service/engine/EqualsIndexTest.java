@@ -0,0 +1,71 @@
+package dev.da0hn.email.management.system.core.service.engine;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EqualsIndexTest {
+
+    @Test
+    @DisplayName("Deve encontrar os slots de um endereço normalizado")
+    void shouldFindSlotsOfNormalizedAddress() {
+        final var builder = new EqualsIndex.Builder();
+        IntStream.range(0, 10_000).forEach(i -> builder.add(HeaderNormalization.ADDRESS.apply("User" + i + "@Spam.com"), i));
+        builder.add(HeaderNormalization.ADDRESS.apply("Someone <user42@spam.com>"), 10_000);
+        final var index = builder.build(BloomFilterSettings.DEFAULT, null);
+
+        final var satisfied = new BitSet();
+        index.collect(HeaderNormalization.ADDRESS.apply("\"User 42\" <USER42@spam.com>"), satisfied);
+
+        assertThat(satisfied.stream()).containsExactly(42, 10_000);
+    }
+
+    @Test
+    @DisplayName("Deve ignorar endereços desconhecidos")
+    void shouldIgnoreUnknownAddresses() {
+        final var builder = new EqualsIndex.Builder();
+        builder.add("user@spam.com", 0);
+        final var index = builder.build(BloomFilterSettings.DEFAULT, null);
+
+        final var satisfied = new BitSet();
+        index.collect("user@spam.com.br", satisfied);
+
+        assertThat(satisfied.isEmpty()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Deve filtrar listas grandes com Bloom filter e estendê-lo quando regras são adicionadas")
+    void shouldPrefilterLargeListsAndExtendCopyOfFilterWhenRulesAreAdded() {
+        final var settings = new BloomFilterSettings(1_000, 0.01);
+        final var builder = new EqualsIndex.Builder();
+        IntStream.range(0, 1_000).forEach(i -> builder.add("blocked" + i + "@spam.com", i));
+        final var index = builder.build(settings, null);
+        assertThat(index.prefilter()).isNotNull();
+
+        final var satisfied = new BitSet();
+        IntStream.range(0, 1_000).forEach(i -> index.collect("blocked" + i + "@spam.com", satisfied));
+        assertThat(satisfied.cardinality()).isEqualTo(1_000);
+        final long falsePositives = IntStream.range(0, 10_000)
+            .filter(i -> index.prefilter().mightContain("legit" + i + "@corp.com"))
+            .count();
+        assertThat(falsePositives).isLessThan(300);
+
+        builder.add("late@spam.com", 1_000);
+        final var extended = builder.build(settings, index);
+        assertThat(extended.prefilter()).isNotSameAs(index.prefilter());
+        assertThat(extended.prefilter().size()).isEqualTo(1_001);
+        assertThat(index.prefilter().size()).isEqualTo(1_000);
+        final var late = new BitSet();
+        extended.collect("late@spam.com", late);
+        assertThat(late.stream()).containsExactly(1_000);
+
+        final var small = new EqualsIndex.Builder();
+        small.add("user@spam.com", 0);
+        assertThat(small.build(settings, null).prefilter()).isNull();
+    }
+
+}
@@ -0,0 +1,42 @@
+package dev.da0hn.email.management.system.core.service.engine;
+
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaType;
+import jakarta.mail.FetchProfile;
+import jakarta.mail.UIDFolder;
+import org.eclipse.angus.mail.imap.IMAPFolder;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImapFetchProfilesTest {
+
+    @Test
+    @DisplayName("Deve buscar apenas o cabeçalho From e a data interna para regras de remetente e data")
+    void shouldFetchOnlyFromHeaderAndInternalDate() {
+        final var profile = ImapFetchProfiles.forCriteriaTypes(Set.of(RuleCriteriaType.FROM, RuleCriteriaType.RECEIVED_AT));
+
+        assertThat(profile.getHeaderNames()).containsExactly("From");
+        assertThat(profile.getItems()).containsExactlyInAnyOrder(
+            UIDFolder.FetchProfileItem.UID, IMAPFolder.FetchProfileItem.INTERNALDATE
+        );
+        assertThat(profile.contains(FetchProfile.Item.ENVELOPE)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve buscar o BODYSTRUCTURE uma única vez para critérios de anexo e corpo")
+    void shouldFetchBodyStructureOnceForAttachmentAndBodyCriteria() {
+        final var profile = ImapFetchProfiles.forCriteriaTypes(EnumSet.of(
+            RuleCriteriaType.SIZE, RuleCriteriaType.HAS_ATTACHMENT, RuleCriteriaType.ATTACHMENT_TYPE, RuleCriteriaType.BODY
+        ));
+
+        assertThat(profile.getHeaderNames()).isEmpty();
+        assertThat(profile.getItems()).containsExactlyInAnyOrder(
+            UIDFolder.FetchProfileItem.UID, FetchProfile.Item.SIZE, FetchProfile.Item.CONTENT_INFO
+        );
+    }
+
+}
@@ -0,0 +1,156 @@
+package dev.da0hn.email.management.system.core.service.engine;
+
+import dev.da0hn.email.management.system.core.domain.ArchiveEmailRule;
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaGroup;
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaGroupOperator;
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaOperator;
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaType;
+import jakarta.mail.search.AndTerm;
+import jakarta.mail.search.ComparisonTerm;
+import jakarta.mail.search.FromStringTerm;
+import jakarta.mail.search.OrTerm;
+import jakarta.mail.search.ReceivedDateTerm;
+import jakarta.mail.search.SizeTerm;
+import jakarta.mail.search.SubjectTerm;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static dev.da0hn.email.management.system.core.service.engine.RuleFixtures.archive;
+import static dev.da0hn.email.management.system.core.service.engine.RuleFixtures.criteria;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImapSearchTranslatorTest {
+
+    @Test
+    @DisplayName("Deve traduzir critérios de uma regra para uma conjunção IMAP")
+    void shouldTranslateRuleCriteriaIntoConjunction() {
+        final var rule = archive(
+            criteria(RuleCriteriaType.FROM, RuleCriteriaOperator.EQUALS, "Boss <Boss@Corp.com>"),
+            criteria(RuleCriteriaType.SUBJECT, RuleCriteriaOperator.STARTS_WITH, "[Alert]")
+        );
+
+        final var plan = ImapSearchTranslator.translate(List.of(rule), ZoneOffset.UTC);
+
+        assertThat(plan.fullScan()).isFalse();
+        assertThat(plan.terms()).singleElement()
+            .isInstanceOfSatisfying(AndTerm.class, term -> assertThat(term.getTerms())
+                .containsExactlyInAnyOrder(new FromStringTerm("boss@corp.com"), new SubjectTerm("[alert]")));
+    }
+
+    @Test
+    @DisplayName("Deve combinar regras com OR e ampliar datas em um dia")
+    void shouldCombineRulesWithOrAndWidenDates() {
+        final var sender = archive(criteria(RuleCriteriaType.FROM, RuleCriteriaOperator.ENDS_WITH, "@vendor.com"));
+        final var recent = archive(criteria(RuleCriteriaType.RECEIVED_AT, RuleCriteriaOperator.GREATER_THAN_OR_EQUALS, "2024-01-10"));
+
+        final var plan = ImapSearchTranslator.translate(List.of(sender, recent), ZoneOffset.UTC);
+
+        final var since = Date.from(LocalDate.parse("2024-01-09").atStartOfDay(ZoneOffset.UTC).toInstant());
+        assertThat(plan.terms()).singleElement()
+            .isInstanceOfSatisfying(OrTerm.class, term -> assertThat(term.getTerms())
+                .containsExactly(new FromStringTerm("@vendor.com"), new ReceivedDateTerm(ComparisonTerm.GE, since)));
+    }
+
+    @Test
+    @DisplayName("Deve traduzir grupos OR e ignorar grupos NOT na busca IMAP")
+    void shouldTranslateOrGroupsAndLeaveNotGroupsUnrestricted() {
+        final var vendor = criteria(RuleCriteriaType.FROM, RuleCriteriaOperator.ENDS_WITH, "@vendor.com");
+        final var invoice = criteria(RuleCriteriaType.SUBJECT, RuleCriteriaOperator.CONTAINS, "Invoice");
+        final var draft = criteria(RuleCriteriaType.SUBJECT, RuleCriteriaOperator.CONTAINS, "draft");
+        final var rule = ArchiveEmailRule.newRule(
+            UUID.randomUUID(), "rule", "rule", Set.of(),
+            Set.of(
+                new RuleCriteriaGroup(UUID.randomUUID(), RuleCriteriaGroupOperator.OR, Set.of(vendor, invoice), Set.of()),
+                new RuleCriteriaGroup(UUID.randomUUID(), RuleCriteriaGroupOperator.NOT, Set.of(draft), Set.of())
+            )
+        );
+        final var onlyNot = ArchiveEmailRule.newRule(
+            UUID.randomUUID(), "rule", "rule", Set.of(),
+            Set.of(new RuleCriteriaGroup(UUID.randomUUID(), RuleCriteriaGroupOperator.NOT, Set.of(draft), Set.of()))
+        );
+
+        final var plan = ImapSearchTranslator.translate(List.of(rule), ZoneOffset.UTC);
+
+        assertThat(plan.terms()).singleElement()
+            .isInstanceOfSatisfying(OrTerm.class, term -> assertThat(term.getTerms())
+                .containsExactlyInAnyOrder(new FromStringTerm("@vendor.com"), new SubjectTerm("invoice")));
+        assertThat(ImapSearchTranslator.translate(List.of(rule, onlyNot), ZoneOffset.UTC).fullScan()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Deve traduzir critérios de tamanho e deixar critérios de anexo para o cliente")
+    void shouldTranslateSizeCriteriaAndLeaveAttachmentCriteriaUnrestricted() {
+        final var large = archive(criteria(RuleCriteriaType.SIZE, RuleCriteriaOperator.GREATER_THAN, "10MB"));
+        final var small = archive(criteria(RuleCriteriaType.SIZE, RuleCriteriaOperator.LESS_THAN, "1 kb"));
+        final var exact = archive(criteria(RuleCriteriaType.SIZE, RuleCriteriaOperator.EQUALS, "2048"));
+        final var pdf = archive(criteria(RuleCriteriaType.ATTACHMENT_TYPE, RuleCriteriaOperator.EQUALS, "application/pdf"));
+
+        final var plan = ImapSearchTranslator.translate(List.of(large, small, exact), ZoneOffset.UTC);
+
+        assertThat(plan.terms()).singleElement()
+            .isInstanceOfSatisfying(OrTerm.class, term -> assertThat(term.getTerms()).containsExactly(
+                new SizeTerm(ComparisonTerm.GT, 10 << 20),
+                new SizeTerm(ComparisonTerm.LT, 1024),
+                new AndTerm(new SizeTerm(ComparisonTerm.GT, 2047), new SizeTerm(ComparisonTerm.LT, 2049))
+            ));
+        assertThat(ImapSearchTranslator.translate(List.of(large, pdf), ZoneOffset.UTC).fullScan()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Deve ignorar regras que nunca casam e dividir buscas grandes")
+    void shouldSkipNeverMatchingRulesAndSplitLargeSearches() {
+        final var rules = IntStream.range(0, ImapSearchTranslator.MAX_RULES_PER_SEARCH + 1)
+            .mapToObj(i -> archive(criteria(RuleCriteriaType.SUBJECT, RuleCriteriaOperator.CONTAINS, "keyword" + i)))
+            .toList();
+        final var unsupported = archive(criteria(RuleCriteriaType.SUBJECT, RuleCriteriaOperator.LESS_THAN, "x"));
+        final var empty = ArchiveEmailRule.newRule(UUID.randomUUID(), "empty", "empty", Set.of());
+
+        final var plan = ImapSearchTranslator.translate(
+            Stream.concat(rules.stream(), Stream.of(unsupported, empty)).toList(),
+            ZoneOffset.UTC
+        );
+
+        assertThat(plan.fullScan()).isFalse();
+        assertThat(plan.terms()).hasSize(2);
+        assertThat(plan.terms().get(1)).isEqualTo(new SubjectTerm("keyword" + ImapSearchTranslator.MAX_RULES_PER_SEARCH));
+    }
+
+    @Test
+    @DisplayName("Deve varrer a caixa inteira quando as buscas excedem o orçamento de chaves ou bytes")
+    void shouldFallBackToFullScanPastSearchBudget() {
+        final var senders = IntStream.rangeClosed(0, ImapSearchTranslator.MAX_SEARCH_KEYS)
+            .mapToObj(i -> archive(criteria(RuleCriteriaType.FROM, RuleCriteriaOperator.EQUALS, "sender" + i + "@corp.com")))
+            .toList();
+        final var longSubject = archive(criteria(
+            RuleCriteriaType.SUBJECT,
+            RuleCriteriaOperator.CONTAINS,
+            "x".repeat(ImapSearchTranslator.MAX_SEARCH_BYTES + 1)
+        ));
+
+        assertThat(ImapSearchTranslator.translate(senders.subList(0, ImapSearchTranslator.MAX_SEARCH_KEYS), ZoneOffset.UTC).fullScan())
+            .isFalse();
+        assertThat(ImapSearchTranslator.translate(senders, ZoneOffset.UTC)).isEqualTo(SearchPlan.full());
+        assertThat(ImapSearchTranslator.translate(List.of(longSubject), ZoneOffset.UTC)).isEqualTo(SearchPlan.full());
+    }
+
+    @Test
+    @DisplayName("Deve indicar que não há nada a buscar quando nenhuma regra pode casar")
+    void shouldReturnEmptyPlanWhenNoRuleCanMatch() {
+        final var plan = ImapSearchTranslator.translate(
+            List.of(archive(criteria(RuleCriteriaType.RECEIVED_AT, RuleCriteriaOperator.CONTAINS, "2024"))),
+            ZoneOffset.UTC
+        );
+
+        assertThat(plan.isEmpty()).isTrue();
+    }
+
+}
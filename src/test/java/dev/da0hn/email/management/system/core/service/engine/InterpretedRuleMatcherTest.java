@@ -0,0 +1,210 @@
+package dev.da0hn.email.management.system.core.service.engine;
+
+import dev.da0hn.email.management.system.core.domain.ArchiveEmailRule;
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaGroup;
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaGroupOperator;
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaOperator;
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaType;
+import dev.da0hn.email.management.system.core.domain.RuleMatchMode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static dev.da0hn.email.management.system.core.service.engine.RuleFixtures.archive;
+import static dev.da0hn.email.management.system.core.service.engine.RuleFixtures.body;
+import static dev.da0hn.email.management.system.core.service.engine.RuleFixtures.criteria;
+import static dev.da0hn.email.management.system.core.service.engine.RuleFixtures.randomHeaders;
+import static dev.da0hn.email.management.system.core.service.engine.RuleFixtures.randomRules;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InterpretedRuleMatcherTest {
+
+    private static MessageHeaders headers(final String from, final String subject) {
+        return new MessageHeaders(from, List.of("me@example.com"), subject, 0);
+    }
+
+    @Test
+    @DisplayName("Deve avaliar primeiro o critério mais seletivo segundo as estatísticas")
+    void shouldEvaluateMostSelectiveCriteriaFirstAfterRefresh() {
+        final var rule = archive(
+            criteria(RuleCriteriaType.FROM, RuleCriteriaOperator.ENDS_WITH, "@corp.com"),
+            criteria(RuleCriteriaType.SUBJECT, RuleCriteriaOperator.CONTAINS, "urgent")
+        );
+        final var matcher = InterpretedRuleMatcher.compile(List.of(rule), ZoneOffset.UTC);
+        final var context = matcher.newContext();
+        final var common = headers("someone@corp.com", "weekly report");
+        final var rare = headers("someone@corp.com", "URGENT: server down");
+
+        final var initialFirst = matcher.evaluationOrder(0)[0];
+        for (int i = 0; i < 64 * InterpretedRuleMatcher.SAMPLE_INTERVAL; i++) {
+            matcher.evaluate(common, context);
+            assertThat(context.matchCount()).isZero();
+        }
+        matcher.refreshOrder();
+
+        assertThat(matcher.evaluationOrder(0)[0]).isNotEqualTo(initialFirst);
+        matcher.evaluate(rare, context);
+        assertThat(context.isMatched(0)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Deve ler o corpo só depois dos critérios de cabeçalho, mesmo após reordenar pelas estatísticas")
+    void shouldScanBodyAfterHeaderCriteriaAfterRefresh() {
+        final var rule = archive(
+            criteria(RuleCriteriaType.SUBJECT, RuleCriteriaOperator.CONTAINS, "invoice"),
+            criteria(RuleCriteriaType.BODY, RuleCriteriaOperator.CONTAINS, "needle")
+        );
+        final var eitherGroup = new RuleCriteriaGroup(
+            UUID.randomUUID(),
+            RuleCriteriaGroupOperator.OR,
+            Set.of(
+                criteria(RuleCriteriaType.BODY, RuleCriteriaOperator.CONTAINS, "haystack"),
+                criteria(RuleCriteriaType.SUBJECT, RuleCriteriaOperator.CONTAINS, "receipt")
+            ),
+            Set.of()
+        );
+        final var either = ArchiveEmailRule.newRule(UUID.randomUUID(), "either", "either", Set.of(), Set.of(eitherGroup));
+        final var matcher = InterpretedRuleMatcher.compile(List.of(rule, either), ZoneOffset.UTC);
+        final var context = matcher.newContext();
+        final var scans = new AtomicInteger();
+        final MessageBody body = scanner -> {
+            scans.incrementAndGet();
+            body("needle in a haystack").forEachTextPart(scanner);
+        };
+
+        // The subject passes almost always, so by cost per rejection alone it would rank behind the body.
+        for (int i = 0; i < 64 * InterpretedRuleMatcher.SAMPLE_INTERVAL; i++) {
+            matcher.evaluate(new MessageHeaders("a@b.com", List.of(), "invoice receipt", 0, 0, List.of(), body), context);
+        }
+        matcher.refreshOrder();
+        scans.set(0);
+
+        for (int i = 0; i < InterpretedRuleMatcher.SAMPLE_INTERVAL; i++) {
+            matcher.evaluate(new MessageHeaders("a@b.com", List.of(), "weekly receipt", 0, 0, List.of(), body), context);
+            assertThat(context.matchCount()).isEqualTo(1);
+            assertThat(context.isMatched(1)).isTrue();
+        }
+        assertThat(scans).hasValue(0);
+    }
+
+    @Test
+    @DisplayName("Deve produzir o mesmo resultado em mensagens amostradas e não amostradas")
+    void shouldProduceSameResultForSampledAndLazyEvaluations() {
+        final var sender = archive(criteria(RuleCriteriaType.FROM, RuleCriteriaOperator.EQUALS, "boss@corp.com"));
+        final var both = archive(
+            criteria(RuleCriteriaType.FROM, RuleCriteriaOperator.EQUALS, "boss@corp.com"),
+            criteria(RuleCriteriaType.SUBJECT, RuleCriteriaOperator.STARTS_WITH, "re:")
+        );
+        final var unsupported = archive(criteria(RuleCriteriaType.SUBJECT, RuleCriteriaOperator.GREATER_THAN, "x"));
+        final var matcher = InterpretedRuleMatcher.compile(List.of(sender, both, unsupported), ZoneOffset.UTC);
+        final var context = matcher.newContext();
+
+        for (int i = 0; i < 2 * InterpretedRuleMatcher.SAMPLE_INTERVAL; i++) {
+            matcher.evaluate(headers("Boss <boss@corp.com>", "Re: budget"), context);
+            assertThat(context.isMatched(0)).isTrue();
+            assertThat(context.isMatched(1)).isTrue();
+            assertThat(context.isMatched(2)).isFalse();
+
+            matcher.evaluate(headers("boss@corp.com", "budget"), context);
+            assertThat(context.isMatched(0)).isTrue();
+            assertThat(context.isMatched(1)).isFalse();
+        }
+    }
+
+    @Test
+    @DisplayName("Deve memorizar critérios de texto e reavaliar RECEIVED_AT a cada mensagem")
+    void shouldMemoizeTextCriteriaButReevaluateReceivedAt() {
+        final var recent = archive(
+            criteria(RuleCriteriaType.FROM, RuleCriteriaOperator.EQUALS, "bot@corp.com"),
+            criteria(RuleCriteriaType.RECEIVED_AT, RuleCriteriaOperator.GREATER_THAN, "2024-01-01T00:00:00")
+        );
+        final var matcher = InterpretedRuleMatcher.compile(List.of(recent), ZoneOffset.UTC);
+        final var context = matcher.newContext();
+        final long before = Instant.parse("2023-06-01T00:00:00Z").toEpochMilli();
+        final long after = Instant.parse("2024-06-01T00:00:00Z").toEpochMilli();
+
+        for (int i = 0; i < 2 * InterpretedRuleMatcher.SAMPLE_INTERVAL; i++) {
+            matcher.evaluate(new MessageHeaders("Bot <bot@corp.com>", List.of(), "Build #" + i % 2, after), context);
+            assertThat(context.isMatched(0)).isTrue();
+            matcher.evaluate(new MessageHeaders("Bot <bot@corp.com>", List.of(), "Build #" + i % 2, before), context);
+            assertThat(context.isMatched(0)).isFalse();
+        }
+
+        // Subjects are not referenced by any rule, so they do not split the memo key.
+        assertThat(matcher.memo().size()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve compartilhar a memória de decisões entre threads sem exceder o limite")
+    void shouldShareDecisionMemoAcrossThreadsWithinBound() throws Exception {
+        final var rules = randomRules(new Random(13), 40);
+        final var settings = new RuleMatcherSettings(BloomFilterSettings.DEFAULT, 64, 1L << 20);
+        final var memoized = InterpretedRuleMatcher.compile(rules, ZoneOffset.UTC, settings, RuleMatchMode.ALL_MATCHES, null);
+        final var plain = InterpretedRuleMatcher.compile(
+            rules, ZoneOffset.UTC, new RuleMatcherSettings(BloomFilterSettings.DEFAULT, 0, 1L << 20), RuleMatchMode.ALL_MATCHES, null
+        );
+
+        final var workers = new ArrayList<Thread>();
+        final var mismatches = new AtomicInteger();
+        for (int worker = 0; worker < 4; worker++) {
+            final var random = new Random(worker);
+            workers.add(Thread.ofPlatform().start(() -> {
+                final var memoContext = memoized.newContext();
+                final var plainContext = plain.newContext();
+                for (int i = 0; i < 2_000; i++) {
+                    final var headers = randomHeaders(random);
+                    memoized.evaluate(headers, memoContext);
+                    plain.evaluate(headers, plainContext);
+                    for (int rule = 0; rule < rules.size(); rule++) {
+                        if (memoContext.isMatched(rule) != plainContext.isMatched(rule)) mismatches.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (final var worker : workers) worker.join();
+
+        assertThat(mismatches).hasValue(0);
+        assertThat(memoized.memo().size()).isPositive().isLessThanOrEqualTo(64);
+    }
+
+    @Test
+    @DisplayName("Deve avaliar grupos OR e NOT compartilhando subexpressões entre regras")
+    void shouldEvaluateOrAndNotGroupsSharingSubexpressions() {
+        final var fromBoss = criteria(RuleCriteriaType.FROM, RuleCriteriaOperator.EQUALS, "boss@corp.com");
+        final var urgent = criteria(RuleCriteriaType.SUBJECT, RuleCriteriaOperator.CONTAINS, "urgent");
+        final var spam = criteria(RuleCriteriaType.SUBJECT, RuleCriteriaOperator.CONTAINS, "unsubscribe");
+        final var bossOrUrgent = new RuleCriteriaGroup(UUID.randomUUID(), RuleCriteriaGroupOperator.OR, Set.of(fromBoss, urgent), Set.of());
+        final var notSpam = new RuleCriteriaGroup(UUID.randomUUID(), RuleCriteriaGroupOperator.NOT, Set.of(spam), Set.of());
+        final var important = ArchiveEmailRule.newRule(UUID.randomUUID(), "important", "important", Set.of(), Set.of(bossOrUrgent, notSpam));
+        final var alsoImportant = ArchiveEmailRule.newRule(
+            UUID.randomUUID(), "copy", "copy", Set.of(),
+            Set.of(new RuleCriteriaGroup(UUID.randomUUID(), RuleCriteriaGroupOperator.OR, Set.of(urgent, fromBoss), Set.of()))
+        );
+        final var matcher = InterpretedRuleMatcher.compile(List.of(important, alsoImportant), ZoneOffset.UTC);
+        final var context = matcher.newContext();
+
+        // Both OR groups and their two leaves share slots, plus the NOT group and its leaf.
+        assertThat(matcher.compiled().criteriaCount()).isEqualTo(5);
+        for (int i = 0; i < 2 * InterpretedRuleMatcher.SAMPLE_INTERVAL; i++) {
+            matcher.evaluate(headers("boss@corp.com", "weekly report"), context);
+            assertThat(context.isMatched(0)).isTrue();
+            assertThat(context.isMatched(1)).isTrue();
+
+            matcher.evaluate(headers("news@vendor.com", "URGENT sale, unsubscribe here"), context);
+            assertThat(context.isMatched(0)).isFalse();
+            assertThat(context.isMatched(1)).isTrue();
+
+            matcher.evaluate(headers("news@vendor.com", "weekly report"), context);
+            assertThat(context.matchCount()).isZero();
+        }
+    }
+
+}
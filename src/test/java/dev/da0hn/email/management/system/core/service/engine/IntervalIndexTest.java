@@ -0,0 +1,62 @@
+package dev.da0hn.email.management.system.core.service.engine;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IntervalIndexTest {
+
+    @Test
+    @DisplayName("Deve encontrar intervalos abertos e fechados que contêm o instante")
+    void shouldFindOpenAndClosedIntervalsContainingPoint() {
+        final var builder = new IntervalIndex.Builder();
+        builder.add(0, 100, Long.MAX_VALUE);
+        builder.add(1, Long.MIN_VALUE + 1, 50);
+        builder.add(2, 40, 60);
+        builder.add(3, 60, 60);
+        final var index = builder.build();
+
+        assertThat(collect(index, 45).stream()).containsExactlyInAnyOrder(1, 2);
+        assertThat(collect(index, 60).stream()).containsExactlyInAnyOrder(2, 3);
+        assertThat(collect(index, 75).isEmpty()).isTrue();
+        assertThat(collect(index, 1_000).stream()).containsExactly(0);
+    }
+
+    @Test
+    @DisplayName("Deve produzir o mesmo resultado que a busca linear")
+    void shouldMatchLinearScan() {
+        final var random = new Random(42);
+        final int size = 500;
+        final var lower = new long[size];
+        final var upper = new long[size];
+        final var builder = new IntervalIndex.Builder();
+        for (int slot = 0; slot < size; slot++) {
+            final long a = random.nextInt(10_000);
+            final long b = random.nextInt(10_000);
+            lower[slot] = random.nextInt(10) == 0 ? Long.MIN_VALUE + 1 : Math.min(a, b);
+            upper[slot] = random.nextInt(10) == 0 ? Long.MAX_VALUE : Math.max(a, b);
+            builder.add(slot, lower[slot], upper[slot]);
+        }
+        final var index = builder.build();
+
+        for (int i = 0; i < 1_000; i++) {
+            final long point = random.nextInt(12_000) - 1_000;
+            final var expected = new BitSet();
+            for (int slot = 0; slot < size; slot++) {
+                if (point >= lower[slot] && point <= upper[slot]) expected.set(slot);
+            }
+            assertThat(collect(index, point)).isEqualTo(expected);
+        }
+    }
+
+    private static BitSet collect(final IntervalIndex index, final long point) {
+        final var satisfied = new BitSet();
+        index.collect(point, satisfied);
+        return satisfied;
+    }
+
+}
@@ -0,0 +1,94 @@
+package dev.da0hn.email.management.system.core.service.engine;
+
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaOperator;
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaType;
+import dev.da0hn.email.management.system.core.domain.RuleMatchMode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static dev.da0hn.email.management.system.core.service.engine.RuleFixtures.archive;
+import static dev.da0hn.email.management.system.core.service.engine.RuleFixtures.criteria;
+import static dev.da0hn.email.management.system.core.service.engine.RuleFixtures.randomHeaders;
+import static dev.da0hn.email.management.system.core.service.engine.RuleFixtures.randomRules;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MessageBatchTest {
+
+    private static void assertSameAsSingleMessages(final RuleMatcher matcher, final Random random) {
+        final var batch = matcher.newBatch(150);
+        final var context = matcher.newContext();
+        for (int round = 0; round < 3; round++) {
+            batch.clear();
+            final var messages = new ArrayList<MessageHeaders>();
+            while (!batch.isFull()) {
+                final var headers = randomHeaders(random);
+                messages.add(headers);
+                batch.add(headers);
+            }
+            matcher.evaluate(batch);
+
+            for (int m = 0; m < messages.size(); m++) {
+                matcher.evaluate(messages.get(m), context);
+                for (int rule = 0; rule < matcher.rules().size(); rule++) {
+                    assertThat(batch.isMatched(m, rule)).isEqualTo(context.isMatched(rule));
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Deve casar em lote as mesmas regras que a avaliação mensagem a mensagem")
+    void shouldMatchSameRulesAsSingleMessageEvaluation() {
+        final var random = new Random(3);
+        final var rules = randomRules(random, 200);
+
+        assertSameAsSingleMessages(InterpretedRuleMatcher.compile(rules, ZoneOffset.UTC), random);
+        assertSameAsSingleMessages(BytecodeRuleMatcher.compile(rules, ZoneOffset.UTC), random);
+        assertSameAsSingleMessages(
+            InterpretedRuleMatcher.compile(rules, ZoneOffset.UTC, RuleMatcherSettings.DEFAULT, RuleMatchMode.FIRST_MATCH, null),
+            random
+        );
+    }
+
+    @Test
+    @DisplayName("Deve expor o bitmap de mensagens casadas por regra")
+    void shouldExposePerRuleMatchBitmap() {
+        final var boss = archive("boss", criteria(RuleCriteriaType.FROM, RuleCriteriaOperator.EQUALS, "boss@corp.com"));
+        final var matcher = InterpretedRuleMatcher.compile(List.of(boss), ZoneOffset.UTC);
+        final var batch = matcher.newBatch(100);
+        for (int i = 0; i < 100; i++) {
+            batch.add(new MessageHeaders(i % 30 == 0 ? "Boss <boss@corp.com>" : "news@vendor.com", List.of(), "x", 0));
+        }
+
+        matcher.evaluate(batch);
+
+        assertThat(batch.matchCount(0)).isEqualTo(4);
+        assertThat(batch.nextMessage(0, 0)).isZero();
+        assertThat(batch.nextMessage(0, 1)).isEqualTo(30);
+        assertThat(batch.nextMessage(0, 61)).isEqualTo(90);
+        assertThat(batch.nextMessage(0, 91)).isEqualTo(-1);
+        assertThat(batch.nextMatch(90, 0)).isZero();
+        assertThat(batch.nextMatch(91, 0)).isEqualTo(-1);
+        assertThatThrownBy(() -> batch.add(new MessageHeaders("a@b.com", List.of(), "x", 0)))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessage("Batch is full");
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar lote criado por outro matcher")
+    void shouldRejectBatchOfAnotherMatcher() {
+        final var first = InterpretedRuleMatcher.compile(List.of(), ZoneOffset.UTC);
+        final var second = InterpretedRuleMatcher.compile(List.of(), ZoneOffset.UTC);
+
+        assertThatThrownBy(() -> second.evaluate(first.newBatch(8)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Batch was not created by this matcher");
+    }
+
+}
@@ -0,0 +1,47 @@
+package dev.da0hn.email.management.system.core.service.engine;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NormalizedHeadersTest {
+
+    @Test
+    @DisplayName("Deve decodificar RFC 2047, aplicar NFKC e case-fold nos cabeçalhos")
+    void shouldDecodeAndFoldHeaders() {
+        final var normalized = new NormalizedHeaders();
+        normalized.reset(new MessageHeaders(
+            "=?UTF-8?B?Sm/Do28gU2lsdmE=?= <Joao@Example.COM>",
+            List.of("ＳＴＲＡＳＳＥ <Team@Corp.com>", "plain@corp.com"),
+            "=?ISO-8859-1?Q?Fa=E7a_o_pagamento?= ﬁnal Straße",
+            42
+        ));
+
+        assertThat(normalized.fromText()).isEqualTo("joão silva <joao@example.com>");
+        assertThat(normalized.fromAddress()).isEqualTo("joao@example.com");
+        assertThat(normalized.toText()).containsExactly("strasse <team@corp.com>", "plain@corp.com");
+        assertThat(normalized.toAddresses()).containsExactly("team@corp.com", "plain@corp.com");
+        assertThat(normalized.subjectText()).isEqualTo("faça o pagamento final strasse");
+        assertThat(normalized.receivedAt()).isEqualTo(42);
+    }
+
+    @Test
+    @DisplayName("Deve reaproveitar a instância entre mensagens sem vazar valores anteriores")
+    void shouldResetBetweenMessages() {
+        final var normalized = new NormalizedHeaders();
+        normalized.reset(new MessageHeaders("a@corp.com", List.of("b@corp.com"), "First", 0));
+        assertThat(normalized.subjectText()).isEqualTo("first");
+        assertThat(normalized.toAddresses()).containsExactly("b@corp.com");
+
+        normalized.reset(new MessageHeaders(null, List.of(), null, 0));
+
+        assertThat(normalized.fromText()).isNull();
+        assertThat(normalized.fromAddress()).isNull();
+        assertThat(normalized.toAddresses()).isEmpty();
+        assertThat(normalized.subjectText()).isNull();
+    }
+
+}
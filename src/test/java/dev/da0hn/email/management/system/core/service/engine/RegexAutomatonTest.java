@@ -0,0 +1,151 @@
+package dev.da0hn.email.management.system.core.service.engine;
+
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaGroup;
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaGroupOperator;
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaOperator;
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaType;
+import dev.da0hn.email.management.system.core.ports.api.InvalidRuleException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class RegexAutomatonTest {
+
+    private static final String[] PIECES = {"a", "b", "ab", ".", "[a-c]", "[^b]", "\\d", "x", "(a|b)", "(?:ab|c)"};
+
+    private static final String[] QUANTIFIERS = {"", "", "*", "+", "?", "{2}", "{1,3}", "{2,}"};
+
+    private static String randomPattern(final Random random) {
+        final var pattern = new StringBuilder();
+        if (random.nextInt(4) == 0) pattern.append('^');
+        final int pieces = 1 + random.nextInt(4);
+        for (int i = 0; i < pieces; i++) {
+            pattern.append(PIECES[random.nextInt(PIECES.length)]).append(QUANTIFIERS[random.nextInt(QUANTIFIERS.length)]);
+        }
+        if (random.nextInt(4) == 0) pattern.append('$');
+        return pattern.toString();
+    }
+
+    private static String randomText(final Random random) {
+        final var text = new StringBuilder();
+        final int length = random.nextInt(12);
+        for (int i = 0; i < length; i++) {
+            text.append("abcx1 ".charAt(random.nextInt(6)));
+        }
+        return text.toString();
+    }
+
+    @Test
+    @DisplayName("Deve concordar com java.util.regex em padrões combinados")
+    void shouldAgreeWithJavaRegexOnCombinedPatterns() {
+        final var random = new Random(3);
+        for (int round = 0; round < 100; round++) {
+            final var builder = new RegexAutomaton.Builder();
+            final var patterns = new ArrayList<Pattern>();
+            for (int slot = 0; slot < 8; slot++) {
+                final var pattern = randomPattern(random);
+                builder.add(pattern, slot);
+                patterns.add(Pattern.compile(pattern, Pattern.CASE_INSENSITIVE));
+            }
+            final var automaton = builder.build();
+
+            for (int i = 0; i < 50; i++) {
+                final var text = randomText(random);
+                final var expected = new BitSet();
+                for (int slot = 0; slot < patterns.size(); slot++) {
+                    if (patterns.get(slot).matcher(text).find()) expected.set(slot);
+                }
+                final var satisfied = new BitSet();
+                automaton.collect(text, satisfied);
+                assertThat(satisfied).as("text '%s' against %s", text, patterns).isEqualTo(expected);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Deve avaliar padrões catastróficos para backtracking em tempo linear")
+    void shouldEvaluateCatastrophicPatternsInLinearTime() {
+        final var builder = new RegexAutomaton.Builder();
+        builder.add("^(a+)+$", 0);
+        builder.add("(x+x+)+y", 1);
+        final var automaton = builder.build();
+        final var hostile = "a".repeat(50_000) + "!" + "x".repeat(50_000);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(2), () -> {
+            final var satisfied = new BitSet();
+            automaton.collect(hostile, satisfied);
+            assertThat(satisfied.isEmpty()).isTrue();
+        });
+    }
+
+    @Test
+    @DisplayName("Deve manter o tempo linear e o resultado correto quando os estados do DFA excedem o cache")
+    void shouldStayLinearAndCorrectWhenDfaStatesExceedCache() {
+        final var builder = new RegexAutomaton.Builder();
+        builder.add("a.{999}b", 0);
+        builder.add("b{3}$", 1);
+        final var automaton = builder.build();
+        final var random = new Random(5);
+        final var text = new StringBuilder();
+        for (int i = 0; i < 20_000; i++) {
+            text.append(random.nextBoolean() ? 'a' : 'c');
+        }
+        text.append("bbb");
+
+        // Generous enough for a loaded build; a cache that grew with the input would run out of memory long before.
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            for (int round = 0; round < 3; round++) {
+                final var satisfied = new BitSet();
+                automaton.collect(text, satisfied);
+                assertThat(satisfied.get(0)).isEqualTo(Pattern.compile("a.{999}b").matcher(text).find());
+                assertThat(satisfied.get(1)).isTrue();
+            }
+        });
+        final var satisfied = new BitSet();
+        automaton.collect("xbbb", satisfied);
+        assertThat(satisfied.get(0)).isFalse();
+        assertThat(satisfied.get(1)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar ao salvar padrões inválidos ou com autômato grande demais")
+    void shouldRejectInvalidOrOversizedPatternsOnSave() {
+        final var oversized = RuleFixtures.criteria(RuleCriteriaType.SUBJECT, RuleCriteriaOperator.MATCHES, "(a|b).{999}(c|d).{999}");
+        final var invalid = RuleFixtures.criteria(RuleCriteriaType.FROM, RuleCriteriaOperator.MATCHES, "(a)\\1");
+        final var valid = RuleFixtures.criteria(RuleCriteriaType.SUBJECT, RuleCriteriaOperator.MATCHES, "a.{999}b");
+        final var nested = new RuleCriteriaGroup(UUID.randomUUID(), RuleCriteriaGroupOperator.OR, Set.of(oversized), Set.of());
+
+        RulePatterns.validate(Set.of(valid), Set.of());
+        assertThatThrownBy(() -> RulePatterns.validate(Set.of(valid), Set.of(nested)))
+            .isInstanceOf(InvalidRuleException.class)
+            .hasMessageContaining("exceeds " + RegexAutomaton.MAX_PATTERN_STATES + " automaton states");
+        assertThatThrownBy(() -> RulePatterns.validate(Set.of(invalid), Set.of()))
+            .isInstanceOf(InvalidRuleException.class)
+            .hasMessageStartingWith("Invalid pattern '(a)\\1'");
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar padrões que não são linguagens regulares")
+    void shouldRejectNonRegularPatterns() {
+        final var builder = new RegexAutomaton.Builder();
+        for (final var pattern : List.of("(a)\\1", "a(?=b)", "a|^b", "a{2,1}", "*a", "[a-", "a++")) {
+            assertThatThrownBy(() -> builder.add(pattern, 0))
+                .as(pattern)
+                .isInstanceOf(IllegalArgumentException.class);
+        }
+        assertThat(builder.isEmpty()).isTrue();
+    }
+
+}
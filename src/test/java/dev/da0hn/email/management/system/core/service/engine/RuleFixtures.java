@@ -0,0 +1,138 @@
+package dev.da0hn.email.management.system.core.service.engine;
+
+import dev.da0hn.email.management.system.core.domain.ArchiveEmailRule;
+import dev.da0hn.email.management.system.core.domain.Rule;
+import dev.da0hn.email.management.system.core.domain.RuleCriteria;
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaGroup;
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaGroupOperator;
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaOperator;
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaType;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Rules and messages shared by the engine tests, including the random ones used to compare matcher implementations.
+ */
+public final class RuleFixtures {
+
+    private static final String[] SENDERS = {"boss@corp.com", "news@vendor.com", "alerts@monitor.io", "friend@mail.org"};
+
+    private static final String[] WORDS = {"invoice", "urgent", "report", "newsletter", "re:", "weekly"};
+
+    private static final String[] SIZES = {"2048", "4KB", "1 MB", "10mb"};
+
+    private static final List<List<String>> ATTACHMENTS = List.of(
+        List.of(), List.of("application/pdf"), List.of("image/png", "text/plain")
+    );
+
+    private RuleFixtures() {
+    }
+
+    public static RuleCriteria criteria(final RuleCriteriaType type, final RuleCriteriaOperator operator, final String value) {
+        return new RuleCriteria(UUID.randomUUID(), value, type, operator);
+    }
+
+    public static Rule archive(final RuleCriteria... criteria) {
+        return archive("rule", criteria);
+    }
+
+    public static Rule archive(final String name, final RuleCriteria... criteria) {
+        return ArchiveEmailRule.newRule(UUID.randomUUID(), name, name, Set.of(criteria));
+    }
+
+    public static MessageBody body(final String text) {
+        return scanner -> scanner.scan(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8);
+    }
+
+    public static RuleCriteria randomCriteria(final Random random) {
+        final var type = RuleCriteriaType.values()[random.nextInt(RuleCriteriaType.values().length)];
+        final var operator = RuleCriteriaOperator.values()[random.nextInt(RuleCriteriaOperator.values().length)];
+        final var value = switch (type) {
+            case FROM, TO -> {
+                final var sender = SENDERS[random.nextInt(SENDERS.length)];
+                yield switch (operator) {
+                    case STARTS_WITH -> sender.substring(0, 3);
+                    case ENDS_WITH, CONTAINS -> sender.substring(sender.indexOf('@'));
+                    default -> sender;
+                };
+            }
+            case SUBJECT -> WORDS[random.nextInt(WORDS.length)];
+            case RECEIVED_AT -> LocalDate.of(2024, 1 + random.nextInt(12), 1 + random.nextInt(28)).toString();
+            case SIZE -> SIZES[random.nextInt(SIZES.length)];
+            case HAS_ATTACHMENT -> random.nextBoolean() ? "true" : "false";
+            case ATTACHMENT_TYPE -> switch (operator) {
+                case STARTS_WITH, CONTAINS -> "image/";
+                case ENDS_WITH -> "/pdf";
+                default -> "application/pdf";
+            };
+            case BODY -> WORDS[random.nextInt(WORDS.length)] + (random.nextBoolean() ? " " + WORDS[random.nextInt(WORDS.length)] : "");
+        };
+        return criteria(type, operator, value);
+    }
+
+    /**
+     * A group of one to three random criteria or, below {@code depth}, nested groups.
+     */
+    public static RuleCriteriaGroup randomGroup(final Random random, final int depth) {
+        final var criteria = new HashSet<RuleCriteria>();
+        final var groups = new HashSet<RuleCriteriaGroup>();
+        final int count = 1 + random.nextInt(3);
+        for (int i = 0; i < count; i++) {
+            if (depth > 0 && random.nextInt(3) == 0) {
+                groups.add(randomGroup(random, depth - 1));
+            }
+            else {
+                criteria.add(randomCriteria(random));
+            }
+        }
+        final var operator = RuleCriteriaGroupOperator.values()[random.nextInt(RuleCriteriaGroupOperator.values().length)];
+        return new RuleCriteriaGroup(UUID.randomUUID(), operator, criteria, groups);
+    }
+
+    /**
+     * Rules of one random criterion and, for about half of them, a flat random group, with random priorities.
+     */
+    public static List<Rule> randomRules(final Random random, final int count) {
+        final var rules = new ArrayList<Rule>();
+        for (int i = 0; i < count; i++) {
+            final var criteria = new HashSet<RuleCriteria>();
+            criteria.add(randomCriteria(random));
+            final var groups = new HashSet<RuleCriteriaGroup>();
+            if (random.nextBoolean()) {
+                groups.add(randomGroup(random, 0));
+            }
+            rules.add(ArchiveEmailRule.newRule(UUID.randomUUID(), "rule" + i, "rule" + i, criteria, groups, random.nextInt(5)));
+        }
+        return rules;
+    }
+
+    /**
+     * A message built from the same vocabulary as {@link #randomCriteria(Random)}; the sender sometimes has a display
+     * name and the received date, size, attachments and body are sometimes unknown.
+     */
+    public static MessageHeaders randomHeaders(final Random random) {
+        final var sender = SENDERS[random.nextInt(SENDERS.length)];
+        final long receivedAt = random.nextInt(10) == 0
+            ? MessageHeaders.UNKNOWN_RECEIVED_AT
+            : LocalDate.of(2024, 1 + random.nextInt(12), 1 + random.nextInt(28)).atStartOfDay().toInstant(ZoneOffset.UTC).toEpochMilli();
+        return new MessageHeaders(
+            random.nextInt(4) == 0 ? "Sender <" + sender + ">" : sender,
+            List.of(SENDERS[random.nextInt(SENDERS.length)], SENDERS[random.nextInt(SENDERS.length)]),
+            WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)],
+            receivedAt,
+            random.nextInt(8) == 0 ? MessageHeaders.UNKNOWN_SIZE : random.nextInt(16 << 20),
+            random.nextInt(8) == 0 ? null : ATTACHMENTS.get(random.nextInt(ATTACHMENTS.size())),
+            random.nextInt(8) == 0 ? null : body(WORDS[random.nextInt(WORDS.length)] + "\n\t" + WORDS[random.nextInt(WORDS.length)])
+        );
+    }
+
+}
@@ -0,0 +1,121 @@
+package dev.da0hn.email.management.system.core.service.engine;
+
+import dev.da0hn.email.management.system.core.domain.ArchiveEmailRule;
+import dev.da0hn.email.management.system.core.domain.Rule;
+import dev.da0hn.email.management.system.core.domain.RuleCriteria;
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaOperator;
+import dev.da0hn.email.management.system.core.domain.RuleCriteriaType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the {@link RuleMatcherBackend}s on a synthetic tenant. {@code evaluatePage} runs what polling runs, a
+ * prefetched page evaluated one message at a time; {@code evaluateBatch} runs the same page as one
+ * {@link MessageBatch}, as simulations do, which is backend independent.
+ * Run with {@code mvn -Pbenchmark test -DskipTests}; extra JMH options go in {@code -Dbenchmark.args}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RuleMatcherBenchmark {
+
+    private static final int PAGE_SIZE = 256;
+
+    @Param({"INTERPRETED", "BYTECODE"})
+    private RuleMatcherBackend backend;
+
+    @Param({"50", "2000"})
+    private int ruleCount;
+
+    private RuleMatcher matcher;
+
+    private MatchContext context;
+
+    private MessageBatch batch;
+
+    private MessageHeaders[] messages;
+
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final var random = new Random(7);
+        final var rules = new ArrayList<Rule>(this.ruleCount);
+        for (int i = 0; i < this.ruleCount; i++) {
+            rules.add(ArchiveEmailRule.newRule(UUID.randomUUID(), "rule" + i, "rule" + i, Set.of(
+                new RuleCriteria(UUID.randomUUID(), "sender" + random.nextInt(500) + "@corp.com", RuleCriteriaType.FROM, RuleCriteriaOperator.EQUALS),
+                new RuleCriteria(UUID.randomUUID(), "keyword" + random.nextInt(200), RuleCriteriaType.SUBJECT, RuleCriteriaOperator.CONTAINS)
+            )));
+        }
+        this.matcher = this.backend.compile(rules, ZoneOffset.UTC);
+        this.context = this.matcher.newContext();
+        this.batch = this.matcher.newBatch(PAGE_SIZE);
+        this.messages = new MessageHeaders[1024];
+        for (int i = 0; i < this.messages.length; i++) {
+            this.messages[i] = new MessageHeaders(
+                "Sender <sender" + random.nextInt(500) + "@corp.com>",
+                List.of("me@corp.com"),
+                "Weekly keyword" + random.nextInt(400) + " digest",
+                System.currentTimeMillis()
+            );
+        }
+    }
+
+    @Benchmark
+    public void evaluate(final Blackhole blackhole) {
+        final var headers = this.messages[this.next++ & (this.messages.length - 1)];
+        this.matcher.evaluate(headers, this.context);
+        blackhole.consume(this.context.nextMatch(0));
+    }
+
+    @Benchmark
+    public void evaluatePage(final Blackhole blackhole) {
+        final int start = this.nextPage();
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            this.matcher.evaluate(this.messages[start + i], this.context);
+            blackhole.consume(this.context.nextMatch(0));
+        }
+    }
+
+    @Benchmark
+    public void evaluateBatch(final Blackhole blackhole) {
+        final int start = this.nextPage();
+        this.batch.clear();
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            this.batch.add(this.messages[start + i]);
+        }
+        this.matcher.evaluate(this.batch);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            blackhole.consume(this.batch.nextMatch(i, 0));
+        }
+    }
+
+    private int nextPage() {
+        final int start = this.next & (this.messages.length - 1) & -PAGE_SIZE;
+        this.next += PAGE_SIZE;
+        return start;
+    }
+
+}
@@ -0,0 +1,89 @@
+package dev.da0hn.email.management.system.infrastructure.db.repository.impl;
+
+import dev.da0hn.email.management.system.core.domain.Account;
+import dev.da0hn.email.management.system.core.domain.AccountCredentials;
+import dev.da0hn.email.management.system.core.domain.EmailConnectionDetails;
+import dev.da0hn.email.management.system.core.domain.MailboxCheckpoint;
+import dev.da0hn.email.management.system.core.domain.RuleMatchMode;
+import dev.da0hn.email.management.system.core.ports.spi.AccountRepository;
+import dev.da0hn.email.management.system.core.ports.spi.MailboxCheckpointRepository;
+import dev.da0hn.email.management.system.infrastructure.db.PostgreSQLPerClassTestcontainers;
+import dev.da0hn.email.management.system.infrastructure.db.repository.AccountJpaRepository;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.UUID;
+
+@PostgreSQLPerClassTestcontainers
+class MailboxCheckpointRepositoryImplIT {
+
+    @Autowired
+    private MailboxCheckpointRepository mailboxCheckpointRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountJpaRepository accountJpaRepository;
+
+    private Account account;
+
+    @BeforeEach
+    void setUp() {
+        this.accountJpaRepository.deleteAll();
+        this.account = Account.builder()
+            .id(UUID.randomUUID())
+            .name("Test Account")
+            .createdAt(LocalDateTime.now())
+            .updatedAt(LocalDateTime.now())
+            .accountCredentials(
+                AccountCredentials.builder()
+                    .email("test@example.com")
+                    .password("encrypted_password")
+                    .build()
+            )
+            .emailConnectionDetails(
+                EmailConnectionDetails.builder()
+                    .host("imap.example.com")
+                    .port(993)
+                    .protocol("imaps")
+                    .build()
+            )
+            .rules(new HashSet<>())
+            .ruleMatchMode(RuleMatchMode.ALL_MATCHES)
+            .build();
+        this.accountRepository.save(this.account);
+    }
+
+    @Test
+    @DisplayName("Should save and find checkpoint by account and folder")
+    void shouldSaveAndFindCheckpoint() {
+
+        this.mailboxCheckpointRepository.save(new MailboxCheckpoint(this.account.id(), "INBOX", 7, 42));
+
+        final var checkpoint = this.mailboxCheckpointRepository.findByAccountIdAndFolder(this.account.id(), "INBOX");
+        Assertions.assertThat(checkpoint).isPresent();
+        Assertions.assertThat(checkpoint.get().uidValidity()).isEqualTo(7);
+        Assertions.assertThat(checkpoint.get().lastUid()).isEqualTo(42);
+        Assertions.assertThat(this.mailboxCheckpointRepository.findByAccountIdAndFolder(this.account.id(), "Archive")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should overwrite checkpoint of the same folder")
+    void shouldOverwriteCheckpointOfSameFolder() {
+
+        this.mailboxCheckpointRepository.save(new MailboxCheckpoint(this.account.id(), "INBOX", 7, 42));
+        this.mailboxCheckpointRepository.save(new MailboxCheckpoint(this.account.id(), "INBOX", 8, 3));
+
+        final var checkpoint = this.mailboxCheckpointRepository.findByAccountIdAndFolder(this.account.id(), "INBOX");
+        Assertions.assertThat(checkpoint).isPresent();
+        Assertions.assertThat(checkpoint.get().uidValidity()).isEqualTo(8);
+        Assertions.assertThat(checkpoint.get().lastUid()).isEqualTo(3);
+    }
+
+}
@@ -4,7 +4,12 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import dev.da0hn.email.management.system.core.domain.RuleAction;
 import dev.da0hn.email.management.system.core.domain.RuleCriteriaOperator;
 import dev.da0hn.email.management.system.core.domain.RuleCriteriaType;
+import dev.da0hn.email.management.system.core.domain.RuleMatchMode;
 import dev.da0hn.email.management.system.core.ports.api.AccountService;
+import dev.da0hn.email.management.system.core.ports.api.InvalidCorpusException;
+import dev.da0hn.email.management.system.core.ports.api.InvalidRuleException;
+import dev.da0hn.email.management.system.core.ports.api.RuleBackfillService;
+import dev.da0hn.email.management.system.core.ports.api.RuleSimulationService;
 import dev.da0hn.email.management.system.core.ports.api.dto.AccountOutput;
 import dev.da0hn.email.management.system.core.ports.api.dto.DetailedAccountOutput;
 import dev.da0hn.email.management.system.core.ports.api.dto.DetailedRuleOutput;
@@ -14,7 +19,9 @@ import dev.da0hn.email.management.system.core.ports.api.dto.NewAccountOutput;
 import dev.da0hn.email.management.system.core.ports.api.dto.NewRuleCriteriaInput;
 import dev.da0hn.email.management.system.core.ports.api.dto.NewRuleInput;
 import dev.da0hn.email.management.system.core.ports.api.dto.NewRuleOutput;
+import dev.da0hn.email.management.system.core.ports.api.dto.RuleBackfillOutput;
 import dev.da0hn.email.management.system.core.ports.api.dto.RuleCriteriaOutput;
+import dev.da0hn.email.management.system.core.ports.api.dto.RuleSimulationOutput;
 import dev.da0hn.email.management.system.infrastructure.web.error.GlobalExceptionHandler;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
@@ -24,6 +31,8 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Set;
@@ -33,6 +42,7 @@ import java.util.stream.Collectors;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -54,12 +64,18 @@ class AccountControllerTest {
 
     private AccountService accountService;
 
+    private RuleBackfillService ruleBackfillService;
+
+    private RuleSimulationService ruleSimulationService;
+
     @BeforeEach
     void setUp() {
         this.accountService = mock(AccountService.class);
+        this.ruleBackfillService = mock(RuleBackfillService.class);
+        this.ruleSimulationService = mock(RuleSimulationService.class);
         this.objectMapper = new ObjectMapper();
         this.mockMvc = MockMvcBuilders
-            .standaloneSetup(new AccountController(this.accountService))
+            .standaloneSetup(new AccountController(this.accountService, this.ruleBackfillService, this.ruleSimulationService))
             .setControllerAdvice(new GlobalExceptionHandler())
             .build();
     }
@@ -262,7 +278,9 @@ class AccountControllerTest {
                     criteria.type(),
                     criteria.operator()
                 ))
-                .collect(Collectors.toSet())
+                .collect(Collectors.toSet()),
+            Set.of(),
+            0
         );
 
         when(this.accountService.createRule(any())).thenReturn(output);
@@ -309,7 +327,9 @@ class AccountControllerTest {
                     criteria.type(),
                     criteria.operator()
                 ))
-                .collect(Collectors.toSet())
+                .collect(Collectors.toSet()),
+            Set.of(),
+            0
         );
 
         when(this.accountService.createRule(any())).thenReturn(output);
@@ -356,7 +376,9 @@ class AccountControllerTest {
                     criteria.type(),
                     criteria.operator()
                 ))
-                .collect(Collectors.toSet())
+                .collect(Collectors.toSet()),
+            Set.of(),
+            0
         );
 
         when(this.accountService.createRule(any())).thenReturn(output);
@@ -404,6 +426,35 @@ class AccountControllerTest {
             .andExpect(jsonPath("$.errors[0].message").value("Account not found"));
     }
 
+    @Test
+    @DisplayName("Deve retornar erro quando o padrão da regra não pode ser compilado")
+    void shouldReturnBadRequestWhenRulePatternIsInvalid() throws Exception {
+        final var accountId = UUID.randomUUID();
+        final var input = new NewRuleInput(
+            accountId,
+            "Match Invoices",
+            "Match invoice subjects",
+            RuleAction.ARCHIVE,
+            Set.of(new NewRuleCriteriaInput(
+                "(a)\\1",
+                RuleCriteriaType.SUBJECT,
+                RuleCriteriaOperator.MATCHES
+            )),
+            null
+        );
+
+        when(this.accountService.createRule(any()))
+            .thenThrow(new InvalidRuleException("Invalid pattern '(a)\\1': Backreferences are not supported", null));
+
+        this.mockMvc.perform(post("/api/v1/accounts/{accountId}/rules", accountId)
+                                 .contentType(MediaType.APPLICATION_JSON)
+                                 .content(this.objectMapper.writeValueAsString(input)))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.status").value(BAD_REQUEST_STATUS))
+            .andExpect(jsonPath("$.message").value("Invalid rule"))
+            .andExpect(jsonPath("$.errors[0].message").value("Invalid pattern '(a)\\1': Backreferences are not supported"));
+    }
+
     @Test
     @DisplayName("Deve retornar erro quando campos obrigatórios da regra estão faltando")
     void shouldReturnErrorWhenRuleRequiredFieldsAreMissing() throws Exception {
@@ -550,7 +601,9 @@ class AccountControllerTest {
                 RuleCriteriaOperator.EQUALS
             )),
             "INBOX",
-            "Archive"
+            "Archive",
+            Set.of(),
+            0
         );
         final var account = new DetailedAccountOutput(
             id,
@@ -561,7 +614,8 @@ class AccountControllerTest {
             "imap",
             now,
             now,
-            Set.of(rule)
+            Set.of(rule),
+            RuleMatchMode.ALL_MATCHES
         );
         when(this.accountService.findById(id)).thenReturn(account);
 
@@ -651,4 +705,91 @@ class AccountControllerTest {
             .andExpect(jsonPath("$.errors[0].message").value("Rule not found"));
     }
 
+    @Test
+    @DisplayName("Deve iniciar o backfill da regra e retornar o progresso")
+    void shouldStartRuleBackfill() throws Exception {
+        final var accountId = UUID.randomUUID();
+        final var ruleId = UUID.randomUUID();
+        final var now = LocalDateTime.now();
+        final var output = new RuleBackfillOutput(
+            accountId,
+            ruleId,
+            RuleBackfillOutput.Status.QUEUED,
+            1,
+            0,
+            0,
+            0,
+            0,
+            0,
+            null,
+            now,
+            now
+        );
+        when(this.ruleBackfillService.start(accountId, ruleId)).thenReturn(output);
+
+        this.mockMvc.perform(post("/api/v1/accounts/{accountId}/rules/{ruleId}/backfill", accountId, ruleId))
+            .andExpect(status().isAccepted())
+            .andExpect(jsonPath("$.ruleId").value(ruleId.toString()))
+            .andExpect(jsonPath("$.status").value("QUEUED"));
+
+        verify(this.ruleBackfillService).start(accountId, ruleId);
+    }
+
+    @Test
+    @DisplayName("Deve retornar 404 quando não houver backfill para a regra")
+    void shouldReturnNotFoundWhenBackfillDoesNotExist() throws Exception {
+        final var accountId = UUID.randomUUID();
+        final var ruleId = UUID.randomUUID();
+        when(this.ruleBackfillService.findProgress(accountId, ruleId))
+            .thenThrow(new EntityNotFoundException("Backfill not found"));
+
+        this.mockMvc.perform(get("/api/v1/accounts/{accountId}/rules/{ruleId}/backfill", accountId, ruleId))
+            .andExpect(status().is(NOT_FOUND_STATUS));
+    }
+
+    @Test
+    @DisplayName("Deve simular as regras da conta sobre o corpus enviado no corpo da requisição")
+    void shouldSimulateRulesOverUploadedCorpus() throws Exception {
+        final var accountId = UUID.randomUUID();
+        final var ruleId = UUID.randomUUID();
+        final var mbox = "From a@b.com Mon Jan  1 00:00:00 2024\nSubject: hi\n\nbody\n";
+        when(this.ruleSimulationService.simulate(eq(accountId), any(InputStream.class))).thenAnswer(invocation -> {
+            final InputStream corpus = invocation.getArgument(1);
+            final var received = new String(corpus.readAllBytes(), StandardCharsets.UTF_8);
+            return new RuleSimulationOutput(
+                accountId,
+                received.equals(mbox) ? 1 : 0,
+                0,
+                5,
+                200,
+                List.of(new RuleSimulationOutput.RuleHits(ruleId, "Boss", 1, List.of("#1")))
+            );
+        });
+
+        this.mockMvc.perform(post("/api/v1/accounts/{accountId}/simulations", accountId)
+                                 .contentType("application/mbox")
+                                 .content(mbox.getBytes(StandardCharsets.UTF_8)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.messages").value(1))
+            .andExpect(jsonPath("$.messagesPerSecond").value(200.0))
+            .andExpect(jsonPath("$.rules[0].ruleId").value(ruleId.toString()))
+            .andExpect(jsonPath("$.rules[0].exampleMessageIds[0]").value("#1"));
+    }
+
+    @Test
+    @DisplayName("Deve retornar 400 quando o corpus enviado não puder ser lido")
+    void shouldReturnBadRequestWhenCorpusCannotBeRead() throws Exception {
+        final var accountId = UUID.randomUUID();
+        when(this.ruleSimulationService.simulate(eq(accountId), any(InputStream.class)))
+            .thenThrow(new InvalidCorpusException("Could not read corpus: Mbox line longer than 26214400 bytes"));
+
+        this.mockMvc.perform(post("/api/v1/accounts/{accountId}/simulations", accountId)
+                                 .contentType("application/mbox")
+                                 .content("From a@b.com Mon Jan  1 00:00:00 2024\n".getBytes(StandardCharsets.UTF_8)))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.status").value(BAD_REQUEST_STATUS))
+            .andExpect(jsonPath("$.message").value("Invalid corpus"))
+            .andExpect(jsonPath("$.errors[0].message").value("Could not read corpus: Mbox line longer than 26214400 bytes"));
+    }
+
 }